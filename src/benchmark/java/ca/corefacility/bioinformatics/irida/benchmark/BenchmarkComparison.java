@@ -0,0 +1,143 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH json result file with the baseline results and reports any
+ * benchmark that has become slower by more than a threshold. A benchmark only
+ * counts as a regression when it's slower by more than the threshold and its
+ * score's error interval doesn't overlap the baseline's, so that noisy
+ * benchmarks don't fail the comparison. Exits with a non-zero status if there
+ * are any regressions, so it can be used to fail a build.
+ * <p>
+ * Usage: {@code BenchmarkComparison <baseline.json> <results.json> [threshold percent]}
+ */
+public class BenchmarkComparison {
+
+	private static final double DEFAULT_THRESHOLD = 10;
+
+	// modes where a bigger score is better; the rest are times
+	private static final String THROUGHPUT_MODE = "thrpt";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison <baseline.json> <results.json> [threshold percent]");
+			System.exit(2);
+		}
+		double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+
+		Map<String, JsonNode> baseline = readResults(Paths.get(args[0]));
+		Map<String, JsonNode> results = readResults(Paths.get(args[1]));
+		warnIfDifferentJvm(baseline, results);
+
+		int regressions = 0;
+		for (Entry<String, JsonNode> result : results.entrySet()) {
+			JsonNode base = baseline.get(result.getKey());
+			if (base == null) {
+				System.out.println(String.format("%-100s %12s", result.getKey(), "new"));
+				continue;
+			}
+
+			double change = percentSlower(base, result.getValue());
+			String verdict = "";
+			if (change > threshold) {
+				if (errorsOverlap(base, result.getValue())) {
+					verdict = "  within error";
+				} else {
+					verdict = "  REGRESSION";
+					regressions++;
+				}
+			}
+			System.out.println(String.format("%-100s %+11.1f%%%s", result.getKey(), change, verdict));
+		}
+
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) are more than " + threshold
+					+ "% slower than the baseline, beyond the error of their scores");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * How much slower a result is than the baseline, as a percentage.
+	 * Negative if the result is faster.
+	 */
+	static double percentSlower(JsonNode baseline, JsonNode result) {
+		double before = baseline.path("primaryMetric").path("score").asDouble();
+		double after = result.path("primaryMetric").path("score").asDouble();
+		if (THROUGHPUT_MODE.equals(result.path("mode").asText())) {
+			return (before - after) / before * 100;
+		}
+		return (after - before) / before * 100;
+	}
+
+	/**
+	 * Whether the error intervals of a result and the baseline overlap, in
+	 * which case the difference between them may be noise.
+	 */
+	static boolean errorsOverlap(JsonNode baseline, JsonNode result) {
+		double before = baseline.path("primaryMetric").path("score").asDouble();
+		double after = result.path("primaryMetric").path("score").asDouble();
+		return Math.abs(after - before) <= scoreError(baseline) + scoreError(result);
+	}
+
+	/**
+	 * The error of a result's score. JMH reports NaN when there are too few
+	 * iterations to compute it, which is treated as no error.
+	 */
+	private static double scoreError(JsonNode result) {
+		double error = result.path("primaryMetric").path("scoreError").asDouble();
+		return Double.isNaN(error) ? 0 : error;
+	}
+
+	/**
+	 * Warn if the results were recorded on a different JVM than the baseline,
+	 * as they won't be comparable.
+	 */
+	private static void warnIfDifferentJvm(Map<String, JsonNode> baseline, Map<String, JsonNode> results) {
+		if (baseline.isEmpty() || results.isEmpty()) {
+			return;
+		}
+		String baselineJdk = baseline.values().iterator().next().path("jdkVersion").asText();
+		String resultsJdk = results.values().iterator().next().path("jdkVersion").asText();
+		if (!baselineJdk.equals(resultsJdk)) {
+			System.out.println("WARNING: the baseline was recorded with JDK " + baselineJdk
+					+ " but the results with JDK " + resultsJdk + ", so they may not be comparable");
+		}
+	}
+
+	/**
+	 * Read a JMH json result file, keyed by benchmark name, mode and
+	 * parameters.
+	 */
+	static Map<String, JsonNode> readResults(Path file) throws IOException {
+		Map<String, JsonNode> results = new LinkedHashMap<>();
+		for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+			StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+			key.append(" (").append(result.path("mode").asText());
+
+			// sort the parameters so the key doesn't depend on their order
+			Map<String, String> params = new TreeMap<>();
+			Iterator<Entry<String, JsonNode>> fields = result.path("params").fields();
+			while (fields.hasNext()) {
+				Entry<String, JsonNode> param = fields.next();
+				params.put(param.getKey(), param.getValue().asText());
+			}
+			for (Entry<String, String> param : params.entrySet()) {
+				key.append(", ").append(param.getKey()).append("=").append(param.getValue());
+			}
+			results.put(key.append(")").toString(), result);
+		}
+		return results;
+	}
+}
@@ -0,0 +1,179 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates the synthetic data used by the benchmarks. Everything is generated
+ * from a fixed seed, so every run (and every machine) benchmarks exactly the
+ * same data and results can be compared with the baseline.
+ */
+public class BenchmarkData {
+
+	/**
+	 * Seed for all generated data.
+	 */
+	public static final long SEED = 20171017L;
+
+	private static final char[] BASES = { 'A', 'C', 'G', 'T' };
+
+	// quality scores in the phred+33 range that illumina instruments produce
+	private static final char LOWEST_QUALITY = '#';
+	private static final char HIGHEST_QUALITY = 'J';
+
+	private static final String[] GENERA = { "Escherichia", "Salmonella", "Listeria", "Campylobacter", "Shigella",
+			"Vibrio", "Yersinia", "Clostridium", "Staphylococcus", "Streptococcus" };
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Create a new random number generator with the benchmark seed.
+	 * 
+	 * @return a {@link Random} that always generates the same values.
+	 */
+	public static Random random() {
+		return new Random(SEED);
+	}
+
+	/**
+	 * Create a temporary directory for a benchmark's files.
+	 * 
+	 * @param name
+	 *            the name of the benchmark.
+	 * @return the new directory.
+	 * @throws IOException
+	 *             if the directory could not be created.
+	 */
+	public static Path createDirectory(String name) throws IOException {
+		return Files.createTempDirectory("irida-benchmark-" + name);
+	}
+
+	/**
+	 * Remove a directory created by {@link #createDirectory(String)} along
+	 * with everything in it.
+	 * 
+	 * @param directory
+	 *            the directory to remove.
+	 * @throws IOException
+	 *             if the directory could not be read.
+	 */
+	public static void deleteDirectory(Path directory) throws IOException {
+		if (directory == null || !Files.exists(directory)) {
+			return;
+		}
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	/**
+	 * Write a FASTQ file of random reads.
+	 * 
+	 * @param file
+	 *            the file to write.
+	 * @param reads
+	 *            the number of reads in the file.
+	 * @param readLength
+	 *            the length of each read.
+	 * @param compress
+	 *            whether or not to gzip the file.
+	 * @throws IOException
+	 *             if the file could not be written.
+	 */
+	public static void writeFastq(Path file, int reads, int readLength, boolean compress) throws IOException {
+		Random random = random();
+		char[] sequence = new char[readLength];
+		char[] quality = new char[readLength];
+
+		try (OutputStream out = compress ? new GZIPOutputStream(Files.newOutputStream(file))
+				: Files.newOutputStream(file);
+				Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII))) {
+			for (int read = 0; read < reads; read++) {
+				for (int i = 0; i < readLength; i++) {
+					sequence[i] = BASES[random.nextInt(BASES.length)];
+					quality[i] = (char) (LOWEST_QUALITY + random.nextInt(HIGHEST_QUALITY - LOWEST_QUALITY + 1));
+				}
+				writer.write("@read" + read + "/1\n");
+				writer.write(sequence);
+				writer.write("\n+\n");
+				writer.write(quality);
+				writer.write('\n');
+			}
+		}
+	}
+
+	/**
+	 * Generate the names of files uploaded for a sequencing run, in the
+	 * illumina naming scheme. Every tenth sample is single end, the rest are
+	 * paired. The names are shuffled the way a browser might hand them over.
+	 * 
+	 * @param samples
+	 *            the number of samples in the run.
+	 * @return the file names.
+	 */
+	public static List<String> sequencingRunFileNames(int samples) {
+		List<String> names = new ArrayList<>();
+		for (int sample = 1; sample <= samples; sample++) {
+			String prefix = "sample" + sample + "_S" + sample + "_L001_";
+			names.add(prefix + "R1_001.fastq.gz");
+			if (sample % 10 != 0) {
+				names.add(prefix + "R2_001.fastq.gz");
+			}
+		}
+		Collections.shuffle(names, random());
+		return names;
+	}
+
+	/**
+	 * Write a taxonomy in turtle format with the same shape as the NCBI
+	 * taxonomy that IRIDA loads: every term is a subclass of its parent, and
+	 * the whole tree sits under the bacteria term.
+	 * 
+	 * @param file
+	 *            the file to write, which must end in .ttl.
+	 * @param depth
+	 *            the number of levels below the root.
+	 * @param breadth
+	 *            the number of children of each term.
+	 * @throws IOException
+	 *             if the file could not be written.
+	 */
+	public static void writeTaxonomy(Path file, int depth, int breadth) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n");
+			writer.write("@prefix obo: <http://purl.obolibrary.org/obo/> .\n\n");
+			writer.write("obo:NCBITaxon_2 rdfs:label \"Bacteria\" .\n");
+
+			List<Integer> parents = new ArrayList<>();
+			parents.add(2);
+			int next = 3;
+			for (int level = 0; level < depth; level++) {
+				List<Integer> children = new ArrayList<>();
+				for (int parent : parents) {
+					for (int child = 0; child < breadth; child++) {
+						int id = next++;
+						String genus = GENERA[(id + level) % GENERA.length];
+						writer.write("obo:NCBITaxon_" + id + " rdfs:subClassOf obo:NCBITaxon_" + parent
+								+ " ; rdfs:label \"" + genus + " level" + level + " taxon" + id + "\" .\n");
+						children.add(id);
+					}
+				}
+				parents = children;
+			}
+		}
+	}
+}
@@ -0,0 +1,91 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.MessageSource;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportToFile;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Benchmarks exporting a table of samples to a file, with rows shaped like the
+ * project samples table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class DataTablesExportBenchmark {
+
+	private static final List<String> HEADERS = ImmutableList.of("ID", "Sample Name", "Organism", "Project ID",
+			"Project Name", "Created By", "Created Date", "Modified Date");
+
+	@Param({ "1000", "50000" })
+	public int rows;
+
+	@Param({ "csv", "excel" })
+	public DataTablesExportTypes type;
+
+	private List<Row> models;
+
+	@Setup
+	public void setup() {
+		Random random = BenchmarkData.random();
+		models = new ArrayList<>(rows);
+		for (int i = 0; i < rows; i++) {
+			models.add(new Row(ImmutableList.of(String.valueOf(i), "sample-" + random.nextInt(),
+					"Escherichia coli", String.valueOf(i % 20), "Project " + (i % 20), "user" + random.nextInt(50),
+					"2017-10-17 12:00:00", "2017-10-17 12:00:00")));
+		}
+	}
+
+	@Benchmark
+	public MockHttpServletResponse writeFile() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		DataTablesExportToFile.writeFile(type, response, "samples", models, HEADERS);
+		return response;
+	}
+
+	/**
+	 * A row of the table.
+	 */
+	private static class Row implements DataTablesExportable {
+		private final List<String> values;
+
+		public Row(List<String> values) {
+			this.values = values;
+		}
+
+		@Override
+		public List<String> getExportableTableRow() {
+			return values;
+		}
+
+		@Override
+		public List<String> getExportableTableHeaders(MessageSource messageSource, Locale locale) {
+			return HEADERS;
+		}
+	}
+}
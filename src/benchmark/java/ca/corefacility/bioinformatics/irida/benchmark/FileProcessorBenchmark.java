@@ -0,0 +1,139 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.StaticMessageSource;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.SharedSequenceFileRead;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.FastQCChartDataRepository;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ContentAddressedFileStore;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Benchmarks the processors that run on every uploaded FASTQ file, one at a
+ * time and together in a single shared read as the processing chain runs them.
+ * The repository is a mock, so only the work on the file is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class FileProcessorBenchmark {
+
+	private static final int READ_LENGTH = 150;
+
+	@Param({ "10000", "100000" })
+	public int reads;
+
+	private Path directory;
+	private Path fastq;
+	private Path compressedFastq;
+
+	private FastqcFileProcessor fastqcFileProcessor;
+	private ChecksumFileProcessor checksumFileProcessor;
+	private GzipFileProcessor gzipFileProcessor;
+
+	// decompressed files written during an iteration, removed after it
+	private final List<Path> decompressed = new ArrayList<>();
+
+	@Setup
+	public void setup() throws IOException {
+		directory = BenchmarkData.createDirectory("processors");
+		fastq = directory.resolve("reads.fastq");
+		compressedFastq = directory.resolve("reads.fastq.gz");
+		BenchmarkData.writeFastq(fastq, reads, READ_LENGTH, false);
+		BenchmarkData.writeFastq(compressedFastq, reads, READ_LENGTH, true);
+
+		StaticMessageSource messageSource = new StaticMessageSource();
+		messageSource.setUseCodeAsDefaultMessage(true);
+		SequenceFileRepository sequenceFileRepository = mock(SequenceFileRepository.class);
+		when(sequenceFileRepository.saveMetadata(any(SequenceFile.class))).then(returnsFirstArg());
+
+		fastqcFileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository,
+				mock(FastQCChartDataRepository.class));
+		checksumFileProcessor = new ChecksumFileProcessor(sequenceFileRepository,
+				new ContentAddressedFileStore(directory.resolve(".blobs"), false));
+		gzipFileProcessor = new GzipFileProcessor(sequenceFileRepository, false);
+	}
+
+	@TearDown(Level.Iteration)
+	public void removeDecompressed() throws IOException {
+		for (Path file : decompressed) {
+			BenchmarkData.deleteDirectory(file.getParent());
+		}
+		decompressed.clear();
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		BenchmarkData.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public SequenceFile fastqc() {
+		// a file can only have one FastQC analysis, so use a new one each time
+		SequenceFile file = new SequenceFile(fastq);
+		fastqcFileProcessor.process(new SingleEndSequenceFile(file));
+		return file;
+	}
+
+	@Benchmark
+	public SequenceFile checksum() {
+		SequenceFile file = new SequenceFile(fastq);
+		checksumFileProcessor.process(new SingleEndSequenceFile(file));
+		return file;
+	}
+
+	@Benchmark
+	public SequenceFile decompress() {
+		SequenceFile file = new SequenceFile(compressedFastq);
+		gzipFileProcessor.processSingleFile(file);
+		decompressed.add(file.getFile());
+		return file;
+	}
+
+	@Benchmark
+	public SequenceFile sharedRead() {
+		SequenceFile file = new SequenceFile(compressedFastq);
+		List<StreamingFileProcessor> processors = ImmutableList.of(gzipFileProcessor, checksumFileProcessor,
+				fastqcFileProcessor);
+		SharedSequenceFileRead read = SharedSequenceFileRead.read(file, processors);
+		for (StreamingFileProcessor processor : processors) {
+			read.complete(processor);
+		}
+		decompressed.add(file.getFile());
+		return file;
+	}
+}
@@ -0,0 +1,76 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.ria.utilities.FileUtilities;
+
+/**
+ * Benchmarks building the zip file of an analysis' output files for download.
+ * The zip is written to an in-memory response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class FileUtilitiesBenchmark {
+
+	private static final int READ_LENGTH = 150;
+
+	@Param({ "5", "20" })
+	public int outputFiles;
+
+	@Param({ "10000" })
+	public int reads;
+
+	private Path directory;
+	private Set<AnalysisOutputFile> files;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = BenchmarkData.createDirectory("zip");
+		files = new HashSet<>();
+		for (int i = 0; i < outputFiles; i++) {
+			Path file = directory.resolve("output" + i + ".fastq");
+			BenchmarkData.writeFastq(file, reads, READ_LENGTH, false);
+			AnalysisOutputFile outputFile = new AnalysisOutputFile(file, "output" + i, "execution-" + i, null);
+			// the provenance written beside each file includes its identifier,
+			// which a saved output file always has
+			ReflectionTestUtils.setField(outputFile, "id", (long) i + 1);
+			files.add(outputFile);
+		}
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		BenchmarkData.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public MockHttpServletResponse createAnalysisOutputFileZippedResponse() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		FileUtilities.createAnalysisOutputFileZippedResponse(response, "benchmark analysis", files);
+		return response;
+	}
+}
@@ -0,0 +1,63 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl.RelativePathTranslatorListener;
+
+/**
+ * Benchmarks the work done on every {@link SequenceFile} that's loaded from
+ * (and saved to) the database: translating its stored relative path to an
+ * absolute path and back with the cached path field accessors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class PathFieldsBenchmark {
+
+	private static final Path BASE_DIRECTORY = Paths.get("/var/lib/irida/sequence-files");
+	private static final Path RELATIVE_PATH = Paths.get("1", "2", "reads.fastq");
+
+	private RelativePathTranslatorListener listener;
+	private SequenceFile sequenceFile;
+
+	@Setup
+	public void setup() {
+		RelativePathTranslatorListener.addBaseDirectory(SequenceFile.class, BASE_DIRECTORY);
+		listener = new RelativePathTranslatorListener();
+		sequenceFile = new SequenceFile(RELATIVE_PATH);
+	}
+
+	@Benchmark
+	public SequenceFile hydrate() {
+		// as hibernate does after loading a row
+		sequenceFile.setFile(RELATIVE_PATH);
+		listener.absolutePath(sequenceFile);
+		return sequenceFile;
+	}
+
+	@Benchmark
+	public SequenceFile hydrateAndDehydrate() {
+		// as hibernate does for a loaded entity that's then updated
+		sequenceFile.setFile(RELATIVE_PATH);
+		listener.absolutePath(sequenceFile);
+		listener.relativePath(sequenceFile);
+		return sequenceFile;
+	}
+}
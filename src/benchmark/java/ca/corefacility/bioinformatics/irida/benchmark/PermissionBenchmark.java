@@ -0,0 +1,215 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan.Filter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.envers.repository.support.EnversRevisionRepositoryFactoryBean;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.Role;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin.UserGroupRole;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Benchmarks checking whether a user can read a {@link Project}, with the
+ * memberships stored in an embedded database. The user is on half of their
+ * projects directly and on the other half through a group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class PermissionBenchmark {
+
+	private static final String USERNAME = "benchmark";
+
+	// projects the user isn't on, so the database isn't only the user's
+	private static final int OTHER_PROJECTS = 1000;
+
+	/**
+	 * How long the user's roles are cached for. 0 goes to the database on
+	 * every check.
+	 */
+	@Param({ "0", "60" })
+	public long cacheExpiry;
+
+	@Param({ "100" })
+	public int projects;
+
+	private AnnotationConfigApplicationContext context;
+	private ReadProjectPermission permission;
+	private Authentication authentication;
+
+	private List<Project> userProjects;
+	private int next;
+
+	@Setup
+	public void setup() {
+		context = new AnnotationConfigApplicationContext(PermissionBenchmarkConfig.class);
+
+		TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		EntityManager entityManager = SharedEntityManagerCreator
+				.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+		userProjects = transaction.execute(status -> createMemberships(entityManager));
+
+		ProjectMembershipCache membershipCache = new ProjectMembershipCache(context.getBean(UserRepository.class),
+				context.getBean(ProjectUserJoinRepository.class), context.getBean(UserGroupProjectJoinRepository.class),
+				1000, cacheExpiry);
+		permission = new ReadProjectPermission(context.getBean(ProjectRepository.class), membershipCache);
+		authentication = new UsernamePasswordAuthenticationToken(USERNAME, null, ImmutableList.of(Role.ROLE_USER));
+	}
+
+	@TearDown
+	public void teardown() {
+		context.close();
+	}
+
+	@Benchmark
+	public boolean readProject() {
+		return permission.isAllowed(authentication, nextProject());
+	}
+
+	@Benchmark
+	public boolean readProjectById() {
+		// as the checks on service methods that take an identifier do
+		return permission.isAllowed(authentication, nextProject().getId());
+	}
+
+	private Project nextProject() {
+		next = (next + 1) % userProjects.size();
+		return userProjects.get(next);
+	}
+
+	/**
+	 * Create the benchmark user, the projects they're on, and the projects
+	 * they aren't on.
+	 */
+	private List<Project> createMemberships(EntityManager entityManager) {
+		User user = createUser(USERNAME);
+		entityManager.persist(user);
+
+		UserGroup group = new UserGroup("benchmark group");
+		entityManager.persist(group);
+		entityManager.persist(new UserGroupJoin(user, group, UserGroupRole.GROUP_MEMBER));
+
+		List<Project> memberships = new ArrayList<>();
+		for (int i = 0; i < projects; i++) {
+			Project project = new Project("project " + i);
+			entityManager.persist(project);
+			if (i % 2 == 0) {
+				entityManager.persist(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER));
+			} else {
+				entityManager.persist(new UserGroupProjectJoin(project, group, ProjectRole.PROJECT_USER));
+			}
+			memberships.add(project);
+		}
+
+		User other = createUser("other");
+		entityManager.persist(other);
+		for (int i = 0; i < OTHER_PROJECTS; i++) {
+			Project project = new Project("other project " + i);
+			entityManager.persist(project);
+			entityManager.persist(new ProjectUserJoin(project, other, ProjectRole.PROJECT_OWNER));
+		}
+
+		return memberships;
+	}
+
+	private static User createUser(String username) {
+		User user = new User(username, username + "@nowhere.ca", "Password1!", "Benchmark", "User", "1234");
+		user.setSystemRole(Role.ROLE_USER);
+		return user;
+	}
+
+	/**
+	 * Just enough of the repository configuration to load project memberships
+	 * from an embedded database. The repositories are created the same way
+	 * as the application's so that their revision methods resolve, but
+	 * Envers is turned off, since it needs a logged in user to record a
+	 * revision for every change.
+	 */
+	@Configuration
+	@EnableTransactionManagement
+	@EnableJpaRepositories(basePackageClasses = ProjectRepository.class, includeFilters = @Filter(type = FilterType.ASSIGNABLE_TYPE, classes = {
+			ProjectRepository.class, UserRepository.class, ProjectUserJoinRepository.class,
+			UserGroupProjectJoinRepository.class }), repositoryFactoryBeanClass = EnversRevisionRepositoryFactoryBean.class)
+	static class PermissionBenchmarkConfig {
+
+		@Bean
+		public DataSource dataSource() {
+			return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.HSQL).setName("irida-benchmark")
+					.build();
+		}
+
+		@Bean
+		public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			Properties properties = new Properties();
+			properties.setProperty("hibernate.dialect", "org.hibernate.dialect.HSQLDialect");
+			properties.setProperty("hibernate.hbm2ddl.auto", "create");
+			properties.setProperty("hibernate.listeners.envers.autoRegister", "false");
+
+			LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+			factory.setDataSource(dataSource);
+			factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			factory.setJpaProperties(properties);
+			factory.setPackagesToScan("ca.corefacility.bioinformatics.irida.model",
+					"ca.corefacility.bioinformatics.irida.repositories.relational.auditing");
+			return factory;
+		}
+
+		@Bean
+		public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import ca.corefacility.bioinformatics.irida.ria.web.samples.SamplePairer;
+
+/**
+ * Benchmarks pairing up the files of a sequencing run uploaded through the web
+ * interface.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class SamplePairerBenchmark {
+
+	@Param({ "10", "100", "500" })
+	public int samples;
+
+	private List<MultipartFile> files;
+
+	@Setup
+	public void setup() {
+		files = new ArrayList<>();
+		for (String name : BenchmarkData.sequencingRunFileNames(samples)) {
+			files.add(new MockMultipartFile(name, name, "application/octet-stream", new byte[0]));
+		}
+	}
+
+	@Benchmark
+	public Map<String, List<MultipartFile>> getPairedFiles() {
+		return SamplePairer.getPairedFiles(files);
+	}
+}
@@ -0,0 +1,63 @@
+package ca.corefacility.bioinformatics.irida.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ca.corefacility.bioinformatics.irida.service.impl.InMemoryTaxonomyService;
+import ca.corefacility.bioinformatics.irida.util.TreeNode;
+
+/**
+ * Benchmarks searching the taxonomy and building the {@link TreeNode}s of the
+ * matching terms, as the organism picker does while the user types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(3)
+public class TaxonomyBenchmark {
+
+	// 6 levels of 6 children is about 56,000 terms
+	private static final int DEPTH = 6;
+	private static final int BREADTH = 6;
+
+	@Param({ "Escherichia", "taxon1234" })
+	public String searchTerm;
+
+	private Path directory;
+	private InMemoryTaxonomyService taxonomyService;
+
+	@Setup
+	public void setup() throws IOException {
+		directory = BenchmarkData.createDirectory("taxonomy");
+		Path taxonomy = directory.resolve("taxonomy.ttl");
+		BenchmarkData.writeTaxonomy(taxonomy, DEPTH, BREADTH);
+		taxonomyService = new InMemoryTaxonomyService(taxonomy);
+	}
+
+	@TearDown
+	public void teardown() throws IOException {
+		BenchmarkData.deleteDirectory(directory);
+	}
+
+	@Benchmark
+	public Collection<TreeNode<String>> search() {
+		return taxonomyService.search(searchTerm);
+	}
+}
@@ -6,17 +6,21 @@ import java.util.Optional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import com.github.jmchilton.blend4j.galaxy.JobsClient;
 import com.github.jmchilton.blend4j.galaxy.ToolsClient;
 import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.config.services.IridaPluginConfig;
+import ca.corefacility.bioinformatics.irida.metrics.ExecutorMetrics;
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
 import ca.corefacility.bioinformatics.irida.pipeline.results.AnalysisSubmissionSampleProcessor;
 import ca.corefacility.bioinformatics.irida.pipeline.results.impl.AnalysisSubmissionSampleProcessorImpl;
 import ca.corefacility.bioinformatics.irida.pipeline.results.updater.AnalysisSampleUpdater;
@@ -105,6 +109,21 @@ public class AnalysisExecutionServiceConfig {
 	@Autowired
 	private List<AnalysisSampleUpdater> defaultAnalysisSampleUpdaters;
 
+	@Autowired
+	private MetricRegistry metricRegistry;
+
+	/**
+	 * Number of analysis output files to download from Galaxy at the same time.
+	 */
+	@Value("${galaxy.results.download.threads:" + AnalysisWorkspaceServiceGalaxy.DEFAULT_DOWNLOAD_THREADS + "}")
+	private int resultsDownloadThreads;
+
+	/**
+	 * Number of times to attempt downloading an analysis output file.
+	 */
+	@Value("${galaxy.results.download.attempts:" + AnalysisWorkspaceServiceGalaxy.DEFAULT_DOWNLOAD_ATTEMPTS + "}")
+	private int resultsDownloadAttempts;
+
 	private List<AnalysisSampleUpdater> loadPluginAnalysisSampleUpdaters() {
 		List<AnalysisSampleUpdater> pluginUpdaters = Lists.newLinkedList();
 
@@ -159,7 +178,22 @@ public class AnalysisExecutionServiceConfig {
 		return new AnalysisWorkspaceServiceGalaxy(galaxyHistoriesService, galaxyWorkflowService,
 				galaxyLibrariesService, iridaWorkflowsService, analysisCollectionServiceGalaxy(),
 				analysisProvenanceService(), analysisParameterServiceGalaxy,
-				sequencingObjectService);
+				sequencingObjectService, analysisResultsDownloadExecutor(), resultsDownloadAttempts);
+	}
+
+	/**
+	 * Executor for downloading analysis output files from Galaxy, shared by
+	 * all analyses.
+	 * 
+	 * @return the download executor
+	 */
+	@Bean(name = "analysisResultsDownloadExecutor")
+	public ThreadPoolTaskExecutor analysisResultsDownloadExecutor() {
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(resultsDownloadThreads);
+		taskExecutor.setMaxPoolSize(resultsDownloadThreads);
+		taskExecutor.setThreadNamePrefix("analysis-results-download-");
+		return ExecutorMetrics.monitor(metricRegistry, "analysisResultsDownloadExecutor", taskExecutor);
 	}
 
 	@Lazy
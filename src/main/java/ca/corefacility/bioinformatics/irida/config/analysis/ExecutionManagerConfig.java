@@ -22,6 +22,8 @@ import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerConfigurationException;
+import ca.corefacility.bioinformatics.irida.metrics.GalaxyMetrics;
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
 import ca.corefacility.bioinformatics.irida.model.upload.galaxy.GalaxyAccountEmail;
 import ca.corefacility.bioinformatics.irida.model.workflow.manager.galaxy.ExecutionManagerGalaxy;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.DataStorage;
@@ -89,6 +91,9 @@ public class ExecutionManagerConfig {
 
 	@Autowired
 	private Validator validator;
+
+	@Autowired
+	private MetricRegistry metricRegistry;
 	
 	/**
 	 * Builds a new ExecutionManagerGalaxy from the given properties.
@@ -275,7 +280,8 @@ public class ExecutionManagerConfig {
 	@Lazy
 	@Bean
 	public GalaxyHistoriesService galaxyHistoriesService() throws ExecutionManagerConfigurationException {
-		return new GalaxyHistoriesService(historiesClient(), toolsClient(), galaxyLibrariesService());
+		return new GalaxyHistoriesService(historiesClient(), toolsClient(), galaxyLibrariesService(),
+				galaxyInstance().getWebResource().path("histories"));
 	}
 
 	/**
@@ -325,12 +331,15 @@ public class ExecutionManagerConfig {
 	}
 
 	/**
-	 * @return An instance of a connection to Galaxy.
+	 * @return An instance of a connection to Galaxy. Calls made through its
+	 *         clients are timed.
 	 * @throws ExecutionManagerConfigurationException If there is an issue building the execution manager.
 	 */
 	@Lazy
 	@Bean
 	public GalaxyInstance galaxyInstance() throws ExecutionManagerConfigurationException {
-		return GalaxyInstanceFactory.get(executionManager().getLocation().toString(), executionManager().getAPIKey());
+		return GalaxyMetrics.instrument(
+				GalaxyInstanceFactory.get(executionManager().getLocation().toString(), executionManager().getAPIKey()),
+				metricRegistry);
 	}
 }
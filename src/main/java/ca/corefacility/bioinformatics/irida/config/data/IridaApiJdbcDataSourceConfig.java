@@ -124,6 +124,9 @@ public class IridaApiJdbcDataSourceConfig implements DataConfig {
 		basicDataSource.setTestOnReturn(environment.getProperty("jdbc.pool.testOnReturn", Boolean.class));
 		basicDataSource.setTestWhileIdle(environment.getProperty("jdbc.pool.testWhileIdle", Boolean.class));
 		basicDataSource.setValidationQuery(environment.getProperty("jdbc.pool.validationQuery"));
+		// send the statements of a JDBC batch (bulk metadata imports) to the
+		// database together instead of one at a time
+		basicDataSource.addConnectionProperty("rewriteBatchedStatements", "true");
 		
 		logger.debug("database maxWaitMillis [" + basicDataSource.getMaxWaitMillis() + "]");
 
@@ -156,6 +159,14 @@ public class IridaApiJdbcDataSourceConfig implements DataConfig {
 		properties.setProperty("org.hibernate.envers.store_data_at_delete",
 				environment.getProperty("org.hibernate.envers.store_data_at_delete"));
 		properties.setProperty("show_sql", "false");
+
+		// load the eager associations of the entities in a listing (runs,
+		// remote statuses, file properties, QC entries) a batch at a time
+		// rather than one select per entity. Padded batches load any number
+		// of entities up to the batch size in a single select.
+		properties.setProperty("hibernate.default_batch_fetch_size",
+				environment.getProperty("hibernate.default_batch_fetch_size", "100"));
+		properties.setProperty("hibernate.batch_fetch_style", "PADDED");
 		return properties;
 	}
 }
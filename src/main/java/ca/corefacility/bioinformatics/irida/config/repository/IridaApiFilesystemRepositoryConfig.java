@@ -3,7 +3,11 @@ package ca.corefacility.bioinformatics.irida.config.repository;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ContentAddressedFileStore;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.FileStorageLayout;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl.RelativePathTranslatorListener;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.IdentifierStorageLayout;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ShardedStorageLayout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +39,12 @@ public class IridaApiFilesystemRepositoryConfig {
 	private @Value("${output.file.base.directory}")
 	String outputFileBaseDirectory;
 
+	private @Value("${sequence.file.storage.shard.levels:0}")
+	int sequenceFileShardLevels;
+
+	private @Value("${sequence.file.storage.deduplicate:false}")
+	boolean deduplicateSequenceFiles;
+
 	@Autowired
 	private ApplicationContext applicationContext;
 
@@ -49,6 +59,37 @@ public class IridaApiFilesystemRepositoryConfig {
 		return new RelativePathTranslatorListener();
 	}
 
+	/**
+	 * The layout for new sequence files on disk. Sharding is off by default;
+	 * existing files stay where they are unless they're moved with
+	 * {@link ca.corefacility.bioinformatics.irida.util.SequenceFileShardMigration}.
+	 * 
+	 * @return the {@link FileStorageLayout} for sequence files
+	 */
+	@Bean(name = "sequenceFileStorageLayout")
+	public FileStorageLayout sequenceFileStorageLayout() {
+		if (sequenceFileShardLevels > 0) {
+			logger.info("Writing sequence files into " + sequenceFileShardLevels + " levels of shard directories.");
+			return new ShardedStorageLayout(sequenceFileShardLevels);
+		}
+		return new IdentifierStorageLayout();
+	}
+
+	/**
+	 * Store for sharing storage between sequence files with identical contents.
+	 * Blobs are kept inside the sequence file directory so that they're on the
+	 * same filesystem as the files linked to them.
+	 * 
+	 * @param sequenceFileBaseDirectory
+	 *            the sequence file base directory
+	 * @return the {@link ContentAddressedFileStore} for sequence files
+	 */
+	@Bean(name = "sequenceFileContentStore")
+	public ContentAddressedFileStore sequenceFileContentStore(
+			final @Qualifier("sequenceFileBaseDirectory") Path sequenceFileBaseDirectory) {
+		return new ContentAddressedFileStore(sequenceFileBaseDirectory.resolve(ContentAddressedFileStore.BLOB_DIRECTORY), deduplicateSequenceFiles);
+	}
+
 	@Bean(name = "referenceFileBaseDirectory")
 	public Path referenceFileBaseDirectory() throws IOException {
 		if (applicationContext.getEnvironment().acceptsProfiles("dev", "it", "test")) {
@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -44,6 +45,8 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
+import com.google.common.base.Splitter;
+
 import ca.corefacility.bioinformatics.irida.ria.config.filters.SessionFilter;
 import ca.corefacility.bioinformatics.irida.ria.security.CredentialsExpriredAuthenticationFailureHandler;
 import ca.corefacility.bioinformatics.irida.ria.security.LoginSuccessHandler;
@@ -196,6 +199,13 @@ public class IridaWebSecurityConfig extends WebSecurityConfigurerAdapter {
 		@Autowired
 		CredentialsExpriredAuthenticationFailureHandler authFailureHandler;
 
+		/**
+		 * Comma separated addresses or subnets (e.g. 10.0.0.0/16) that can
+		 * read the metrics without logging in.
+		 */
+		@Value("${metrics.endpoint.allowed-addresses:}")
+		private String metricsAllowedAddresses;
+
 		@Override
 		public void configure(WebSecurity web) throws Exception {
 			web.ignoring()
@@ -230,12 +240,31 @@ public class IridaWebSecurityConfig extends WebSecurityConfigurerAdapter {
 			.authorizeRequests().antMatchers("/login**").permitAll()
 				.antMatchers("/resources/**").permitAll()
 				.antMatchers("/password_reset/**").permitAll()
+				// administrators and allowed addresses, and disabled unless
+				// metrics.endpoint.enabled is set
+				.antMatchers("/metrics").access(metricsAccess(metricsAllowedAddresses))
 				.antMatchers("/**").fullyAuthenticated()
 			.and().addFilterAfter(getSessionModelFilter(), SecurityContextHolderAwareRequestFilter.class);
 			// @formatter:on
 		}
 
-		
+		/**
+		 * Build the expression for who can read the metrics: administrators,
+		 * and anything connecting from one of the allowed addresses so that a
+		 * monitoring server can scrape them without logging in.
+		 *
+		 * @param allowedAddresses
+		 *            comma separated addresses or subnets
+		 * @return the access expression for the metrics endpoint
+		 */
+		static String metricsAccess(String allowedAddresses) {
+			StringBuilder access = new StringBuilder("hasRole('ROLE_ADMIN')");
+			for (String address : Splitter.on(',').trimResults().omitEmptyStrings().split(allowedAddresses)) {
+				access.append(" or hasIpAddress('").append(address).append("')");
+			}
+			return access.toString();
+		}
+
 		@Bean
 		public GenericFilterBean getSessionModelFilter() {
 			return new SessionFilter();
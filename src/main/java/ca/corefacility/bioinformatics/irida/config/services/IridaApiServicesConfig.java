@@ -13,7 +13,9 @@ import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -42,6 +44,7 @@ import org.springframework.core.io.ClassRelativeResourceLoader;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.security.core.Authentication;
@@ -64,6 +67,8 @@ import ca.corefacility.bioinformatics.irida.config.security.IridaApiSecurityConf
 import ca.corefacility.bioinformatics.irida.config.services.conditions.NreplServerSpringCondition;
 import ca.corefacility.bioinformatics.irida.config.services.scheduled.IridaScheduledTasksConfig;
 import ca.corefacility.bioinformatics.irida.config.workflow.IridaWorkflowsConfig;
+import ca.corefacility.bioinformatics.irida.metrics.ExecutorMetrics;
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.plugins.IridaPlugin;
@@ -145,6 +150,15 @@ public class IridaApiServicesConfig {
 	@Value("${irida.workflow.analysis.threads}")
 	private int analysisTaskThreads;
 
+	@Value("${project.sync.threads:2}")
+	private int projectSyncThreads;
+
+	@Value("${project.sync.sample.threads:8}")
+	private int sampleSyncThreads;
+
+	@Value("${metadata.import.threads:2}")
+	private int metadataImportThreads;
+
 	@Autowired
 	private IridaPluginConfig.IridaPluginList pipelinePlugins;
 	
@@ -319,10 +333,19 @@ public class IridaApiServicesConfig {
 		taskExecutor.setMaxPoolSize(fpMaxSize);
 		taskExecutor.setQueueCapacity(fpQueueCapacity);
 		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
-		return taskExecutor;
+		return ExecutorMetrics.monitor(metricRegistry(), "fileProcessingChainExecutor", taskExecutor);
 	}
 
 
+	/**
+	 * @return the registry for metrics about background work and calls to
+	 *         external services.
+	 */
+	@Bean
+	public MetricRegistry metricRegistry() {
+		return new MetricRegistry();
+	}
+
 	@Bean
 	public Validator validator() {
 		ResourceBundleMessageSource validatorMessageSource = new ResourceBundleMessageSource();
@@ -351,7 +374,9 @@ public class IridaApiServicesConfig {
 		checkArgument(analysisTaskThreads > 0,
 				"irida.workflow.analysis.threads=" + analysisTaskThreads + " must be > 0");
 		logger.info("Creating thread pool for analysis tasks with " + analysisTaskThreads + " threads");
-		ExecutorService delegateExecutor = Executors.newFixedThreadPool(analysisTaskThreads);
+		ExecutorService delegateExecutor = ExecutorMetrics.monitor(metricRegistry(), "analysisTaskExecutor",
+				new ThreadPoolExecutor(analysisTaskThreads, analysisTaskThreads, 0L, TimeUnit.MILLISECONDS,
+						new LinkedBlockingQueue<>()));
 		SecurityContext schedulerContext = createAnalysisTaskSecurityContext(userService);
 		return new DelegatingSecurityContextExecutorService(delegateExecutor, schedulerContext);
 	}
@@ -412,9 +437,63 @@ public class IridaApiServicesConfig {
 		taskExecutor.setMaxPoolSize(8);
 		taskExecutor.setQueueCapacity(16);
 		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
+		return ExecutorMetrics.monitor(metricRegistry(), "uploadExecutor", taskExecutor);
+	}
+
+	/**
+	 * @return An Executor for synchronizing remote projects.
+	 */
+	@Bean(name = "projectSyncExecutor")
+	public ThreadPoolTaskExecutor projectSyncExecutor() {
+		checkArgument(projectSyncThreads > 0, "project.sync.threads=" + projectSyncThreads + " must be > 0");
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(projectSyncThreads);
+		taskExecutor.setMaxPoolSize(projectSyncThreads);
+		taskExecutor.setThreadNamePrefix("project-sync-");
+		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
 		return taskExecutor;
 	}
 
+	/**
+	 * @return An Executor for synchronizing the samples in remote projects.
+	 */
+	@Bean(name = "sampleSyncExecutor")
+	public ThreadPoolTaskExecutor sampleSyncExecutor() {
+		checkArgument(sampleSyncThreads > 0, "project.sync.sample.threads=" + sampleSyncThreads + " must be > 0");
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(sampleSyncThreads);
+		taskExecutor.setMaxPoolSize(sampleSyncThreads);
+		taskExecutor.setThreadNamePrefix("sample-sync-");
+		taskExecutor.setThreadPriority(Thread.MIN_PRIORITY);
+		return taskExecutor;
+	}
+
+	/**
+	 * @return An Executor for saving uploaded sample metadata in the
+	 *         background.
+	 */
+	@Bean(name = "metadataImportExecutor")
+	public ThreadPoolTaskExecutor metadataImportExecutor() {
+		checkArgument(metadataImportThreads > 0,
+				"metadata.import.threads=" + metadataImportThreads + " must be > 0");
+		ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+		taskExecutor.setCorePoolSize(metadataImportThreads);
+		taskExecutor.setMaxPoolSize(metadataImportThreads);
+		taskExecutor.setThreadNamePrefix("metadata-import-");
+		return ExecutorMetrics.monitor(metricRegistry(), "metadataImportExecutor", taskExecutor);
+	}
+
+	/**
+	 * @return A scheduler for rebuilding the search index.
+	 */
+	@Bean(name = "searchIndexScheduler")
+	public ThreadPoolTaskScheduler searchIndexScheduler() {
+		ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+		taskScheduler.setPoolSize(1);
+		taskScheduler.setThreadNamePrefix("search-index-rebuild-");
+		return ExecutorMetrics.monitor(metricRegistry(), "searchIndexScheduler", taskScheduler);
+	}
+
 	/*
 	 * Template engine for constructing ncbi export submissions
 	 */
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.config.services.scheduled;
 
+import ca.corefacility.bioinformatics.irida.service.FastQCChartService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,11 +21,22 @@ public class FileProcessingScheduledTaskConfig {
 	@Autowired
 	private SequencingObjectProcessingService fileProcessingService;
 
+	@Autowired
+	private FastQCChartService fastQCChartService;
+
 	@Value("${file.processing.process}")
 	private boolean processFiles;
 
+	@Value("${fastqc.chart.backfill.enabled:false}")
+	private boolean backfillCharts;
+
+	@Value("${fastqc.chart.backfill.batch.size:100}")
+	private int backfillBatchSize;
+
 	/**
-	 * Check for newly uploaded files to process
+	 * Check for newly uploaded files to process. Files created on this server
+	 * are dispatched as soon as they're committed, so this is a recovery sweep
+	 * for files uploaded to other servers or missed by the dispatcher.
 	 */
 	@Scheduled(fixedDelay = 5000)
 	public void processFiles() {
@@ -34,4 +46,17 @@ public class FileProcessingScheduledTaskConfig {
 			logger.trace("Skipping file processing.  It is disabled on this server.");
 		}
 	}
+
+	/**
+	 * Capture the chart series for FastQC analyses that still have their
+	 * charts stored as images in the database.
+	 */
+	@Scheduled(initialDelay = 60000, fixedDelay = 60000)
+	public void backfillFastQCCharts() {
+		if (backfillCharts) {
+			fastQCChartService.backfillChartData(backfillBatchSize);
+		} else {
+			logger.trace("Skipping FastQC chart backfill.  It is disabled on this server.");
+		}
+	}
 }
@@ -0,0 +1,41 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import ca.corefacility.bioinformatics.irida.service.FileVerificationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Scheduled task configuration for checking stored files against the size and
+ * modification time recorded when they were written.
+ */
+@Profile({ "prod", "processing" })
+@Configuration
+public class FileVerificationScheduledTaskConfig {
+	private static final Logger logger = LoggerFactory.getLogger(FileVerificationScheduledTaskConfig.class);
+
+	@Autowired
+	private FileVerificationService fileVerificationService;
+
+	@Value("${file.verification.enabled:true}")
+	private boolean enabled;
+
+	@Value("${file.verification.batch.size:500}")
+	private int batchSize;
+
+	/**
+	 * Check the least recently checked files
+	 */
+	@Scheduled(initialDelay = 300000, fixedDelay = 60000)
+	public void verifyFiles() {
+		if (enabled) {
+			fileVerificationService.verifyFiles(batchSize);
+		} else {
+			logger.trace("Skipping file verification.  It is disabled on this server.");
+		}
+	}
+}
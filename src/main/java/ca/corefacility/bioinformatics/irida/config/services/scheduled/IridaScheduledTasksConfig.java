@@ -6,9 +6,14 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ConcurrentTaskScheduler;
 import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
+import ca.corefacility.bioinformatics.irida.metrics.TimedTaskScheduler;
+
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Config for only activating scheduled tasks in certain profiles.
@@ -17,19 +22,25 @@ import java.util.concurrent.Executor;
 @EnableScheduling
 @Import({ ExecutorConfig.class, AnalysisScheduledTaskConfig.class, EmailScheduledTaskConfig.class,
 		FileProcessingScheduledTaskConfig.class, NcbiUploadScheduledTaskConfig.class,
-		ProjectSyncScheduledTaskConfig.class })
+		ProjectSyncScheduledTaskConfig.class, StorageReclamationScheduledTaskConfig.class,
+		FileVerificationScheduledTaskConfig.class })
 public class IridaScheduledTasksConfig implements SchedulingConfigurer {
 
 	@Autowired
 	@Qualifier("scheduledTaskExecutor")
 	private Executor taskExecutor;
 
+	@Autowired
+	private MetricRegistry metricRegistry;
+
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
 	public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
-		taskRegistrar.setScheduler(taskExecutor);
+		// time each run of the scheduled tasks
+		taskRegistrar.setTaskScheduler(new TimedTaskScheduler(
+				new ConcurrentTaskScheduler((ScheduledExecutorService) taskExecutor), metricRegistry));
 	}
 
 }
\ No newline at end of file
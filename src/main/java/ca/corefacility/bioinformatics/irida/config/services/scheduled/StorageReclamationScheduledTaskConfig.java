@@ -0,0 +1,39 @@
+package ca.corefacility.bioinformatics.irida.config.services.scheduled;
+
+import ca.corefacility.bioinformatics.irida.service.StorageReclamationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Scheduled task configuration for reclaiming storage used by files that are
+ * no longer referenced. Off by default, and should only be turned on for one
+ * server.
+ */
+@Profile({ "prod", "processing" })
+@Configuration
+public class StorageReclamationScheduledTaskConfig {
+	private static final Logger logger = LoggerFactory.getLogger(StorageReclamationScheduledTaskConfig.class);
+
+	@Autowired
+	private StorageReclamationService storageReclamationService;
+
+	@Value("${storage.reclamation.enabled:false}")
+	private boolean enabled;
+
+	/**
+	 * Quarantine and delete unreferenced files
+	 */
+	@Scheduled(cron = "${storage.reclamation.cron:0 0 3 * * *}")
+	public void reclaimStorage() {
+		if (enabled) {
+			storageReclamationService.reclaimStorage();
+		} else {
+			logger.trace("Skipping storage reclamation.  It is disabled on this server.");
+		}
+	}
+}
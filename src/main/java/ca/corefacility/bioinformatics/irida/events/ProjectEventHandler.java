@@ -32,6 +32,7 @@ import ca.corefacility.bioinformatics.irida.repositories.ProjectEventRepository;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
 
 /**
  * Handles the creation of {@link ProjectEvent}s from methods annotated with
@@ -48,14 +49,16 @@ public class ProjectEventHandler {
 	private final ProjectSampleJoinRepository psjRepository;
 	private final ProjectRepository projectRepository;
 	private final SampleRepository sampleRepository;
+	private final ProjectMembershipCache membershipCache;
 
 	public ProjectEventHandler(final ProjectEventRepository eventRepository,
 			final ProjectSampleJoinRepository psjRepository, final ProjectRepository projectRepository,
-			final SampleRepository sampleRepository) {
+			final SampleRepository sampleRepository, final ProjectMembershipCache membershipCache) {
 		this.eventRepository = eventRepository;
 		this.psjRepository = psjRepository;
 		this.projectRepository = projectRepository;
 		this.sampleRepository = sampleRepository;
+		this.membershipCache = membershipCache;
 	}
 
 	/**
@@ -167,6 +170,7 @@ public class ProjectEventHandler {
 			throw new IllegalArgumentException(
 					"Project or user cannot be found on method annotated with @LaunchesProjectEvent(UserRemovedProjectEvent.class)");
 		}
+		membershipCache.invalidate(user.getUsername());
 		return eventRepository.save(new UserRemovedProjectEvent(project, user));
 	}
 
@@ -184,6 +188,8 @@ public class ProjectEventHandler {
 			throw new IllegalArgumentException(
 					"Project or user group cannot be found on method annotated with @LaunchesProjectEvent(UserGroupRemovedProjectEvent.class)");
 		}
+		// any member of the group may have lost access to the project
+		membershipCache.invalidateAll();
 		return eventRepository.save(new UserGroupRemovedProjectEvent((Project) project.get(), (UserGroup) user.get()));
 	}
 
@@ -201,6 +207,7 @@ public class ProjectEventHandler {
 					"Method annotated with @LaunchesProjectEvent(UserRoleSetProjectEvent.class) method must return ProjectUserJoin");
 		}
 		ProjectUserJoin join = (ProjectUserJoin) returnValue;
+		membershipCache.invalidate(join.getObject().getUsername());
 		return eventRepository.save(new UserRoleSetProjectEvent(join));
 
 	}
@@ -219,6 +226,8 @@ public class ProjectEventHandler {
 					"Method annotated with @LaunchesProjectEvent(UserGroupRoleSetProjectEvent.class) method must return UserGroupProjectJoin");
 		}
 		UserGroupProjectJoin join = (UserGroupProjectJoin) returnValue;
+		// the role applies to every member of the group
+		membershipCache.invalidateAll();
 		return eventRepository.save(new UserGroupRoleSetProjectEvent(join));
 
 	}
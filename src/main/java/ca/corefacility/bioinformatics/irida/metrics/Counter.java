@@ -0,0 +1,37 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, such as the number of failed calls.
+ */
+public class Counter {
+	private final LongAdder count = new LongAdder();
+
+	Counter() {
+	}
+
+	/**
+	 * Add one to the count.
+	 */
+	public void increment() {
+		count.increment();
+	}
+
+	/**
+	 * Add an amount to the count.
+	 *
+	 * @param amount
+	 *            the amount to add, which must not be negative
+	 */
+	public void add(long amount) {
+		count.add(amount);
+	}
+
+	/**
+	 * @return the current count
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+}
@@ -0,0 +1,118 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Records the queue depth, active threads, pool size and rejected tasks of a
+ * thread pool, labelled with the name of the pool.
+ */
+public class ExecutorMetrics {
+
+	private ExecutorMetrics() {
+	}
+
+	/**
+	 * Monitor a {@link ThreadPoolTaskExecutor}. Must be called before the
+	 * executor is initialized so that rejected tasks can be counted.
+	 *
+	 * @param registry
+	 *            the registry to record to
+	 * @param name
+	 *            the name of the executor
+	 * @param executor
+	 *            the executor to monitor
+	 * @return the executor
+	 */
+	public static ThreadPoolTaskExecutor monitor(MetricRegistry registry, String name,
+			ThreadPoolTaskExecutor executor) {
+		// ThreadPoolTaskExecutor aborts rejected tasks unless told otherwise
+		executor.setRejectedExecutionHandler(
+				countRejections(registry, name, new ThreadPoolExecutor.AbortPolicy()));
+		registerGauges(registry, name, () -> {
+			try {
+				return executor.getThreadPoolExecutor();
+			} catch (IllegalStateException e) {
+				// not initialized yet
+				return null;
+			}
+		});
+		return executor;
+	}
+
+	/**
+	 * Monitor a {@link ThreadPoolTaskScheduler}. Must be called before the
+	 * scheduler is initialized so that rejected tasks can be counted.
+	 *
+	 * @param registry
+	 *            the registry to record to
+	 * @param name
+	 *            the name of the scheduler
+	 * @param scheduler
+	 *            the scheduler to monitor
+	 * @return the scheduler
+	 */
+	public static ThreadPoolTaskScheduler monitor(MetricRegistry registry, String name,
+			ThreadPoolTaskScheduler scheduler) {
+		scheduler.setRejectedExecutionHandler(
+				countRejections(registry, name, new ThreadPoolExecutor.AbortPolicy()));
+		registerGauges(registry, name, () -> {
+			try {
+				return scheduler.getScheduledThreadPoolExecutor();
+			} catch (IllegalStateException e) {
+				// not initialized yet
+				return null;
+			}
+		});
+		return scheduler;
+	}
+
+	/**
+	 * Monitor a {@link ThreadPoolExecutor}.
+	 *
+	 * @param registry
+	 *            the registry to record to
+	 * @param name
+	 *            the name of the executor
+	 * @param executor
+	 *            the executor to monitor
+	 * @return the executor
+	 */
+	public static ThreadPoolExecutor monitor(MetricRegistry registry, String name, ThreadPoolExecutor executor) {
+		executor.setRejectedExecutionHandler(countRejections(registry, name, executor.getRejectedExecutionHandler()));
+		registerGauges(registry, name, () -> executor);
+		return executor;
+	}
+
+	private static RejectedExecutionHandler countRejections(MetricRegistry registry, String name,
+			RejectedExecutionHandler handler) {
+		Counter rejected = registry.counter("irida_executor_rejected_tasks_total",
+				"Tasks rejected because the executor was saturated or shut down", "executor", name);
+		return (task, executor) -> {
+			rejected.increment();
+			handler.rejectedExecution(task, executor);
+		};
+	}
+
+	private static void registerGauges(MetricRegistry registry, String name, Supplier<ThreadPoolExecutor> executor) {
+		registry.gauge("irida_executor_queued_tasks", "Tasks waiting for a thread",
+				read(executor, e -> e.getQueue().size()), "executor", name);
+		registry.gauge("irida_executor_active_threads", "Threads running a task",
+				read(executor, ThreadPoolExecutor::getActiveCount), "executor", name);
+		registry.gauge("irida_executor_pool_threads", "Threads in the pool",
+				read(executor, ThreadPoolExecutor::getPoolSize), "executor", name);
+	}
+
+	private static Supplier<Integer> read(Supplier<ThreadPoolExecutor> executor,
+			Function<ThreadPoolExecutor, Integer> value) {
+		return () -> {
+			ThreadPoolExecutor e = executor.get();
+			return e == null ? 0 : value.apply(e);
+		};
+	}
+}
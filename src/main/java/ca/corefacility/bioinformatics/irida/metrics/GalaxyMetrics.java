@@ -0,0 +1,82 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.github.jmchilton.blend4j.galaxy.GalaxyInstance;
+
+/**
+ * Times the calls IRIDA makes to Galaxy through blend4j. The clients handed
+ * out by an instrumented {@link GalaxyInstance} record the latency of each
+ * call, labelled with the client and method, and count the calls that throw
+ * an exception.
+ */
+public class GalaxyMetrics {
+
+	private GalaxyMetrics() {
+	}
+
+	/**
+	 * Instrument the clients of a {@link GalaxyInstance}.
+	 *
+	 * @param galaxyInstance
+	 *            the {@link GalaxyInstance} to instrument
+	 * @param registry
+	 *            the registry to record to
+	 * @return a {@link GalaxyInstance} whose clients are timed
+	 */
+	public static GalaxyInstance instrument(GalaxyInstance galaxyInstance, MetricRegistry registry) {
+		return (GalaxyInstance) proxy(GalaxyInstance.class, (method, args) -> {
+			Object result = invoke(galaxyInstance, method, args);
+			Class<?> type = method.getReturnType();
+			if (result != null && type.isInterface() && type.getSimpleName().endsWith("Client")) {
+				result = timedClient(type, result, registry);
+			}
+			return result;
+		});
+	}
+
+	private static Object timedClient(Class<?> type, Object client, MetricRegistry registry) {
+		String clientName = type.getSimpleName();
+		return proxy(type, (method, args) -> {
+			if (method.getDeclaringClass() == Object.class) {
+				return invoke(client, method, args);
+			}
+
+			Timer timer = registry.timer("irida_galaxy_request_seconds", "Latency of calls to Galaxy", "client",
+					clientName, "method", method.getName());
+			long start = System.nanoTime();
+			try {
+				return invoke(client, method, args);
+			} catch (Throwable e) {
+				registry.counter("irida_galaxy_request_failures_total", "Calls to Galaxy that threw an exception",
+						"client", clientName, "method", method.getName()).increment();
+				throw e;
+			} finally {
+				timer.recordSince(start);
+			}
+		});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+
+	private static Object proxy(Class<?> type, Handler handler) {
+		return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> handler.invoke(method, args));
+	}
+
+	/**
+	 * Handles a call to a proxy without needing the proxy itself.
+	 */
+	@FunctionalInterface
+	private interface Handler {
+		Object invoke(Method method, Object[] args) throws Throwable;
+	}
+}
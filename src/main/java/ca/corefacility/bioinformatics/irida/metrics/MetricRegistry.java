@@ -0,0 +1,192 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds the timers, counters and gauges that IRIDA records about its
+ * background work and calls to external services, and writes them out in the
+ * Prometheus text exposition format.
+ * <p>
+ * Metrics are grouped into families by name. Each metric in a family is told
+ * apart by its labels, given as alternating label names and values. Asking for
+ * a timer or counter that already exists returns the existing one, so callers
+ * don't need to hold on to them.
+ */
+public class MetricRegistry {
+
+	/**
+	 * Content type of the text written by {@link #write(Writer)}.
+	 */
+	public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+	private final ConcurrentMap<String, Family> families = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Get or create a {@link Timer}.
+	 *
+	 * @param name
+	 *            the name of the timer, which should end in _seconds
+	 * @param help
+	 *            a description of what is timed
+	 * @param labels
+	 *            alternating label names and values
+	 * @return the {@link Timer} with the name and labels
+	 */
+	public Timer timer(String name, String help, String... labels) {
+		return (Timer) family(name, help, Type.HISTOGRAM).metrics.computeIfAbsent(labelText(labels), l -> new Timer());
+	}
+
+	/**
+	 * Get or create a {@link Counter}.
+	 *
+	 * @param name
+	 *            the name of the counter, which should end in _total
+	 * @param help
+	 *            a description of what is counted
+	 * @param labels
+	 *            alternating label names and values
+	 * @return the {@link Counter} with the name and labels
+	 */
+	public Counter counter(String name, String help, String... labels) {
+		return (Counter) family(name, help, Type.COUNTER).metrics.computeIfAbsent(labelText(labels),
+				l -> new Counter());
+	}
+
+	/**
+	 * Register a gauge whose value is read each time the metrics are written.
+	 * Registering a gauge with the same name and labels again replaces the
+	 * earlier one.
+	 *
+	 * @param name
+	 *            the name of the gauge
+	 * @param help
+	 *            a description of what is measured
+	 * @param value
+	 *            reads the current value
+	 * @param labels
+	 *            alternating label names and values
+	 */
+	public void gauge(String name, String help, Supplier<? extends Number> value, String... labels) {
+		family(name, help, Type.GAUGE).metrics.put(labelText(labels), value);
+	}
+
+	/**
+	 * Write every metric in the Prometheus text exposition format.
+	 *
+	 * @param writer
+	 *            where to write the metrics
+	 * @throws IOException
+	 *             if the metrics can't be written
+	 */
+	public void write(Writer writer) throws IOException {
+		for (Map.Entry<String, Family> entry : families.entrySet()) {
+			String name = entry.getKey();
+			Family family = entry.getValue();
+
+			writer.write("# HELP " + name + " " + family.help.replace("\\", "\\\\").replace("\n", "\\n") + "\n");
+			writer.write("# TYPE " + name + " " + family.type.name().toLowerCase() + "\n");
+			for (Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+				String labels = metric.getKey();
+				Object value = metric.getValue();
+				if (value instanceof Timer) {
+					((Timer) value).write(name, labels, writer);
+				} else if (value instanceof Counter) {
+					writeSample(writer, name, labels, ((Counter) value).getCount());
+				} else {
+					writeSample(writer, name, labels, readGauge((Supplier<?>) value));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write a single sample line.
+	 */
+	static void writeSample(Writer writer, String name, String labels, Number value) throws IOException {
+		writer.write(name);
+		if (!labels.isEmpty()) {
+			writer.write("{" + labels + "}");
+		}
+		writer.write(" " + formatValue(value) + "\n");
+	}
+
+	/**
+	 * Add a label to some existing label text.
+	 */
+	static String addLabel(String labels, String name, String value) {
+		String label = name + "=\"" + escape(value) + "\"";
+		return labels.isEmpty() ? label : labels + "," + label;
+	}
+
+	private Family family(String name, String help, Type type) {
+		Family family = families.computeIfAbsent(name, n -> new Family(help, type));
+		if (family.type != type) {
+			throw new IllegalArgumentException("Metric " + name + " is already registered as a "
+					+ family.type.name().toLowerCase());
+		}
+		return family;
+	}
+
+	private static String labelText(String... labels) {
+		if (labels.length % 2 != 0) {
+			throw new IllegalArgumentException("Labels must be given as name and value pairs");
+		}
+		String text = "";
+		for (int i = 0; i < labels.length; i += 2) {
+			text = addLabel(text, labels[i], labels[i + 1]);
+		}
+		return text;
+	}
+
+	private static Number readGauge(Supplier<?> gauge) {
+		try {
+			return (Number) gauge.get();
+		} catch (RuntimeException e) {
+			// a gauge that can't be read shouldn't stop the others from being
+			// written
+			return Double.NaN;
+		}
+	}
+
+	private static String formatValue(Number value) {
+		if (value == null) {
+			return "NaN";
+		} else if (value instanceof Double || value instanceof Float) {
+			double d = value.doubleValue();
+			if (Double.isNaN(d)) {
+				return "NaN";
+			} else if (Double.isInfinite(d)) {
+				return d > 0 ? "+Inf" : "-Inf";
+			}
+			return Double.toString(d);
+		}
+		return Long.toString(value.longValue());
+	}
+
+	private static String escape(String value) {
+		return String.valueOf(value).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	private enum Type {
+		COUNTER, GAUGE, HISTOGRAM
+	}
+
+	/**
+	 * Metrics sharing a name, keyed by their label text.
+	 */
+	private static class Family {
+		private final String help;
+		private final Type type;
+		private final ConcurrentMap<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+		private Family(String help, Type type) {
+			this.help = help;
+			this.type = type;
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.execchain.ClientExecChain;
+
+/**
+ * Times the requests IRIDA makes to remote IRIDA APIs. The time is taken
+ * from sending the request to receiving the response headers, and is
+ * labelled with the remote host, the HTTP method and the response status.
+ * Requests that fail without a response, such as when the connection is
+ * refused or times out, are labelled with the status {@code error}.
+ */
+public class RemoteApiMetrics {
+
+	private static final String ERROR_STATUS = "error";
+
+	private RemoteApiMetrics() {
+	}
+
+	/**
+	 * Create an {@link HttpClientBuilder} for clients whose requests are
+	 * timed.
+	 *
+	 * @param registry
+	 *            the registry to record to
+	 * @return the builder
+	 */
+	public static HttpClientBuilder clientBuilder(MetricRegistry registry) {
+		return new HttpClientBuilder() {
+			@Override
+			protected ClientExecChain decorateProtocolExec(ClientExecChain protocolExec) {
+				// the protocol stage opens the connection, so failing to
+				// connect is timed as well
+				return timed(protocolExec, registry);
+			}
+		};
+	}
+
+	/**
+	 * Time the requests executed by a stage of the http client.
+	 *
+	 * @param exec
+	 *            the stage to time
+	 * @param registry
+	 *            the registry to record to
+	 * @return the timed stage
+	 */
+	static ClientExecChain timed(ClientExecChain exec, MetricRegistry registry) {
+		return (route, request, context, execAware) -> {
+			String status = ERROR_STATUS;
+			long start = System.nanoTime();
+			try {
+				CloseableHttpResponse response = exec.execute(route, request, context, execAware);
+				status = String.valueOf(response.getStatusLine().getStatusCode());
+				return response;
+			} finally {
+				registry.timer("irida_remote_api_request_seconds", "Latency of requests to remote IRIDA APIs", "host",
+						route.getTargetHost().getHostName(), "method", request.getRequestLine().getMethod(), "status",
+						status).recordSince(start);
+			}
+		};
+	}
+}
@@ -0,0 +1,92 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import java.lang.reflect.Method;
+import java.util.Date;
+import java.util.concurrent.ScheduledFuture;
+
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.Trigger;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+
+/**
+ * A {@link TaskScheduler} that times each run of the tasks it schedules and
+ * counts the runs that fail. Tasks from {@code @Scheduled} methods are
+ * labelled with the class and name of the method, such as
+ * {@code AnalysisScheduledTaskConfig.prepareAnalyses}.
+ */
+public class TimedTaskScheduler implements TaskScheduler {
+
+	private final TaskScheduler delegate;
+	private final MetricRegistry registry;
+
+	/**
+	 * Create a new {@link TimedTaskScheduler}
+	 *
+	 * @param delegate
+	 *            the scheduler to run the tasks with
+	 * @param registry
+	 *            the registry to record to
+	 */
+	public TimedTaskScheduler(TaskScheduler delegate, MetricRegistry registry) {
+		this.delegate = delegate;
+		this.registry = registry;
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Trigger trigger) {
+		return delegate.schedule(timed(task), trigger);
+	}
+
+	@Override
+	public ScheduledFuture<?> schedule(Runnable task, Date startTime) {
+		return delegate.schedule(timed(task), startTime);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, Date startTime, long period) {
+		return delegate.scheduleAtFixedRate(timed(task), startTime, period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long period) {
+		return delegate.scheduleAtFixedRate(timed(task), period);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, Date startTime, long delay) {
+		return delegate.scheduleWithFixedDelay(timed(task), startTime, delay);
+	}
+
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long delay) {
+		return delegate.scheduleWithFixedDelay(timed(task), delay);
+	}
+
+	private Runnable timed(Runnable task) {
+		String name = taskName(task);
+		Timer timer = registry.timer("irida_scheduled_task_seconds", "Time taken by each run of a scheduled task",
+				"task", name);
+		Counter failures = registry.counter("irida_scheduled_task_failures_total",
+				"Runs of a scheduled task that threw an exception", "task", name);
+
+		return () -> {
+			long start = System.nanoTime();
+			try {
+				task.run();
+			} catch (RuntimeException | Error e) {
+				failures.increment();
+				throw e;
+			} finally {
+				timer.recordSince(start);
+			}
+		};
+	}
+
+	private static String taskName(Runnable task) {
+		if (task instanceof ScheduledMethodRunnable) {
+			Method method = ((ScheduledMethodRunnable) task).getMethod();
+			return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+		}
+		return task.getClass().getName();
+	}
+}
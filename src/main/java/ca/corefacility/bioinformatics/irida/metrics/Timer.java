@@ -0,0 +1,95 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records how long something takes as a histogram. Buckets run from 5
+ * milliseconds for quick calls to external services up to 10 minutes for long
+ * scheduled tasks.
+ */
+public class Timer {
+
+	/**
+	 * Upper bounds of the buckets, in seconds.
+	 */
+	static final double[] BUCKETS = { 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300,
+			600 };
+
+	// counts for each bucket alone. the last one is for anything slower than
+	// the largest bucket.
+	private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+	private final DoubleAdder sum = new DoubleAdder();
+
+	Timer() {
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Record how long something took.
+	 *
+	 * @param duration
+	 *            the time taken
+	 * @param unit
+	 *            the unit of the time taken
+	 */
+	public void record(long duration, TimeUnit unit) {
+		double seconds = unit.toNanos(duration) / 1e9;
+		int bucket = 0;
+		while (bucket < BUCKETS.length && seconds > BUCKETS[bucket]) {
+			bucket++;
+		}
+		buckets[bucket].increment();
+		sum.add(seconds);
+	}
+
+	/**
+	 * Record the time since a start time read from {@link System#nanoTime()}.
+	 *
+	 * @param startNanos
+	 *            when the timed work started
+	 */
+	public void recordSince(long startNanos) {
+		record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @return the number of times recorded
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * @return the total of the times recorded, in seconds
+	 */
+	public double getSum() {
+		return sum.sum();
+	}
+
+	/**
+	 * Write the buckets, sum and count of this timer.
+	 */
+	void write(String name, String labels, Writer writer) throws IOException {
+		long cumulative = 0;
+		for (int i = 0; i < BUCKETS.length; i++) {
+			cumulative += buckets[i].sum();
+			MetricRegistry.writeSample(writer, name + "_bucket",
+					MetricRegistry.addLabel(labels, "le", Double.toString(BUCKETS[i])), cumulative);
+		}
+		cumulative += buckets[BUCKETS.length].sum();
+		MetricRegistry.writeSample(writer, name + "_bucket", MetricRegistry.addLabel(labels, "le", "+Inf"),
+				cumulative);
+		MetricRegistry.writeSample(writer, name + "_sum", labels, getSum());
+		MetricRegistry.writeSample(writer, name + "_count", labels, cumulative);
+	}
+}
@@ -0,0 +1,167 @@
+package ca.corefacility.bioinformatics.irida.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Date;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * The size and modification time of a stored file, recorded when the file is
+ * written so that pages and listings don't have to stat the file every time
+ * they show it. The stored values are checked against the file system
+ * periodically, and a file that has gone missing or changed since it was
+ * recorded is flagged with its {@link FileStatus}.
+ */
+@Embeddable
+public class FileMetadata {
+
+	@Column(name = "file_size_bytes")
+	private Long sizeBytes;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "file_modified_date")
+	private Date fileModifiedDate;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "file_verified_date")
+	private Date verifiedDate;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "file_status")
+	private FileStatus status;
+
+	/**
+	 * for hibernate
+	 */
+	protected FileMetadata() {
+	}
+
+	public FileMetadata(Long sizeBytes, Date fileModifiedDate, Date verifiedDate, FileStatus status) {
+		this.sizeBytes = sizeBytes;
+		this.fileModifiedDate = fileModifiedDate;
+		this.verifiedDate = verifiedDate;
+		this.status = status;
+	}
+
+	/**
+	 * Read the size and modification time of a file as it is now.
+	 *
+	 * @param file
+	 *            the file to read
+	 * @return the {@link FileMetadata} of the file
+	 * @throws IOException
+	 *             if the file can't be read
+	 */
+	public static FileMetadata read(Path file) throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		return new FileMetadata(attributes.size(), new Date(attributes.lastModifiedTime().toMillis()), new Date(),
+				FileStatus.AVAILABLE);
+	}
+
+	/**
+	 * Check a file against the metadata recorded for it.
+	 *
+	 * @param recorded
+	 *            the metadata recorded for the file, or null if nothing has
+	 *            been recorded yet
+	 * @param file
+	 *            the file to check
+	 * @return the metadata to record for the file. A file that has never been
+	 *         recorded is recorded as it is now. A missing or changed file
+	 *         keeps its recorded size and modification time so that it can
+	 *         be compared if it comes back.
+	 * @throws IOException
+	 *             if the file exists but can't be read
+	 */
+	public static FileMetadata verify(FileMetadata recorded, Path file) throws IOException {
+		FileMetadata current;
+		try {
+			current = read(file);
+		} catch (NoSuchFileException e) {
+			current = null;
+		}
+
+		if (recorded == null || recorded.getSizeBytes() == null) {
+			return current != null ? current : new FileMetadata(null, null, new Date(), FileStatus.MISSING);
+		}
+
+		FileStatus status;
+		if (current == null) {
+			status = FileStatus.MISSING;
+		} else if (!Objects.equals(recorded.sizeBytes, current.sizeBytes)
+				|| !Objects.equals(recorded.getFileModifiedSeconds(), current.getFileModifiedSeconds())) {
+			status = FileStatus.CHANGED;
+		} else {
+			status = FileStatus.AVAILABLE;
+		}
+
+		return new FileMetadata(recorded.sizeBytes, recorded.fileModifiedDate, new Date(), status);
+	}
+
+	/**
+	 * Get the size of the file when it was recorded.
+	 *
+	 * @return the size of the file in bytes, or null if it hasn't been
+	 *         recorded
+	 */
+	public Long getSizeBytes() {
+		return sizeBytes;
+	}
+
+	/**
+	 * Get the modification time of the file when it was recorded.
+	 *
+	 * @return the modification time of the file
+	 */
+	public Date getFileModifiedDate() {
+		return fileModifiedDate;
+	}
+
+	/**
+	 * Get when the file was last checked against the recorded metadata.
+	 *
+	 * @return the last time the file was checked
+	 */
+	public Date getVerifiedDate() {
+		return verifiedDate;
+	}
+
+	public FileStatus getStatus() {
+		return status;
+	}
+
+	// databases store timestamps at different precisions, so modification
+	// times are compared to the second
+	private Long getFileModifiedSeconds() {
+		return fileModifiedDate == null ? null : fileModifiedDate.getTime() / 1000;
+	}
+
+	/**
+	 * Whether or not a file is where and how it was when it was recorded.
+	 */
+	public enum FileStatus {
+		/**
+		 * The file is as it was recorded.
+		 */
+		AVAILABLE,
+		/**
+		 * The file can't be found.
+		 */
+		MISSING,
+		/**
+		 * The file has a different size or modification time than was
+		 * recorded.
+		 */
+		CHANGED
+	}
+}
@@ -0,0 +1,53 @@
+package ca.corefacility.bioinformatics.irida.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An object that owns a single stored file and keeps the {@link FileMetadata}
+ * of that file.
+ */
+public interface FileMetadataFields {
+
+	/**
+	 * Get the stored file.
+	 *
+	 * @return the stored file.
+	 */
+	public Path getFile();
+
+	/**
+	 * Get the metadata recorded for the stored file.
+	 *
+	 * @return the {@link FileMetadata}, or null if none has been recorded.
+	 */
+	public FileMetadata getFileMetadata();
+
+	/**
+	 * Record the metadata of the stored file.
+	 *
+	 * @param fileMetadata
+	 *            the {@link FileMetadata} of the file.
+	 */
+	public void setFileMetadata(FileMetadata fileMetadata);
+
+	/**
+	 * Get the size of the stored file. The recorded size is used if there is
+	 * one, the file is only read for files that haven't been recorded yet.
+	 *
+	 * @return the size of the file in bytes.
+	 * @throws IOException
+	 *             if the size wasn't recorded and the file can't be read.
+	 */
+	@JsonIgnore
+	public default long getFileSizeBytes() throws IOException {
+		FileMetadata fileMetadata = getFileMetadata();
+		if (fileMetadata != null && fileMetadata.getSizeBytes() != null) {
+			return fileMetadata.getSizeBytes();
+		}
+		return Files.size(getFile());
+	}
+}
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.model.assembly;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.Date;
 
@@ -83,4 +84,12 @@ public class GenomeAssemblyFromAnalysis extends GenomeAssembly {
 	public Path getFile() {
 		return getAssemblyOutput().getFile();
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getFileSize() throws IOException {
+		return getAssemblyOutput().getFileSizeBytes();
+	}
 }
@@ -26,6 +26,7 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndexListener;
 
 /**
  * 
@@ -33,7 +34,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 @Entity
 @Table(name = "project_sample", uniqueConstraints = @UniqueConstraint(columnNames = { "project_id", "sample_id" }))
 @Audited
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({ AuditingEntityListener.class, SearchIndexListener.class })
 public class ProjectSampleJoin implements Join<Project, Sample> {
 
 	@Id
@@ -44,6 +44,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteSynchronizable;
 import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.ProjectAnalysisSubmissionJoin;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndexListener;
 
 /**
  * A project object.
@@ -52,7 +53,7 @@ import ca.corefacility.bioinformatics.irida.model.workflow.submission.ProjectAna
 @Entity
 @Table(name = "project")
 @Audited
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({ AuditingEntityListener.class, SearchIndexListener.class })
 public class Project extends IridaResourceSupport
 		implements MutableIridaThing, IridaProject, Comparable<Project>, RemoteSynchronizable {
 
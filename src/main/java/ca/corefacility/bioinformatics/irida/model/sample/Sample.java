@@ -9,6 +9,7 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssembl
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteSynchronizable;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndexListener;
 import ca.corefacility.bioinformatics.irida.web.controller.api.json.DateJson;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -39,7 +40,7 @@ import java.util.Map.Entry;
 @Entity
 @Table(name = "sample")
 @Audited
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({ AuditingEntityListener.class, SearchIndexListener.class })
 public class Sample extends IridaResourceSupport
 		implements MutableIridaThing, IridaSample, Comparable<Sample>, RemoteSynchronizable {
 
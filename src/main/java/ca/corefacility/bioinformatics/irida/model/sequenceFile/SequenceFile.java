@@ -1,7 +1,6 @@
 package ca.corefacility.bioinformatics.irida.model.sequenceFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.Date;
@@ -13,6 +12,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
@@ -37,6 +37,8 @@ import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import ca.corefacility.bioinformatics.irida.exceptions.AnalysisAlreadySetException;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadataFields;
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 import ca.corefacility.bioinformatics.irida.model.MutableIridaThing;
 import ca.corefacility.bioinformatics.irida.model.VersionedFileFields;
@@ -60,7 +62,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 @Audited
 @EntityListeners({ AuditingEntityListener.class, RelativePathTranslatorListener.class })
 public class SequenceFile extends IridaResourceSupport implements MutableIridaThing, Comparable<SequenceFile>,
-		VersionedFileFields<Long>, IridaSequenceFile, RemoteSynchronizable {
+		VersionedFileFields<Long>, IridaSequenceFile, RemoteSynchronizable, FileMetadataFields {
 
 	private static final Logger logger = LoggerFactory.getLogger(SequenceFile.class);
 
@@ -107,6 +109,11 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 	@JoinColumn(name = "remote_status")
 	private RemoteStatus remoteStatus;
 
+	// checked by a scheduled task, which shouldn't create a revision each time
+	@Embedded
+	@NotAudited
+	private FileMetadata fileMetadata;
+
 	public SequenceFile() {
 		createdDate = new Date();
 		fileRevisionNumber = 0L;
@@ -148,6 +155,7 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 		return createdDate;
 	}
 
+	@Override
 	public Path getFile() {
 		return file;
 	}
@@ -220,7 +228,8 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 	}
 
 	/**
-	 * Get the size of the file.
+	 * Get the size of the file. The size recorded when the file was stored is
+	 * used if there is one.
 	 *
 	 * @return The String representation of the file size
 	 */
@@ -228,7 +237,7 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 	public String getFileSize() {
 		String size = "N/A";
 		try {
-			size = IridaSequenceFile.humanReadableByteCount(Files.size(file), true);
+			size = IridaSequenceFile.humanReadableByteCount(getFileSizeBytes(), true);
 		} catch (NoSuchFileException e) {
 			logger.error("Could not find file " + file);
 		} catch (IOException e) {
@@ -237,6 +246,17 @@ public class SequenceFile extends IridaResourceSupport implements MutableIridaTh
 		return size;
 	}
 
+	@JsonIgnore
+	@Override
+	public FileMetadata getFileMetadata() {
+		return fileMetadata;
+	}
+
+	@Override
+	public void setFileMetadata(FileMetadata fileMetadata) {
+		this.fileMetadata = fileMetadata;
+	}
+
 	/**
 	 * Set the Map of optional properties
 	 * 
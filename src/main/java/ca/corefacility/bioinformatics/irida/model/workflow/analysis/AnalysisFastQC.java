@@ -7,7 +7,6 @@ import java.util.Set;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
-import javax.persistence.Lob;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
@@ -18,12 +17,12 @@ import org.springframework.util.ReflectionUtils;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.type.BuiltInAnalysisTypes;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.collect.ImmutableSet;
 
 /**
  * Specific implementation of {@link Analysis} for storing properties created by
- * FastQC.
+ * FastQC. The charts are drawn on request from the {@link FastQCChartData}
+ * kept for the analysis.
  * 
  *
  */
@@ -49,15 +48,6 @@ public class AnalysisFastQC extends Analysis {
 	private final Integer maxLength;
 	@NotNull
 	private final Short gcContent;
-	@NotNull
-	@Lob
-	private final byte[] perBaseQualityScoreChart;
-	@NotNull
-	@Lob
-	private final byte[] perSequenceQualityScoreChart;
-	@NotNull
-	@Lob
-	private final byte[] duplicationLevelChart;
 
 	@OneToMany(fetch = FetchType.EAGER, cascade = CascadeType.ALL, orphanRemoval = true)
 	private final Set<OverrepresentedSequence> overrepresentedSequences;
@@ -78,9 +68,6 @@ public class AnalysisFastQC extends Analysis {
 		this.minLength = null;
 		this.maxLength = null;
 		this.gcContent = null;
-		this.perBaseQualityScoreChart = null;
-		this.perSequenceQualityScoreChart = null;
-		this.duplicationLevelChart = null;
 		this.overrepresentedSequences = null;
 		this.fastQCReport = null;
 		this.fastqcVersion = null;
@@ -99,9 +86,6 @@ public class AnalysisFastQC extends Analysis {
 		this.minLength = builder.minLength;
 		this.maxLength = builder.maxLength;
 		this.gcContent = builder.gcContent;
-		this.perBaseQualityScoreChart = builder.perBaseQualityScoreChart;
-		this.perSequenceQualityScoreChart = builder.perSequenceQualityScoreChart;
-		this.duplicationLevelChart = builder.duplicationLevelChart;
 		this.overrepresentedSequences = builder.overrepresentedSequences;
 		this.fastQCReport = builder.fastQCReport;
 		this.fastqcVersion = builder.fastqcVersion;
@@ -139,9 +123,6 @@ public class AnalysisFastQC extends Analysis {
 		private Integer minLength;
 		private Integer maxLength;
 		private Short gcContent;
-		private byte[] perBaseQualityScoreChart;
-		private byte[] perSequenceQualityScoreChart;
-		private byte[] duplicationLevelChart;
 		private Set<OverrepresentedSequence> overrepresentedSequences;
 		private AnalysisOutputFile fastQCReport;
 		private String description;
@@ -244,36 +225,6 @@ public class AnalysisFastQC extends Analysis {
 			return this;
 		}
 
-		/**
-		 * set the duplicationLevelChart
-		 * @param duplicationLevelChart the duplicationLevelChart
-		 * @return the builder
-		 */
-		public AnalysisFastQCBuilder duplicationLevelChart(final byte[] duplicationLevelChart) {
-			this.duplicationLevelChart = duplicationLevelChart;
-			return this;
-		}
-
-		/**
-		 * Set the perSequenceQualityScoreChart
-		 * @param perSequenceQualityScoreChart the perSequenceQualityScoreChart
-		 * @return the builder
-		 */
-		public AnalysisFastQCBuilder perSequenceQualityScoreChart(final byte[] perSequenceQualityScoreChart) {
-			this.perSequenceQualityScoreChart = perSequenceQualityScoreChart;
-			return this;
-		}
-
-		/**
-		 * set the perBaseQualityScoreChart
-		 * @param perBaseQualityScoreChart the perBaseQualityScoreChart
-		 * @return the builder
-		 */
-		public AnalysisFastQCBuilder perBaseQualityScoreChart(final byte[] perBaseQualityScoreChart) {
-			this.perBaseQualityScoreChart = perBaseQualityScoreChart;
-			return this;
-		}
-
 		/**
 		 * Set the gcContent
 		 * @param gcContent the gcContent
@@ -391,39 +342,6 @@ public class AnalysisFastQC extends Analysis {
 		return ImmutableSet.of(fastQCReport);
 	}
 
-	/**
-	 * Box and whisker plot showing per-base quality scores as a PNG-formatted
-	 * image in a byte array.
-	 * 
-	 * @return a PNG-formatted byte array for per-base quality score.
-	 */
-	@JsonIgnore
-	public byte[] getPerBaseQualityScoreChart() {
-		return perBaseQualityScoreChart;
-	}
-
-	/**
-	 * Line chartshowing per-sequence quality scores as a PNG-formatted image in
-	 * a byte array.
-	 * 
-	 * @return a PNG-formatted byte array for per-sequence quality score.
-	 */
-	@JsonIgnore
-	public byte[] getPerSequenceQualityScoreChart() {
-		return perSequenceQualityScoreChart;
-	}
-
-	/**
-	 * Line chartshowing duplication-level as a PNG-formatted image in a byte
-	 * array.
-	 * 
-	 * @return a PNG-formatted byte array for duplication levels.
-	 */
-	@JsonIgnore
-	public byte[] getDuplicationLevelChart() {
-		return duplicationLevelChart;
-	}
-
 	public String getFastqcVersion() {
 		return fastqcVersion;
 	}
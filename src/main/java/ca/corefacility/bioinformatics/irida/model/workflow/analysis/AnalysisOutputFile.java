@@ -6,6 +6,7 @@ import java.util.Objects;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
@@ -21,6 +22,8 @@ import javax.validation.constraints.NotNull;
 
 import com.google.common.base.Strings;
 
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadataFields;
 import ca.corefacility.bioinformatics.irida.model.IridaResourceSupport;
 import ca.corefacility.bioinformatics.irida.model.IridaThing;
 import ca.corefacility.bioinformatics.irida.model.VersionedFileFields;
@@ -36,7 +39,8 @@ import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSu
 @Entity
 @Table(name = "analysis_output_file")
 @EntityListeners(RelativePathTranslatorListener.class)
-public class AnalysisOutputFile extends IridaResourceSupport implements IridaThing, VersionedFileFields<Long> {
+public class AnalysisOutputFile extends IridaResourceSupport implements IridaThing, VersionedFileFields<Long>,
+		FileMetadataFields {
 
 	@Id
 	@GeneratedValue(strategy = GenerationType.AUTO)
@@ -65,6 +69,9 @@ public class AnalysisOutputFile extends IridaResourceSupport implements IridaThi
 	@Column(name = "label_prefix")
 	private final String labelPrefix;
 
+	@Embedded
+	private FileMetadata fileMetadata;
+
 	/**
 	 * for hibernate
 	 */
@@ -139,10 +146,23 @@ public class AnalysisOutputFile extends IridaResourceSupport implements IridaThi
 		return this.id;
 	}
 
+	@Override
 	public Path getFile() {
 		return file;
 	}
 
+	@com.fasterxml.jackson.annotation.JsonIgnore
+	@org.codehaus.jackson.annotate.JsonIgnore
+	@Override
+	public FileMetadata getFileMetadata() {
+		return fileMetadata;
+	}
+
+	@Override
+	public void setFileMetadata(FileMetadata fileMetadata) {
+		this.fileMetadata = fileMetadata;
+	}
+
 	public String getExecutionManagerFileId() {
 		return executionManagerFileId;
 	}
@@ -0,0 +1,106 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.analysis;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+
+/**
+ * The numbers behind the charts drawn for an {@link AnalysisFastQC}. Charts
+ * are drawn from these when they're asked for rather than being stored as
+ * images, and the series are kept apart from the {@link AnalysisFastQC} so
+ * that loading an analysis doesn't load them.
+ */
+@Entity
+@Table(name = "analysis_fastqc_chart_data")
+public class FastQCChartData {
+
+	/**
+	 * The charts that are drawn for an {@link AnalysisFastQC}.
+	 */
+	public enum Chart {
+		PER_BASE_QUALITY, PER_SEQUENCE_QUALITY, DUPLICATION_LEVEL
+	}
+
+	@Id
+	@Column(name = "analysis_id")
+	private final Long analysisId;
+
+	@Lob
+	@Column(name = "per_base_quality")
+	private final String perBaseQuality;
+
+	@Lob
+	@Column(name = "per_sequence_quality")
+	private final String perSequenceQuality;
+
+	@Lob
+	@Column(name = "duplication_level")
+	private final String duplicationLevel;
+
+	/**
+	 * for hibernate
+	 */
+	@SuppressWarnings("unused")
+	private FastQCChartData() {
+		this.analysisId = null;
+		this.perBaseQuality = null;
+		this.perSequenceQuality = null;
+		this.duplicationLevel = null;
+	}
+
+	/**
+	 * Create a new {@link FastQCChartData}
+	 *
+	 * @param analysisId
+	 *            the identifier of the {@link AnalysisFastQC} the charts are
+	 *            for
+	 * @param perBaseQuality
+	 *            the encoded per-base quality score series
+	 * @param perSequenceQuality
+	 *            the encoded per-sequence quality score series
+	 * @param duplicationLevel
+	 *            the encoded duplication level series
+	 */
+	public FastQCChartData(final Long analysisId, final String perBaseQuality, final String perSequenceQuality,
+			final String duplicationLevel) {
+		this.analysisId = analysisId;
+		this.perBaseQuality = perBaseQuality;
+		this.perSequenceQuality = perSequenceQuality;
+		this.duplicationLevel = duplicationLevel;
+	}
+
+	/**
+	 * Copy the series for another analysis.
+	 *
+	 * @param analysisId
+	 *            the identifier of the {@link AnalysisFastQC}
+	 * @return a copy of the series for the analysis
+	 */
+	public FastQCChartData forAnalysis(final Long analysisId) {
+		return new FastQCChartData(analysisId, perBaseQuality, perSequenceQuality, duplicationLevel);
+	}
+
+	public Long getAnalysisId() {
+		return analysisId;
+	}
+
+	/**
+	 * Get the encoded series for one of the charts.
+	 *
+	 * @param chart
+	 *            the chart to get the series for
+	 * @return the encoded series
+	 */
+	public String getSeries(final Chart chart) {
+		switch (chart) {
+		case PER_BASE_QUALITY:
+			return perBaseQuality;
+		case PER_SEQUENCE_QUALITY:
+			return perSequenceQuality;
+		default:
+			return duplicationLevel;
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package ca.corefacility.bioinformatics.irida.model.workflow.execution;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.MapKeyColumn;
+import javax.persistence.MapKeyEnumerated;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+import com.google.common.collect.ImmutableMap;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowState;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+
+/**
+ * The progress of a running {@link AnalysisSubmission} as it was last seen in
+ * the execution manager. Snapshots are kept in the database so that every
+ * server can read the progress seen by the server monitoring the analysis.
+ */
+@Entity
+@Table(name = "analysis_progress")
+public class AnalysisProgressSnapshot {
+
+	@Id
+	@Column(name = "analysis_submission_id")
+	private final Long analysisSubmissionId;
+
+	@Column(name = "proportion_complete", nullable = false)
+	private final float proportionComplete;
+
+	@ElementCollection(fetch = FetchType.EAGER)
+	@MapKeyEnumerated(EnumType.STRING)
+	@MapKeyColumn(name = "state")
+	@Column(name = "job_count", nullable = false)
+	@CollectionTable(name = "analysis_progress_job_count", joinColumns = @JoinColumn(name = "analysis_submission_id"))
+	private final Map<GalaxyWorkflowState, Integer> jobCounts;
+
+	@Temporal(TemporalType.TIMESTAMP)
+	@Column(name = "captured_at", nullable = false)
+	private final Date capturedAt;
+
+	/**
+	 * for hibernate
+	 */
+	@SuppressWarnings("unused")
+	private AnalysisProgressSnapshot() {
+		this.analysisSubmissionId = null;
+		this.proportionComplete = 0;
+		this.jobCounts = null;
+		this.capturedAt = null;
+	}
+
+	/**
+	 * Build a new {@link AnalysisProgressSnapshot}.
+	 *
+	 * @param analysisSubmissionId
+	 *            the identifier of the {@link AnalysisSubmission}.
+	 * @param proportionComplete
+	 *            the proportion of the workflow's jobs that are complete.
+	 * @param jobCounts
+	 *            the number of the workflow's jobs in each state.
+	 * @param capturedAt
+	 *            when the progress was read from the execution manager.
+	 */
+	public AnalysisProgressSnapshot(Long analysisSubmissionId, float proportionComplete,
+			Map<GalaxyWorkflowState, Integer> jobCounts, Instant capturedAt) {
+		this.analysisSubmissionId = analysisSubmissionId;
+		this.proportionComplete = proportionComplete;
+		this.jobCounts = new HashMap<>(jobCounts);
+		this.capturedAt = Date.from(capturedAt);
+	}
+
+	/**
+	 * Build a new {@link AnalysisProgressSnapshot} from the status of a
+	 * workflow.
+	 *
+	 * @param submission
+	 *            the {@link AnalysisSubmission} running the workflow.
+	 * @param workflowStatus
+	 *            the status of the workflow.
+	 * @param capturedAt
+	 *            when the status was read from the execution manager.
+	 * @return the progress of the workflow.
+	 */
+	public static AnalysisProgressSnapshot fromWorkflowStatus(AnalysisSubmission submission,
+			GalaxyWorkflowStatus workflowStatus, Instant capturedAt) {
+		return new AnalysisProgressSnapshot(submission.getId(), workflowStatus.getProportionComplete(),
+				workflowStatus.getStateCounts(), capturedAt);
+	}
+
+	public Long getAnalysisSubmissionId() {
+		return analysisSubmissionId;
+	}
+
+	public float getProportionComplete() {
+		return proportionComplete;
+	}
+
+	public Map<GalaxyWorkflowState, Integer> getJobCounts() {
+		return ImmutableMap.copyOf(jobCounts);
+	}
+
+	public Instant getCapturedAt() {
+		return capturedAt.toInstant();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "AnalysisProgressSnapshot [analysisSubmissionId=" + analysisSubmissionId + ", proportionComplete="
+				+ proportionComplete + ", jobCounts=" + jobCounts + ", capturedAt=" + capturedAt + "]";
+	}
+}
@@ -93,6 +93,20 @@ public class GalaxyWorkflowStatus {
 		return countHistoryItemsInState(GalaxyWorkflowState.OK) / (float) countTotalWorkflowItems();
 	}
 
+	/**
+	 * Gets the number of workflow tasks in each state.
+	 * 
+	 * @return The number of workflow tasks by {@link GalaxyWorkflowState}.
+	 */
+	public Map<GalaxyWorkflowState, Integer> getStateCounts() {
+		Map<GalaxyWorkflowState, Integer> stateCounts = new HashMap<>();
+		for (Map.Entry<GalaxyWorkflowState, Set<String>> entry : stateIds.entrySet()) {
+			stateCounts.put(entry.getKey(), entry.getValue().size());
+		}
+
+		return stateCounts;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
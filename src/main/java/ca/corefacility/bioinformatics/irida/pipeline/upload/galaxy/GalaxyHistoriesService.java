@@ -6,6 +6,7 @@ import static com.google.common.base.Preconditions.checkState;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -14,6 +15,10 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +52,10 @@ import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionR
 import com.sun.jersey.api.client.ClientHandlerException;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.core.util.MultivaluedMapImpl;
+import com.google.common.base.Joiner;
+import com.google.common.collect.Iterables;
 
 /**
  * Class for working with Galaxy Histories.
@@ -59,10 +68,20 @@ public class GalaxyHistoriesService {
 	
 	private static final String COLLECTION = "dataset_collection";
 
+	/**
+	 * The maximum number of histories to ask Galaxy for the state of in one
+	 * request.
+	 */
+	private static final int HISTORY_STATUS_BATCH_SIZE = 100;
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
 	private HistoriesClient historiesClient;
 	private ToolsClient toolsClient;
 	
 	private GalaxyLibrariesService librariesService;
+
+	private WebResource historiesResource;
 	
 	/**
 	 * Builds a new GalaxyHistory object for working with Galaxy Histories.
@@ -81,6 +100,28 @@ public class GalaxyHistoriesService {
 		this.librariesService = librariesService;
 	}
 
+	/**
+	 * Builds a new GalaxyHistory object for working with Galaxy Histories,
+	 * which can list the state of many histories in one request.
+	 * 
+	 * @param historiesClient
+	 *            The HistoriesClient for interacting with Galaxy histories.
+	 * @param toolsClient
+	 *            The ToolsClient for interacting with tools in Galaxy.
+	 * @param librariesService
+	 *            A service for dealing with Galaxy libraries.
+	 * @param historiesResource
+	 *            The resource for the Galaxy histories API, used to list the
+	 *            state of many histories at once.
+	 */
+	public GalaxyHistoriesService(HistoriesClient historiesClient, ToolsClient toolsClient,
+			GalaxyLibrariesService librariesService, WebResource historiesResource) {
+		this(historiesClient, toolsClient, librariesService);
+		checkNotNull(historiesResource, "historiesResource is null");
+
+		this.historiesResource = historiesResource;
+	}
+
 	/**
 	 * Creates a new History for running a workflow.
 	 * @return  A new History for running a workflow.
@@ -113,6 +154,56 @@ public class GalaxyHistoriesService {
 			throw new WorkflowException(e);
 		}
 	}
+
+	/**
+	 * Given a collection of history ids, returns the status for each of the
+	 * workflows. The histories are listed from Galaxy in batches, filtered to
+	 * the given ids, instead of being requested one at a time.
+	 * 
+	 * @param historyIds
+	 *            The history ids to find the workflow status for.
+	 * @return The WorkflowStatus for each history id that Galaxy listed. A
+	 *         history that wasn't listed isn't in the map, and its status
+	 *         should be found with {@link #getStatusForHistory(String)}.
+	 * @throws ExecutionManagerException
+	 *             If there was an exception when attempting to list the
+	 *             histories.
+	 */
+	public Map<String, GalaxyWorkflowStatus> getStatusForHistories(Collection<String> historyIds)
+			throws ExecutionManagerException {
+		checkNotNull(historyIds, "historyIds is null");
+
+		Map<String, GalaxyWorkflowStatus> statuses = new HashMap<>();
+		if (historiesResource == null) {
+			logger.trace("No histories resource configured, can't list history states in bulk");
+			return statuses;
+		}
+
+		for (List<String> batch : Iterables.partition(historyIds, HISTORY_STATUS_BATCH_SIZE)) {
+			MultivaluedMap<String, String> params = new MultivaluedMapImpl();
+			params.add("q", "encoded_id-in");
+			params.add("qv", Joiner.on(',').join(batch));
+			params.add("keys", "id,state,state_ids");
+
+			try {
+				String json = historiesResource.queryParams(params).get(String.class);
+				List<HistoryDetails> historyDetails = mapper.readValue(json,
+						new TypeReference<List<HistoryDetails>>() {
+						});
+
+				for (HistoryDetails details : historyDetails) {
+					if (batch.contains(details.getId())) {
+						logger.trace("Details for history " + details.getId() + ": state=" + details.getState());
+						statuses.put(details.getId(), GalaxyWorkflowStatus.builder(details).build());
+					}
+				}
+			} catch (ClientHandlerException | UniformInterfaceException | IOException e) {
+				throw new WorkflowException(e);
+			}
+		}
+
+		return statuses;
+	}
 	
 	/**
 	 * Transfers a dataset from a Galaxy library into a history for a workflow.
@@ -262,6 +353,54 @@ public class GalaxyHistoriesService {
 		List<HistoryContents> historyContentsList =
 				historiesClient.showHistoryContents(historyId);
 		
+		return getDatasetForFileInHistoryContents(filename, historyId, historyContentsList);
+	}
+
+	/**
+	 * Gets the Dataset objects for files with the given names in the given
+	 * history. The contents of the history are only listed once, no matter how
+	 * many files are requested.
+	 * 
+	 * @param filenames
+	 *            The names of the files to get Dataset objects for.
+	 * @param historyId
+	 *            The history id to look for the datasets.
+	 * @return The corresponding dataset for each of the given file names.
+	 * @throws GalaxyDatasetException
+	 *             If there was an issue when searching for any of the datasets.
+	 */
+	public Map<String, Dataset> getDatasetsForFilesInHistory(Collection<String> filenames, String historyId)
+			throws GalaxyDatasetException {
+		checkNotNull(filenames, "filenames is null");
+		checkNotNull(historyId, "historyId is null");
+
+		List<HistoryContents> historyContentsList = historiesClient.showHistoryContents(historyId);
+
+		Map<String, Dataset> datasets = new HashMap<>();
+		for (String filename : filenames) {
+			checkNotNull(filename, "filename is null");
+			datasets.put(filename, getDatasetForFileInHistoryContents(filename, historyId, historyContentsList));
+		}
+
+		return datasets;
+	}
+
+	/**
+	 * Finds the dataset for a file in an already loaded listing of the
+	 * contents of a history.
+	 * 
+	 * @param filename
+	 *            The name of the file to get a Dataset object for.
+	 * @param historyId
+	 *            The history id to look for the dataset.
+	 * @param historyContentsList
+	 *            The contents of the history.
+	 * @return The corresponding dataset for the given file name.
+	 * @throws GalaxyDatasetException
+	 *             If there was an issue when searching for a dataset.
+	 */
+	private Dataset getDatasetForFileInHistoryContents(String filename, String historyId,
+			List<HistoryContents> historyContentsList) throws GalaxyDatasetException {
 		List<HistoryContents> matchingHistoryContents = historyContentsList.stream()
 				.filter((historyContents) -> filename.equals(historyContents.getName())
 						&& !COLLECTION.equals(historyContents.getHistoryContentType()))
@@ -0,0 +1,82 @@
+package ca.corefacility.bioinformatics.irida.processing;
+
+import java.io.IOException;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+
+/**
+ * Receives the contents of a {@link SequenceFile} as it's being read by a
+ * single, shared pass over the file. Buffers passed to the consumer are reused
+ * by the reader after the call returns, so consumers must not hang on to them.
+ */
+public interface SequenceFileStreamConsumer {
+
+	/**
+	 * Whether or not this consumer needs the file to be parsed into FastQC
+	 * {@link Sequence}s. Parsing is skipped entirely if no consumer needs it.
+	 *
+	 * @return true if {@link #acceptSequence(Sequence)} should be called.
+	 */
+	public default boolean requiresSequences() {
+		return false;
+	}
+
+	/**
+	 * Accept a chunk of the file exactly as it's stored on disk.
+	 *
+	 * @param buffer
+	 *            the buffer containing the bytes.
+	 * @param offset
+	 *            the offset of the first byte in the buffer.
+	 * @param length
+	 *            the number of bytes to read from the buffer.
+	 * @throws IOException
+	 *             if the consumer fails to handle the bytes.
+	 */
+	public default void acceptRawBytes(byte[] buffer, int offset, int length) throws IOException {
+	}
+
+	/**
+	 * Accept a chunk of the decompressed file. If the file is not compressed
+	 * this is the same data as {@link #acceptRawBytes(byte[], int, int)}.
+	 *
+	 * @param buffer
+	 *            the buffer containing the bytes.
+	 * @param offset
+	 *            the offset of the first byte in the buffer.
+	 * @param length
+	 *            the number of bytes to read from the buffer.
+	 * @throws IOException
+	 *             if the consumer fails to handle the bytes.
+	 */
+	public default void acceptDecompressedBytes(byte[] buffer, int offset, int length) throws IOException {
+	}
+
+	/**
+	 * Accept a single parsed {@link Sequence} from the file. Only called when
+	 * {@link #requiresSequences()} is true.
+	 *
+	 * @param sequence
+	 *            the parsed {@link Sequence}
+	 */
+	public default void acceptSequence(Sequence sequence) {
+	}
+
+	/**
+	 * Called once the whole file has been read. This is where the consumer
+	 * should persist any changes to the {@link SequenceFile}.
+	 *
+	 * @throws FileProcessorException
+	 *             if the consumer fails to finish processing.
+	 */
+	public void complete();
+
+	/**
+	 * Called instead of {@link #complete()} when reading the file failed, or
+	 * when this consumer threw an exception while accepting data. Consumers
+	 * should release any resources they hold.
+	 */
+	public default void abort() {
+	}
+}
@@ -0,0 +1,28 @@
+package ca.corefacility.bioinformatics.irida.processing;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+
+/**
+ * A {@link FileProcessor} that can do its work as a consumer of a shared,
+ * single read of a {@link SequenceFile}. When several
+ * {@link StreamingFileProcessor}s are adjacent in a {@link FileProcessingChain}
+ * the chain reads (and decompresses) each file once and hands the same buffers
+ * to all of them instead of letting each processor open the file again.
+ */
+public interface StreamingFileProcessor extends FileProcessor {
+
+	/**
+	 * Create a consumer for a single read of the provided
+	 * {@link SequenceFile}. The consumer is bound to the {@link SequenceFile}
+	 * instance and is used for exactly one read.
+	 *
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} that's going to be read.
+	 * @param compressed
+	 *            whether or not the file on disk is gzip compressed.
+	 * @return a {@link SequenceFileStreamConsumer} for the file.
+	 * @throws FileProcessorException
+	 *             if the consumer could not be set up.
+	 */
+	public SequenceFileStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean compressed);
+}
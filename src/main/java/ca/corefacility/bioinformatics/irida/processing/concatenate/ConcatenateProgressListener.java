@@ -0,0 +1,19 @@
+package ca.corefacility.bioinformatics.irida.processing.concatenate;
+
+/**
+ * Told how much of a concatenation has been written, after each file is
+ * joined.
+ */
+@FunctionalInterface
+public interface ConcatenateProgressListener {
+
+	/**
+	 * Called after a file has been joined.
+	 * 
+	 * @param written
+	 *            the number of bytes of the original files joined so far
+	 * @param total
+	 *            the total number of bytes in the files being joined
+	 */
+	public void progress(long written, long total);
+}
@@ -1,13 +1,19 @@
 package ca.corefacility.bioinformatics.irida.processing.concatenate;
 
-import java.io.BufferedWriter;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ConcatenateException;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
@@ -17,11 +23,23 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
  * Class to concatenate multiple {@link SequencingObject}s and return a single
  * new {@link SequencingObject}. This class should be extended by
  * implementations for specific {@link SequencingObject}s
+ * <p>
+ * Files are joined byte for byte. Uncompressed files are copied with
+ * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+ * so the data never has to pass through the JVM. When every file is gzipped
+ * the compressed files are joined as they are, which is itself a valid
+ * (multi-member) gzip file, so nothing is recompressed.
  * 
  * @param <Type>
  *            the {@link SequencingObject} class to concatenate
  */
 public abstract class SequencingObjectConcatenator<Type extends SequencingObject> {
+	private static final Logger logger = LoggerFactory.getLogger(SequencingObjectConcatenator.class);
+
+	private static final String FASTQ_EXTENSION = ".fastq";
+	private static final String GZIP_EXTENSION = ".gz";
+
+	private ConcatenateProgressListener progressListener;
 
 	/**
 	 * Concatenate a set of {@link SequencingObject}s of a given type
@@ -38,26 +56,121 @@ public abstract class SequencingObjectConcatenator<Type extends SequencingObject
 			throws ConcatenateException;
 
 	/**
-	 * Append a {@link SequenceFile} to a {@link Path} on the filesystem
+	 * Set a listener to be told how much of a concatenation has been written.
+	 * 
+	 * @param progressListener
+	 *            the {@link ConcatenateProgressListener}, or null for none
+	 */
+	public void setProgressListener(ConcatenateProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Get the extension for a file made by joining the given
+	 * {@link SequenceFile}s. The joined file is only gzipped if all of the
+	 * files are gzipped.
+	 * 
+	 * @param files
+	 *            the {@link SequenceFile}s that will be joined
+	 * @return ".fastq.gz" if every file is gzipped, ".fastq" otherwise
+	 * @throws ConcatenateException
+	 *             if one of the files can't be read
+	 */
+	protected String getExtension(List<SequenceFile> files) throws ConcatenateException {
+		for (SequenceFile file : files) {
+			if (!isCompressed(file.getFile())) {
+				return FASTQ_EXTENSION;
+			}
+		}
+		return files.isEmpty() ? FASTQ_EXTENSION : FASTQ_EXTENSION + GZIP_EXTENSION;
+	}
+
+	/**
+	 * Join a list of {@link SequenceFile}s into a {@link Path} on the
+	 * filesystem, in order. If the target is gzipped (see
+	 * {@link #getExtension(List)}) the gzipped files are joined without being
+	 * decompressed, otherwise any gzipped files are decompressed as they are
+	 * written.
 	 * 
 	 * @param target
-	 *            the {@link Path} to append to
-	 * @param file
-	 *            the {@link SequenceFile} to append to the path
+	 *            the {@link Path} to write to
+	 * @param files
+	 *            the {@link SequenceFile}s to join
 	 * @throws ConcatenateException
-	 *             if there is an error appending the file
+	 *             if there is an error writing the files
 	 */
-	protected void appendToFile(Path target, SequenceFile file) throws ConcatenateException {
+	protected void concatenate(Path target, List<SequenceFile> files) throws ConcatenateException {
+		boolean compressedTarget = target.getFileName().toString().endsWith(GZIP_EXTENSION);
 
-		try (FileWriter fw = new FileWriter(target.toFile(), true);
-				BufferedWriter writer = new BufferedWriter(fw);
-				FileReader reader = new FileReader(file.getFile().toFile())) {
+		long total = 0;
+		try {
+			for (SequenceFile file : files) {
+				total += Files.size(file.getFile());
+			}
+		} catch (IOException e) {
+			throw new ConcatenateException("Could not read files to concatenate", e);
+		}
 
-			IOUtils.copy(reader, writer);
+		try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.APPEND)) {
+			long written = 0;
+			for (SequenceFile file : files) {
+				Path source = file.getFile();
+				if (!compressedTarget && isCompressed(source)) {
+					decompress(source, out);
+				} else {
+					transfer(source, out);
+				}
 
+				written += Files.size(source);
+				logger.trace("Concatenated " + written + " of " + total + " bytes into " + target);
+				if (progressListener != null) {
+					progressListener.progress(written, total);
+				}
+			}
 		} catch (IOException e) {
-			throw new ConcatenateException("Could not open target file for writing", e);
+			throw new ConcatenateException("Could not write concatenated file " + target, e);
 		}
 
+		logger.debug("Concatenated " + files.size() + " files (" + total + " bytes) into " + target);
+	}
+
+	/**
+	 * Copy all of a file to the end of a channel. transferTo may copy less
+	 * than asked for, so keep going until the whole file is written.
+	 */
+	private static void transfer(Path source, FileChannel out) throws IOException {
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+			long size = in.size();
+			long position = 0;
+			while (position < size) {
+				position += in.transferTo(position, size - position, out);
+			}
+		}
+	}
+
+	/**
+	 * Decompress a gzipped file to the end of a channel.
+	 * {@link GZIPInputStream} reads every member of a multi-member file.
+	 */
+	private static void decompress(Path source, FileChannel out) throws IOException {
+		// the channel is closed by the caller, so don't close the stream
+		OutputStream stream = Channels.newOutputStream(out);
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(source))) {
+			IOUtils.copyLarge(in, stream);
+		}
+	}
+
+	/**
+	 * Check the first bytes of a file for the gzip magic number.
+	 */
+	private static boolean isCompressed(Path file) throws ConcatenateException {
+		try (InputStream is = Files.newInputStream(file, StandardOpenOption.READ)) {
+			byte[] bytes = new byte[2];
+			return IOUtils.read(is, bytes) == bytes.length && bytes[0] == (byte) GZIPInputStream.GZIP_MAGIC
+					&& bytes[1] == (byte) (GZIPInputStream.GZIP_MAGIC >> 8);
+		} catch (IOException e) {
+			throw new ConcatenateException("Could not read file " + file, e);
+		}
 	}
 }
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.processing.concatenate.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ConcatenateException;
@@ -26,9 +27,18 @@ public class SequenceFilePairConcatenator extends SequencingObjectConcatenator<S
 	public SequenceFilePair concatenateFiles(List<? extends SequencingObject> toConcatenate, String filename)
 			throws ConcatenateException {
 
+		List<SequenceFile> forwardFiles = new ArrayList<>();
+		List<SequenceFile> reverseFiles = new ArrayList<>();
+		for (SequencingObject f : toConcatenate) {
+			SequenceFilePair pair = (SequenceFilePair) f;
+
+			forwardFiles.add(pair.getForwardSequenceFile());
+			reverseFiles.add(pair.getReverseSequenceFile());
+		}
+
 		// create the filenames with F/R for the forward and reverse files
-		String forwardName = filename + "_R1.fastq";
-		String reverseName = filename + "_R2.fastq";
+		String forwardName = filename + "_R1" + getExtension(forwardFiles);
+		String reverseName = filename + "_R2" + getExtension(reverseFiles);
 
 		Path forwardFile;
 		Path reverseFile;
@@ -47,16 +57,9 @@ public class SequenceFilePairConcatenator extends SequencingObjectConcatenator<S
 			throw new ConcatenateException("Could not create temporary files", e);
 		}
 
-		// for each file concatenate the forward and reverse files
-		for (SequencingObject f : toConcatenate) {
-			SequenceFilePair pair = (SequenceFilePair) f;
-
-			SequenceFile forwardSequenceFile = pair.getForwardSequenceFile();
-			SequenceFile reverseSequenceFile = pair.getReverseSequenceFile();
-
-			appendToFile(forwardFile, forwardSequenceFile);
-			appendToFile(reverseFile, reverseSequenceFile);
-		}
+		// concatenate the forward and reverse files
+		concatenate(forwardFile, forwardFiles);
+		concatenate(reverseFile, reverseFiles);
 
 		// create new SequenceFiles
 		SequenceFile forward = new SequenceFile(forwardFile);
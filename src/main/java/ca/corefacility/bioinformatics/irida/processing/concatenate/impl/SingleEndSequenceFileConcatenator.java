@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.processing.concatenate.impl;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ConcatenateException;
@@ -27,8 +28,14 @@ public class SingleEndSequenceFileConcatenator extends SequencingObjectConcatena
 			throws ConcatenateException {
 		Path tempFile;
 
+		List<SequenceFile> files = new ArrayList<>();
+		for (SequencingObject f : toConcatenate) {
+			SingleEndSequenceFile single = (SingleEndSequenceFile) f;
+			files.add(single.getSequenceFile());
+		}
+
 		// create the filename with extension
-		filename = filename + ".fastq";
+		filename = filename + getExtension(files);
 		try {
 			// create a temp directory and temp file
 			Path tempDirectory = Files.createTempDirectory(null);
@@ -41,14 +48,8 @@ public class SingleEndSequenceFileConcatenator extends SequencingObjectConcatena
 			throw new ConcatenateException("Could not create temporary files", e);
 		}
 
-		// for each file concatenate the file
-		for (SequencingObject f : toConcatenate) {
-			SingleEndSequenceFile single = (SingleEndSequenceFile) f;
-
-			SequenceFile forwardSequenceFile = single.getSequenceFile();
-
-			appendToFile(tempFile, forwardSequenceFile);
-		}
+		// concatenate the files
+		concatenate(tempFile, files);
 
 		// create the new sequencefile and object
 		SequenceFile forward = new SequenceFile(tempFile);
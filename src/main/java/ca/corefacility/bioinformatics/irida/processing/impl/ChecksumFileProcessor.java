@@ -3,34 +3,46 @@ package ca.corefacility.bioinformatics.irida.processing.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Set;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.SequenceFileStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ContentAddressedFileStore;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
  * {@link FileProcessor} used to calculate a checksum using sha256 for uploaded
- * {@link SequenceFile}s
+ * {@link SequenceFile}s. Once the checksum is known the file is handed to the
+ * {@link ContentAddressedFileStore} so that identical uploads can share
+ * storage.
  */
 @Component
-public class ChecksumFileProcessor implements FileProcessor {
+public class ChecksumFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(ChecksumFileProcessor.class);
 
 	private SequenceFileRepository fileRepository;
-
+	private ContentAddressedFileStore contentStore;
 
 	@Autowired
-	public ChecksumFileProcessor(SequenceFileRepository fileRepository) {
+	public ChecksumFileProcessor(SequenceFileRepository fileRepository,
+			@Qualifier("sequenceFileContentStore") ContentAddressedFileStore contentStore) {
 		this.fileRepository = fileRepository;
+		this.contentStore = contentStore;
 	}
 
 	/**
@@ -54,6 +66,7 @@ public class ChecksumFileProcessor implements FileProcessor {
 				logger.trace("Checksum generated for file " + file.getId() + ": " + shaDigest);
 				file.setUploadSha256(shaDigest);
 
+				deduplicate(file);
 				fileRepository.saveMetadata(file);
 			} catch (IOException e) {
 				throw new FileProcessorException("could not calculate checksum", e);
@@ -62,6 +75,55 @@ public class ChecksumFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public SequenceFileStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean compressed) {
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new FileProcessorException("could not calculate checksum", e);
+		}
+
+		return new SequenceFileStreamConsumer() {
+			@Override
+			public void acceptRawBytes(byte[] buffer, int offset, int length) {
+				digest.update(buffer, offset, length);
+			}
+
+			@Override
+			public void complete() {
+				String shaDigest = Hex.encodeHexString(digest.digest());
+				logger.trace("Checksum generated for file " + sequenceFile.getId() + ": " + shaDigest);
+				sequenceFile.setUploadSha256(shaDigest);
+
+				deduplicate(sequenceFile);
+				fileRepository.saveMetadata(sequenceFile);
+			}
+		};
+	}
+
+	/**
+	 * Share storage for the file with any other file with the same checksum.
+	 * Failing to de-duplicate isn't a processing failure, the file is still
+	 * intact where it was. A file replaced by a link to an existing blob takes
+	 * the blob's modification time, so the file's metadata is recorded again
+	 * afterwards.
+	 * 
+	 * @param file
+	 *            the {@link SequenceFile} with a calculated checksum
+	 */
+	private void deduplicate(SequenceFile file) {
+		try {
+			contentStore.deduplicate(file.getFile(), file.getUploadSha256());
+			file.setFileMetadata(FileMetadata.read(file.getFile()));
+		} catch (IOException | UnsupportedOperationException e) {
+			logger.warn("Could not de-duplicate storage for file " + file.getId(), e);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,13 +17,15 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 
 /**
  * Default implementation of {@link FileProcessingChain}. Simply iterates
- * through a collection of {@link FileProcessor}.
- * 
+ * through a collection of {@link FileProcessor}. Adjacent
+ * {@link StreamingFileProcessor}s are run together on a single read of each
+ * file.
  * 
  */
 public class DefaultFileProcessingChain implements FileProcessingChain {
@@ -78,7 +81,18 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 			}
 		}
 
+		// adjacent streaming processors share a single read of each file
+		List<StreamingFileProcessor> streamingProcessors = new ArrayList<>();
+
 		for (FileProcessor fileProcessor : fileProcessors) {
+			if (fileProcessor instanceof StreamingFileProcessor) {
+				streamingProcessors.add((StreamingFileProcessor) fileProcessor);
+				continue;
+			}
+
+			launchStreamingProcessors(sequencingObjectId, streamingProcessors, ignoredExceptions);
+			streamingProcessors.clear();
+
 			try {
 				if (fileProcessor.shouldProcessFile(sequencingObjectId)) {
 					SequencingObject settledSequencingObject = getSettledSequencingObject(sequencingObjectId);
@@ -86,28 +100,12 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 					fileProcessor.process(settledSequencingObject);
 				}
 			} catch (FileProcessorException e) {
-				SequencingObject sequencingObject = sequencingObjectRepository.findOne(sequencingObjectId);
-
-				qcRepository.save(new FileProcessorErrorQCEntry(sequencingObject));
-
-				// if the file processor modifies the file, then just fast fail,
-				// we can't proceed with the remaining file processors. If the
-				// file processor *doesn't* modify the file, then continue with
-				// execution (show the error, but proceed).
-				if (fileProcessor.modifiesFile() || fastFail) {
-					sequencingObject.setProcessingState(SequencingObject.ProcessingState.ERROR);
-					sequencingObjectRepository.save(sequencingObject);
-
-					throw e;
-				} else {
-					ignoredExceptions.add(e);
-					logger.error("File processor [" + fileProcessor.getClass() + "] failed to process ["
-							+ sequencingObjectId + "], but proceeding with the remaining processors because the "
-							+ "file would not be modified by the processor. Stack trace follows.", e);
-				}
+				handleProcessorException(fileProcessor, sequencingObjectId, e, ignoredExceptions);
 			}
 		}
 
+		launchStreamingProcessors(sequencingObjectId, streamingProcessors, ignoredExceptions);
+
 		SequencingObject statusObject = sequencingObjectRepository.findOne(sequencingObjectId);
 
 		statusObject.setProcessingState(SequencingObject.ProcessingState.FINISHED);
@@ -116,6 +114,104 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 		return ignoredExceptions;
 	}
 
+	/**
+	 * Run a group of adjacent {@link StreamingFileProcessor}s. Each file in the
+	 * {@link SequencingObject} is read from disk once and shared by all of the
+	 * processors, then each processor is completed in chain order so that
+	 * failures are handled exactly as they would be if the processors had run
+	 * one after another.
+	 * 
+	 * @param sequencingObjectId
+	 *            the id of the {@link SequencingObject} to process
+	 * @param streamingProcessors
+	 *            the processors to run
+	 * @param ignoredExceptions
+	 *            the exceptions ignored so far in the chain
+	 * @throws FileProcessorTimeoutException
+	 *             if the files don't settle in the configured timeout
+	 */
+	private void launchStreamingProcessors(Long sequencingObjectId, List<StreamingFileProcessor> streamingProcessors,
+			List<Exception> ignoredExceptions) throws FileProcessorTimeoutException {
+		List<StreamingFileProcessor> processorsToRun = new ArrayList<>();
+		for (StreamingFileProcessor fileProcessor : streamingProcessors) {
+			try {
+				if (fileProcessor.shouldProcessFile(sequencingObjectId)) {
+					processorsToRun.add(fileProcessor);
+				}
+			} catch (FileProcessorException e) {
+				handleProcessorException(fileProcessor, sequencingObjectId, e, ignoredExceptions);
+			}
+		}
+
+		if (processorsToRun.isEmpty()) {
+			return;
+		} else if (processorsToRun.size() == 1) {
+			// nothing to share, run it like any other processor
+			StreamingFileProcessor fileProcessor = processorsToRun.get(0);
+			try {
+				fileProcessor.process(getSettledSequencingObject(sequencingObjectId));
+			} catch (FileProcessorException e) {
+				handleProcessorException(fileProcessor, sequencingObjectId, e, ignoredExceptions);
+			}
+			return;
+		}
+
+		SequencingObject settledSequencingObject = getSettledSequencingObject(sequencingObjectId);
+
+		logger.trace("Reading files for [" + sequencingObjectId + "] once for " + processorsToRun.size()
+				+ " processors.");
+		List<SharedSequenceFileRead> reads = settledSequencingObject.getFiles().stream()
+				.map(f -> SharedSequenceFileRead.read(f, processorsToRun)).collect(Collectors.toList());
+
+		for (StreamingFileProcessor fileProcessor : processorsToRun) {
+			try {
+				for (SharedSequenceFileRead read : reads) {
+					read.complete(fileProcessor);
+				}
+			} catch (FileProcessorException e) {
+				handleProcessorException(fileProcessor, sequencingObjectId, e, ignoredExceptions);
+			}
+		}
+	}
+
+	/**
+	 * Record a failed {@link FileProcessor} and decide whether or not the chain
+	 * can continue.
+	 * 
+	 * @param fileProcessor
+	 *            the processor that failed
+	 * @param sequencingObjectId
+	 *            the id of the {@link SequencingObject} being processed
+	 * @param e
+	 *            the exception thrown by the processor
+	 * @param ignoredExceptions
+	 *            the exceptions ignored so far in the chain
+	 * @throws FileProcessorException
+	 *             if the chain cannot continue
+	 */
+	private void handleProcessorException(FileProcessor fileProcessor, Long sequencingObjectId,
+			FileProcessorException e, List<Exception> ignoredExceptions) {
+		SequencingObject sequencingObject = sequencingObjectRepository.findOne(sequencingObjectId);
+
+		qcRepository.save(new FileProcessorErrorQCEntry(sequencingObject));
+
+		// if the file processor modifies the file, then just fast fail,
+		// we can't proceed with the remaining file processors. If the
+		// file processor *doesn't* modify the file, then continue with
+		// execution (show the error, but proceed).
+		if (fileProcessor.modifiesFile() || fastFail) {
+			sequencingObject.setProcessingState(SequencingObject.ProcessingState.ERROR);
+			sequencingObjectRepository.save(sequencingObject);
+
+			throw e;
+		} else {
+			ignoredExceptions.add(e);
+			logger.error("File processor [" + fileProcessor.getClass() + "] failed to process ["
+					+ sequencingObjectId + "], but proceeding with the remaining processors because the "
+					+ "file would not be modified by the processor. Stack trace follows.", e);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -155,13 +251,13 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 	 *             if the files don't settle in the configured timeout
 	 */
 	private SequencingObject getSettledSequencingObject(Long sequencingObjectId) throws FileProcessorTimeoutException {
-		boolean filesNotSettled = true;
-
 		Integer waiting = 0;
 
-		SequencingObject sequencingObject;
+		SequencingObject sequencingObject = sequencingObjectRepository.findOne(sequencingObjectId);
 
-		do {
+		// objects are dispatched after the creating transaction commits, so
+		// the files are normally already in place and we never sleep here.
+		while (!filesSettled(sequencingObject)) {
 			if (waiting > timeout) {
 				throw new FileProcessorTimeoutException("Waiting for longer than " + sleepDuration * timeout
 						+ "ms, bailing out.  File id " + sequencingObjectId);
@@ -175,15 +271,25 @@ public class DefaultFileProcessingChain implements FileProcessingChain {
 			}
 
 			sequencingObject = sequencingObjectRepository.findOne(sequencingObjectId);
-
-			if(sequencingObject != null) {
-				Set<SequenceFile> files = sequencingObject.getFiles();
-				filesNotSettled = files.stream().anyMatch(f -> {
-					return !Files.exists(f.getFile());
-				});
-			}
-		} while (filesNotSettled);
+		}
 
 		return sequencingObject;
 	}
+
+	/**
+	 * Check whether all the files for a {@link SequencingObject} exist on
+	 * disk.
+	 * 
+	 * @param sequencingObject
+	 *            the {@link SequencingObject} to check
+	 * @return true if the object exists and all of its files are on disk
+	 */
+	private boolean filesSettled(SequencingObject sequencingObject) {
+		if (sequencingObject == null) {
+			return false;
+		}
+
+		Set<SequenceFile> files = sequencingObject.getFiles();
+		return files.stream().allMatch(f -> Files.exists(f.getFile()));
+	}
 }
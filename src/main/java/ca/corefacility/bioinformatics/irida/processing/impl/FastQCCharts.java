@@ -0,0 +1,200 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+
+import javax.imageio.ImageIO;
+
+import org.springframework.util.ReflectionUtils;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
+import uk.ac.babraham.FastQC.Graphs.LineGraph;
+import uk.ac.babraham.FastQC.Graphs.QualityBoxPlot;
+import uk.ac.babraham.FastQC.Modules.DuplicationLevel;
+import uk.ac.babraham.FastQC.Modules.PerBaseQualityScores;
+import uk.ac.babraham.FastQC.Modules.PerSequenceQualityScores;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Captures the series behind the charts FastQC draws, and draws the charts
+ * again from the captured series. FastQC only hands its numbers to the graph
+ * panels it builds, so the series are read back out of the private fields of
+ * those panels, and the panels are rebuilt from the series to draw them. The
+ * series are stored as small JSON documents, rounded to three decimal places.
+ */
+public final class FastQCCharts {
+
+	/**
+	 * The width of a drawn chart.
+	 */
+	public static final int WIDTH = 800;
+
+	/**
+	 * The height of a drawn chart.
+	 */
+	public static final int HEIGHT = 600;
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private FastQCCharts() {
+	}
+
+	/**
+	 * Capture the series from the FastQC modules once they've seen every
+	 * sequence in a file.
+	 *
+	 * @param perBaseQualityScores
+	 *            the per-base quality score module
+	 * @param perSequenceQualityScores
+	 *            the per-sequence quality score module
+	 * @param duplicationLevel
+	 *            the duplication level module
+	 * @return the {@link FastQCChartData}, not yet attached to an analysis
+	 * @throws IOException
+	 *             if the series couldn't be encoded
+	 */
+	public static FastQCChartData capture(PerBaseQualityScores perBaseQualityScores,
+			PerSequenceQualityScores perSequenceQualityScores, DuplicationLevel duplicationLevel) throws IOException {
+		return new FastQCChartData(null, encode(BoxPlotSeries.of((QualityBoxPlot) perBaseQualityScores.getResultsPanel())),
+				encode(LineGraphSeries.of((LineGraph) perSequenceQualityScores.getResultsPanel())),
+				encode(LineGraphSeries.of((LineGraph) duplicationLevel.getResultsPanel())));
+	}
+
+	/**
+	 * Draw one of the charts as a PNG.
+	 *
+	 * @param data
+	 *            the captured series
+	 * @param chart
+	 *            the chart to draw
+	 * @return the PNG-formatted chart, or null if there's no series for the
+	 *         chart
+	 * @throws IOException
+	 *             if the series couldn't be read or the image couldn't be
+	 *             written
+	 */
+	public static byte[] render(FastQCChartData data, Chart chart) throws IOException {
+		String series = data.getSeries(chart);
+		if (series == null) {
+			return null;
+		}
+
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics g = image.getGraphics();
+		try {
+			if (chart == Chart.PER_BASE_QUALITY) {
+				objectMapper.readValue(series, BoxPlotSeries.class).toGraph().paint(g, WIDTH, HEIGHT);
+			} else {
+				objectMapper.readValue(series, LineGraphSeries.class).toGraph().paint(g, WIDTH, HEIGHT);
+			}
+		} finally {
+			g.dispose();
+		}
+
+		ByteArrayOutputStream os = new ByteArrayOutputStream();
+		ImageIO.write(image, "PNG", os);
+		return os.toByteArray();
+	}
+
+	private static String encode(Object series) throws IOException {
+		return objectMapper.writeValueAsString(series);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T read(Object target, String name) {
+		Field field = ReflectionUtils.findField(target.getClass(), name);
+		ReflectionUtils.makeAccessible(field);
+		return (T) ReflectionUtils.getField(field, target);
+	}
+
+	private static double round(double value) {
+		return Math.round(value * 1000) / 1000.0;
+	}
+
+	private static double[] round(double[] values) {
+		if (values == null) {
+			return null;
+		}
+		double[] rounded = new double[values.length];
+		for (int i = 0; i < values.length; i++) {
+			rounded[i] = round(values[i]);
+		}
+		return rounded;
+	}
+
+	/**
+	 * The series behind the per-base quality box plot.
+	 */
+	static class BoxPlotSeries {
+		public String title;
+		public String[] xLabels;
+		public double[] means;
+		public double[] medians;
+		public double[] lowest;
+		public double[] highest;
+		public double[] lowerQuartile;
+		public double[] upperQuartile;
+		public double minY;
+		public double maxY;
+		public double yInterval;
+
+		static BoxPlotSeries of(QualityBoxPlot plot) {
+			BoxPlotSeries series = new BoxPlotSeries();
+			series.title = read(plot, "graphTitle");
+			series.xLabels = read(plot, "xLabels");
+			series.means = round((double[]) read(plot, "means"));
+			series.medians = round((double[]) read(plot, "medians"));
+			series.lowest = round((double[]) read(plot, "lowest"));
+			series.highest = round((double[]) read(plot, "highest"));
+			series.lowerQuartile = round((double[]) read(plot, "lowerQuartile"));
+			series.upperQuartile = round((double[]) read(plot, "upperQuartile"));
+			series.minY = read(plot, "minY");
+			series.maxY = read(plot, "maxY");
+			series.yInterval = read(plot, "yInterval");
+			return series;
+		}
+
+		QualityBoxPlot toGraph() {
+			return new QualityBoxPlot(means, medians, lowest, highest, lowerQuartile, upperQuartile, minY, maxY,
+					yInterval, xLabels, title);
+		}
+	}
+
+	/**
+	 * The series behind a line graph.
+	 */
+	static class LineGraphSeries {
+		public String title;
+		public String xLabel;
+		public String[] xTitles;
+		public String[] xCategories;
+		public double[][] data;
+		public double minY;
+		public double maxY;
+
+		static LineGraphSeries of(LineGraph graph) {
+			LineGraphSeries series = new LineGraphSeries();
+			series.title = read(graph, "graphTitle");
+			series.xLabel = read(graph, "xLabel");
+			series.xTitles = read(graph, "xTitles");
+			series.xCategories = read(graph, "xCategories");
+			double[][] data = read(graph, "data");
+			series.data = new double[data.length][];
+			for (int i = 0; i < data.length; i++) {
+				series.data[i] = round(data[i]);
+			}
+			series.minY = read(graph, "minY");
+			series.maxY = read(graph, "maxY");
+			return series;
+		}
+
+		LineGraph toGraph() {
+			return new LineGraph(data, minY, maxY, xLabel, xTitles, xCategories, title);
+		}
+	}
+}
@@ -1,12 +1,16 @@
 package ca.corefacility.bioinformatics.irida.processing.impl;
 
+import ca.corefacility.bioinformatics.irida.exceptions.AnalysisAlreadySetException;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSequence;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC.AnalysisFastQCBuilder;
-import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.SequenceFileStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.FastQCChartDataRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,18 +20,12 @@ import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import uk.ac.babraham.FastQC.FastQCApplication;
-import uk.ac.babraham.FastQC.Graphs.LineGraph;
-import uk.ac.babraham.FastQC.Graphs.QualityBoxPlot;
 import uk.ac.babraham.FastQC.Modules.*;
 import uk.ac.babraham.FastQC.Modules.OverRepresentedSeqs.OverrepresentedSeq;
 import uk.ac.babraham.FastQC.Sequence.QualityEncoding.PhredEncoding;
 import uk.ac.babraham.FastQC.Sequence.Sequence;
 import uk.ac.babraham.FastQC.Sequence.SequenceFactory;
 
-import javax.imageio.ImageIO;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.file.Path;
@@ -44,12 +42,13 @@ import java.util.Set;
  * 
  */
 @Component
-public class FastqcFileProcessor implements FileProcessor {
+public class FastqcFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(FastqcFileProcessor.class);
 
 	private static final String EXECUTION_MANAGER_ANALYSIS_ID = "internal-fastqc";
 
 	private final SequenceFileRepository sequenceFileRepository;
+	private final FastQCChartDataRepository chartDataRepository;
 	private final MessageSource messageSource;
 
 	/**
@@ -60,11 +59,15 @@ public class FastqcFileProcessor implements FileProcessor {
 	 *            description for the analysis).
 	 * @param sequenceFileRepository
 	 *            the sequence file repository.
+	 * @param chartDataRepository
+	 *            the repository for the series behind the FastQC charts.
 	 */
 	@Autowired
-	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository) {
+	public FastqcFileProcessor(final MessageSource messageSource, final SequenceFileRepository sequenceFileRepository,
+			final FastQCChartDataRepository chartDataRepository) {
 		this.messageSource = messageSource;
 		this.sequenceFileRepository = sequenceFileRepository;
+		this.chartDataRepository = chartDataRepository;
 	}
 
 	@Override
@@ -85,44 +88,116 @@ public class FastqcFileProcessor implements FileProcessor {
 	 */
 	private void processSingleFile(SequenceFile sequenceFile) throws FileProcessorException {
 		Path fileToProcess = sequenceFile.getFile();
+		try {
+			FastQCModules modules = runModules(fileToProcess);
+			saveAnalysis(sequenceFile, modules);
+		} catch (Exception e) {
+			logger.error("FastQC failed to process the sequence file. Stack trace follows.", e);
+			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+		}
+	}
+
+	/**
+	 * Run FastQC over a {@link SequenceFile} again to capture the series
+	 * behind its charts, without saving anything. This is for files whose
+	 * analysis was saved before the series were kept.
+	 * 
+	 * @param sequenceFile
+	 *            the file to read
+	 * @return the {@link FastQCChartData} for the file, not yet attached to an
+	 *         analysis
+	 * @throws FileProcessorException
+	 *             if the file couldn't be read
+	 */
+	public FastQCChartData computeChartData(SequenceFile sequenceFile) throws FileProcessorException {
+		try {
+			FastQCModules modules = runModules(sequenceFile.getFile());
+			return captureCharts(modules);
+		} catch (Exception e) {
+			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+		}
+	}
+
+	private FastQCModules runModules(Path fileToProcess) throws Exception {
+		uk.ac.babraham.FastQC.Sequence.SequenceFile fastQCSequenceFile = SequenceFactory
+				.getSequenceFile(fileToProcess.toFile());
+		FastQCModules modules = new FastQCModules();
+
+		logger.debug("Launching FastQC analysis modules on all sequences.");
+		while (fastQCSequenceFile.hasNext()) {
+			modules.processSequence(fastQCSequenceFile.next());
+		}
+
+		logger.debug("Finished FastQC analysis modules.");
+		return modules;
+	}
+
+	private FastQCChartData captureCharts(FastQCModules modules) throws IOException {
+		return FastQCCharts.capture(modules.pbqs, modules.psqs, modules.overRep.duplicationLevelModule());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public SequenceFileStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean compressed) {
+		final FastQCModules modules = new FastQCModules();
+
+		return new SequenceFileStreamConsumer() {
+			@Override
+			public boolean requiresSequences() {
+				return true;
+			}
+
+			@Override
+			public void acceptSequence(Sequence sequence) {
+				modules.processSequence(sequence);
+			}
+
+			@Override
+			public void complete() {
+				try {
+					saveAnalysis(sequenceFile, modules);
+				} catch (Exception e) {
+					logger.error("FastQC failed to process the sequence file. Stack trace follows.", e);
+					throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Build the {@link AnalysisFastQC} from the computed FastQC modules and
+	 * save it with the {@link SequenceFile}. The series behind the charts are
+	 * saved separately, keyed on the analysis.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} that was processed
+	 * @param modules
+	 *            the FastQC modules that have seen every sequence in the file
+	 * @throws IOException
+	 *             if the chart series could not be encoded
+	 * @throws AnalysisAlreadySetException
+	 *             if the file already has a FastQC analysis
+	 */
+	private void saveAnalysis(SequenceFile sequenceFile, FastQCModules modules)
+			throws IOException, AnalysisAlreadySetException {
 		AnalysisFastQC.AnalysisFastQCBuilder analysis = AnalysisFastQC.builder()
 				.fastqcVersion(FastQCApplication.VERSION).executionManagerAnalysisId(EXECUTION_MANAGER_ANALYSIS_ID)
 				.description(messageSource.getMessage("fastqc.file.processor.analysis.description",
 						new Object[] { FastQCApplication.VERSION }, LocaleContextHolder.getLocale()));
-		try {
-			uk.ac.babraham.FastQC.Sequence.SequenceFile fastQCSequenceFile = SequenceFactory
-					.getSequenceFile(fileToProcess.toFile());
-			BasicStats basicStats = new BasicStats();
-			PerBaseQualityScores pbqs = new PerBaseQualityScores();
-			PerSequenceQualityScores psqs = new PerSequenceQualityScores();
-			OverRepresentedSeqs overRep = new OverRepresentedSeqs();
-			QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
-
-			logger.debug("Launching FastQC analysis modules on all sequences.");
-			while (fastQCSequenceFile.hasNext()) {
-				Sequence sequence = fastQCSequenceFile.next();
-				for (QCModule module : moduleList) {
-					module.processSequence(sequence);
-				}
-			}
 
-			logger.debug("Finished FastQC analysis modules.");
-			handleBasicStats(basicStats, analysis);
-			handlePerBaseQualityScores(pbqs, analysis);
-			handlePerSequenceQualityScores(psqs, analysis);
-			handleDuplicationLevel(overRep.duplicationLevelModule(), analysis);
-			Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(overRep);
+		handleBasicStats(modules.basicStats, analysis);
+		FastQCChartData chartData = captureCharts(modules);
+		Set<OverrepresentedSequence> overrepresentedSequences = handleOverRepresentedSequences(modules.overRep);
 
-			logger.trace("Saving FastQC analysis.");
-			analysis.overrepresentedSequences(overrepresentedSequences);
+		logger.trace("Saving FastQC analysis.");
+		analysis.overrepresentedSequences(overrepresentedSequences);
 
-			sequenceFile.setFastQCAnalysis(analysis.build());
+		sequenceFile.setFastQCAnalysis(analysis.build());
 
-			sequenceFileRepository.saveMetadata(sequenceFile);
-		} catch (Exception e) {
-			logger.error("FastQC failed to process the sequence file. Stack trace follows.", e);
-			throw new FileProcessorException("FastQC failed to parse the sequence file.", e);
-		}
+		SequenceFile saved = sequenceFileRepository.saveMetadata(sequenceFile);
+		chartDataRepository.save(chartData.forAnalysis(saved.getFastQCAnalysis().getId()));
 	}
 
 	/**
@@ -145,69 +220,6 @@ public class FastqcFileProcessor implements FileProcessor {
 				stats.getACount() + stats.getGCount() + stats.getCCount() + stats.getTCount() + stats.getNCount());
 	}
 
-	/**
-	 * Handle writing the {@link PerBaseQualityScores} to the database.
-	 * 
-	 * @param scores
-	 *            the {@link PerBaseQualityScores} computed by fastqc.
-	 * @param analysis
-	 *            the {@link AnalysisFastQCBuilder} to update.
-	 */
-	private void handlePerBaseQualityScores(PerBaseQualityScores scores, AnalysisFastQCBuilder analysis)
-			throws IOException {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		QualityBoxPlot bp = (QualityBoxPlot) scores.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		bp.paint(g, b.getWidth(), b.getHeight());
-
-		ImageIO.write(b, "PNG", os);
-		byte[] image = os.toByteArray();
-		analysis.perBaseQualityScoreChart(image);
-	}
-
-	/**
-	 * Handle writing the {@link PerSequenceQualityScores} to the database.
-	 * 
-	 * @param scores
-	 *            the {@link PerSequenceQualityScores} computed by fastqc.
-	 * @param analysis
-	 *            the {@link AnalysisFastQCBuilder} to update.
-	 */
-	private void handlePerSequenceQualityScores(PerSequenceQualityScores scores, AnalysisFastQCBuilder analysis)
-			throws IOException {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		LineGraph lg = (LineGraph) scores.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		lg.paint(g, b.getWidth(), b.getHeight());
-
-		ImageIO.write(b, "PNG", os);
-		byte[] image = os.toByteArray();
-		analysis.perSequenceQualityScoreChart(image);
-	}
-
-	/**
-	 * Handle writing the {@link DuplicationLevel} to the database.
-	 * 
-	 * @param duplicationLevel
-	 *            the {@link DuplicationLevel} calculated by fastqc.
-	 * @param analysis
-	 *            the {@link AnalysisFastQCBuilder} to update.
-	 */
-	private void handleDuplicationLevel(DuplicationLevel duplicationLevel, AnalysisFastQCBuilder analysis)
-			throws IOException {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		LineGraph lg = (LineGraph) duplicationLevel.getResultsPanel();
-		BufferedImage b = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
-		Graphics g = b.getGraphics();
-		lg.paint(g, b.getWidth(), b.getHeight());
-
-		ImageIO.write(b, "PNG", os);
-		byte[] image = os.toByteArray();
-		analysis.duplicationLevelChart(image);
-	}
-
 	/**
 	 * Handle getting over represented sequences from fastqc.
 	 * 
@@ -243,4 +255,21 @@ public class FastqcFileProcessor implements FileProcessor {
 	public Boolean modifiesFile() {
 		return false;
 	}
+
+	/**
+	 * The set of FastQC modules that IRIDA computes for each file.
+	 */
+	private static final class FastQCModules {
+		private final BasicStats basicStats = new BasicStats();
+		private final PerBaseQualityScores pbqs = new PerBaseQualityScores();
+		private final PerSequenceQualityScores psqs = new PerSequenceQualityScores();
+		private final OverRepresentedSeqs overRep = new OverRepresentedSeqs();
+		private final QCModule[] moduleList = new QCModule[] { basicStats, pbqs, psqs, overRep };
+
+		private void processSequence(Sequence sequence) {
+			for (QCModule module : moduleList) {
+				module.processSequence(sequence);
+			}
+		}
+	}
 }
@@ -2,6 +2,7 @@ package ca.corefacility.bioinformatics.irida.processing.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -16,8 +17,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
-import ca.corefacility.bioinformatics.irida.processing.FileProcessor;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.SequenceFileStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
@@ -31,7 +33,7 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
  * 
  */
 @Component
-public class GzipFileProcessor implements FileProcessor {
+public class GzipFileProcessor implements StreamingFileProcessor {
 	private static final Logger logger = LoggerFactory.getLogger(GzipFileProcessor.class);
 	private static final String GZIP_EXTENSION = ".gz";
 
@@ -82,12 +84,7 @@ public class GzipFileProcessor implements FileProcessor {
 	 */
 	public void processSingleFile(SequenceFile sequenceFile) throws FileProcessorException {
 		Path file = sequenceFile.getFile();
-		String nameWithoutExtension = file.getFileName().toString();
-
-		// strip the extension from the filename (if necessary)
-		if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
-			nameWithoutExtension = nameWithoutExtension.substring(0, nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
-		}
+		String nameWithoutExtension = stripGzipExtension(file);
 
 		try {
 			logger.trace("About to try handling a gzip file.");
@@ -97,28 +94,11 @@ public class GzipFileProcessor implements FileProcessor {
 				try (GZIPInputStream zippedInputStream = new GZIPInputStream(Files.newInputStream(file))) {
 					logger.trace("Handling gzip compressed file.");
 
-					Path targetDirectory = Files.createTempDirectory(null);
-					Path target = targetDirectory.resolve(nameWithoutExtension);
-					logger.debug("Target directory is [" + targetDirectory + "]");
-					logger.debug("Writing uncompressed file to [" + target + "]");
+					Path target = createTarget(nameWithoutExtension);
 
 					Files.copy(zippedInputStream, target);
 
-					sequenceFile.setFile(target);
-					sequenceFile = sequenceFileRepository.save(sequenceFile);
-
-					if (removeCompressedFile) {
-						logger.debug(
-								"Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
-						try {
-							Files.delete(file);
-						} catch (final Exception e) {
-							logger.error("Failed to remove the original compressed file.", e);
-							// throw the exception again to be caught by the
-							// outer try/catch block:
-							throw e;
-						}
-					}
+					replaceWithDecompressed(sequenceFile, file, target);
 				}
 			}
 		} catch (Exception e) {
@@ -127,6 +107,121 @@ public class GzipFileProcessor implements FileProcessor {
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public SequenceFileStreamConsumer createStreamConsumer(SequenceFile sequenceFile, boolean compressed) {
+		if (!compressed) {
+			// the file processor just shouldn't do *anything*.
+			return () -> {
+			};
+		}
+
+		final Path target;
+		final OutputStream decompressed;
+		try {
+			target = createTarget(stripGzipExtension(sequenceFile.getFile()));
+			decompressed = Files.newOutputStream(target);
+		} catch (IOException e) {
+			throw new FileProcessorException("Failed to process input file [" + sequenceFile + "].", e);
+		}
+
+		return new SequenceFileStreamConsumer() {
+			@Override
+			public void acceptDecompressedBytes(byte[] buffer, int offset, int length) throws IOException {
+				decompressed.write(buffer, offset, length);
+			}
+
+			@Override
+			public void complete() {
+				try {
+					decompressed.close();
+					Path file = addExtensionToFilename(sequenceFile.getFile(), GZIP_EXTENSION);
+					replaceWithDecompressed(sequenceFile, file, target);
+				} catch (Exception e) {
+					logger.error("Failed to process the input file [" + sequenceFile + "]; stack trace follows.", e);
+					throw new FileProcessorException("Failed to process input file [" + sequenceFile + "].");
+				}
+			}
+
+			@Override
+			public void abort() {
+				try {
+					decompressed.close();
+					Files.deleteIfExists(target);
+				} catch (IOException e) {
+					logger.warn("Failed to clean up partially decompressed file [" + target + "]", e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * Strip the gzip extension from the filename (if necessary)
+	 * 
+	 * @param file
+	 *            the compressed file
+	 * @return the name of the file without the gzip extension
+	 */
+	private String stripGzipExtension(Path file) {
+		String nameWithoutExtension = file.getFileName().toString();
+
+		if (nameWithoutExtension.endsWith(GZIP_EXTENSION)) {
+			nameWithoutExtension = nameWithoutExtension.substring(0, nameWithoutExtension.lastIndexOf(GZIP_EXTENSION));
+		}
+
+		return nameWithoutExtension;
+	}
+
+	/**
+	 * Create the location that the decompressed file will be written to.
+	 * 
+	 * @param nameWithoutExtension
+	 *            the name of the decompressed file
+	 * @return the target to write the decompressed file to
+	 * @throws IOException
+	 *             if the temporary directory could not be created
+	 */
+	private Path createTarget(String nameWithoutExtension) throws IOException {
+		Path targetDirectory = Files.createTempDirectory(null);
+		Path target = targetDirectory.resolve(nameWithoutExtension);
+		logger.debug("Target directory is [" + targetDirectory + "]");
+		logger.debug("Writing uncompressed file to [" + target + "]");
+		return target;
+	}
+
+	/**
+	 * Point the {@link SequenceFile} at the decompressed file, persist it, and
+	 * (optionally) remove the original compressed file.
+	 * 
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to update
+	 * @param compressed
+	 *            the original compressed file
+	 * @param target
+	 *            the decompressed file
+	 * @throws IOException
+	 *             if the compressed file should be removed and could not be
+	 */
+	private void replaceWithDecompressed(SequenceFile sequenceFile, Path compressed, Path target)
+			throws IOException {
+		sequenceFile.setFile(target);
+		sequenceFileRepository.save(sequenceFile);
+
+		if (removeCompressedFile) {
+			logger.debug("Removing original compressed files [file.processing.decompress.remove.compressed.file=true]");
+			try {
+				Files.delete(compressed);
+			} catch (final Exception e) {
+				logger.error("Failed to remove the original compressed file.", e);
+				// throw the exception again to be caught by the
+				// outer try/catch block:
+				throw e;
+			}
+		}
+	}
+
 	/**
 	 * Ensures that the supplied file ends with a specific extension.
 	 * 
@@ -0,0 +1,276 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.SequenceFileStreamConsumer;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+
+/**
+ * A single read of a {@link SequenceFile} shared by a group of
+ * {@link StreamingFileProcessor}s. The file is opened once, decompressed once
+ * (if necessary), and parsed once (if any consumer wants parsed sequences).
+ * Failures are tracked per processor so that the {@link DefaultFileProcessingChain}
+ * can apply the same fast-fail rules it uses for regular processors when each
+ * processor is completed.
+ */
+public class SharedSequenceFileRead {
+	private static final Logger logger = LoggerFactory.getLogger(SharedSequenceFileRead.class);
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final SequenceFile sequenceFile;
+	private final Map<StreamingFileProcessor, SequenceFileStreamConsumer> consumers = new LinkedHashMap<>();
+	private final Map<StreamingFileProcessor, Exception> failures = new LinkedHashMap<>();
+
+	private boolean compressed;
+
+	private SharedSequenceFileRead(SequenceFile sequenceFile) {
+		this.sequenceFile = sequenceFile;
+	}
+
+	/**
+	 * Read a {@link SequenceFile} once, handing its contents to a consumer
+	 * from each of the provided {@link StreamingFileProcessor}s. This method
+	 * does not throw when reading fails; failures are reported when each
+	 * processor is completed with {@link #complete(StreamingFileProcessor)}.
+	 *
+	 * @param sequenceFile
+	 *            the {@link SequenceFile} to read.
+	 * @param processors
+	 *            the processors that should consume the file.
+	 * @return the completed read.
+	 */
+	public static SharedSequenceFileRead read(SequenceFile sequenceFile, List<StreamingFileProcessor> processors) {
+		SharedSequenceFileRead read = new SharedSequenceFileRead(sequenceFile);
+		read.readFile(processors);
+		return read;
+	}
+
+	/**
+	 * Complete the work of a single processor for this file. If the processor
+	 * failed while the file was being read, its failure is thrown here.
+	 *
+	 * @param processor
+	 *            the processor to complete.
+	 * @throws FileProcessorException
+	 *             if the processor failed during the read or while completing.
+	 */
+	public void complete(StreamingFileProcessor processor) {
+		Exception failure = failures.get(processor);
+		if (failure != null) {
+			if (failure instanceof FileProcessorException) {
+				throw (FileProcessorException) failure;
+			}
+			throw new FileProcessorException("Failed to process file [" + sequenceFile + "]", failure);
+		}
+
+		SequenceFileStreamConsumer consumer = consumers.get(processor);
+		if (consumer == null) {
+			throw new IllegalArgumentException("Processor [" + processor.getClass() + "] did not take part in this read");
+		}
+
+		consumer.complete();
+	}
+
+	private void readFile(List<StreamingFileProcessor> processors) {
+		Path file = sequenceFile.getFile();
+
+		try (InputStream fileStream = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE)) {
+			compressed = isCompressed(fileStream);
+
+			for (StreamingFileProcessor processor : processors) {
+				try {
+					consumers.put(processor, processor.createStreamConsumer(sequenceFile, compressed));
+				} catch (Exception e) {
+					failures.put(processor, e);
+				}
+			}
+
+			InputStream raw = new ObservingInputStream(fileStream, false);
+			InputStream decompressed = compressed ? new GZIPInputStream(raw, BUFFER_SIZE) : raw;
+			if (compressed) {
+				decompressed = new ObservingInputStream(decompressed, true);
+			}
+
+			if (consumers.entrySet().stream()
+					.anyMatch(e -> !failures.containsKey(e.getKey()) && e.getValue().requiresSequences())) {
+				parseSequences(decompressed);
+			}
+
+			// drain whatever wasn't consumed by the parser (or everything if
+			// nobody wanted sequences), then anything left after the end of
+			// the compressed stream so that the raw consumers see every byte
+			drain(decompressed);
+			if (compressed) {
+				drain(raw);
+			}
+		} catch (Exception e) {
+			logger.error("Failed to read file [" + file + "] for shared processing.", e);
+			for (StreamingFileProcessor processor : processors) {
+				fail(processor, e);
+			}
+		}
+	}
+
+	/**
+	 * Parse fastq records out of the decompressed stream and hand them to the
+	 * consumers that want them. A parse failure only fails the consumers that
+	 * wanted sequences; the stream keeps being read for everyone else.
+	 *
+	 * @param decompressed
+	 *            the decompressed stream
+	 */
+	private void parseSequences(InputStream decompressed) {
+		// the reader is intentionally not closed so that the underlying
+		// stream can still be drained after a parse failure.
+		BufferedReader reader = new BufferedReader(new InputStreamReader(decompressed, StandardCharsets.ISO_8859_1),
+				BUFFER_SIZE);
+		try {
+			StreamingFastQFile fastq = new StreamingFastQFile(sequenceFile.getFile().toFile(), reader);
+			while (fastq.hasNext()) {
+				uk.ac.babraham.FastQC.Sequence.Sequence sequence = fastq.next();
+				dispatch(c -> {
+					if (c.requiresSequences()) {
+						c.acceptSequence(sequence);
+					}
+				});
+			}
+		} catch (Exception e) {
+			logger.debug("Failed to parse sequences from [" + sequenceFile.getFile() + "]", e);
+			consumers.forEach((p, c) -> {
+				if (c.requiresSequences()) {
+					fail(p, e);
+				}
+			});
+		}
+	}
+
+	private void drain(InputStream stream) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		while (stream.read(buffer) != -1) {
+			// the observing stream passes the bytes along
+		}
+	}
+
+	private void dispatch(ConsumerAction action) {
+		for (Map.Entry<StreamingFileProcessor, SequenceFileStreamConsumer> entry : consumers.entrySet()) {
+			if (failures.containsKey(entry.getKey())) {
+				continue;
+			}
+			try {
+				action.accept(entry.getValue());
+			} catch (Exception e) {
+				fail(entry.getKey(), e);
+			}
+		}
+	}
+
+	private void fail(StreamingFileProcessor processor, Exception e) {
+		if (failures.containsKey(processor)) {
+			return;
+		}
+		failures.put(processor, e);
+		SequenceFileStreamConsumer consumer = consumers.get(processor);
+		if (consumer != null) {
+			try {
+				consumer.abort();
+			} catch (Exception abortException) {
+				logger.warn("Failed to abort consumer for processor [" + processor.getClass() + "]", abortException);
+			}
+		}
+	}
+
+	/**
+	 * Determines if a stream is gzip compressed by peeking at the first two
+	 * bytes.
+	 *
+	 * @param stream
+	 *            the stream to check. Must support mark/reset.
+	 * @return true if the stream starts with the gzip magic number
+	 * @throws IOException
+	 *             if the stream couldn't be read
+	 */
+	private static boolean isCompressed(InputStream stream) throws IOException {
+		stream.mark(2);
+		int first = stream.read();
+		int second = stream.read();
+		stream.reset();
+		return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == ((GZIPInputStream.GZIP_MAGIC >> 8) & 0xff);
+	}
+
+	/**
+	 * An action applied to each active consumer.
+	 */
+	@FunctionalInterface
+	private interface ConsumerAction {
+		void accept(SequenceFileStreamConsumer consumer) throws IOException;
+	}
+
+	/**
+	 * Passes every chunk read from the wrapped stream to the active consumers.
+	 */
+	private class ObservingInputStream extends FilterInputStream {
+		private final boolean decompressed;
+
+		ObservingInputStream(InputStream in, boolean decompressed) {
+			super(in);
+			this.decompressed = decompressed;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			int read = read(single, 0, 1);
+			return read == -1 ? -1 : single[0] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if (read > 0) {
+				dispatch(c -> {
+					if (decompressed) {
+						c.acceptDecompressedBytes(b, off, read);
+					} else {
+						c.acceptRawBytes(b, off, read);
+						// uncompressed files are their own decompressed form
+						if (!compressed) {
+							c.acceptDecompressedBytes(b, off, read);
+						}
+					}
+				});
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			// skipped bytes still need to be seen by the consumers
+			byte[] buffer = new byte[(int) Math.min(n, BUFFER_SIZE)];
+			int read = read(buffer, 0, buffer.length);
+			return Math.max(read, 0);
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package ca.corefacility.bioinformatics.irida.processing.impl;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * A FastQC {@link SequenceFile} that parses fastq records from an already open
+ * (and already decompressed) {@link BufferedReader} instead of opening the
+ * file itself. Records are parsed the way FastQC's own <code>FastQFile</code>
+ * parses them, including upper-casing the bases, with these differences:
+ * <ul>
+ * <li>colorspace reads and casava filtering aren't supported, as IRIDA uses
+ * neither.</li>
+ * <li>an error reading the stream is thrown as a
+ * {@link SequenceFormatException} rather than ending the file early.</li>
+ * </ul>
+ */
+public class StreamingFastQFile implements SequenceFile {
+
+	private final File file;
+	private final BufferedReader reader;
+
+	private Sequence nextSequence;
+
+	/**
+	 * Create a new {@link StreamingFastQFile} and read the first record.
+	 *
+	 * @param file
+	 *            the file that's being read (used for naming only).
+	 * @param reader
+	 *            the reader to read records from.
+	 * @throws SequenceFormatException
+	 *             if the first record is not a valid fastq record.
+	 */
+	public StreamingFastQFile(File file, BufferedReader reader) throws SequenceFormatException {
+		this.file = file;
+		this.reader = reader;
+		readNext();
+	}
+
+	@Override
+	public boolean hasNext() {
+		return nextSequence != null;
+	}
+
+	@Override
+	public Sequence next() throws SequenceFormatException {
+		Sequence sequence = nextSequence;
+		readNext();
+		return sequence;
+	}
+
+	@Override
+	public boolean isColorspace() {
+		return false;
+	}
+
+	@Override
+	public String name() {
+		return file.getName();
+	}
+
+	/**
+	 * Progress is tracked by the reader that owns the stream, not the parser.
+	 *
+	 * @return always 0 unless the file has been read completely
+	 */
+	@Override
+	public int getPercentComplete() {
+		return hasNext() ? 0 : 100;
+	}
+
+	@Override
+	public File getFile() {
+		return file;
+	}
+
+	private void readNext() throws SequenceFormatException {
+		try {
+			String id;
+			// allow blank lines between records and at the end of the file
+			do {
+				id = reader.readLine();
+				if (id == null) {
+					nextSequence = null;
+					return;
+				}
+			} while (id.isEmpty());
+
+			if (!id.startsWith("@")) {
+				nextSequence = null;
+				throw new SequenceFormatException("ID line didn't start with '@'");
+			}
+
+			String sequence = reader.readLine();
+			String midLine = reader.readLine();
+			if (midLine != null && !midLine.startsWith("+")) {
+				nextSequence = null;
+				throw new SequenceFormatException("Midline '" + midLine + "' didn't start with '+'");
+			}
+			String quality = reader.readLine();
+
+			if (sequence == null || midLine == null || quality == null) {
+				nextSequence = null;
+				throw new SequenceFormatException(
+						"Ran out of data in the middle of a fastq entry.  Your file is probably truncated");
+			}
+
+			// FastQC's modules only count upper case bases
+			nextSequence = new Sequence(this, sequence.toUpperCase(), quality, id);
+		} catch (IOException e) {
+			nextSequence = null;
+			throw new SequenceFormatException("Failed to read fastq entry: " + e.getMessage());
+		}
+	}
+}
@@ -85,4 +85,13 @@ public interface ProjectRepository extends IridaJpaRepository<Project, Long> {
 	 */
 	@Query("FROM Project p WHERE p.remoteStatus != NULL")
 	public List<Project> getRemoteProjects();
+
+	/**
+	 * Get the identifier, name and organism of every {@link Project}. Used to
+	 * build the search index.
+	 * 
+	 * @return the identifier, name and organism of each project.
+	 */
+	@Query("select p.id, p.name, p.organism from Project p")
+	public List<Object[]> findProjectSearchFields();
 }
@@ -1,5 +1,15 @@
 package ca.corefacility.bioinformatics.irida.repositories.analysis;
 
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata.FileStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisOutputFile;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepository;
@@ -12,4 +22,42 @@ import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSu
 public interface AnalysisOutputFileRepository extends IridaJpaRepository<AnalysisOutputFile, Long>,
 		FilesystemSupplementedRepository<AnalysisOutputFile> {
 
+	/**
+	 * Get the {@link AnalysisOutputFile}s whose {@link FileMetadata} was
+	 * checked least recently, starting with files that have never been
+	 * checked.
+	 * 
+	 * @param page
+	 *            the number of files to get.
+	 * @return the least recently checked files.
+	 */
+	@Query("select f from AnalysisOutputFile f order by f.fileMetadata.verifiedDate, f.id")
+	public List<AnalysisOutputFile> findLeastRecentlyVerified(Pageable page);
+
+	/**
+	 * Record the {@link FileMetadata} of an {@link AnalysisOutputFile}.
+	 * 
+	 * @param id
+	 *            the identifier of the file.
+	 * @param sizeBytes
+	 *            the size of the file.
+	 * @param fileModifiedDate
+	 *            the modification time of the file.
+	 * @param verifiedDate
+	 *            when the file was checked.
+	 * @param status
+	 *            the {@link FileStatus} of the file.
+	 * @param checkedVerifiedDate
+	 *            the verified date that was recorded when the file was read,
+	 *            or null if the file hadn't been checked before.
+	 * @return the number of files updated, 0 if the file was recorded again
+	 *         since it was read.
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE AnalysisOutputFile f SET f.fileMetadata.sizeBytes = ?2, f.fileMetadata.fileModifiedDate = ?3, "
+			+ "f.fileMetadata.verifiedDate = ?4, f.fileMetadata.status = ?5 WHERE f.id = ?1 "
+			+ "AND (f.fileMetadata.verifiedDate = ?6 OR (?6 IS NULL AND f.fileMetadata.verifiedDate IS NULL))")
+	public int updateFileMetadata(Long id, Long sizeBytes, Date fileModifiedDate, Date verifiedDate,
+			FileStatus status, Date checkedVerifiedDate);
 }
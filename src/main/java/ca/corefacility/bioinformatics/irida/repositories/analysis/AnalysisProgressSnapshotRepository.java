@@ -0,0 +1,14 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis;
+
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.AnalysisProgressSnapshot;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+
+/**
+ * Repository for the last {@link AnalysisProgressSnapshot} of running
+ * {@link AnalysisSubmission}s, keyed by the identifier of the submission.
+ */
+public interface AnalysisProgressSnapshotRepository extends CrudRepository<AnalysisProgressSnapshot, Long> {
+
+}
@@ -0,0 +1,14 @@
+package ca.corefacility.bioinformatics.irida.repositories.analysis;
+
+import org.springframework.data.repository.CrudRepository;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+
+/**
+ * Repository for the {@link FastQCChartData} of {@link AnalysisFastQC}s, keyed
+ * by the identifier of the analysis.
+ */
+public interface FastQCChartDataRepository extends CrudRepository<FastQCChartData, Long> {
+
+}
@@ -0,0 +1,119 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Shares a single copy on disk between files with identical contents. Blobs are
+ * kept under the blob directory keyed on the SHA-256 of their contents
+ * (<code>blobs/ab/cd/abcd...</code>), and every stored file with the same
+ * contents is replaced with a hard link to the blob. Paths stored in the
+ * database never change; only the underlying storage is shared.
+ * <p>
+ * Files written by IRIDA are never modified in place (every change is written
+ * to a new revision directory), which is what makes sharing storage between
+ * entities safe. The blob directory must be on the same filesystem as the
+ * files being de-duplicated.
+ */
+public class ContentAddressedFileStore {
+	private static final Logger logger = LoggerFactory.getLogger(ContentAddressedFileStore.class);
+
+	/**
+	 * The name of the directory blobs are kept in under a file store's base
+	 * directory.
+	 */
+	public static final String BLOB_DIRECTORY = ".blobs";
+
+	private final Path blobDirectory;
+	private final boolean enabled;
+
+	/**
+	 * Create a new {@link ContentAddressedFileStore}.
+	 * 
+	 * @param blobDirectory
+	 *            the directory to keep blobs in.
+	 * @param enabled
+	 *            whether or not files should be de-duplicated.
+	 */
+	public ContentAddressedFileStore(final Path blobDirectory, final boolean enabled) {
+		this.blobDirectory = blobDirectory;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Whether or not files are being de-duplicated.
+	 * 
+	 * @return true if {@link #deduplicate(Path, String)} shares storage.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get the location of the blob for the given checksum.
+	 * 
+	 * @param sha256
+	 *            the hex encoded SHA-256 of the contents.
+	 * @return the location of the blob (which may not exist).
+	 */
+	public Path getBlob(final String sha256) {
+		return blobDirectory.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+	}
+
+	/**
+	 * Share storage for a file with any other file that has the same contents.
+	 * If no blob exists for the checksum yet, the file becomes the blob. If a
+	 * blob already exists, the file is atomically replaced with a link to the
+	 * blob. Does nothing if the store isn't enabled.
+	 * 
+	 * @param file
+	 *            the file to de-duplicate.
+	 * @param sha256
+	 *            the hex encoded SHA-256 of the file's contents.
+	 * @throws IOException
+	 *             if the file could not be linked to the blob.
+	 */
+	public void deduplicate(final Path file, final String sha256) throws IOException {
+		if (!enabled) {
+			return;
+		}
+
+		final Path blob = getBlob(sha256);
+		Files.createDirectories(blob.getParent());
+
+		try {
+			Files.createLink(blob, file);
+			logger.trace("Stored new blob [" + blob + "] for file [" + file + "]");
+			return;
+		} catch (final FileAlreadyExistsException e) {
+			logger.trace("Blob [" + blob + "] already exists, linking file [" + file + "] to it.");
+		}
+
+		if (Files.isSameFile(blob, file)) {
+			return;
+		}
+
+		// guard against replacing a file with a blob that was corrupted on disk
+		if (Files.size(blob) != Files.size(file)) {
+			logger.warn("Blob [" + blob + "] is not the same size as file [" + file + "], not de-duplicating.");
+			return;
+		}
+
+		final Path link = file.resolveSibling(file.getFileName() + ".link");
+		Files.deleteIfExists(link);
+		Files.createLink(link, blob);
+		try {
+			Files.move(link, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			Files.deleteIfExists(link);
+			throw e;
+		}
+		logger.debug("Replaced file [" + file + "] with a link to blob [" + blob + "]");
+	}
+}
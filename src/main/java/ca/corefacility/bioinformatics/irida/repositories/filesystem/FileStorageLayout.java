@@ -0,0 +1,24 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import java.nio.file.Path;
+
+/**
+ * Decides where on disk the files for an entity stored by a
+ * {@link FilesystemSupplementedRepositoryImpl} should be written. Each revision
+ * of the entity's files is written to a numbered directory underneath the
+ * directory returned by the layout.
+ */
+public interface FileStorageLayout {
+
+	/**
+	 * Get the directory that all revisions of an entity's files should be
+	 * written under.
+	 * 
+	 * @param baseDirectory
+	 *            the base directory for the type of entity.
+	 * @param identifier
+	 *            the identifier of the entity.
+	 * @return the directory for the entity's files.
+	 */
+	public Path getEntityDirectory(Path baseDirectory, Long identifier);
+}
@@ -1,16 +1,12 @@
 package ca.corefacility.bioinformatics.irida.repositories.filesystem;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PostLoad;
@@ -21,11 +17,13 @@ import javax.persistence.PreUpdate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.ReflectionUtils;
 
 import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadataFields;
 import ca.corefacility.bioinformatics.irida.model.IridaThing;
 import ca.corefacility.bioinformatics.irida.model.VersionedFileFields;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.PathFields.PathField;
 
 /**
  * Custom implementation of a repository that writes the {@link Path} part of an
@@ -40,10 +38,27 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 
 	private final Path baseDirectory;
 	private final EntityManager entityManager;
+	private final FileStorageLayout storageLayout;
 
 	public FilesystemSupplementedRepositoryImpl(final EntityManager entityManager, final Path baseDirectory) {
+		this(entityManager, baseDirectory, new IdentifierStorageLayout());
+	}
+
+	/**
+	 * Create a repository that writes files according to the given layout.
+	 *
+	 * @param entityManager
+	 *            the entity manager
+	 * @param baseDirectory
+	 *            the directory to write files under
+	 * @param storageLayout
+	 *            decides where under the base directory files are written
+	 */
+	public FilesystemSupplementedRepositoryImpl(final EntityManager entityManager, final Path baseDirectory,
+			final FileStorageLayout storageLayout) {
 		this.entityManager = entityManager;
 		this.baseDirectory = baseDirectory;
+		this.storageLayout = storageLayout;
 	}
 
 	/**
@@ -56,19 +71,6 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 
 		private static final Map<Class<?>, Path> baseDirectories = new ConcurrentHashMap<>();
 
-		private static final Predicate<Field> pathFilter = f -> f.getType().equals(Path.class);
-
-		/**
-		 * Get a collection of fields that have type Path.
-		 * 
-		 * @param type
-		 *            the class type to get field references for.
-		 * @return the set of field references for the class.
-		 */
-		private static Set<Field> findPathFields(final Class<?> type) {
-			return Arrays.stream(type.getDeclaredFields()).filter(pathFilter).collect(Collectors.toSet());
-		}
-
 		/**
 		 * Add a base directory to safe files to
 		 * @param c The class for the base directory to save files
@@ -76,6 +78,8 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 		 */
 		public static void addBaseDirectory(final Class<?> c, final Path p) {
 			baseDirectories.put(c, p);
+			// look up the path fields now rather than on the first load
+			PathFields.forType(c);
 		}
 
 		/**
@@ -92,27 +96,24 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 		public void absolutePath(final VersionedFileFields<Long> fileSystemEntity) {
 			logger.trace("Going to get an absolute path after loading.");
 			final Path directoryForType = baseDirectories.get(fileSystemEntity.getClass());
-			// find any members that are of type Path:
-			final Set<Field> pathFields = findPathFields(fileSystemEntity.getClass());
-
 			// for every member that's a path, make it an absolute path based on
 			// the
-			// base directory
-			for (final Field field : pathFields) {
-				ReflectionUtils.makeAccessible(field);
-				final Path source = (Path) ReflectionUtils.getField(field, fileSystemEntity);
+			// base directory. this runs for every entity that's loaded, so the
+			// log messages are parameterized to avoid building strings that
+			// are never logged.
+			for (final PathField field : PathFields.forType(fileSystemEntity.getClass())) {
+				final Path source = field.get(fileSystemEntity);
 				// source will have a null root **only** if it's a relative
 				// path. basically: don't try to make an absolute path out of
 				// one that's already absolute.
 				if (source != null && source.getRoot() == null) {
-					logger.trace("About to get ABSOLUTE path for [" + source.toString() + "] from base directory ["
-							+ directoryForType.toString() + "]");
+					logger.trace("About to get ABSOLUTE path for [{}] from base directory [{}]", source,
+							directoryForType);
 					final Path absolutePath = directoryForType.resolve(source);
-					ReflectionUtils.setField(field, fileSystemEntity, absolutePath);
-					logger.trace("Setting ABSOLUTE path to [" + absolutePath.toString() + "] from relative path ["
-							+ source.toString() + "]");
+					field.set(fileSystemEntity, absolutePath);
+					logger.trace("Setting ABSOLUTE path to [{}] from relative path [{}]", absolutePath, source);
 				} else {
-					logger.trace("Not translating file path for file: " + source);
+					logger.trace("Not translating file path for file: {}", source);
 				}
 			}
 		}
@@ -130,24 +131,19 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 			logger.trace("In pre-update, going to translate to relative path.");
 
 			final Path directoryForType = baseDirectories.get(fileSystemEntity.getClass());
-			// find any members that are of type Path:
-			final Set<Field> pathFields = findPathFields(fileSystemEntity.getClass());
-
 			// for every member that's a path, make it a relative path based on
 			// the
 			// base directory
-			for (final Field field : pathFields) {
-				ReflectionUtils.makeAccessible(field);
-				final Path source = (Path) ReflectionUtils.getField(field, fileSystemEntity);
+			for (final PathField field : PathFields.forType(fileSystemEntity.getClass())) {
+				final Path source = field.get(fileSystemEntity);
 				// source will have a not-null root **only** if it's an absolute
 				// path.
 				if (source != null && source.getRoot() != null) {
-					logger.trace("About to get RELATIVE path for [" + source.toString() + "] from base directory ["
-							+ directoryForType.toString() + "]");
+					logger.trace("About to get RELATIVE path for [{}] from base directory [{}]", source,
+							directoryForType);
 					final Path relativePath = directoryForType.relativize(source);
-					ReflectionUtils.setField(field, fileSystemEntity, relativePath);
-					logger.trace("Setting RELATIVE path to [" + relativePath.toString() + "] from absolute path ["
-							+ source.toString() + "]");
+					field.set(fileSystemEntity, relativePath);
+					logger.trace("Setting RELATIVE path to [{}] from absolute path [{}]", relativePath, source);
 				}
 			}
 		}
@@ -170,10 +166,33 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 		}
 		logger.trace("About to write files to disk.");
 		writeFilesToDisk(baseDirectory, entity);
+		recordFileMetadata(entity);
 		logger.trace("Returning merged entity.");
 		return entityManager.merge(entity);
 	}
 	
+	/**
+	 * Record the size and modification time of the file where it was just
+	 * written, so that they don't have to be read from disk each time the
+	 * file is shown.
+	 * 
+	 * @param entity
+	 *            the entity that was written to disk.
+	 */
+	private void recordFileMetadata(final Type entity) {
+		if (entity instanceof FileMetadataFields) {
+			final FileMetadataFields fileEntity = (FileMetadataFields) entity;
+			if (fileEntity.getFile() != null) {
+				try {
+					fileEntity.setFileMetadata(FileMetadata.read(fileEntity.getFile()));
+				} catch (IOException e) {
+					// not fatal, the scheduled verification will record it
+					logger.warn("Could not record metadata for file [" + fileEntity.getFile() + "]", e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -198,9 +217,11 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 	public abstract Type save(final Type entity);
 
 	/**
-	 * Write any files to disk and update the {@link Path} location. This method
-	 * works using reflection to automagically find and update any internal
-	 * {@link Path} members on the {@link VersionedFileFields}. This class
+	 * Write any files to disk and update the {@link Path} location. Where the
+	 * files are written is decided by the repository's
+	 * {@link FileStorageLayout}. This method uses the cached {@link PathFields}
+	 * to automagically find and update any internal {@link Path} members on
+	 * the {@link VersionedFileFields}. This class
 	 * **does not** update the object in the database
 	 * 
 	 * @param baseDirectory
@@ -211,17 +232,12 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 			throw new IllegalArgumentException("Identifier is required.");
 		}
 
-		Path sequenceFileDir = baseDirectory.resolve(objectToWrite.getId().toString());
+		Path sequenceFileDir = storageLayout.getEntityDirectory(baseDirectory, objectToWrite.getId());
 
-		Predicate<Field> pathFilter = f -> f.getType().equals(Path.class);
 		// now find any members that are of type Path and shuffle them around:
-		Set<Field> pathFields = Arrays.stream(objectToWrite.getClass().getDeclaredFields()).filter(pathFilter)
-				.collect(Collectors.toSet());
-
-		Set<Field> fieldsToUpdate = new HashSet<>();
-		for (Field field : pathFields) {
-			ReflectionUtils.makeAccessible(field);
-			Path source = (Path) ReflectionUtils.getField(field, objectToWrite);
+		List<PathField> fieldsToUpdate = new ArrayList<>();
+		for (PathField field : PathFields.forType(objectToWrite.getClass())) {
+			Path source = field.get(objectToWrite);
 			if (source != null) {
 				fieldsToUpdate.add(field);
 			}
@@ -234,18 +250,15 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 			Path sequenceFileDirWithRevision = sequenceFileDir
 					.resolve(objectToWrite.getFileRevisionNumber().toString());
 
-			for (Field field : fieldsToUpdate) {
-				Path source = (Path) ReflectionUtils.getField(field, objectToWrite);
+			for (PathField field : fieldsToUpdate) {
+				Path source = field.get(objectToWrite);
 				Path target = sequenceFileDirWithRevision.resolve(source.getFileName());
 				logger.debug("Target is [" + target.toString() + "]");
 				try {
-					if (!Files.exists(sequenceFileDir)) {
-						Files.createDirectory(sequenceFileDir);
-						logger.trace("Created directory: [" + sequenceFileDir.toString() + "]");
-					}
-
 					if (!Files.exists(sequenceFileDirWithRevision)) {
-						Files.createDirectory(sequenceFileDirWithRevision);
+						// the storage layout may nest the entity directory
+						// several levels deep
+						Files.createDirectories(sequenceFileDirWithRevision);
 						logger.trace("Created directory: [" + sequenceFileDirWithRevision.toString() + "]");
 					}
 
@@ -256,7 +269,7 @@ public abstract class FilesystemSupplementedRepositoryImpl<Type extends Versione
 					throw new StorageException("Failed to move file into new directory.", e);
 				}
 
-				ReflectionUtils.setField(field, objectToWrite, target);
+				field.set(objectToWrite, target);
 			}
 		}
 
@@ -0,0 +1,18 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import java.nio.file.Path;
+
+/**
+ * The original {@link FileStorageLayout}: one directory per entity directly
+ * underneath the base directory (<code>base/id/revision/file</code>).
+ */
+public class IdentifierStorageLayout implements FileStorageLayout {
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Path getEntityDirectory(Path baseDirectory, Long identifier) {
+		return baseDirectory.resolve(identifier.toString());
+	}
+}
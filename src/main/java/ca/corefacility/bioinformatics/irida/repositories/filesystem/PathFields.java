@@ -0,0 +1,113 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.springframework.util.ReflectionUtils;
+
+import ca.corefacility.bioinformatics.irida.model.VersionedFileFields;
+
+/**
+ * Precomputed accessors for the {@link Path} members of
+ * {@link VersionedFileFields} classes. Looking up and unlocking the fields with
+ * reflection is done once per class; after that every entity that's loaded or
+ * saved only pays for a {@link MethodHandle} call per field.
+ */
+public final class PathFields {
+
+	private static final Map<Class<?>, List<PathField>> fieldsByType = new ConcurrentHashMap<>();
+
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Path.class, Object.class);
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Path.class);
+
+	private PathFields() {
+	}
+
+	/**
+	 * Get the accessors for every member declared on a class that has type
+	 * {@link Path}.
+	 * 
+	 * @param type
+	 *            the class to get the accessors for.
+	 * @return the accessors for the class, computed on first use.
+	 */
+	public static List<PathField> forType(final Class<?> type) {
+		return fieldsByType.computeIfAbsent(type, PathFields::findPathFields);
+	}
+
+	private static List<PathField> findPathFields(final Class<?> type) {
+		return Collections.unmodifiableList(Arrays.stream(type.getDeclaredFields())
+				.filter(f -> f.getType().equals(Path.class)).map(PathField::new).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Reads and writes a single {@link Path} member of an entity.
+	 */
+	public static final class PathField {
+		private final String name;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		private PathField(final Field field) {
+			this.name = field.getName();
+			ReflectionUtils.makeAccessible(field);
+			try {
+				final MethodHandles.Lookup lookup = MethodHandles.lookup();
+				this.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+				this.setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+			} catch (final IllegalAccessException e) {
+				throw new IllegalStateException("Cannot access path field [" + field + "]", e);
+			}
+		}
+
+		/**
+		 * Get the name of the field.
+		 * 
+		 * @return the name of the field.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Read the value of the field.
+		 * 
+		 * @param target
+		 *            the entity to read from.
+		 * @return the {@link Path} stored in the field.
+		 */
+		public Path get(final Object target) {
+			try {
+				return (Path) getter.invokeExact(target);
+			} catch (final Throwable t) {
+				ReflectionUtils.rethrowRuntimeException(t);
+				return null;
+			}
+		}
+
+		/**
+		 * Write a value to the field.
+		 * 
+		 * @param target
+		 *            the entity to write to.
+		 * @param value
+		 *            the {@link Path} to store in the field.
+		 */
+		public void set(final Object target, final Path value) {
+			try {
+				setter.invokeExact(target, value);
+			} catch (final Throwable t) {
+				ReflectionUtils.rethrowRuntimeException(t);
+			}
+		}
+	}
+}
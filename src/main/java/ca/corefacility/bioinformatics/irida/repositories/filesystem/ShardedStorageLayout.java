@@ -0,0 +1,74 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import java.nio.file.Path;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A {@link FileStorageLayout} that spreads entity directories across a fixed
+ * number of levels of hashed shard directories so that no single directory
+ * ends up with millions of entries
+ * (<code>base/shards/3f/a2/id/revision/file</code>). Each level has at most
+ * 256 directories.
+ * <p>
+ * Sharded directories live under {@link #SHARD_ROOT} so that they can never
+ * be confused with the numeric entity directories written by the
+ * {@link IdentifierStorageLayout}; both layouts can share a base directory
+ * while existing files are being migrated.
+ */
+public class ShardedStorageLayout implements FileStorageLayout {
+
+	/**
+	 * The directory under the base directory that holds the shards.
+	 */
+	public static final String SHARD_ROOT = "shards";
+
+	private final int levels;
+
+	/**
+	 * Create a new {@link ShardedStorageLayout}.
+	 * 
+	 * @param levels
+	 *            the number of levels of shard directories (1 to 4).
+	 */
+	public ShardedStorageLayout(final int levels) {
+		checkArgument(levels > 0 && levels <= 4, "Shard levels must be between 1 and 4.");
+		this.levels = levels;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Path getEntityDirectory(Path baseDirectory, Long identifier) {
+		final long hash = mix(identifier);
+
+		Path directory = baseDirectory.resolve(SHARD_ROOT);
+		for (int level = 0; level < levels; level++) {
+			final int shard = (int) ((hash >>> (level * 8)) & 0xff);
+			directory = directory.resolve(String.format("%02x", shard));
+		}
+
+		return directory.resolve(identifier.toString());
+	}
+
+	/**
+	 * Sequential identifiers would all end up in the same shard, so scramble
+	 * the bits first (this is the 64-bit finalizer from MurmurHash3). The
+	 * result has to be stable forever since it decides where files already on
+	 * disk live.
+	 * 
+	 * @param identifier
+	 *            the identifier to hash
+	 * @return the scrambled identifier
+	 */
+	private static long mix(final long identifier) {
+		long h = identifier;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
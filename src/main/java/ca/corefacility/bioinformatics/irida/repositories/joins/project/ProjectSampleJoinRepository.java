@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.project;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -29,6 +31,18 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select j from ProjectSampleJoin j where j.sample = ?1")
 	public List<Join<Project, Sample>> getProjectForSample(Sample sample);
 
+	/**
+	 * Get the {@link ProjectSampleJoin}s for a collection of {@link Sample}s
+	 * by identifier, with the {@link Project} and {@link Sample} loaded in the
+	 * same query.
+	 * 
+	 * @param sampleIds
+	 *            the identifiers of the {@link Sample}s to get the projects for
+	 * @return the {@link ProjectSampleJoin}s for all of the {@link Sample}s
+	 */
+	@Query("select j from ProjectSampleJoin j join fetch j.project join fetch j.sample where j.sample.id in ?1")
+	public List<ProjectSampleJoin> getProjectsForSampleIds(Collection<Long> sampleIds);
+
 	/**
 	 * Get a specific {@link ProjectSampleJoin} for a {@link Project} and
 	 * {@link Sample}
@@ -62,6 +76,23 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and j.sample.id in ?2")
 	List<Sample> getSamplesInProject(Project project, List<Long> sampleIds);
 
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that have changed since a
+	 * given date. A sample has changed if it was created or modified, if it
+	 * was added to the project, or if a sequencing object was added to it
+	 * after the date.
+	 * 
+	 * @param project
+	 *            the {@link Project} to get samples for
+	 * @param since
+	 *            the date to look for changes after
+	 * @return the changed {@link Sample}s
+	 */
+	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and (j.createdDate > ?2 "
+			+ "or j.sample.createdDate > ?2 or j.sample.modifiedDate > ?2 "
+			+ "or exists (select o from SampleSequencingObjectJoin o where o.sample = j.sample and o.createdDate > ?2))")
+	List<Sample> getSamplesForProjectModifiedSince(Project project, Date since);
+
 	/**
 	 * Get a list of the organism fields stored for all {@link Sample}s in a
 	 * {@link Project}
@@ -83,4 +114,15 @@ public interface ProjectSampleJoinRepository extends PagingAndSortingRepository<
 	@Query("select count(j.id) from ProjectSampleJoin j where j.project = ?1")
 	public Long countSamplesForProject(Project project);
 
+	/**
+	 * Get the projects of the {@link Sample}s in a range of identifiers.
+	 * 
+	 * @param fromId
+	 *            the sample identifier to start after.
+	 * @param toId
+	 *            the last sample identifier to include.
+	 * @return pairs of sample identifier and project identifier.
+	 */
+	@Query("select j.sample.id, j.project.id from ProjectSampleJoin j where j.sample.id > ?1 and j.sample.id <= ?2")
+	public List<Object[]> findProjectIdsForSamplesBetween(Long fromId, Long toId);
 }
@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.joins.sample;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.Query;
@@ -15,13 +16,14 @@ import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
  */
 public interface SampleSequencingObjectJoinRepository extends IridaJpaRepository<SampleSequencingObjectJoin, Long> {
 	/**
-	 * Get the {@link SequenceFile}s associated with a sample
+	 * Get the {@link SequenceFile}s associated with a sample. The
+	 * {@link SequencingObject}s are loaded in the same query.
 	 * 
 	 * @param sample
 	 *            The sample to get the files for
 	 * @return a list of {@link SampleSequencingObjectJoin} objects
 	 */
-	@Query("select j from SampleSequencingObjectJoin j where j.sample = ?1")
+	@Query("select j from SampleSequencingObjectJoin j join fetch j.sequencingObject where j.sample = ?1")
 	public List<SampleSequencingObjectJoin> getSequencesForSample(Sample sample);
 
 	/**
@@ -47,4 +49,19 @@ public interface SampleSequencingObjectJoinRepository extends IridaJpaRepository
 	 */
 	@Query("from SampleSequencingObjectJoin j where j.sequencingObject = ?1")
 	public SampleSequencingObjectJoin getSampleForSequencingObject(SequencingObject seqObject);
+
+	/**
+	 * Get the {@link SampleSequencingObjectJoin}s for a collection of
+	 * {@link SequencingObject}s by identifier, with the {@link Sample} and
+	 * {@link SequencingObject} loaded in the same query.
+	 * 
+	 * @param sequencingObjectIds
+	 *            the identifiers of the {@link SequencingObject}s to get the
+	 *            joins for
+	 * @return the {@link SampleSequencingObjectJoin}s for all of the
+	 *         {@link SequencingObject}s
+	 */
+	@Query("select j from SampleSequencingObjectJoin j join fetch j.sample join fetch j.sequencingObject "
+			+ "where j.sequencingObject.id in ?1")
+	public List<SampleSequencingObjectJoin> getSamplesForSequencingObjectIds(Collection<Long> sequencingObjectIds);
 }
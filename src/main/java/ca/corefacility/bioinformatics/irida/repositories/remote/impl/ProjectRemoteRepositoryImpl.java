@@ -9,7 +9,7 @@ import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
 import ca.corefacility.bioinformatics.irida.repositories.remote.ProjectRemoteRepository;
-import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplateProvider;
 
 /**
  * Remote repository for retrieving {@link Project}s from {@link RemoteAPI}s
@@ -27,14 +27,14 @@ public class ProjectRemoteRepositoryImpl extends RemoteRepositoryImpl<Project> i
 
 	/**
 	 * Create a new {@link ProjectRemoteRepositoryImpl} with the given
-	 * {@link RemoteAPITokenService}
+	 * {@link OAuthTokenRestTemplateProvider}
 	 * 
-	 * @param tokenService
-	 *            the {@link RemoteAPITokenService}
+	 * @param restTemplateProvider
+	 *            the {@link OAuthTokenRestTemplateProvider}
 	 */
 	@Autowired
-	public ProjectRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
-		super(tokenService, listTypeReference, objectTypeReference);
+	public ProjectRemoteRepositoryImpl(OAuthTokenRestTemplateProvider restTemplateProvider) {
+		super(restTemplateProvider, listTypeReference, objectTypeReference);
 	}
 
 }
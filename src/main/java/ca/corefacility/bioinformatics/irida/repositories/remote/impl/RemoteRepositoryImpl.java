@@ -17,7 +17,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrappe
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.repositories.remote.RemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
-import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplateProvider;
 
 /**
  * Remote repository to request from remote IRIDA instances using
@@ -30,8 +30,8 @@ import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
  */
 public abstract class RemoteRepositoryImpl<Type extends IridaResourceSupport> implements RemoteRepository<Type> {
 
-	// service storing api tokens for communication with the remote services
-	private RemoteAPITokenService tokenService;
+	// shared rest templates for communication with the remote services
+	private final OAuthTokenRestTemplateProvider restTemplateProvider;
 
 	// type references for the resources being read by this repository
 	final protected ParameterizedTypeReference<ListResourceWrapper<Type>> listTypeReference;
@@ -40,9 +40,9 @@ public abstract class RemoteRepositoryImpl<Type extends IridaResourceSupport> im
 	/**
 	 * Create a new repository with the given rest template and object params
 	 * 
-	 * @param tokenService
-	 *            service storing api tokens for communication with the remote
-	 *            APIs
+	 * @param restTemplateProvider
+	 *            provider of the shared rest templates for communication with
+	 *            the remote APIs
 	 * @param listTypeReference
 	 *            A {@link ParameterizedTypeReference} for objects listed by the
 	 *            rest template
@@ -50,10 +50,10 @@ public abstract class RemoteRepositoryImpl<Type extends IridaResourceSupport> im
 	 *            A {@link ParameterizedTypeReference} for individual resources
 	 *            read by the rest template
 	 */
-	public RemoteRepositoryImpl(RemoteAPITokenService tokenService,
+	public RemoteRepositoryImpl(OAuthTokenRestTemplateProvider restTemplateProvider,
 			ParameterizedTypeReference<ListResourceWrapper<Type>> listTypeReference,
 			ParameterizedTypeReference<ResourceWrapper<Type>> objectTypeReference) {
-		this.tokenService = tokenService;
+		this.restTemplateProvider = restTemplateProvider;
 		this.listTypeReference = listTypeReference;
 		this.objectTypeReference = objectTypeReference;
 	}
@@ -63,7 +63,7 @@ public abstract class RemoteRepositoryImpl<Type extends IridaResourceSupport> im
 	 */
 	@Override
 	public Type read(String uri, RemoteAPI remoteAPI) {
-		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		OAuthTokenRestTemplate restTemplate = restTemplateProvider.getRestTemplate(remoteAPI);
 		ResponseEntity<ResourceWrapper<Type>> exchange = restTemplate.exchange(uri, HttpMethod.GET, HttpEntity.EMPTY,
 				objectTypeReference);
 
@@ -78,7 +78,7 @@ public abstract class RemoteRepositoryImpl<Type extends IridaResourceSupport> im
 	 */
 	@Override
 	public List<Type> list(String uri, RemoteAPI remoteAPI) {
-		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		OAuthTokenRestTemplate restTemplate = restTemplateProvider.getRestTemplate(remoteAPI);
 		ResponseEntity<ListResourceWrapper<Type>> exchange = restTemplate.exchange(uri, HttpMethod.GET,
 				HttpEntity.EMPTY, listTypeReference);
 
@@ -94,7 +94,7 @@ public abstract class RemoteRepositoryImpl<Type extends IridaResourceSupport> im
 	 */
 	@Override
 	public boolean getServiceStatus(RemoteAPI remoteAPI) {
-		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		OAuthTokenRestTemplate restTemplate = restTemplateProvider.getRestTemplate(remoteAPI);
 		ResponseEntity<String> forEntity = restTemplate.getForEntity(remoteAPI.getServiceURI(), String.class);
 
 		return forEntity.getStatusCode() == HttpStatus.OK;
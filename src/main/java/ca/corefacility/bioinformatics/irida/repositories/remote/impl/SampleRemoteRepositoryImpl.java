@@ -23,7 +23,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SampleRemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
-import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplateProvider;
 import ca.corefacility.bioinformatics.irida.web.controller.api.samples.RESTSampleMetadataController;
 
 /**
@@ -46,12 +46,12 @@ public class SampleRemoteRepositoryImpl extends RemoteRepositoryImpl<Sample> imp
 
 	private final static String METADATA_REL = RESTSampleMetadataController.METADATA_REL;
 
-	private RemoteAPITokenService tokenService;
+	private final OAuthTokenRestTemplateProvider restTemplateProvider;
 
 	@Autowired
-	public SampleRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
-		super(tokenService, listTypeReference, objectTypeReference);
-		this.tokenService = tokenService;
+	public SampleRemoteRepositoryImpl(OAuthTokenRestTemplateProvider restTemplateProvider) {
+		super(restTemplateProvider, listTypeReference, objectTypeReference);
+		this.restTemplateProvider = restTemplateProvider;
 	}
 
 	/**
@@ -70,7 +70,7 @@ public class SampleRemoteRepositoryImpl extends RemoteRepositoryImpl<Sample> imp
 		logger.trace("Requesting sample metadata for sample " + sample.getSelfHref());
 		RemoteAPI remoteAPI = sample.getRemoteStatus().getApi();
 
-		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		OAuthTokenRestTemplate restTemplate = restTemplateProvider.getRestTemplate(remoteAPI);
 
 		// get the metadata link
 		Link metadataLink = sample.getLink(METADATA_REL);
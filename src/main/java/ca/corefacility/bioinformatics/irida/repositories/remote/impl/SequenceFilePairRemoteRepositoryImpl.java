@@ -10,7 +10,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWr
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SequenceFilePairRemoteRepository;
-import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplateProvider;
 
 /**
  * {@link RemoteRepositoryImpl} for reading and listing {@link SequenceFilePair}
@@ -25,8 +25,8 @@ public class SequenceFilePairRemoteRepositoryImpl extends RemoteRepositoryImpl<S
 	};
 
 	@Autowired
-	public SequenceFilePairRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
-		super(tokenService, listTypeReference, objectTypeReference);
+	public SequenceFilePairRemoteRepositoryImpl(OAuthTokenRestTemplateProvider restTemplateProvider) {
+		super(restTemplateProvider, listTypeReference, objectTypeReference);
 	}
 
 	/**
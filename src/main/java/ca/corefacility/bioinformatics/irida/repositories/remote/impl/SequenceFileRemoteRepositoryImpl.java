@@ -2,14 +2,19 @@ package ca.corefacility.bioinformatics.irida.repositories.remote.impl;
 
 import java.nio.file.Path;
 import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.locks.Lock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
-import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.security.core.token.TokenService;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.stereotype.Repository;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.ResponseExtractor;
 
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWrapper;
@@ -17,8 +22,9 @@ import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrappe
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SequenceFileRemoteRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplate;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplateProvider;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.SequenceFileDownloadStagingArea;
 import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.SequenceFileMessageConverter;
-import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 
 /**
  * Implementation of {@link SequenceFileRemoteRepository} using
@@ -29,51 +35,132 @@ import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 @Repository
 public class SequenceFileRemoteRepositoryImpl extends RemoteRepositoryImpl<SequenceFile> implements
 		SequenceFileRemoteRepository {
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileRemoteRepositoryImpl.class);
+
 	private static final ParameterizedTypeReference<ListResourceWrapper<SequenceFile>> listTypeReference = new ParameterizedTypeReference<ListResourceWrapper<SequenceFile>>() {
 	};
 
 	private static final ParameterizedTypeReference<ResourceWrapper<SequenceFile>> objectTypeReference = new ParameterizedTypeReference<ResourceWrapper<SequenceFile>>() {
 	};
 
-	// OAuth2 token storage service for making requests
-	private final RemoteAPITokenService tokenService;
+	private static final String GZIP_EXTENSION = ".gz";
+
+	// shared rest templates for making requests
+	private final OAuthTokenRestTemplateProvider restTemplateProvider;
+
+	private final SequenceFileDownloadStagingArea stagingArea;
 
 	public static final MediaType DEFAULT_DOWNLOAD_MEDIA_TYPE = new MediaType("application", "fastq");
 
 	/**
 	 * Create a new SequenceFileRemoteRepositoryImpl
 	 * 
-	 * @param tokenService
-	 *            The {@link TokenService} storing OAuth2 tokens
+	 * @param restTemplateProvider
+	 *            provider of the shared rest templates for making requests
+	 * @param stagingArea
+	 *            where partially downloaded files are kept between attempts
 	 */
 	@Autowired
-	public SequenceFileRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
-		super(tokenService, listTypeReference, objectTypeReference);
-		this.tokenService = tokenService;
+	public SequenceFileRemoteRepositoryImpl(OAuthTokenRestTemplateProvider restTemplateProvider,
+			SequenceFileDownloadStagingArea stagingArea) {
+		super(restTemplateProvider, listTypeReference, objectTypeReference);
+		this.restTemplateProvider = restTemplateProvider;
+		this.stagingArea = stagingArea;
 	}
 
 	/**
 	 * {@inheritDoc}
+	 * 
+	 * If an earlier attempt to download the file was interrupted, the download
+	 * is resumed from where it stopped.
 	 */
 	@Override
 	public Path downloadRemoteSequenceFile(String uri, RemoteAPI remoteAPI, MediaType... mediaTypes) {
 		SequenceFile file = read(uri, remoteAPI);
 
-		OAuthTokenRestTemplate restTemplate = new OAuthTokenRestTemplate(tokenService, remoteAPI);
+		Lock lock = stagingArea.getLock(uri);
+		lock.lock();
+		try {
+			try {
+				return download(uri, remoteAPI, file, mediaTypes);
+			} catch (HttpClientErrorException e) {
+				if (e.getStatusCode() != HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE) {
+					throw e;
+				}
+
+				// the partial file doesn't fit the remote file anymore
+				logger.debug("Could not resume download of [" + uri + "], starting over");
+				stagingArea.discard(uri);
+				return download(uri, remoteAPI, file, mediaTypes);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Download a sequence file into the staging area, resuming from any bytes
+	 * that have already been downloaded.
+	 * 
+	 * @param uri
+	 *            the URI of the file
+	 * @param remoteAPI
+	 *            the {@link RemoteAPI} the file is on
+	 * @param file
+	 *            the {@link SequenceFile} read from the URI
+	 * @param mediaTypes
+	 *            the media types to accept
+	 * @return a temporary file with the downloaded content
+	 */
+	private Path download(String uri, RemoteAPI remoteAPI, SequenceFile file, MediaType... mediaTypes) {
+		OAuthTokenRestTemplate restTemplate = restTemplateProvider.getRestTemplate(remoteAPI);
+
+		/*
+		 * If the remote installation decompressed the file after upload, the
+		 * upload checksum is for the compressed file and can't be compared to
+		 * what's downloaded. Only compressed files are known to be exactly
+		 * what was uploaded.
+		 */
+		String expectedSha256 = file.getFileName().endsWith(GZIP_EXTENSION) ? file.getUploadSha256() : null;
 
-		// add the sequence file message converter
-		List<HttpMessageConverter<?>> converters = restTemplate.getMessageConverters();
-		converters.add(new SequenceFileMessageConverter(file.getFileName()));
-		restTemplate.setMessageConverters(converters);
+		// the rest template is shared, so rather than adding a sequence file
+		// message converter to it, use one directly for this response
+		SequenceFileMessageConverter converter = new SequenceFileMessageConverter(file.getFileName(),
+				stagingArea.getPartialFile(uri), expectedSha256);
 
-		// add the application/fastq accept header
-		HttpHeaders requestHeaders = new HttpHeaders();
-		requestHeaders.setAccept(Arrays.asList(mediaTypes));
-		HttpEntity<Path> requestEntity = new HttpEntity<Path>(requestHeaders);
+		long downloadedBytes = stagingArea.getDownloadedBytes(uri);
+		String entityTag = stagingArea.getEntityTag(uri);
+
+		// add the application/fastq accept header, and only ask for the rest
+		// of the file if it's still the same file we started downloading
+		RequestCallback requestCallback = request -> {
+			request.getHeaders().setAccept(Arrays.asList(mediaTypes));
+			if (downloadedBytes > 0 && entityTag != null) {
+				logger.debug("Requesting [" + uri + "] from byte [" + downloadedBytes + "]");
+				request.getHeaders().set(HttpHeaders.RANGE, "bytes=" + downloadedBytes + "-");
+				request.getHeaders().set(HttpHeaders.IF_RANGE, entityTag);
+			}
+		};
 
 		// get the file
-		ResponseEntity<Path> exchange = restTemplate.exchange(uri, HttpMethod.GET, requestEntity, Path.class);
-		return exchange.getBody();
+		ResponseExtractor<Path> responseExtractor = response -> {
+			if (!converter.canRead(Path.class, response.getHeaders().getContentType())) {
+				throw new HttpMessageNotReadableException(
+						"Cannot read sequence file response with content type "
+								+ response.getHeaders().getContentType());
+			}
+
+			if (response.getStatusCode() != HttpStatus.PARTIAL_CONTENT) {
+				// a new download, remember which version of the file it's for
+				stagingArea.setEntityTag(uri, response.getHeaders().getETag());
+			}
+
+			Path downloaded = converter.read(Path.class, response);
+			stagingArea.discard(uri);
+			return downloaded;
+		};
+
+		return restTemplate.execute(uri, HttpMethod.GET, requestCallback, responseExtractor);
 	}
 
 	/**
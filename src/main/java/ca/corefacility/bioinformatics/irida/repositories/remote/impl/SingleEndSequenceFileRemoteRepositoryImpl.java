@@ -10,7 +10,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.resource.ListResourceWr
 import ca.corefacility.bioinformatics.irida.model.remote.resource.ResourceWrapper;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SingleEndSequenceFileRemoteRepository;
-import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+import ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate.OAuthTokenRestTemplateProvider;
 
 /**
  * Implementation of a {@link SingleEndSequenceFileRemoteRepository} extending
@@ -26,8 +26,8 @@ public class SingleEndSequenceFileRemoteRepositoryImpl extends RemoteRepositoryI
 	};
 
 	@Autowired
-	public SingleEndSequenceFileRemoteRepositoryImpl(RemoteAPITokenService tokenService) {
-		super(tokenService, listTypeReference, objectTypeReference);
+	public SingleEndSequenceFileRemoteRepositoryImpl(OAuthTokenRestTemplateProvider restTemplateProvider) {
+		super(restTemplateProvider, listTypeReference, objectTypeReference);
 	}
 	
 	@Override
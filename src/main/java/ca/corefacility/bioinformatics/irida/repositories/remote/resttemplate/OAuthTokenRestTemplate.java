@@ -2,15 +2,18 @@ package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 
 import org.springframework.http.HttpMethod;
 import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.security.core.token.TokenService;
 import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestTemplate;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jdk7.Jdk7Module;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
@@ -21,7 +24,10 @@ import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
 
 /**
  * Rest Template used to communicate with OAuth2 enabled REST APIs. Uses a
- * {@link RemoteAPITokenService} to read OAuth2 tokens to use.
+ * {@link RemoteAPITokenService} to read OAuth2 tokens to use. The token is read
+ * for every request (and refreshed if it has expired), so a single template
+ * can be shared between requests and users; see
+ * {@link OAuthTokenRestTemplateProvider}.
  * 
  *
  */
@@ -57,6 +63,40 @@ public class OAuthTokenRestTemplate extends RestTemplate {
 		this.setErrorHandler(errorHandler);
 	}
 
+	/**
+	 * Create a new OAuthTokenRestTemplate that makes requests with the given
+	 * {@link ClientHttpRequestFactory} and reads JSON with the given
+	 * {@link ObjectMapper}.
+	 * 
+	 * @param tokenService
+	 *            the {@link TokenService} to get OAuth2 tokens from
+	 * @param remoteAPI
+	 *            the {@link RemoteAPI} this rest template will communicate with
+	 * @param requestFactory
+	 *            the factory for making requests (usually backed by a
+	 *            connection pool)
+	 * @param objectMapper
+	 *            the {@link ObjectMapper} to read JSON responses with. Must be
+	 *            configured to deserialize {@link java.nio.file.Path}s.
+	 */
+	public OAuthTokenRestTemplate(RemoteAPITokenService tokenService, RemoteAPI remoteAPI,
+			ClientHttpRequestFactory requestFactory, ObjectMapper objectMapper) {
+		super(requestFactory);
+
+		// replace the default JSON converter (and its mapper) with the shared
+		// one
+		List<HttpMessageConverter<?>> converters = getMessageConverters();
+		for (int i = 0; i < converters.size(); i++) {
+			if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+				converters.set(i, new MappingJackson2HttpMessageConverter(objectMapper));
+			}
+		}
+
+		this.tokenService = tokenService;
+		this.setRemoteAPI(remoteAPI);
+		this.setErrorHandler(errorHandler);
+	}
+
 	/**
 	 * Add an OAuth token from the tokenRepository to the request
 	 */
@@ -72,8 +112,12 @@ public class OAuthTokenRestTemplate extends RestTemplate {
 		}
 
 		if (token.isExpired()) {
-			logger.debug("Token for service is expired " + remoteAPI);
-			throw new IridaOAuthException("Token is expired for service", remoteAPI);
+			token = refreshToken();
+
+			if (token == null || token.isExpired()) {
+				logger.debug("Token for service is expired " + remoteAPI);
+				throw new IridaOAuthException("Token is expired for service", remoteAPI);
+			}
 		}
 
 		ClientHttpRequest createRequest = super.createRequest(uri, method);
@@ -82,11 +126,40 @@ public class OAuthTokenRestTemplate extends RestTemplate {
 		return createRequest;
 	}
 
+	/**
+	 * Refresh an expired token. Templates are shared between threads, so only
+	 * one request refreshes at a time and the others pick up the new token.
+	 * 
+	 * @return the refreshed token, or null if it couldn't be refreshed
+	 */
+	private synchronized RemoteAPIToken refreshToken() {
+		try {
+			RemoteAPIToken token = tokenService.getToken(remoteAPI);
+			if (!token.isExpired()) {
+				return token;
+			}
+		} catch (EntityNotFoundException ex) {
+			return null;
+		}
+
+		logger.debug("Token for service is expired " + remoteAPI + ", trying to refresh it.");
+		return tokenService.updateTokenFromRefreshToken(remoteAPI);
+	}
+
 	@Override
 	public ResponseErrorHandler getErrorHandler() {
 		return errorHandler;
 	}
 
+	/**
+	 * Get the API this rest template communicates with
+	 * 
+	 * @return the {@link RemoteAPI} that this template communicates with.
+	 */
+	public RemoteAPI getRemoteAPI() {
+		return remoteAPI;
+	}
+
 	/**
 	 * Set the API this rest template will communicate with
 	 * 
@@ -0,0 +1,117 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk7.Jdk7Module;
+
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
+import ca.corefacility.bioinformatics.irida.metrics.RemoteApiMetrics;
+import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+
+/**
+ * Hands out {@link OAuthTokenRestTemplate}s for {@link RemoteAPI}s. Templates
+ * are built once per {@link RemoteAPI} and share a single pool of persistent
+ * HTTP connections and a single {@link ObjectMapper}, so synchronizing a
+ * project doesn't pay for a new connection (and TLS handshake) for every
+ * request.
+ */
+@Component
+public class OAuthTokenRestTemplateProvider {
+	private static final Logger logger = LoggerFactory.getLogger(OAuthTokenRestTemplateProvider.class);
+
+	private final RemoteAPITokenService tokenService;
+
+	private final PoolingHttpClientConnectionManager connectionManager;
+	private final CloseableHttpClient httpClient;
+	private final ClientHttpRequestFactory requestFactory;
+	private final ObjectMapper objectMapper;
+
+	private final Map<Long, OAuthTokenRestTemplate> templates = new ConcurrentHashMap<>();
+
+	/**
+	 * Create a new {@link OAuthTokenRestTemplateProvider}
+	 *
+	 * @param tokenService
+	 *            the service to read OAuth2 tokens from
+	 * @param maxConnectionsPerApi
+	 *            the maximum number of open connections to a single remote API
+	 * @param maxConnections
+	 *            the maximum number of open connections to all remote APIs
+	 * @param metricRegistry
+	 *            the registry to record request times to
+	 */
+	@Autowired
+	public OAuthTokenRestTemplateProvider(RemoteAPITokenService tokenService,
+			@Value("${remote.api.connections.per.api:10}") int maxConnectionsPerApi,
+			@Value("${remote.api.connections.max:50}") int maxConnections, MetricRegistry metricRegistry) {
+		this.tokenService = tokenService;
+
+		connectionManager = new PoolingHttpClientConnectionManager();
+		connectionManager.setDefaultMaxPerRoute(maxConnectionsPerApi);
+		connectionManager.setMaxTotal(maxConnections);
+
+		httpClient = RemoteApiMetrics.clientBuilder(metricRegistry).setConnectionManager(connectionManager).build();
+		requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+
+		// enable Path deserialization
+		objectMapper = Jackson2ObjectMapperBuilder.json().modulesToInstall(new Jdk7Module()).build();
+	}
+
+	/**
+	 * Get the rest template for a {@link RemoteAPI}. Templates are cached
+	 * until the API's service URI or client credentials change.
+	 *
+	 * @param remoteAPI
+	 *            the {@link RemoteAPI} to communicate with
+	 * @return an {@link OAuthTokenRestTemplate} for the {@link RemoteAPI}
+	 */
+	public OAuthTokenRestTemplate getRestTemplate(RemoteAPI remoteAPI) {
+		if (remoteAPI.getId() == null) {
+			// nothing to cache an unsaved API on, but it can still use the
+			// connection pool
+			return createRestTemplate(remoteAPI);
+		}
+
+		return templates.compute(remoteAPI.getId(), (id, existing) -> {
+			if (existing != null && existing.getRemoteAPI().equals(remoteAPI)) {
+				return existing;
+			}
+			return createRestTemplate(remoteAPI);
+		});
+	}
+
+	/**
+	 * Close all pooled connections.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		templates.clear();
+		try {
+			httpClient.close();
+		} catch (IOException e) {
+			logger.warn("Failed to close remote API connection pool", e);
+		}
+	}
+
+	private OAuthTokenRestTemplate createRestTemplate(RemoteAPI remoteAPI) {
+		logger.trace("Creating rest template for " + remoteAPI);
+		return new OAuthTokenRestTemplate(tokenService, remoteAPI, requestFactory, objectMapper);
+	}
+}
@@ -0,0 +1,168 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.common.util.concurrent.Striped;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+
+/**
+ * Keeps partially downloaded remote sequence files between attempts so that an
+ * interrupted download can be resumed with a range request instead of starting
+ * over. Partial files are keyed by the URL they're being downloaded from, and
+ * the entity tag the remote installation sent with the file is kept beside the
+ * partial file so that a file that changed remotely isn't resumed.
+ */
+@Component
+public class SequenceFileDownloadStagingArea {
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileDownloadStagingArea.class);
+
+	private static final String PARTIAL_EXTENSION = ".part";
+	private static final String ENTITY_TAG_EXTENSION = ".etag";
+
+	private final Path stagingDirectory;
+
+	// only one download of a URL should be writing to its partial file
+	private final Striped<Lock> locks = Striped.lock(64);
+
+	/**
+	 * Create a new {@link SequenceFileDownloadStagingArea}
+	 *
+	 * @param stagingDirectory
+	 *            the directory to keep partial downloads in. If empty, a
+	 *            directory in the system temporary directory is used.
+	 */
+	@Autowired
+	public SequenceFileDownloadStagingArea(
+			@Value("${remote.file.download.staging.directory:}") String stagingDirectory) {
+		this(stagingDirectory.isEmpty() ? Paths.get(System.getProperty("java.io.tmpdir"), "irida-remote-downloads")
+				: Paths.get(stagingDirectory));
+	}
+
+	/**
+	 * Create a new {@link SequenceFileDownloadStagingArea}
+	 *
+	 * @param stagingDirectory
+	 *            the directory to keep partial downloads in
+	 */
+	public SequenceFileDownloadStagingArea(Path stagingDirectory) {
+		this.stagingDirectory = stagingDirectory;
+		try {
+			Files.createDirectories(stagingDirectory);
+		} catch (IOException e) {
+			throw new StorageException("Could not create download staging directory [" + stagingDirectory + "]", e);
+		}
+	}
+
+	/**
+	 * Get the lock that must be held while downloading from a URL.
+	 *
+	 * @param url
+	 *            the URL being downloaded
+	 * @return the {@link Lock} for the URL
+	 */
+	public Lock getLock(String url) {
+		return locks.get(url);
+	}
+
+	/**
+	 * Get the file that a URL is downloaded into. The file may not exist yet.
+	 *
+	 * @param url
+	 *            the URL being downloaded
+	 * @return the partial file for the URL
+	 */
+	public Path getPartialFile(String url) {
+		return stagingDirectory.resolve(getKey(url) + PARTIAL_EXTENSION);
+	}
+
+	/**
+	 * Get the number of bytes that have already been downloaded from a URL.
+	 *
+	 * @param url
+	 *            the URL being downloaded
+	 * @return the number of bytes that have been downloaded, 0 if the download
+	 *         hasn't started.
+	 */
+	public long getDownloadedBytes(String url) {
+		Path partialFile = getPartialFile(url);
+		try {
+			return Files.exists(partialFile) ? Files.size(partialFile) : 0;
+		} catch (IOException e) {
+			logger.warn("Could not read size of partial download [" + partialFile + "]", e);
+			return 0;
+		}
+	}
+
+	/**
+	 * Get the entity tag the remote installation sent when the partial file
+	 * for a URL was started.
+	 *
+	 * @param url
+	 *            the URL being downloaded
+	 * @return the entity tag, or null if there isn't one.
+	 */
+	public String getEntityTag(String url) {
+		Path tagFile = getEntityTagFile(url);
+		try {
+			return Files.exists(tagFile) ? new String(Files.readAllBytes(tagFile), StandardCharsets.UTF_8) : null;
+		} catch (IOException e) {
+			logger.warn("Could not read entity tag for partial download [" + tagFile + "]", e);
+			return null;
+		}
+	}
+
+	/**
+	 * Record the entity tag the remote installation sent with a URL.
+	 *
+	 * @param url
+	 *            the URL being downloaded
+	 * @param entityTag
+	 *            the entity tag, or null if the response didn't have one.
+	 * @throws IOException
+	 *             if the entity tag can't be written
+	 */
+	public void setEntityTag(String url, String entityTag) throws IOException {
+		Path tagFile = getEntityTagFile(url);
+		if (entityTag == null) {
+			Files.deleteIfExists(tagFile);
+		} else {
+			Files.write(tagFile, entityTag.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * Throw away anything downloaded from a URL.
+	 *
+	 * @param url
+	 *            the URL to discard the download for
+	 */
+	public void discard(String url) {
+		try {
+			Files.deleteIfExists(getPartialFile(url));
+			Files.deleteIfExists(getEntityTagFile(url));
+		} catch (IOException e) {
+			logger.warn("Could not remove partial download for [" + url + "]", e);
+		}
+	}
+
+	private Path getEntityTagFile(String url) {
+		return stagingDirectory.resolve(getKey(url) + ENTITY_TAG_EXTENSION);
+	}
+
+	private String getKey(String url) {
+		return DigestUtils.sha256Hex(url);
+	}
+}
@@ -4,12 +4,20 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.codec.digest.DigestUtils;
 
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -21,7 +29,8 @@ import com.google.common.collect.Lists;
 
 /**
  * Message converter for converting application/fastq HTTP responses to a Java
- * Path temporary file
+ * Path temporary file. When given a partial file, responses to range requests
+ * are appended to the partial file so an interrupted download can be resumed.
  * 
  *
  */
@@ -30,12 +39,35 @@ public class SequenceFileMessageConverter implements HttpMessageConverter<Path>
 
 	public static final MediaType MEDIA_TYPE = new MediaType("application","fastq");
 
+	// bytes <first>-<last>/<total or *>
+	private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
 	private final String fileName;
+	private final Path partialFile;
+	private final String expectedSha256;
 
 	public SequenceFileMessageConverter(String fileName) {
-		this.fileName = fileName;
+		this(fileName, null, null);
 	}
 
+	/**
+	 * Create a converter that downloads into a partial file that's kept if the
+	 * download fails.
+	 * 
+	 * @param fileName
+	 *            the name of the file being downloaded
+	 * @param partialFile
+	 *            the file to download into. Partial content responses are
+	 *            appended to it.
+	 * @param expectedSha256
+	 *            the SHA-256 checksum the complete file must have, or null to
+	 *            skip verifying the checksum.
+	 */
+	public SequenceFileMessageConverter(String fileName, Path partialFile, String expectedSha256) {
+		this.fileName = fileName;
+		this.partialFile = partialFile;
+		this.expectedSha256 = expectedSha256;
+	}
 	/**
 	 * {@inheritDoc}
 	 */
@@ -66,23 +98,87 @@ public class SequenceFileMessageConverter implements HttpMessageConverter<Path>
 	public Path read(Class<? extends Path> clazz, HttpInputMessage inputMessage)
 			throws IOException, HttpMessageNotReadableException {
 		logger.debug("Converting  response to " + clazz);
+		HttpHeaders headers = inputMessage.getHeaders();
+		Path downloadFile = partialFile != null ? partialFile : createTempFile();
+
+		long contentLength = headers.getContentLength();
+		long expectedSize = contentLength;
+		long offset = 0;
+
+		String contentRange = headers.getFirst(HttpHeaders.CONTENT_RANGE);
+		if (contentRange != null) {
+			Matcher range = CONTENT_RANGE.matcher(contentRange);
+			if (!range.matches()) {
+				throw new HttpMessageNotReadableException("Cannot read content range [" + contentRange + "]");
+			}
+			offset = Long.parseLong(range.group(1));
+			expectedSize = range.group(3).equals("*") ? -1 : Long.parseLong(range.group(3));
+
+			long downloaded = Files.exists(downloadFile) ? Files.size(downloadFile) : 0;
+			if (offset != downloaded) {
+				Files.deleteIfExists(downloadFile);
+				throw new IOException("Remote file [" + fileName + "] was sent from byte [" + offset + "] but ["
+						+ downloaded + "] bytes have been downloaded");
+			}
+			logger.debug("Resuming download of [" + fileName + "] from byte [" + offset + "]");
+		}
+
+		// a partial response continues the file, anything else replaces it
+		OpenOption[] options = offset > 0 ? new OpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.APPEND }
+				: new OpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+						StandardOpenOption.WRITE };
+
 		InputStream inputStream = inputMessage.getBody();
-		Path fileDirectory = Files.createTempDirectory(null);
-		Path tempFile = fileDirectory.resolve(fileName);
-		tempFile = Files.createFile(tempFile);
-		try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
-			long fileSize = IOUtils.copyLarge(inputStream, outputStream);
-
-			long expectedSize = inputMessage.getHeaders()
-					.getContentLength();
-			if (fileSize != expectedSize) {
-				throw new IOException(
-						"Error when writing remote file [" + fileName + "], to path [" + tempFile + "], expectedSize ["
-								+ expectedSize + "] != actual size [" + fileSize + "]");
+		try (OutputStream outputStream = Files.newOutputStream(downloadFile, options)) {
+			long transferred = IOUtils.copyLarge(inputStream, outputStream);
+
+			if (contentLength >= 0 && transferred != contentLength) {
+				throw new IOException("Error when writing remote file [" + fileName + "], to path [" + downloadFile
+						+ "], expected to transfer [" + contentLength + "] != actual transferred [" + transferred
+						+ "]");
 			}
 		}
 
-		return tempFile;
+		long fileSize = Files.size(downloadFile);
+		if (expectedSize >= 0 && fileSize != expectedSize) {
+			throw new IOException("Error when writing remote file [" + fileName + "], to path [" + downloadFile
+					+ "], expectedSize [" + expectedSize + "] != actual size [" + fileSize + "]");
+		}
+
+		if (expectedSha256 != null) {
+			String sha256;
+			try (InputStream downloaded = Files.newInputStream(downloadFile)) {
+				sha256 = DigestUtils.sha256Hex(downloaded);
+			}
+
+			if (!expectedSha256.equals(sha256)) {
+				// there's nothing worth resuming in a corrupt file
+				Files.deleteIfExists(downloadFile);
+				throw new IOException("Checksum of remote file [" + fileName + "] [" + sha256
+						+ "] does not match the expected checksum [" + expectedSha256 + "]");
+			}
+		}
+
+		if (partialFile == null) {
+			return downloadFile;
+		}
+
+		Path tempFile = createTempFile();
+		return Files.move(partialFile, tempFile, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * Create the file to give back to the caller, in its own directory so it
+	 * keeps the remote file's name.
+	 * 
+	 * @return an empty temporary file
+	 * @throws IOException
+	 *             if the file can't be created
+	 */
+	private Path createTempFile() throws IOException {
+		Path fileDirectory = Files.createTempDirectory(null);
+		Path tempFile = fileDirectory.resolve(fileName);
+		return Files.createFile(tempFile);
 	}
 
 	@Override
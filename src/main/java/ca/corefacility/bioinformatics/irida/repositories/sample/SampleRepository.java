@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -34,6 +35,32 @@ public interface SampleRepository extends IridaJpaRepository<Sample, Long>, Samp
 	@Query("select j.sample from ProjectSampleJoin j where j.project = ?1 and j.sample.sampleName = ?2")
 	public Sample getSampleBySampleName(Project p, String sampleName) throws EntityNotFoundException;
 
+	/**
+	 * Get the names and identifiers of the {@link Sample}s in a project with
+	 * any of the given names.
+	 *
+	 * @param p
+	 *            the {@link Project} to look in.
+	 * @param sampleNames
+	 *            the names of the samples to find.
+	 * @return a list of sample name and identifier pairs.
+	 */
+	@Query("select j.sample.sampleName, j.sample.id from ProjectSampleJoin j where j.project = ?1 and j.sample.sampleName in ?2")
+	public List<Object[]> getSampleIdsBySampleName(Project p, Collection<String> sampleNames);
+
+	/**
+	 * Get the {@link Sample}s in a project with the given identifiers, loading
+	 * their metadata (which is always loaded with a sample) in the same query.
+	 *
+	 * @param p
+	 *            the {@link Project} the samples are in.
+	 * @param sampleIds
+	 *            the identifiers of the samples.
+	 * @return the samples in the project.
+	 */
+	@Query("select distinct s from ProjectSampleJoin j join j.sample s left join fetch s.metadata where j.project = ?1 and s.id in ?2")
+	public List<Sample> getSamplesWithMetadata(Project p, Collection<Long> sampleIds);
+
 	/**
 	 * Get a {@link Page} of {@link Sample}s based on a list of {@link Sample}
 	 * names
@@ -62,4 +89,18 @@ public interface SampleRepository extends IridaJpaRepository<Sample, Long>, Samp
 	 */
 	@Query("SELECT j.sample FROM SampleSequencingObjectJoin j WHERE ?1 in elements(j.sequencingObject.analysisSubmissions)")
 	public Set<Sample> findSamplesForAnalysisSubmission(AnalysisSubmission analysisSubmission);
+
+	/**
+	 * Get the identifier and name of {@link Sample}s in order of their
+	 * identifier, starting after a given identifier. Used to build the search
+	 * index in batches.
+	 * 
+	 * @param afterId
+	 *            the identifier to start after.
+	 * @param page
+	 *            the number of samples to get.
+	 * @return pairs of sample identifier and sample name.
+	 */
+	@Query("select s.id, s.sampleName from Sample s where s.id > ?1 order by s.id")
+	public List<Object[]> findSampleNamesAfter(Long afterId, Pageable page);
 }
@@ -1,9 +1,12 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Custom methods for getting {@link Sample}s.  This can be used to create custom, higher speed methods for specific
@@ -18,4 +21,15 @@ public interface SampleRepositoryCustom {
 	 * @return a list of {@link Sample}
 	 */
 	public List<Sample> getSamplesForProjectShallow(Project project);
+
+	/**
+	 * Merge {@link MetadataEntry}s into many {@link Sample}s with a few batched JDBC statements, rather than a
+	 * statement for every entry. A sample's existing entry for a field is updated in place, unless it's a different
+	 * kind of entry (e.g. from a pipeline), in which case it's replaced, the same as
+	 * {@link Sample#mergeMetadata(Map)}. Entries are written to the audit tables under the revision of the current
+	 * transaction. Must be called in a transaction.
+	 *
+	 * @param metadata the plain {@link MetadataEntry}s to merge, by sample identifier.
+	 */
+	public void mergeMetadataEntries(Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata);
 }
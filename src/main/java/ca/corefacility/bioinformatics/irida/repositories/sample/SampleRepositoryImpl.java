@@ -1,16 +1,35 @@
 package ca.corefacility.bioinformatics.irida.repositories.sample;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.repositories.relational.auditing.UserRevEntity;
+import org.hibernate.envers.AuditReaderFactory;
+import org.hibernate.envers.RevisionType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
+import javax.persistence.EntityManager;
 import javax.sql.DataSource;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Impl of custom methods for {@link SampleRepository}.  This class can be used for speed improvements for sample
@@ -18,10 +37,12 @@ import java.util.List;
  */
 public class SampleRepositoryImpl implements SampleRepositoryCustom {
 	private final DataSource dataSource;
+	private final EntityManager entityManager;
 
 	@Autowired
-	public SampleRepositoryImpl(DataSource dataSource) {
+	public SampleRepositoryImpl(DataSource dataSource, EntityManager entityManager) {
 		this.dataSource = dataSource;
+		this.entityManager = entityManager;
 	}
 
 	/**
@@ -63,4 +84,182 @@ public class SampleRepositoryImpl implements SampleRepositoryCustom {
 
 		return results;
 	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void mergeMetadataEntries(Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata) {
+		Set<Long> fieldIds = metadata.values().stream().flatMap(m -> m.keySet().stream())
+				.map(MetadataTemplateField::getId).collect(Collectors.toSet());
+		if (fieldIds.isEmpty()) {
+			return;
+		}
+
+		// The JDBC statements run on the transaction's connection, but Envers only sees changes made through
+		// Hibernate, so the audit rows are written here under the transaction's revision.
+		int revision = AuditReaderFactory.get(entityManager).getCurrentRevision(UserRevEntity.class, true).getId();
+		Map<Long, Map<Long, CurrentEntry>> current = getCurrentEntries(metadata.keySet(), fieldIds);
+
+		List<Object[]> changedEntries = new ArrayList<>();
+		List<Object[]> entryAudits = new ArrayList<>();
+		List<NewEntry> newEntries = new ArrayList<>();
+		for (Map.Entry<Long, Map<MetadataTemplateField, MetadataEntry>> sample : metadata.entrySet()) {
+			Map<Long, CurrentEntry> sampleEntries = current.getOrDefault(sample.getKey(), new HashMap<>());
+			for (Map.Entry<MetadataTemplateField, MetadataEntry> field : sample.getValue().entrySet()) {
+				MetadataEntry entry = field.getValue();
+				checkArgument(entry.getClass().equals(MetadataEntry.class),
+						"Only plain metadata entries can be merged in bulk, not " + entry.getClass().getName());
+
+				CurrentEntry currentEntry = sampleEntries.get(field.getKey().getId());
+				if (currentEntry != null && !currentEntry.pipeline) {
+					// unchanged entries aren't written, the same as Hibernate's dirty checking
+					if (!Objects.equals(currentEntry.type, entry.getType()) || !Objects.equals(currentEntry.value,
+							entry.getValue())) {
+						changedEntries.add(new Object[] { entry.getType(), entry.getValue(), currentEntry.id });
+						entryAudits.add(new Object[] { currentEntry.id, revision, RevisionType.MOD.getRepresentation(),
+								entry.getType(), entry.getValue() });
+					}
+				} else {
+					newEntries.add(new NewEntry(sample.getKey(), field.getKey().getId(), entry,
+							currentEntry == null ? null : currentEntry.id));
+				}
+			}
+		}
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		if (!changedEntries.isEmpty()) {
+			jdbcTemplate.batchUpdate("UPDATE metadata_entry SET type=?, value=? WHERE id=?", changedEntries);
+		}
+
+		if (!newEntries.isEmpty()) {
+			List<Long> ids = insertMetadataEntries(jdbcTemplate, newEntries);
+
+			List<Object[]> addedJoins = new ArrayList<>();
+			List<Object[]> replacedJoins = new ArrayList<>();
+			List<Object[]> joinAudits = new ArrayList<>();
+			for (int i = 0; i < newEntries.size(); i++) {
+				NewEntry entry = newEntries.get(i);
+				Long id = ids.get(i);
+				entryAudits.add(new Object[] { id, revision, RevisionType.ADD.getRepresentation(), entry.type,
+						entry.value });
+				if (entry.replacedId == null) {
+					addedJoins.add(new Object[] { entry.sampleId, id, entry.fieldId });
+				} else {
+					replacedJoins.add(new Object[] { id, entry.sampleId, entry.fieldId });
+					joinAudits.add(new Object[] { revision, RevisionType.DEL.getRepresentation(), entry.sampleId,
+							entry.replacedId, entry.fieldId });
+				}
+				joinAudits.add(new Object[] { revision, RevisionType.ADD.getRepresentation(), entry.sampleId, id,
+						entry.fieldId });
+			}
+
+			if (!addedJoins.isEmpty()) {
+				jdbcTemplate.batchUpdate(
+						"INSERT INTO sample_metadata_entry (sample_id, metadata_id, metadata_KEY) VALUES (?, ?, ?)",
+						addedJoins);
+			}
+			if (!replacedJoins.isEmpty()) {
+				jdbcTemplate.batchUpdate(
+						"UPDATE sample_metadata_entry SET metadata_id=? WHERE sample_id=? AND metadata_KEY=?",
+						replacedJoins);
+			}
+			jdbcTemplate.batchUpdate(
+					"INSERT INTO sample_metadata_entry_AUD (REV, REVTYPE, sample_id, metadata_id, metadata_KEY) VALUES (?, ?, ?, ?, ?)",
+					joinAudits);
+		}
+
+		if (!entryAudits.isEmpty()) {
+			jdbcTemplate.batchUpdate(
+					"INSERT INTO metadata_entry_AUD (id, REV, REVTYPE, type, value) VALUES (?, ?, ?, ?, ?)",
+					entryAudits);
+		}
+	}
+
+	/**
+	 * Get the entries the samples have for the fields, by sample and field identifier.
+	 */
+	private Map<Long, Map<Long, CurrentEntry>> getCurrentEntries(Set<Long> sampleIds, Set<Long> fieldIds) {
+		NamedParameterJdbcTemplate tmpl = new NamedParameterJdbcTemplate(dataSource);
+		MapSqlParameterSource parameters = new MapSqlParameterSource();
+
+		String queryString = "SELECT j.sample_id, j.metadata_KEY, m.id, m.type, m.value, p.id AS pipeline_id FROM sample_metadata_entry j INNER JOIN metadata_entry m ON m.id=j.metadata_id LEFT JOIN pipeline_metadata_entry p ON p.id=m.id WHERE j.sample_id IN (:samples) AND j.metadata_KEY IN (:fields)";
+
+		parameters.addValue("samples", sampleIds);
+		parameters.addValue("fields", fieldIds);
+
+		Map<Long, Map<Long, CurrentEntry>> entries = new HashMap<>();
+		tmpl.query(queryString, parameters, rs -> {
+			CurrentEntry entry = new CurrentEntry(rs.getLong("id"), rs.getString("type"), rs.getString("value"),
+					rs.getObject("pipeline_id") != null);
+			entries.computeIfAbsent(rs.getLong("sample_id"), id -> new HashMap<>())
+					.put(rs.getLong("metadata_KEY"), entry);
+		});
+		return entries;
+	}
+
+	/**
+	 * Insert new metadata entries in one batch.
+	 *
+	 * @return the generated identifier of each entry, in the same order as the entries.
+	 */
+	private List<Long> insertMetadataEntries(JdbcTemplate jdbcTemplate, List<NewEntry> entries) {
+		return jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+			try (PreparedStatement statement = connection.prepareStatement(
+					"INSERT INTO metadata_entry (type, value) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+				for (NewEntry entry : entries) {
+					statement.setString(1, entry.type);
+					statement.setString(2, entry.value);
+					statement.addBatch();
+				}
+				statement.executeBatch();
+
+				List<Long> ids = new ArrayList<>(entries.size());
+				try (ResultSet keys = statement.getGeneratedKeys()) {
+					while (keys.next()) {
+						ids.add(keys.getLong(1));
+					}
+				}
+				checkState(ids.size() == entries.size(),
+						"Inserted " + entries.size() + " metadata entries but got " + ids.size() + " identifiers");
+				return ids;
+			}
+		});
+	}
+
+	/**
+	 * An entry a sample already has for a field.
+	 */
+	private static class CurrentEntry {
+		private final Long id;
+		private final String type;
+		private final String value;
+		// entries from pipelines are replaced rather than updated
+		private final boolean pipeline;
+
+		private CurrentEntry(Long id, String type, String value, boolean pipeline) {
+			this.id = id;
+			this.type = type;
+			this.value = value;
+			this.pipeline = pipeline;
+		}
+	}
+
+	/**
+	 * An entry to insert for a sample, possibly replacing an entry it already has.
+	 */
+	private static class NewEntry {
+		private final Long sampleId;
+		private final Long fieldId;
+		private final String type;
+		private final String value;
+		private final Long replacedId;
+
+		private NewEntry(Long sampleId, Long fieldId, MetadataEntry entry, Long replacedId) {
+			this.sampleId = sampleId;
+			this.fieldId = fieldId;
+			this.type = entry.getType();
+			this.value = entry.getValue();
+			this.replacedId = replacedId;
+		}
+	}
 }
@@ -1,5 +1,15 @@
 package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
 
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata.FileStatus;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.repositories.IridaJpaRepository;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepository;
@@ -11,4 +21,46 @@ import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSu
  */
 public interface SequenceFileRepository extends FilesystemSupplementedRepository<SequenceFile>,
 		IridaJpaRepository<SequenceFile, Long> {
+
+	/**
+	 * Get the {@link SequenceFile}s whose {@link FileMetadata} was checked
+	 * least recently, starting with files that have never been checked.
+	 * 
+	 * @param page
+	 *            the number of files to get.
+	 * @return the least recently checked files.
+	 */
+	@Query("select f from SequenceFile f order by f.fileMetadata.verifiedDate, f.id")
+	public List<SequenceFile> findLeastRecentlyVerified(Pageable page);
+
+	/**
+	 * Record the {@link FileMetadata} of a {@link SequenceFile} without
+	 * creating a revision of the file or changing its modified date.
+	 * 
+	 * @param id
+	 *            the identifier of the file.
+	 * @param sizeBytes
+	 *            the size of the file.
+	 * @param fileModifiedDate
+	 *            the modification time of the file.
+	 * @param verifiedDate
+	 *            when the file was checked.
+	 * @param status
+	 *            the {@link FileStatus} of the file.
+	 * @param fileRevisionNumber
+	 *            the revision of the file that was checked.
+	 * @param checkedVerifiedDate
+	 *            the verified date that was recorded when the file was read,
+	 *            or null if the file hadn't been checked before.
+	 * @return the number of files updated, 0 if the file was rewritten or
+	 *         recorded again since it was read.
+	 */
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query("UPDATE SequenceFile f SET f.fileMetadata.sizeBytes = ?2, f.fileMetadata.fileModifiedDate = ?3, "
+			+ "f.fileMetadata.verifiedDate = ?4, f.fileMetadata.status = ?5 WHERE f.id = ?1 "
+			+ "AND f.fileRevisionNumber = ?6 "
+			+ "AND (f.fileMetadata.verifiedDate = ?7 OR (?7 IS NULL AND f.fileMetadata.verifiedDate IS NULL))")
+	public int updateFileMetadata(Long id, Long sizeBytes, Date fileModifiedDate, Date verifiedDate,
+			FileStatus status, Long fileRevisionNumber, Date checkedVerifiedDate);
 }
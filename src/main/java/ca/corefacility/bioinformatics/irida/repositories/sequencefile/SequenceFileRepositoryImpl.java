@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.FileStorageLayout;
 import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl;
 
 /**
@@ -20,10 +21,15 @@ import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSu
 @Repository
 public class SequenceFileRepositoryImpl extends FilesystemSupplementedRepositoryImpl<SequenceFile> {
 
+	public SequenceFileRepositoryImpl(EntityManager entityManager, Path baseDirectory) {
+		super(entityManager, baseDirectory);
+	}
+
 	@Autowired
 	public SequenceFileRepositoryImpl(EntityManager entityManager,
-			@Qualifier("sequenceFileBaseDirectory") Path baseDirectory) {
-		super(entityManager, baseDirectory);
+			@Qualifier("sequenceFileBaseDirectory") Path baseDirectory,
+			@Qualifier("sequenceFileStorageLayout") FileStorageLayout storageLayout) {
+		super(entityManager, baseDirectory, storageLayout);
 	}
 
 	/**
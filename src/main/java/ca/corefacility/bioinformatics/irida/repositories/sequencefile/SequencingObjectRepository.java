@@ -63,9 +63,10 @@ public interface SequencingObjectRepository extends IridaJpaRepository<Sequencin
 	 * @param objectId        ID of the sequencing object
 	 * @param processor       File processor id string to set
 	 * @param processingState processing state to set
+	 * @return the number of objects marked, 0 if the object was already claimed by another processor
 	 */
 	@Transactional
 	@Modifying(clearAutomatically = true)
 	@Query("UPDATE SequencingObject f SET f.processingState = ?3, f.fileProcessor = ?2 WHERE f.id = ?1 AND f.fileProcessor is NULL")
-	public void markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
+	public int markFileProcessor(Long objectId, String processor, SequencingObject.ProcessingState processingState);
 }
@@ -1,5 +1,7 @@
 package ca.corefacility.bioinformatics.irida.repositories.specification;
 
+import java.util.Collection;
+
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
@@ -34,6 +36,8 @@ public class SampleSequencingObjectSpecification {
 			@Override
 			public Predicate toPredicate(Root<SampleSequencingObjectJoin> root, CriteriaQuery<?> query,
 					CriteriaBuilder cb) {
+				fetchSequencingObject(root, query);
+
 				// Get the SequencingObjects of type
 				Root<? extends SequencingObject> subTypeRoot = query.from(type);
 
@@ -46,4 +50,42 @@ public class SampleSequencingObjectSpecification {
 		};
 
 	}
+
+	/**
+	 * Get {@link SampleSequencingObjectJoin}s for any of a collection of
+	 * {@link Sample}s whose {@link SequencingObject}s are of a given type
+	 * 
+	 * @param samples
+	 *            the {@link Sample}s of the joins
+	 * @param type
+	 *            Class type of the {@link SequencingObject}
+	 * @return Specification to search for the above mentioned
+	 *         {@link SampleSequencingObjectJoin}s
+	 */
+	public static Specification<SampleSequencingObjectJoin> getSequencesOfTypeForSamples(
+			Collection<Sample> samples, Class<? extends SequencingObject> type) {
+		return new Specification<SampleSequencingObjectJoin>() {
+
+			@Override
+			public Predicate toPredicate(Root<SampleSequencingObjectJoin> root, CriteriaQuery<?> query,
+					CriteriaBuilder cb) {
+				fetchSequencingObject(root, query);
+				Root<? extends SequencingObject> subTypeRoot = query.from(type);
+
+				return cb.and(root.get("sample").in(samples),
+						cb.equal(root.get("sequencingObject").get("id"), subTypeRoot.get("id")));
+			}
+
+		};
+	}
+
+	/**
+	 * Load the {@link SequencingObject} in the same query as the join, unless
+	 * the query is only counting joins.
+	 */
+	private static void fetchSequencingObject(Root<SampleSequencingObjectJoin> root, CriteriaQuery<?> query) {
+		if (!Long.class.equals(query.getResultType())) {
+			root.fetch("sequencingObject");
+		}
+	}
 }
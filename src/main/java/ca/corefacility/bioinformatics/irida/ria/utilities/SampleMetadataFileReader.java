@@ -0,0 +1,227 @@
+package ca.corefacility.bioinformatics.irida.ria.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.NumberToTextConverter;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import ca.corefacility.bioinformatics.irida.exceptions.MetadataImportFileTypeNotSupportedError;
+
+/**
+ * Reads the rows of an uploaded sample metadata file one at a time, so that large files never have to be held in
+ * memory. Only the first sheet of a workbook is read.
+ * <p>
+ * Each row is handed over as a list of cell values indexed by column, with null for any cell that isn't in the file.
+ * The first row is the header row.
+ */
+public class SampleMetadataFileReader {
+
+	/**
+	 * Receives the rows of a file as they are read.
+	 */
+	@FunctionalInterface
+	public interface RowHandler {
+		/**
+		 * Handle the next row in the file.
+		 *
+		 * @param cells the cell values in the row, by column.
+		 * @throws IOException if the row cannot be handled.
+		 */
+		void row(List<String> cells) throws IOException;
+	}
+
+	/**
+	 * Read every row of a metadata file.
+	 *
+	 * @param file      the file to read.
+	 * @param extension the extension of the uploaded file (xlsx, xls or csv), which decides how it is read.
+	 * @param handler   receives each row.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public static void read(Path file, String extension, RowHandler handler) throws IOException {
+		switch (extension) {
+		case "xlsx":
+			readXlsx(file, handler);
+			break;
+		case "xls":
+			readXls(file, handler);
+			break;
+		case "csv":
+			readCsv(file, handler);
+			break;
+		default:
+			// Should never reach here as the uploader limits the file types.
+			throw new MetadataImportFileTypeNotSupportedError(extension);
+		}
+	}
+
+	/**
+	 * Read an excel 2007 file with the SAX based event API, which only keeps the current row in memory.
+	 */
+	private static void readXlsx(Path file, RowHandler handler) throws IOException {
+		OPCPackage pkg;
+		try {
+			pkg = OPCPackage.open(file.toFile(), PackageAccess.READ);
+		} catch (OpenXML4JException e) {
+			throw new IOException("Could not open excel file " + file, e);
+		}
+
+		try {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			Iterator<InputStream> sheets = reader.getSheetsData();
+			if (!sheets.hasNext()) {
+				return;
+			}
+
+			try (InputStream sheet = sheets.next()) {
+				XMLReader parser = SAXHelper.newXMLReader();
+				parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(), strings,
+						new RowContentsHandler(handler), new TextFormatter(), false));
+				parser.parse(new InputSource(sheet));
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new IOException("Could not read excel file " + file, e);
+		} finally {
+			// the package was only read, so there is nothing to save
+			pkg.revert();
+		}
+	}
+
+	/**
+	 * Read an excel 97 file. These are limited to 65,536 rows, so the workbook is small enough to load at once.
+	 */
+	private static void readXls(Path file, RowHandler handler) throws IOException {
+		try (NPOIFSFileSystem fs = new NPOIFSFileSystem(file.toFile(), true);
+				HSSFWorkbook workbook = new HSSFWorkbook(fs.getRoot(), true)) {
+			Sheet sheet = workbook.getSheetAt(0);
+			for (Row row : sheet) {
+				List<String> cells = new ArrayList<>();
+				for (Cell cell : row) {
+					String value;
+					if (cell.getCellType() == Cell.CELL_TYPE_BLANK) {
+						value = "";
+					} else {
+						cell.setCellType(Cell.CELL_TYPE_STRING);
+						value = cell.getStringCellValue();
+					}
+					setCell(cells, cell.getColumnIndex(), value);
+				}
+				handler.row(cells);
+			}
+		}
+	}
+
+	/**
+	 * Read a csv file one record at a time.
+	 */
+	private static void readCsv(Path file, RowHandler handler) throws IOException {
+		try (CSVParser parser = CSVParser.parse(file.toFile(), StandardCharsets.UTF_8, CSVFormat.DEFAULT)) {
+			for (CSVRecord record : parser) {
+				List<String> cells = new ArrayList<>(record.size());
+				record.forEach(cells::add);
+				handler.row(cells);
+			}
+		}
+	}
+
+	/**
+	 * Set the value of a cell in a row, filling any skipped columns with null.
+	 */
+	private static void setCell(List<String> cells, int column, String value) {
+		while (cells.size() < column) {
+			cells.add(null);
+		}
+		cells.add(value);
+	}
+
+	/**
+	 * Collects the cells of each row in a sheet and passes the finished row on.
+	 */
+	private static class RowContentsHandler implements SheetContentsHandler {
+		private final RowHandler handler;
+		private List<String> cells;
+		private int nextColumn;
+
+		public RowContentsHandler(RowHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public void startRow(int rowNum) {
+			cells = new ArrayList<>();
+			nextColumn = 0;
+		}
+
+		@Override
+		public void endRow(int rowNum) {
+			try {
+				handler.row(cells);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			// cells without a reference follow the previous cell
+			int column = cellReference == null ? nextColumn : new CellReference(cellReference).getCol();
+			setCell(cells, column, formattedValue);
+			nextColumn = column + 1;
+		}
+
+		@Override
+		public void headerFooter(String text, boolean isHeader, String tagName) {
+			// not needed for metadata
+		}
+	}
+
+	/**
+	 * Formats numbers the same way as converting the cell to a string, which is how excel 97 files are read, instead
+	 * of using the display format of the cell.
+	 */
+	private static class TextFormatter extends DataFormatter {
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString) {
+			return NumberToTextConverter.toText(value);
+		}
+
+		@Override
+		public String formatRawCellContents(double value, int formatIndex, String formatString,
+				boolean use1904Windowing) {
+			return NumberToTextConverter.toText(value);
+		}
+	}
+}
@@ -1,17 +1,69 @@
 package ca.corefacility.bioinformatics.irida.ria.utilities;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.servlet.http.HttpSessionBindingEvent;
+import javax.servlet.http.HttpSessionBindingListener;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableMap;
 
 /**
- * Used to store information relating to sample metadata during upload.
+ * Used to store information relating to sample metadata during upload. The rows of the uploaded file are kept in
+ * files in a temporary directory rather than in the session, and are read back one at a time when they are needed.
+ * The directory is removed once the storage has been removed from the session and no save is still reading it.
  */
-public class SampleMetadataStorage {
+public class SampleMetadataStorage implements HttpSessionBindingListener {
+	private static final Logger logger = LoggerFactory.getLogger(SampleMetadataStorage.class);
+
+	private static final String ROWS_FILE = "rows.csv";
+	private static final String FOUND_FILE = "found.csv";
+	private static final String MISSING_FILE = "missing.csv";
+
+	// Cells that weren't in the uploaded file are written as \N so they can be told apart from empty cells.
+	private static final CSVFormat SPOOL_FORMAT = CSVFormat.DEFAULT.withNullString("\\N");
+
+	private final Path directory;
 	private String sampleNameColumn;
 	private List<String> headers;
-	private List<Map<String, String>> rows;
-	private List<Map<String, String>> found;
-	private List<Map<String, String>> missing;
+	private int foundCount;
+
+	private volatile Map<String, Object> saveStatus;
+
+	// the session and any saves running in the background each hold the directory
+	private final AtomicInteger holders = new AtomicInteger();
+
+	/**
+	 * Create storage that keeps rows in the given directory.
+	 *
+	 * @param directory an empty directory for this upload.
+	 */
+	public SampleMetadataStorage(Path directory) {
+		this.directory = directory;
+	}
 
 	public void setSampleNameColumn(String sampleColumnName) {
 		this.sampleNameColumn = sampleColumnName;
@@ -26,27 +78,68 @@ public class SampleMetadataStorage {
 	}
 
 	/**
-	 * Save the given rows
-	 * @param rows the rows to save
+	 * Start writing the uploaded rows. Each row must have a value (or null) for each header.
+	 *
+	 * @return a {@link RowWriter} for the rows.
+	 * @throws IOException if the rows cannot be written.
 	 */
-	public void saveRows(List<Map<String, String>> rows) {
-		this.rows = rows;
+	public RowWriter writeRows() throws IOException {
+		return new RowWriter(directory.resolve(ROWS_FILE));
 	}
 
 	/**
-	 * Save the found values
-	 * @param found the found values
+	 * Start writing the rows that match a sample. Each row starts with the identifier of the sample, followed by a
+	 * value for each header.
+	 *
+	 * @return a {@link RowWriter} for the found rows.
+	 * @throws IOException if the rows cannot be written.
 	 */
-	public void saveFound(List<Map<String, String>> found) {
-		this.found = found;
+	public RowWriter writeFound() throws IOException {
+		return new RowWriter(directory.resolve(FOUND_FILE));
 	}
 
 	/**
-	 * Save the missing values
-	 * @param missing the missing values
+	 * Start writing the rows that don't match a sample.
+	 *
+	 * @return a {@link RowWriter} for the missing rows.
+	 * @throws IOException if the rows cannot be written.
 	 */
-	public void saveMissing(List<Map<String, String>> missing) {
-		this.missing = missing;
+	public RowWriter writeMissing() throws IOException {
+		return new RowWriter(directory.resolve(MISSING_FILE));
+	}
+
+	/**
+	 * Read the uploaded rows.
+	 *
+	 * @return a {@link RowReader} over the rows.
+	 * @throws IOException if the rows cannot be read.
+	 */
+	public RowReader readRows() throws IOException {
+		return new RowReader(directory.resolve(ROWS_FILE));
+	}
+
+	/**
+	 * Read the rows that match a sample, each starting with the identifier of the sample.
+	 *
+	 * @return a {@link RowReader} over the found rows.
+	 * @throws IOException if the rows cannot be read.
+	 */
+	public RowReader readFound() throws IOException {
+		return new RowReader(directory.resolve(FOUND_FILE));
+	}
+
+	/**
+	 * Save the number of rows that match a sample.
+	 *
+	 * @param foundCount the number of found rows.
+	 */
+	public void saveFoundCount(int foundCount) {
+		this.foundCount = foundCount;
+	}
+
+	@JsonIgnore
+	public int getFoundCount() {
+		return foundCount;
 	}
 
 	public String getSampleNameColumn() {
@@ -57,22 +150,190 @@ public class SampleMetadataStorage {
 		return headers;
 	}
 
-	public List<Map<String, String>> getRows() {
-		return rows;
+	public Iterable<Map<String, String>> getRows() {
+		return rowMaps(ROWS_FILE, 0);
 	}
 
-	public List<Map<String, String>> getFound() {
-		return found;
+	public Iterable<Map<String, String>> getFound() {
+		return rowMaps(FOUND_FILE, 1);
 	}
 
-	public List<Map<String, String>> getMissing() {
-		return missing;
+	public Iterable<Map<String, String>> getMissing() {
+		return rowMaps(MISSING_FILE, 0);
 	}
 
 	/**
 	 * remove all rows
 	 */
 	public void removeRows() {
-		this.rows = null;
+		deleteFile(ROWS_FILE);
+	}
+
+	/**
+	 * Record the progress of saving the found rows.
+	 *
+	 * @param processed the number of rows saved so far.
+	 */
+	public void saveProgress(int processed) {
+		this.saveStatus = ImmutableMap.of("complete", false, "processed", processed, "total", foundCount);
+	}
+
+	/**
+	 * Record the result of saving the found rows.
+	 *
+	 * @param result the success message or errors to show the user.
+	 */
+	public void saveComplete(Map<String, Object> result) {
+		Map<String, Object> status = new HashMap<>(result);
+		status.put("complete", true);
+		this.saveStatus = status;
+	}
+
+	/**
+	 * Get the progress of saving the found rows.
+	 *
+	 * @return the status of the save, or null if it hasn't been started.
+	 */
+	@JsonIgnore
+	public Map<String, Object> getSaveStatus() {
+		return saveStatus;
+	}
+
+	/**
+	 * Keep the rows until {@link #release()} is called, even if the storage is removed from the session in the
+	 * meantime.
+	 */
+	public void retain() {
+		holders.incrementAndGet();
+	}
+
+	/**
+	 * Let go of the rows kept by {@link #retain()}. The directory is removed when nothing holds it any more.
+	 */
+	public void release() {
+		if (holders.decrementAndGet() == 0) {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			} catch (IOException e) {
+				logger.warn("Could not remove uploaded metadata in " + directory, e);
+			}
+		}
+	}
+
+	@Override
+	public void valueBound(HttpSessionBindingEvent event) {
+		retain();
+	}
+
+	@Override
+	public void valueUnbound(HttpSessionBindingEvent event) {
+		release();
+	}
+
+	/**
+	 * Lazily read the rows in a file as maps of header to value, leaving out cells that weren't in the uploaded file.
+	 * The file is read each time the rows are iterated, so only one row is in memory at a time.
+	 */
+	private Iterable<Map<String, String>> rowMaps(String name, int offset) {
+		Path file = directory.resolve(name);
+		if (!Files.exists(file)) {
+			return null;
+		}
+
+		return () -> new AbstractIterator<Map<String, String>>() {
+			private RowReader reader;
+
+			@Override
+			protected Map<String, String> computeNext() {
+				try {
+					if (reader == null) {
+						reader = new RowReader(file);
+					}
+					if (!reader.hasNext()) {
+						reader.close();
+						return endOfData();
+					}
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+
+				List<String> row = reader.next();
+				Map<String, String> rowMap = new HashMap<>();
+				for (int i = 0; i < headers.size() && i + offset < row.size(); i++) {
+					String value = row.get(i + offset);
+					if (value != null) {
+						rowMap.put(headers.get(i), value);
+					}
+				}
+				return rowMap;
+			}
+		};
+	}
+
+	private void deleteFile(String name) {
+		try {
+			Files.deleteIfExists(directory.resolve(name));
+		} catch (IOException e) {
+			logger.warn("Could not remove uploaded metadata file " + name, e);
+		}
+	}
+
+	/**
+	 * Writes rows of metadata to a file.
+	 */
+	public static class RowWriter implements Closeable {
+		private final CSVPrinter printer;
+
+		private RowWriter(Path file) throws IOException {
+			BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+			this.printer = new CSVPrinter(writer, SPOOL_FORMAT);
+		}
+
+		/**
+		 * Write a row.
+		 *
+		 * @param values the values in the row.
+		 * @throws IOException if the row cannot be written.
+		 */
+		public void write(List<?> values) throws IOException {
+			printer.printRecord(values);
+		}
+
+		@Override
+		public void close() throws IOException {
+			printer.close();
+		}
+	}
+
+	/**
+	 * Reads rows of metadata back from a file, one at a time.
+	 */
+	public static class RowReader implements Iterator<List<String>>, Closeable {
+		private final CSVParser parser;
+		private final Iterator<CSVRecord> records;
+
+		private RowReader(Path file) throws IOException {
+			BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+			this.parser = new CSVParser(reader, SPOOL_FORMAT);
+			this.records = parser.iterator();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return records.hasNext();
+		}
+
+		@Override
+		public List<String> next() {
+			CSVRecord record = records.next();
+			List<String> row = new ArrayList<>(record.size());
+			record.forEach(row::add);
+			return row;
+		}
+
+		@Override
+		public void close() throws IOException {
+			parser.close();
+		}
 	}
 }
@@ -0,0 +1,52 @@
+package ca.corefacility.bioinformatics.irida.ria.web;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
+
+/**
+ * Serves the metrics in the {@link MetricRegistry} for Prometheus to scrape.
+ * The endpoint is disabled unless {@code metrics.endpoint.enabled} is set, and
+ * only administrators and the addresses in
+ * {@code metrics.endpoint.allowed-addresses} can read it.
+ */
+@Controller
+public class MetricsController {
+
+	private final MetricRegistry metricRegistry;
+	private final boolean enabled;
+
+	@Autowired
+	public MetricsController(MetricRegistry metricRegistry,
+			@Value("${metrics.endpoint.enabled:false}") boolean enabled) {
+		this.metricRegistry = metricRegistry;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Write the current metrics.
+	 *
+	 * @param response
+	 *            the response to write the metrics to
+	 * @throws IOException
+	 *             if the metrics can't be written
+	 */
+	@RequestMapping(value = "/metrics", method = RequestMethod.GET)
+	public void getMetrics(HttpServletResponse response) throws IOException {
+		if (!enabled) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		response.setContentType(MetricRegistry.CONTENT_TYPE);
+		metricRegistry.write(response.getWriter());
+	}
+}
@@ -415,9 +415,12 @@ public class AnalysisController {
 		info.setAnalysisId(analysis.getId());
 		info.setOutputName(outputName);
 		info.setFilename(aofFilename);
-		info.setFileSizeBytes(aof.getFile()
-				.toFile()
-				.length());
+		try {
+			info.setFileSizeBytes(aof.getFileSizeBytes());
+		} catch (IOException e) {
+			logger.error("Could not get size of file '" + aof.getFile() + "' " + e);
+			info.setFileSizeBytes(0L);
+		}
 		info.setToolName(toolName);
 		info.setToolVersion(toolVersion);
 		info.setFileExt(fileExt);
@@ -966,8 +969,8 @@ public class AnalysisController {
 		if (!state.equals(AnalysisState.ERROR)) {
 			float percentComplete = 0;
 			try {
-				percentComplete = analysisSubmissionService.getPercentCompleteForAnalysisSubmission(
-						analysisSubmission.getId());
+				percentComplete = analysisSubmissionService.getLastKnownPercentCompleteForAnalysisSubmission(
+						analysisSubmission);
 				result.put("percentComplete", Float.toString(percentComplete));
 			} catch (ExecutionManagerException e) {
 				logger.error("Error getting the percentage complete", e);
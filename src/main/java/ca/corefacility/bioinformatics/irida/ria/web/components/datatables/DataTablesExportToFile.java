@@ -2,22 +2,27 @@ package ca.corefacility.bioinformatics.irida.ria.web.components.datatables;
 
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.util.ArrayList;
 import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import liquibase.util.csv.CSVWriter;
 
 /**
- * Used to export datatables to either excel or csv formatted files.
+ * Used to export datatables to either excel or csv formatted files. Rows are written to the response as they are
+ * read from the models, so the models can be a lazily loaded {@link Iterable} (see {@link PageIterable}) and the
+ * whole table never has to be in memory.
  */
 public class DataTablesExportToFile {
+	/**
+	 * Number of excel rows kept in memory before they are flushed to a temporary file.
+	 */
+	private static final int EXCEL_ROW_WINDOW = 100;
 
 	/**
 	 * Write data within datatable to an excel formatted file.
@@ -28,7 +33,7 @@ public class DataTablesExportToFile {
 	 * @param headers for the table
 	 * @throws IOException thrown if file cannot be written
 	 */
-	public static void writeFile(DataTablesExportTypes type, HttpServletResponse response, String filename, List<? extends DataTablesExportable> models, List<String> headers) throws IOException {
+	public static void writeFile(DataTablesExportTypes type, HttpServletResponse response, String filename, Iterable<? extends DataTablesExportable> models, List<String> headers) throws IOException {
 		if(type.equals(DataTablesExportTypes.excel)) {
 			writeToExcel(response, filename, models, headers);
 		} else if(type.equals(DataTablesExportTypes.csv)) {
@@ -47,33 +52,39 @@ public class DataTablesExportToFile {
 	 * @throws IOException thrown if file cannot be written
 	 */
 	private static void writeToExcel(HttpServletResponse response, String filename,
-			List<? extends DataTablesExportable> models, List<String> headers) throws IOException {
-		XSSFWorkbook workbook = new XSSFWorkbook();
-		XSSFSheet sheet = workbook.createSheet();
+			Iterable<? extends DataTablesExportable> models, List<String> headers) throws IOException {
+		SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_WINDOW);
+		workbook.setCompressTempFiles(true);
+		try {
+			SXSSFSheet sheet = workbook.createSheet();
 
-		// Create the header row
-		Row row = sheet.createRow(0);
-		int cellNum = 0;
-		for (String header : headers) {
-			Cell cell = row.createCell(cellNum++);
-			cell.setCellValue(header);
-		}
+			// Create the header row
+			Row row = sheet.createRow(0);
+			int cellNum = 0;
+			for (String header : headers) {
+				Cell cell = row.createCell(cellNum++);
+				cell.setCellValue(header);
+			}
 
-		// Add the data to the workbook
-		int rowNum = 1;
-		for (DataTablesExportable model : models) {
-			row = sheet.createRow(rowNum++);
-			int cellCount = 0;
-			for (String content : model.getExportableTableRow()) {
-				Cell cell = row.createCell(cellCount++);
-				cell.setCellValue(content);
+			// Add the data to the workbook
+			int rowNum = 1;
+			for (DataTablesExportable model : models) {
+				row = sheet.createRow(rowNum++);
+				int cellCount = 0;
+				for (String content : model.getExportableTableRow()) {
+					Cell cell = row.createCell(cellCount++);
+					cell.setCellValue(content);
+				}
 			}
-		}
 
-		response.setContentType("application/vnd.ms-excel");
-		response.setHeader("Content-disposition",
-				"attachment; filename=" + filename + ".xlsx");
-		workbook.write(response.getOutputStream());
+			response.setContentType("application/vnd.ms-excel");
+			response.setHeader("Content-disposition",
+					"attachment; filename=" + filename + ".xlsx");
+			workbook.write(response.getOutputStream());
+		} finally {
+			// Remove the temporary files holding the flushed rows
+			workbook.dispose();
+		}
 	}
 
 	/**
@@ -84,20 +95,17 @@ public class DataTablesExportToFile {
 	 * @param headers for the table
 	 * @throws IOException thrown if file cannot be written
 	 */
-	private static void writeToCSV(HttpServletResponse response, String filename, List<? extends DataTablesExportable> models,
-			List<String> headers) throws IOException {
-		List<String[]> results = new ArrayList<>();
-		results.add(headers.toArray(new String[0]));
-		for (DataTablesExportable model : models) {
-			results.add(model.getExportableTableRow()
-					.toArray(new String[0]));
-		}
-
+	private static void writeToCSV(HttpServletResponse response, String filename,
+			Iterable<? extends DataTablesExportable> models, List<String> headers) throws IOException {
 		response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + ".csv\"");
 		response.setContentType("text/csv");
 		OutputStreamWriter outputStreamWriter = new OutputStreamWriter(response.getOutputStream());
 		CSVWriter csvWriter = new CSVWriter(outputStreamWriter, ',');
-		csvWriter.writeAll(results);
+		csvWriter.writeNext(headers.toArray(new String[0]));
+		for (DataTablesExportable model : models) {
+			csvWriter.writeNext(model.getExportableTableRow()
+					.toArray(new String[0]));
+		}
 		csvWriter.flush();
 		csvWriter.close();
 	}
@@ -0,0 +1,56 @@
+package ca.corefacility.bioinformatics.irida.ria.web.components.datatables;
+
+import java.util.Iterator;
+import java.util.function.IntFunction;
+
+import org.springframework.data.domain.Page;
+
+import com.google.common.collect.AbstractIterator;
+
+/**
+ * Iterates over every element of a paged query, loading one {@link Page} at a
+ * time as the previous page is used up. Only the current page is ever held in
+ * memory, so a whole table can be exported no matter how large it is.
+ * <p>
+ * The query must have a stable sort order (include a unique column such as
+ * the identifier) so that no element lands on two pages.
+ *
+ * @param <T>
+ *            the type of element on each page.
+ */
+public class PageIterable<T> implements Iterable<T> {
+	private final IntFunction<Page<T>> pageLoader;
+
+	/**
+	 * Create an iterable over a paged query.
+	 *
+	 * @param pageLoader
+	 *            loads the page with the given (zero based) number.
+	 */
+	public PageIterable(IntFunction<Page<T>> pageLoader) {
+		this.pageLoader = pageLoader;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<T> iterator() {
+		return new AbstractIterator<T>() {
+			private Page<T> page = pageLoader.apply(0);
+			private Iterator<T> content = page.iterator();
+
+			@Override
+			protected T computeNext() {
+				while (!content.hasNext()) {
+					if (!page.hasNext()) {
+						return endOfData();
+					}
+					page = pageLoader.apply(page.getNumber() + 1);
+					content = page.iterator();
+				}
+				return content.next();
+			}
+		};
+	}
+}
@@ -28,7 +28,9 @@ import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
+import ca.corefacility.bioinformatics.irida.service.FastQCChartService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
 
@@ -63,13 +65,15 @@ public class SequenceFileController {
 	 */
 	private SequencingObjectService sequencingObjectService;
 	private final AnalysisService analysisService;
+	private final FastQCChartService fastQCChartService;
 
 	@Autowired
 	public SequenceFileController(SequencingObjectService sequencingObjectService, SequencingRunService sequencingRunService,
-			final AnalysisService analysisService) {
+			final AnalysisService analysisService, final FastQCChartService fastQCChartService) {
 		this.sequencingObjectService = sequencingObjectService;
 		this.dateFormatter = new DateFormatter();
 		this.analysisService = analysisService;
+		this.fastQCChartService = fastQCChartService;
 	}
 
 	/**
@@ -149,19 +153,18 @@ public class SequenceFileController {
 			@PathVariable String type, HttpServletResponse response, @RequestParam(defaultValue = "false") boolean thumb)
 			throws IOException {
 		SequencingObject sequencingObject = sequencingObjectService.read(sequencingObjectId);
-		SequenceFile file = sequencingObject.getFileWithId(sequenceFileId);
-		AnalysisFastQC fastQC = analysisService.getFastQCAnalysisForSequenceFile(sequencingObject, file.getId());
-		if (fastQC != null) {
-			byte[] chart = new byte[0];
-			if (type.equals(IMG_PERBASE)) {
-				chart = fastQC.getPerBaseQualityScoreChart();
-			} else if (type.equals(IMG_PERSEQUENCE)) {
-				chart = fastQC.getPerSequenceQualityScoreChart();
-			} else if (type.equals(IMG_DUPLICATION_LEVEL)) {
-				chart = fastQC.getDuplicationLevelChart();
-			} else {
-				throw new EntityNotFoundException("Image not found");
-			}
+		Chart chartType;
+		if (type.equals(IMG_PERBASE)) {
+			chartType = Chart.PER_BASE_QUALITY;
+		} else if (type.equals(IMG_PERSEQUENCE)) {
+			chartType = Chart.PER_SEQUENCE_QUALITY;
+		} else if (type.equals(IMG_DUPLICATION_LEVEL)) {
+			chartType = Chart.DUPLICATION_LEVEL;
+		} else {
+			throw new EntityNotFoundException("Image not found");
+		}
+		byte[] chart = fastQCChartService.getChart(sequencingObject, sequenceFileId, chartType);
+		if (chart != null) {
 			if (thumb) {
 				BufferedImage image = ImageIO.read(new ByteArrayInputStream(chart));
 				BufferedImage thumbnail = Scalr.resize(image, Scalr.Method.QUALITY, Scalr.Mode.AUTOMATIC, 160,
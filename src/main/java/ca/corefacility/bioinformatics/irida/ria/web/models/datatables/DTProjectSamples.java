@@ -108,6 +108,18 @@ public class DTProjectSamples implements DataTablesResponseModel, DataTablesExpo
 	 */
 	@Override
 	public List<String> getExportableTableHeaders(MessageSource messageSource, Locale locale) {
+		return getTableHeaders(messageSource, locale);
+	}
+
+	/**
+	 * Get the internationalized headers for an exported table of project samples. These don't depend on any row,
+	 * so they can be written before the rows are loaded.
+	 *
+	 * @param messageSource {@link MessageSource}
+	 * @param locale        {@link Locale} for the current user.
+	 * @return List of table headers.
+	 */
+	public static List<String> getTableHeaders(MessageSource messageSource, Locale locale) {
 		List<String> headers = new ArrayList<>();
 		headers.add(messageSource.getMessage("iridaThing.id", new Object[] {}, locale));
 		headers.add(messageSource.getMessage("project.samples.table.name", new Object[] {}, locale));
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -264,6 +265,19 @@ public class PipelineController extends BaseController {
 				Set<Sample> samples = cartMap.get(project);
 				Map<String, Object> projectMap = new HashMap<>();
 				List<Map<String, Object>> sampleList = new ArrayList<>();
+
+				// load the files for all of the project's samples at once
+				Map<Long, List<SequencingObject>> pairsBySample = null;
+				if (description.acceptsPairedSequenceFiles()) {
+					pairsBySample = getObjectsBySample(
+							sequencingObjectService.getSequencesForSamplesOfType(samples, SequenceFilePair.class));
+				}
+				Map<Long, List<SequencingObject>> singlesBySample = null;
+				if (description.acceptsSingleSequenceFiles()) {
+					singlesBySample = getObjectsBySample(
+							sequencingObjectService.getSequencesForSamplesOfType(samples, SingleEndSequenceFile.class));
+				}
+
 				for (Sample sample : samples) {
 					Map<String, Object> sampleMap = new HashMap<>();
 					sampleMap.put("name", sample.getLabel());
@@ -271,18 +285,14 @@ public class PipelineController extends BaseController {
 					Map<String, List<? extends Object>> files = new HashMap<>();
 
 					// Paired end reads
-					if (description.acceptsPairedSequenceFiles()) {
-						Collection<SampleSequencingObjectJoin> pairs = sequencingObjectService.getSequencesForSampleOfType(sample, SequenceFilePair.class);
-						files.put("paired_end",
-								pairs.stream().map(SampleSequencingObjectJoin::getObject).collect(Collectors.toList()));
+					if (pairsBySample != null) {
+						files.put("paired_end", pairsBySample.getOrDefault(sample.getId(), Collections.emptyList()));
 					}
 
 					// Singe end reads
-					if (description.acceptsSingleSequenceFiles()) {
-						Collection<SampleSequencingObjectJoin> singles = sequencingObjectService.getSequencesForSampleOfType(sample, SingleEndSequenceFile.class);
+					if (singlesBySample != null) {
 						files.put("single_end",
-								singles.stream().map(SampleSequencingObjectJoin::getObject)
-										.collect(Collectors.toList()));
+								singlesBySample.getOrDefault(sample.getId(), Collections.emptyList()));
 					}
 
 					sampleMap.put("files", files);
@@ -630,4 +640,17 @@ public class PipelineController extends BaseController {
 				"samples", cartController.getNumberOfSamples()
 		);
 	}
+
+	/**
+	 * Group the {@link SequencingObject}s of a collection of joins by the
+	 * identifier of their {@link Sample}.
+	 *
+	 * @param joins the {@link SampleSequencingObjectJoin}s to group
+	 * @return the {@link SequencingObject}s of each {@link Sample}
+	 */
+	private static Map<Long, List<SequencingObject>> getObjectsBySample(
+			Collection<SampleSequencingObjectJoin> joins) {
+		return joins.stream().collect(Collectors.groupingBy(j -> j.getSubject().getId(),
+				Collectors.mapping(SampleSequencingObjectJoin::getObject, Collectors.toList())));
+	}
 }
@@ -32,6 +32,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityExistsException;
@@ -49,6 +50,7 @@ import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTa
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesResponse;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.PageIterable;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.config.DataTablesRequest;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.models.DataTablesResponseModel;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.models.ProjectSampleModel;
@@ -79,6 +81,9 @@ public class ProjectSamplesController {
 	private static final String PROJECT_SAMPLES_PAGE = PROJECTS_DIR + "project_samples";
 	private static final Logger logger = LoggerFactory.getLogger(ProjectsController.class);
 
+	// Number of samples loaded at a time when exporting the samples table
+	private static final int EXPORT_PAGE_SIZE = 500;
+
 	// Services
 	private final ProjectService projectService;
 	private final SampleService sampleService;
@@ -907,17 +912,19 @@ public class ProjectSamplesController {
 		}
 		projects.add(project);
 
-		final Page<ProjectSampleJoin> page = sampleService
-				.getFilteredSamplesForProjects(projects, sampleNames, filter.getName(), params.getSearchValue(), filter.getOrganism(), filter.getStartDate(),
-						filter.getEndDate(), 0, Integer.MAX_VALUE, params.getSort());
-
-		// Create DataTables representation of the page.
-		List<DTProjectSamples> models = new ArrayList<>();
-		for (ProjectSampleJoin psj : page.getContent()) {
-			models.add(buildProjectSampleDataTablesModel(psj, locale));
-		}
-		List<String> headers = models.get(0)
-				.getExportableTableHeaders(messageSource, locale);
+		// Load the samples a page at a time while they are written so that large projects don't have to fit in
+		// memory. Sorting on the join identifier last keeps the order stable from one page to the next.
+		final List<Project> exportProjects = projects;
+		final Sort sort = params.getSort().and(new Sort("id"));
+		final Iterable<ProjectSampleJoin> joins = new PageIterable<>(
+				pageNumber -> sampleService.getFilteredSamplesForProjects(exportProjects, sampleNames, filter.getName(),
+						params.getSearchValue(), filter.getOrganism(), filter.getStartDate(), filter.getEndDate(),
+						pageNumber, EXPORT_PAGE_SIZE, sort));
+
+		// Create DataTables representation of each sample as it is written.
+		Iterable<DTProjectSamples> models = Iterables.transform(joins,
+				psj -> buildProjectSampleDataTablesModel(psj, locale));
+		List<String> headers = DTProjectSamples.getTableHeaders(messageSource, locale);
 		DataTablesExportToFile.writeFile(type, response, project.getLabel()
 				.replace(" ", "_"), models, headers);
 	}
@@ -1,43 +1,32 @@
 package ca.corefacility.bioinformatics.irida.ria.web.projects.metadata;
 
-import java.io.ByteArrayInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.Map.Entry;
 
 import javax.servlet.http.HttpSession;
 
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.MetadataImportFileTypeNotSupportedError;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
-import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage;
+import ca.corefacility.bioinformatics.irida.ria.web.services.SampleMetadataImportService;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
-import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
-import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 
-import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.io.Files;
 
 /**
  * This class is designed to be used for bulk actions on {@link MetadataEntry}
@@ -49,17 +38,14 @@ public class ProjectSampleMetadataController {
 	private static final Logger logger = LoggerFactory.getLogger(ProjectSampleMetadataController.class);
 	private final MessageSource messageSource;
 	private final ProjectService projectService;
-	private final SampleService sampleService;
-	private final MetadataTemplateService metadataTemplateService;
+	private final SampleMetadataImportService importService;
 
 	@Autowired
-	public ProjectSampleMetadataController(MessageSource messageSource,
-			ProjectService projectService, SampleService sampleService,
-										   MetadataTemplateService metadataTemplateService) {
+	public ProjectSampleMetadataController(MessageSource messageSource, ProjectService projectService,
+			SampleMetadataImportService importService) {
 		this.messageSource = messageSource;
 		this.projectService = projectService;
-		this.sampleService = sampleService;
-		this.metadataTemplateService = metadataTemplateService;
+		this.importService = importService;
 	}
 
 	/**
@@ -79,8 +65,9 @@ public class ProjectSampleMetadataController {
 	}
 
 	/**
-	 * Upload Excel file containing sample metadata and extract the headers.  The file is stored in the session until
-	 * the column that corresponds to a {@link Sample} identifier has been sent.
+	 * Upload an Excel or CSV file containing sample metadata and extract the headers.  The rows are read from the
+	 * file one at a time and kept on disk, and the storage is kept in the session until the column that corresponds
+	 * to a {@link Sample} identifier has been sent.
 	 *
 	 * @param session   {@link HttpSession}
 	 * @param projectId {@link Long} identifier for the current {@link Project}
@@ -90,102 +77,35 @@ public class ProjectSampleMetadataController {
 	 */
 	@RequestMapping(value = "/upload/file", method = RequestMethod.POST)
 	@ResponseBody
-	public SampleMetadataStorage createProjectSampleMetadata(HttpSession session, @PathVariable long projectId,
-			@RequestParam("file") MultipartFile file)  {
-		// We want to return a list of the table headers back to the UI.
-		SampleMetadataStorage storage = new SampleMetadataStorage();
+	public ResponseEntity<SampleMetadataStorage> createProjectSampleMetadata(HttpSession session,
+			@PathVariable long projectId, @RequestParam("file") MultipartFile file) {
+		String filename = file.getOriginalFilename();
+		String extension = com.google.common.io.Files.getFileExtension(filename).toLowerCase();
+		SampleMetadataStorage storage = null;
 		try {
-			// Need an input stream
-			String filename = file.getOriginalFilename();
-			byte[] byteArr = file.getBytes();
-			InputStream fis = new ByteArrayInputStream(byteArr);
+			storage = new SampleMetadataStorage(Files.createTempDirectory("sample-metadata"));
+			// Stored in the session right away so the files are cleaned up with it.
+			session.setAttribute("pm-" + projectId, storage);
 
-			Workbook workbook;
-			String extension = Files.getFileExtension(filename);
-
-			// Check the type of workbook
-			switch (extension) {
-			case "xlsx":
-				workbook = new XSSFWorkbook(fis);
-				break;
-			case "xls":
-				workbook = new HSSFWorkbook(fis);
-				break;
-			default:
-				// Should never reach here as the uploader limits to .xlsx and .xlx files.
-				throw new MetadataImportFileTypeNotSupportedError(extension);
-			}
-
-			// Only look at the first sheet in the workbook as this should be the file we want.
-			Sheet sheet = workbook.getSheetAt(0);
-			Iterator<Row> rowIterator = sheet.iterator();
-
-			List<String> headers = getWorkbookHeaders(rowIterator.next());
-			storage.saveHeaders(headers);
-
-			// Get the metadata out of the table.
-			List<Map<String, String>> rows = new ArrayList<>();
-			while (rowIterator.hasNext()) {
-				Map<String, String> rowMap = new HashMap<>();
-				Row row = rowIterator.next();
-				Iterator<Cell> cellIterator = row.cellIterator();
-				while (cellIterator.hasNext()) {
-					Cell cell = cellIterator.next();
-					int columnIndex = cell.getColumnIndex();
-					if (columnIndex < headers.size()) {
-						String header = headers.get(columnIndex);
-
-						if (cell.getCellType() == Cell.CELL_TYPE_BLANK) {
-							rowMap.put(header, "");
-						} else {
-							cell.setCellType(Cell.CELL_TYPE_STRING);
-							rowMap.put(header, cell.getStringCellValue());
-						}
-					}
-				}
-				rows.add(rowMap);
+			Path upload = Files.createTempFile("sample-metadata", "." + extension);
+			try {
+				file.transferTo(upload.toFile());
+				importService.readFile(upload, extension, storage);
+			} finally {
+				Files.deleteIfExists(upload);
 			}
-			storage.saveRows(rows);
-
-			fis.close();
-		} catch (FileNotFoundException e) {
-			logger.debug("No file found for uploading an excel file of metadata.");
-		} catch (IOException e) {
-			logger.error("Error opening file" + file.getOriginalFilename());
+		} catch (IOException | MetadataImportFileTypeNotSupportedError e) {
+			logger.error("Error opening file " + filename, e);
+			session.removeAttribute("pm-" + projectId);
+			return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
 		}
 
-		session.setAttribute("pm-" + projectId, storage);
-		return storage;
+		return new ResponseEntity<>(storage, HttpStatus.OK);
 	}
 
 	/**
-	 * Extract the headers from an excel file.
-	 *
-	 * @param row
-	 * 		{@link Row} First row from the excel file.
-	 *
-	 * @return {@link List} of {@link String} header values.
-	 */
-	private List<String> getWorkbookHeaders(Row row) {
-		// We want to return a list of the table headers back to the UI.
-		List<String> headers = new ArrayList<>();
-
-		// Get the column headers
-		Iterator<Cell> headerIterator = row.cellIterator();
-		while (headerIterator.hasNext()) {
-			Cell headerCell = headerIterator.next();
-			String headerValue = headerCell.getStringCellValue().trim();
-
-			// Don't want empty header values.
-			if (!Strings.isNullOrEmpty(headerValue)) {
-				headers.add(headerValue);
-			}
-		}
-		return headers;
-	}
-
-	/**
-	 * Add the metadata to specific {@link Sample} based on the selected column to correspond to the {@link Sample} id.
+	 * Sort the uploaded metadata into rows that match a {@link Sample} and rows that don't, based on the selected
+	 * column to correspond to the {@link Sample} id.
 	 *
 	 * @param session
 	 * 		{@link HttpSession}.
@@ -195,44 +115,26 @@ public class ProjectSampleMetadataController {
 	 * 		{@link String} the header to used to represent the {@link Sample} identifier.
 	 *
 	 * @return {@link Map} containing
+	 * @throws IOException if the uploaded metadata cannot be read
 	 */
 	@RequestMapping(value = "/upload/setSampleColumn", method = RequestMethod.POST)
 	@ResponseBody
 	public Map<String, Object> setProjectSampleMetadataSampleId(HttpSession session, @PathVariable long projectId,
-			@RequestParam String sampleNameColumn) {
+			@RequestParam String sampleNameColumn) throws IOException {
 		// Attempt to get the metadata from the sessions
 		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
 
-		if (stored != null) {
-			stored.setSampleNameColumn(sampleNameColumn);
+		if (stored != null && stored.getRows() != null) {
 			Project project = projectService.read(projectId);
-			List<Map<String, String>> rows = stored.getRows();
-
-			// Remove 'rows' since they are now going to be sorted into found and not found.
-			stored.removeRows();
-			List<Map<String, String>> found = new ArrayList<>();
-			List<Map<String, String>> missing = new ArrayList<>();
-
-			// Get the metadata out of the table.
-			for (Map<String, String> row : rows) {
-				try {
-					// If this throws an error than the sample does not exist.
-					sampleService.getSampleBySampleName(project, row.get(sampleNameColumn));
-					found.add(row);
-				} catch (EntityNotFoundException e) {
-					missing.add(row);
-				}
-			}
-
-			stored.saveFound(found);
-			stored.saveMissing(missing);
+			importService.findSamples(project, stored, sampleNameColumn);
 		}
 
 		return ImmutableMap.of("result", "complete");
 	}
 
 	/**
-	 * Save uploaded metadata to the
+	 * Start saving uploaded metadata to the samples it matched. The metadata is saved in the background; use
+	 * {@link #getSaveProjectSampleMetadataStatus(HttpSession, long)} to follow its progress.
 	 *
 	 * @param locale
 	 * 		{@link Locale} of the current user.
@@ -253,65 +155,39 @@ public class ProjectSampleMetadataController {
 		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
 		if (stored == null) {
 			errors.put("stored-error", true);
-		}
-
-		List<Sample> samplesToUpdate = new ArrayList<>();
-
-		List<Map<String, String>> found = stored.getFound();
-		if (found != null) {
-			// Lets try to get a sample
-			String sampleNameColumn = stored.getSampleNameColumn();
-			List<String> errorList = new ArrayList<>();
-			try {
-				for (Map<String, String> row : found) {
-
-					String name = row.get(sampleNameColumn);
-					Sample sample = sampleService.getSampleBySampleName(project, name);
-					row.remove(sampleNameColumn);
-
-					Map<MetadataTemplateField, MetadataEntry> newData = new HashMap<>();
-
-					// Need to overwrite duplicate keys
-					for (Entry<String, String> entry : row.entrySet()) {
-						MetadataTemplateField key = metadataTemplateService.readMetadataFieldByLabel(entry.getKey());
-
-						if (key == null) {
-							key = metadataTemplateService
-									.saveMetadataField(new MetadataTemplateField(entry.getKey(), "text"));
-						}
-
-						newData.put(key, new MetadataEntry(entry.getValue(), "text"));
-					}
-
-					sample.mergeMetadata(newData);
-
-					// Save metadata back to the sample
-
-					samplesToUpdate.add(sample);
-
-				}
-
-				sampleService.updateMultiple(samplesToUpdate);
-			} catch (EntityNotFoundException e) {
-				// This really should not happen, but hey, you never know!
-				errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found",
-						new Object[] { e.getMessage() }, locale));
-			}
-
-			if (errorList.size() > 0) {
-				errors.put("save-errors", errorList);
-			}
-		} else {
+		} else if (stored.getFound() == null || stored.getFoundCount() == 0) {
 			errors.put("found-error",
 					messageSource.getMessage("metadata.results.save.found-error", new Object[] {}, locale));
 		}
+
 		if (errors.size() == 0) {
-			return ImmutableMap.of("success",
-					messageSource.getMessage("metadata.results.save.success", new Object[] { found.size() }, locale));
+			importService.startSave(project, stored, locale);
+			return ImmutableMap.of("started", true);
 		}
 		return errors;
 	}
 
+	/**
+	 * Get the progress of saving uploaded metadata. Once the save is complete this includes the success message or
+	 * any errors.
+	 *
+	 * @param session
+	 * 		{@link HttpSession}
+	 * @param projectId
+	 * 		{@link Long} identifier for the current project
+	 *
+	 * @return {@link Map} of the number of rows processed and the total, and the result once complete.
+	 */
+	@RequestMapping(value = "/upload/save/status", method = RequestMethod.GET)
+	@ResponseBody
+	public Map<String, Object> getSaveProjectSampleMetadataStatus(HttpSession session, @PathVariable long projectId) {
+		SampleMetadataStorage stored = (SampleMetadataStorage) session.getAttribute("pm-" + projectId);
+		if (stored == null || stored.getSaveStatus() == null) {
+			return ImmutableMap.of("stored-error", true);
+		}
+		return stored.getSaveStatus();
+	}
+
 	/**
 	 * Clear any uploaded sample metadata stored into the session.
 	 *
@@ -135,7 +135,7 @@ public class AnalysesListingService {
 		if (analysisState.equals(AnalysisState.ERROR)) {
 			error = getFirstJobError(submission);
 		} else {
-			percentComplete = analysisSubmissionService.getPercentCompleteForAnalysisSubmission(submission.getId());
+			percentComplete = analysisSubmissionService.getLastKnownPercentCompleteForAnalysisSubmission(submission);
 		}
 
 		IridaWorkflow iridaWorkflow = iridaWorkflowsService.getIridaWorkflowOrUnknown(submission);
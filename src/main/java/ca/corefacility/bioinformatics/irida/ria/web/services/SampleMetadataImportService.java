@@ -0,0 +1,262 @@
+package ca.corefacility.bioinformatics.irida.ria.web.services;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.MessageSource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.stereotype.Component;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataFileReader;
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage;
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage.RowReader;
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage.RowWriter;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Imports uploaded {@link Sample} metadata files. Rows are streamed from the uploaded file into a
+ * {@link SampleMetadataStorage}, sample names are looked up in bulk, and the metadata is saved in batches by a
+ * background job so that large files don't tie up a request.
+ */
+@Component
+public class SampleMetadataImportService {
+	private static final Logger logger = LoggerFactory.getLogger(SampleMetadataImportService.class);
+
+	/**
+	 * Number of rows whose sample names are looked up together.
+	 */
+	private static final int LOOKUP_BATCH_SIZE = 1000;
+
+	/**
+	 * Number of rows saved in each transaction.
+	 */
+	private static final int SAVE_BATCH_SIZE = 500;
+
+	private final SampleService sampleService;
+	private final MetadataTemplateService metadataTemplateService;
+	private final MessageSource messageSource;
+	private final Executor executor;
+
+	@Autowired
+	public SampleMetadataImportService(SampleService sampleService, MetadataTemplateService metadataTemplateService,
+			MessageSource messageSource, @Qualifier("metadataImportExecutor") TaskExecutor executor) {
+		this.sampleService = sampleService;
+		this.metadataTemplateService = metadataTemplateService;
+		this.messageSource = messageSource;
+		// imports run as the user that started them
+		this.executor = new DelegatingSecurityContextExecutor(executor);
+	}
+
+	/**
+	 * Read the headers and rows of an uploaded file into storage. Columns without a header are left out, as are rows
+	 * without any values.
+	 *
+	 * @param file      the uploaded file.
+	 * @param extension the extension of the uploaded file.
+	 * @param storage   the {@link SampleMetadataStorage} to read the file into.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public void readFile(Path file, String extension, SampleMetadataStorage storage) throws IOException {
+		List<String> headers = new ArrayList<>();
+		List<Integer> columns = new ArrayList<>();
+
+		try (RowWriter rows = storage.writeRows()) {
+			SampleMetadataFileReader.read(file, extension, cells -> {
+				if (columns.isEmpty() && headers.isEmpty()) {
+					// The first row holds the headers. Don't want empty header values.
+					for (int column = 0; column < cells.size(); column++) {
+						String header = Strings.nullToEmpty(cells.get(column)).trim();
+						if (!header.isEmpty()) {
+							headers.add(header);
+							columns.add(column);
+						}
+					}
+					if (headers.isEmpty()) {
+						throw new IOException("The first row of the file has no headers");
+					}
+					return;
+				}
+
+				List<String> values = new ArrayList<>(columns.size());
+				boolean empty = true;
+				for (int column : columns) {
+					String value = column < cells.size() ? cells.get(column) : null;
+					values.add(value);
+					empty &= Strings.isNullOrEmpty(value);
+				}
+				if (!empty) {
+					rows.write(values);
+				}
+			});
+		}
+
+		if (headers.isEmpty()) {
+			throw new IOException("The file is empty");
+		}
+		storage.saveHeaders(headers);
+	}
+
+	/**
+	 * Sort the uploaded rows into those that match a {@link Sample} in the {@link Project} and those that don't.
+	 * Sample names are looked up a batch of rows at a time.
+	 *
+	 * @param project          the {@link Project} to find samples in.
+	 * @param storage          the {@link SampleMetadataStorage} holding the rows.
+	 * @param sampleNameColumn the header of the column holding the sample names.
+	 * @throws IOException if the rows cannot be read or written.
+	 */
+	public void findSamples(Project project, SampleMetadataStorage storage, String sampleNameColumn)
+			throws IOException {
+		storage.setSampleNameColumn(sampleNameColumn);
+		int nameIndex = storage.getHeaders().indexOf(sampleNameColumn);
+		int found = 0;
+
+		try (RowReader rows = storage.readRows(); RowWriter foundRows = storage.writeFound();
+				RowWriter missingRows = storage.writeMissing()) {
+			List<List<String>> batch = new ArrayList<>(LOOKUP_BATCH_SIZE);
+			while (rows.hasNext()) {
+				batch.add(rows.next());
+				if (batch.size() == LOOKUP_BATCH_SIZE || !rows.hasNext()) {
+					Set<String> names = new HashSet<>();
+					for (List<String> row : batch) {
+						String name = getSampleName(row, nameIndex);
+						if (name != null) {
+							names.add(name);
+						}
+					}
+					Map<String, Long> sampleIds = names.isEmpty() ? Collections.emptyMap()
+							: sampleService.getSampleIdsBySampleName(project, names);
+
+					for (List<String> row : batch) {
+						Long sampleId = sampleIds.get(getSampleName(row, nameIndex));
+						if (sampleId != null) {
+							List<Object> foundRow = new ArrayList<>(row.size() + 1);
+							foundRow.add(sampleId);
+							foundRow.addAll(row);
+							foundRows.write(foundRow);
+							found++;
+						} else {
+							missingRows.write(row);
+						}
+					}
+					batch.clear();
+				}
+			}
+		}
+
+		// Remove 'rows' since they are now sorted into found and not found.
+		storage.removeRows();
+		storage.saveFoundCount(found);
+	}
+
+	/**
+	 * Start saving the found rows to their {@link Sample}s in the background. Progress and the result are recorded
+	 * in the storage as the save runs. The storage keeps its rows until the save is done, even if it's removed from
+	 * the session first.
+	 *
+	 * @param project the {@link Project} the samples are in.
+	 * @param storage the {@link SampleMetadataStorage} holding the found rows.
+	 * @param locale  {@link Locale} of the current user, for the result messages.
+	 */
+	public void startSave(Project project, SampleMetadataStorage storage, Locale locale) {
+		storage.saveProgress(0);
+		storage.retain();
+		try {
+			executor.execute(() -> {
+				try {
+					save(project, storage, locale);
+				} finally {
+					storage.release();
+				}
+			});
+		} catch (RuntimeException e) {
+			storage.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Save the found rows to their {@link Sample}s, a batch of rows per transaction.
+	 *
+	 * @param project the {@link Project} the samples are in.
+	 * @param storage the {@link SampleMetadataStorage} holding the found rows.
+	 * @param locale  {@link Locale} of the current user, for the result messages.
+	 */
+	void save(Project project, SampleMetadataStorage storage, Locale locale) {
+		List<String> headers = storage.getHeaders();
+		int nameIndex = headers.indexOf(storage.getSampleNameColumn());
+		List<String> errorList = new ArrayList<>();
+
+		try (RowReader rows = storage.readFound()) {
+			// Look up every field once rather than for each cell.
+			List<String> labels = new ArrayList<>(headers);
+			labels.remove(storage.getSampleNameColumn());
+			Map<String, MetadataTemplateField> fields = metadataTemplateService.getOrCreateMetadataFields(labels);
+
+			int processed = 0;
+			Map<Long, Map<MetadataTemplateField, MetadataEntry>> batch = new HashMap<>();
+			Map<Long, String> names = new HashMap<>();
+			while (rows.hasNext()) {
+				List<String> row = rows.next();
+				Long sampleId = Long.valueOf(row.get(0));
+				names.put(sampleId, getSampleName(row.subList(1, row.size()), nameIndex));
+
+				// Need to overwrite duplicate keys
+				Map<MetadataTemplateField, MetadataEntry> newData = batch.computeIfAbsent(sampleId,
+						id -> new HashMap<>());
+				for (int i = 0; i < headers.size() && i + 1 < row.size(); i++) {
+					String value = row.get(i + 1);
+					if (i != nameIndex && value != null) {
+						newData.put(fields.get(headers.get(i)), new MetadataEntry(value, "text"));
+					}
+				}
+
+				processed++;
+				if (batch.size() == SAVE_BATCH_SIZE || !rows.hasNext()) {
+					Set<Long> updated = sampleService.mergeSampleMetadata(project, batch);
+					for (Long id : batch.keySet()) {
+						if (!updated.contains(id)) {
+							errorList.add(messageSource.getMessage("metadata.results.save.sample-not-found",
+									new Object[] { names.get(id) }, locale));
+						}
+					}
+					batch = new HashMap<>();
+					names.clear();
+					storage.saveProgress(processed);
+				}
+			}
+		} catch (Exception e) {
+			logger.error("Could not save metadata for project " + project.getId(), e);
+			errorList.add(messageSource.getMessage("metadata.results.save.error", new Object[] {}, locale));
+		}
+
+		if (errorList.isEmpty()) {
+			storage.saveComplete(ImmutableMap.of("success", messageSource.getMessage("metadata.results.save.success",
+					new Object[] { storage.getFoundCount() }, locale)));
+		} else {
+			storage.saveComplete(ImmutableMap.of("save-errors", errorList));
+		}
+	}
+
+	/**
+	 * Get the sample name from a row, or null if the row doesn't have one.
+	 */
+	private static String getSampleName(List<String> row, int nameIndex) {
+		return nameIndex >= 0 && nameIndex < row.size() ? row.get(nameIndex) : null;
+	}
+}
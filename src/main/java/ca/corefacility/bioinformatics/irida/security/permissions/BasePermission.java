@@ -1,7 +1,13 @@
 package ca.corefacility.bioinformatics.irida.security.permissions;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +16,7 @@ import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
+import ca.corefacility.bioinformatics.irida.model.IridaThing;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 
 /**
@@ -44,6 +51,29 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	protected abstract boolean customPermissionAllowed(Authentication authentication,
 			DomainObjectType targetDomainObject);
 
+	/**
+	 * This method is called by {@link BasePermission} when evaluating
+	 * permission on a collection of objects. Implementing classes that can
+	 * decide permission for many objects with a single set-based query should
+	 * override this method.
+	 * <p>
+	 * Any object that isn't in the returned set is evaluated one at a time
+	 * with {@link #customPermissionAllowed}, so
+	 * implementations only need to return the objects they can grant
+	 * permission on. By default no objects are granted in bulk.
+	 * 
+	 * @param authentication
+	 *            the authenticated user.
+	 * @param targetIdentifiers
+	 *            the identifiers of the objects the user is attempting to
+	 *            access.
+	 * @return the identifiers of the objects permission is granted on.
+	 */
+	protected Set<IdentifierType> customPermissionAllowedBulk(Authentication authentication,
+			Set<IdentifierType> targetIdentifiers) {
+		return Collections.emptySet();
+	}
+
 	/**
 	 * The type of object to be loaded from the database.
 	 */
@@ -131,14 +161,66 @@ public abstract class BasePermission<DomainObjectType, IdentifierType extends Se
 	 *             If one of the objects in the collection does not exist.
 	 */
 	private boolean customPermissionAllowedCollection(Authentication authentication, Collection<?> targetDomainObjects) {
-		boolean permitted = true;
+		// administrators are fast passed one object at a time
+		if (authentication.getAuthorities().stream().anyMatch(g -> g.getAuthority().equals(ADMIN_AUTHORITY))) {
+			boolean permitted = true;
+			for (Object domainObjectInCollection : targetDomainObjects) {
+				permitted &= customPermissionAllowedSingleObject(authentication, domainObjectInCollection);
+			}
+			return permitted;
+		}
+
+		final Map<IdentifierType, Object> objectsByIdentifier = new LinkedHashMap<>();
+		final List<Object> remaining = new ArrayList<>();
 		for (Object domainObjectInCollection : targetDomainObjects) {
+			final IdentifierType identifier = getIdentifier(domainObjectInCollection);
+			if (identifier == null) {
+				remaining.add(domainObjectInCollection);
+			} else {
+				objectsByIdentifier.put(identifier, domainObjectInCollection);
+			}
+		}
+
+		if (!objectsByIdentifier.isEmpty()) {
+			final Set<IdentifierType> granted = customPermissionAllowedBulk(authentication,
+					Collections.unmodifiableSet(objectsByIdentifier.keySet()));
+			logger.trace("Granted permission on [" + granted.size() + "] of [" + objectsByIdentifier.size()
+					+ "] objects in bulk");
+			objectsByIdentifier.entrySet().stream().filter(e -> !granted.contains(e.getKey()))
+					.forEach(e -> remaining.add(e.getValue()));
+		}
+
+		// anything that wasn't granted in bulk (including objects that don't
+		// exist) gets evaluated the slow way
+		boolean permitted = true;
+		for (Object domainObjectInCollection : remaining) {
 			permitted &= customPermissionAllowedSingleObject(authentication, domainObjectInCollection);
 		}
 
 		return permitted;
 	}
 
+	/**
+	 * Get the identifier for an object in a collection being evaluated.
+	 * 
+	 * @param target
+	 *            either an identifier or a domain object.
+	 * @return the identifier, or null if the object doesn't have one.
+	 */
+	@SuppressWarnings("unchecked")
+	private IdentifierType getIdentifier(Object target) {
+		if (identifierType.isAssignableFrom(target.getClass())) {
+			return (IdentifierType) target;
+		} else if (domainObjectType.isAssignableFrom(target.getClass()) && target instanceof IridaThing) {
+			final Long id = ((IridaThing) target).getId();
+			if (id != null && identifierType.isAssignableFrom(id.getClass())) {
+				return (IdentifierType) id;
+			}
+		}
+
+		return null;
+	}
+
 	/**
 	 * Is the authenticated user allowed to perform some action on the target
 	 * domain object?
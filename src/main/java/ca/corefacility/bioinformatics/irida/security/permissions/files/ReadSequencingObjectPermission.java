@@ -1,5 +1,12 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.files;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -61,6 +68,27 @@ public class ReadSequencingObjectPermission extends BasePermission<SequencingObj
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Set<Long> customPermissionAllowedBulk(final Authentication authentication,
+			final Set<Long> sequencingObjectIds) {
+		final List<SampleSequencingObjectJoin> joins = ssoRepository
+				.getSamplesForSequencingObjectIds(sequencingObjectIds);
+		// samples are compared by their fields, so collect them by identifier
+		final Collection<Sample> samples = joins.stream().map(SampleSequencingObjectJoin::getSubject)
+				.collect(Collectors.toMap(Sample::getId, Function.identity(), (a, b) -> a)).values();
+
+		// if any of the samples can't be read, fall back to checking each
+		// object on its own to find out which
+		if (samples.isEmpty() || !samplePermission.isAllowed(authentication, samples)) {
+			return Collections.emptySet();
+		}
+
+		return joins.stream().map(j -> j.getObject().getId()).collect(Collectors.toSet());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -0,0 +1,194 @@
+package ca.corefacility.bioinformatics.irida.security.permissions.project;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.Join;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+
+/**
+ * Caches the effective {@link ProjectRole} a user has on every {@link Project}
+ * they can see, either directly or through a user group. Permission checks
+ * look the project up in the user's cached roles instead of scanning every
+ * member and group of the project.
+ * <p>
+ * Entries are dropped when membership changes (see
+ * {@link #invalidate(String)} and {@link #invalidateAll()}), and also expire
+ * after a configurable time so that changes made by another server are
+ * eventually seen.
+ */
+@Component
+public class ProjectMembershipCache {
+	private static final Logger logger = LoggerFactory.getLogger(ProjectMembershipCache.class);
+
+	private final UserRepository userRepository;
+	private final ProjectUserJoinRepository pujRepository;
+	private final UserGroupProjectJoinRepository ugpjRepository;
+
+	private final LoadingCache<String, Map<Long, ProjectRole>> projectRoles;
+
+	/**
+	 * Construct an instance of {@link ProjectMembershipCache}.
+	 *
+	 * @param userRepository the user repository.
+	 * @param pujRepository  the project user join repository.
+	 * @param ugpjRepository the user group/project join repository.
+	 * @param cacheSize      the maximum number of users to keep roles for.
+	 * @param cacheExpiry    the number of seconds to keep a user's roles for. 0
+	 *                       disables caching.
+	 */
+	@Autowired
+	public ProjectMembershipCache(final UserRepository userRepository, final ProjectUserJoinRepository pujRepository,
+			final UserGroupProjectJoinRepository ugpjRepository,
+			@Value("${security.permission.cache_size:1000}") final long cacheSize,
+			@Value("${security.permission.cache_expiry:60}") final long cacheExpiry) {
+		this.userRepository = userRepository;
+		this.pujRepository = pujRepository;
+		this.ugpjRepository = ugpjRepository;
+
+		this.projectRoles = CacheBuilder.newBuilder().maximumSize(cacheSize)
+				.expireAfterWrite(cacheExpiry, TimeUnit.SECONDS)
+				.build(new CacheLoader<String, Map<Long, ProjectRole>>() {
+					@Override
+					public Map<Long, ProjectRole> load(final String username) {
+						return loadProjectRoles(username);
+					}
+				});
+	}
+
+	/**
+	 * Get the effective role a user has on a project. A user that's on a
+	 * project both directly and through a group gets the higher of the roles.
+	 *
+	 * @param username the name of the user.
+	 * @param project  the project to get the role on.
+	 * @return the user's role on the project, or null if the user isn't on the
+	 *         project.
+	 */
+	public ProjectRole getProjectRole(final String username, final Project project) {
+		if (project.getId() == null) {
+			// an unsaved project can't have any members
+			return null;
+		}
+
+		try {
+			return projectRoles.getUnchecked(username).get(project.getId());
+		} catch (UncheckedExecutionException e) {
+			// let the caller see the exception the repositories threw
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	/**
+	 * Get the identifiers of every project a user is on, directly or through a
+	 * group.
+	 *
+	 * @param username the name of the user.
+	 * @return the identifiers of the user's projects.
+	 */
+	public Set<Long> getProjectIds(final String username) {
+		try {
+			return projectRoles.getUnchecked(username).keySet();
+		} catch (UncheckedExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	/**
+	 * Forget the cached roles for a user. The roles are forgotten immediately
+	 * and, if a transaction is in progress, again when it commits so that the
+	 * roles aren't re-read from the uncommitted state by another thread.
+	 *
+	 * @param username the name of the user whose membership has changed.
+	 */
+	public void invalidate(final String username) {
+		logger.trace("Invalidating cached project roles for [" + username + "]");
+		afterCommit(() -> projectRoles.invalidate(username));
+	}
+
+	/**
+	 * Forget the cached roles for every user. This is used when a group's
+	 * membership on a project changes, since that can affect any number of
+	 * users.
+	 */
+	public void invalidateAll() {
+		logger.trace("Invalidating all cached project roles");
+		afterCommit(projectRoles::invalidateAll);
+	}
+
+	/**
+	 * Run the invalidation now, and again after the current transaction
+	 * commits if there is one.
+	 *
+	 * @param invalidation the invalidation to run.
+	 */
+	private void afterCommit(final Runnable invalidation) {
+		invalidation.run();
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					invalidation.run();
+				}
+			});
+		}
+	}
+
+	/**
+	 * Load every project a user is on, directly or through a group, with the
+	 * highest role they have on the project.
+	 *
+	 * @param username the name of the user to load roles for.
+	 * @return the user's roles by project identifier.
+	 */
+	private Map<Long, ProjectRole> loadProjectRoles(final String username) {
+		logger.trace("Loading project roles for [" + username + "]");
+		final User u = userRepository.loadUserByUsername(username);
+		if (u == null) {
+			return ImmutableMap.of();
+		}
+
+		final Map<Long, ProjectRole> roles = new HashMap<>();
+		for (final Join<Project, User> join : pujRepository.getProjectsForUser(u)) {
+			addRole(roles, join.getSubject(), ((ProjectUserJoin) join).getProjectRole());
+		}
+		for (final UserGroupProjectJoin join : ugpjRepository.findProjectsByUser(u)) {
+			addRole(roles, join.getSubject(), join.getProjectRole());
+		}
+
+		return ImmutableMap.copyOf(roles);
+	}
+
+	private static void addRole(final Map<Long, ProjectRole> roles, final Project project, final ProjectRole role) {
+		if (role == ProjectRole.PROJECT_OWNER) {
+			roles.put(project.getId(), role);
+		} else {
+			roles.putIfAbsent(project.getId(), role);
+		}
+	}
+}
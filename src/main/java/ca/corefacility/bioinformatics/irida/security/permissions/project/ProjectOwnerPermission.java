@@ -9,10 +9,6 @@ import org.springframework.stereotype.Component;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteSynchronizable;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
-import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.security.ProjectSynchronizationAuthenticationToken;
 
 /**
@@ -29,16 +25,12 @@ public class ProjectOwnerPermission extends ModifyProjectPermission {
 	 * Construct an instance of {@link ProjectOwnerPermission}.
 	 *
 	 * @param projectRepository the project repository.
-	 * @param userRepository    the user repository.
-	 * @param pujRepository     the project user join repository.
-	 * @param ugpjRepository    The user group project join repository.
-	 * @param ugRepository      The user group join repository.
+	 * @param membershipCache   the cache of users' roles on projects.
 	 */
 	@Autowired
-	public ProjectOwnerPermission(final ProjectRepository projectRepository, final UserRepository userRepository,
-			final ProjectUserJoinRepository pujRepository, final UserGroupProjectJoinRepository ugpjRepository,
-			final UserGroupJoinRepository ugRepository) {
-		super(projectRepository, userRepository, pujRepository, ugpjRepository, ugRepository);
+	public ProjectOwnerPermission(final ProjectRepository projectRepository,
+			final ProjectMembershipCache membershipCache) {
+		super(projectRepository, membershipCache);
 	}
 
 	/**
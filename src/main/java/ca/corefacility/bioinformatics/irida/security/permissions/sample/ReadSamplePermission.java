@@ -1,6 +1,10 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -60,6 +64,21 @@ public class ReadSamplePermission extends BasePermission<Sample, Long> {
 		return projectForSample.stream().anyMatch(j -> readProjectPermission.isAllowed(authentication, j.getSubject()));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Set<Long> customPermissionAllowedBulk(Authentication authentication, Set<Long> sampleIds) {
+		// many of the samples are usually in the same project, so only check
+		// each project once
+		final Map<Long, Boolean> readableProjects = new HashMap<>();
+
+		return psjRepository.getProjectsForSampleIds(sampleIds).stream()
+				.filter(j -> readableProjects.computeIfAbsent(j.getSubject().getId(),
+						id -> readProjectPermission.isAllowed(authentication, j.getSubject())))
+				.map(j -> j.getObject().getId()).collect(Collectors.toSet());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
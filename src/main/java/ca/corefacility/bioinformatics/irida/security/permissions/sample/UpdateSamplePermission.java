@@ -1,6 +1,10 @@
 package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
@@ -56,6 +60,24 @@ public class UpdateSamplePermission extends BasePermission<Sample, Long> {
 		return PERMISSION_PROVIDED;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	protected Set<Long> customPermissionAllowedBulk(final Authentication authentication, final Set<Long> sampleIds) {
+		final boolean sequencer = authentication.getAuthorities().stream()
+				.anyMatch(g -> g.getAuthority().equals(Role.ROLE_SEQUENCER.getAuthority()));
+		// many of the samples are usually in the same project, so only check
+		// each project once
+		final Map<Long, Boolean> ownedProjects = new HashMap<>();
+
+		return projectSampleJoinRepository.getProjectsForSampleIds(sampleIds).stream()
+				.filter(j -> (sequencer && !j.getObject().isRemote())
+						|| (j.isOwner() && ownedProjects.computeIfAbsent(j.getSubject().getId(),
+								id -> projectOwnerPermission.isAllowed(authentication, j.getSubject()))))
+				.map(j -> j.getObject().getId()).collect(Collectors.toSet());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
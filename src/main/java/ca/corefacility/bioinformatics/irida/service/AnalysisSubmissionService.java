@@ -123,7 +123,8 @@ public interface AnalysisSubmissionService extends CRUDService<Long, AnalysisSub
 
 	/**
 	 * Given the id of an {@link AnalysisSubmission} gets the percentage
-	 * complete.
+	 * complete. The progress recently seen while monitoring a running
+	 * submission is used instead of contacting the execution manager.
 	 * 
 	 * @param id
 	 *            The id of an {@link AnalysisSubmission}.
@@ -139,6 +140,22 @@ public interface AnalysisSubmissionService extends CRUDService<Long, AnalysisSub
 	public float getPercentCompleteForAnalysisSubmission(Long id) throws EntityNotFoundException,
 			NoPercentageCompleteException, ExecutionManagerException;
 
+	/**
+	 * Gets the percentage complete for an {@link AnalysisSubmission} from the
+	 * last progress seen while monitoring it, without contacting the execution
+	 * manager. A running submission without recent progress is reported as
+	 * just having started running.
+	 * 
+	 * @param analysisSubmission
+	 *            The {@link AnalysisSubmission}.
+	 * @return The percentage complete for this {@link AnalysisSubmission}.
+	 * @throws NoPercentageCompleteException
+	 *             An exception that indicates there is no percentage complete
+	 *             for the submission.
+	 */
+	public float getLastKnownPercentCompleteForAnalysisSubmission(AnalysisSubmission analysisSubmission)
+			throws NoPercentageCompleteException;
+
 	/**
 	 * Get the {@link JobError} objects for a {@link AnalysisSubmission} id
 	 * @param id {@link AnalysisSubmission} id
@@ -0,0 +1,42 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import java.io.IOException;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
+
+/**
+ * Service for drawing the charts of {@link AnalysisFastQC}s.
+ */
+public interface FastQCChartService {
+
+	/**
+	 * Get one of the FastQC charts for a {@link SequenceFile}. Charts are
+	 * drawn the first time they're asked for and kept in a cache after that.
+	 *
+	 * @param object
+	 *            the {@link SequencingObject} the file belongs to
+	 * @param fileId
+	 *            the identifier of the {@link SequenceFile}
+	 * @param chart
+	 *            the chart to get
+	 * @return the PNG-formatted chart, or null if the file doesn't have one
+	 * @throws IOException
+	 *             if the chart couldn't be drawn
+	 */
+	public byte[] getChart(SequencingObject object, Long fileId, Chart chart) throws IOException;
+
+	/**
+	 * Capture the {@link FastQCChartData} for analyses that were saved with
+	 * their charts as images, by running FastQC over their files again. The
+	 * images are removed from the database once the series are saved.
+	 *
+	 * @param batchSize
+	 *            the most analyses to capture
+	 * @return the number of analyses that were captured
+	 */
+	public int backfillChartData(int batchSize);
+}
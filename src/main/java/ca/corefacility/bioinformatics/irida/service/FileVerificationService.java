@@ -0,0 +1,22 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+
+/**
+ * A service for checking stored files against the {@link FileMetadata}
+ * recorded for them when they were written, so that files that have gone
+ * missing or been changed on disk are flagged.
+ */
+public interface FileVerificationService {
+
+	/**
+	 * Check the least recently checked sequence and analysis output files
+	 * against their recorded {@link FileMetadata}. Files that have never been
+	 * recorded are recorded as they are now.
+	 *
+	 * @param batchSize
+	 *            the most files of each kind to check.
+	 * @return the number of files found missing or changed.
+	 */
+	public int verifyFiles(int batchSize);
+}
@@ -8,18 +8,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Scope;
 import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.lang.management.ManagementFactory;
 import java.util.Iterator;
 import java.util.List;
 
 /**
- * Service used to run a {@link FileProcessingChain} on incoming {@link SequencingObject}s.
+ * Service used to run a {@link FileProcessingChain} on incoming {@link SequencingObject}s. New
+ * {@link SequencingObject}s are dispatched to the processing executor as soon as the transaction that created them
+ * commits. The scheduled {@link #runProcessingJob()} acts as a recovery sweep for anything that was missed (files
+ * uploaded to a server that doesn't process files, a full executor, or a server restart).
  */
 @Service
 @Scope("singleton")
@@ -33,6 +41,9 @@ public class SequencingObjectProcessingService {
 
 	private final String machineString;
 
+	@Value("${file.processing.process:true}")
+	private boolean processFiles = true;
+
 	@Autowired
 	public SequencingObjectProcessingService(SequencingObjectRepository sequencingObjectRepository,
 			@Qualifier("fileProcessingChainExecutor") ThreadPoolTaskExecutor executor,
@@ -44,6 +55,59 @@ public class SequencingObjectProcessingService {
 		this.machineString = ManagementFactory.getRuntimeMXBean().getName();
 	}
 
+	/**
+	 * Dispatch a newly created {@link SequencingObject} for processing once the current transaction commits. If there
+	 * is no transaction in progress the {@link SequencingObject} is dispatched immediately.
+	 *
+	 * @param sequencingObjectId the id of the {@link SequencingObject} to process
+	 */
+	public void dispatchAfterCommit(Long sequencingObjectId) {
+		if (!processFiles) {
+			logger.trace("Not dispatching " + sequencingObjectId + ". File processing is disabled on this server.");
+			return;
+		}
+
+		// the worker shouldn't share the caller's context object, which may be cleared when the request ends
+		SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+		securityContext.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					dispatch(sequencingObjectId, securityContext);
+				}
+			});
+		} else {
+			dispatch(sequencingObjectId, securityContext);
+		}
+	}
+
+	/**
+	 * Hand a {@link SequencingObject} to the processing executor. The object is claimed by the worker thread (outside
+	 * of the committing transaction) so that the recovery sweep and other servers won't also process it.
+	 *
+	 * @param sequencingObjectId the id of the {@link SequencingObject} to process
+	 * @param securityContext    the {@link SecurityContext} to process the object with
+	 */
+	private void dispatch(Long sequencingObjectId, SecurityContext securityContext) {
+		try {
+			fileProcessingChainExecutor.execute(() -> {
+				int claimed = sequencingObjectRepository.markFileProcessor(sequencingObjectId, machineString,
+						SequencingObject.ProcessingState.PROCESSING);
+
+				if (claimed > 0) {
+					logger.trace("File processor " + machineString + " is processing file " + sequencingObjectId);
+					new SequenceFileProcessorLauncher(fileProcessingChain, sequencingObjectId, securityContext).run();
+				} else {
+					logger.debug("File " + sequencingObjectId + " was already claimed by another file processor");
+				}
+			});
+		} catch (TaskRejectedException e) {
+			logger.debug("File processing queue is full, " + sequencingObjectId + " will be picked up by the sweep");
+		}
+	}
+
 	/**
 	 * Process new {@link SequencingObject}s uploaded and find new sequences to process next time around
 	 */
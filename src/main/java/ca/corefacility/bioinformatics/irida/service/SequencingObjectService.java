@@ -55,6 +55,20 @@ public interface SequencingObjectService extends CRUDService<Long, SequencingObj
 	public Collection<SampleSequencingObjectJoin> getSequencesForSampleOfType(Sample sample,
 			Class<? extends SequencingObject> type);
 
+	/**
+	 * Get the {@link SampleSequencingObjectJoin}s of the given class type for
+	 * a collection of {@link Sample}s, in one query rather than one per
+	 * {@link Sample}.
+	 * 
+	 * @param samples
+	 *            the {@link Sample}s used in the joins
+	 * @param type
+	 *            The type of {@link SequencingObject} that must be in the join
+	 * @return a Collection of {@link SampleSequencingObjectJoin}
+	 */
+	public Collection<SampleSequencingObjectJoin> getSequencesForSamplesOfType(Collection<Sample> samples,
+			Class<? extends SequencingObject> type);
+
 	/**
 	 * Read a {@link SequencingObject} and verify that it belongs to a given
 	 * {@link Sample}.
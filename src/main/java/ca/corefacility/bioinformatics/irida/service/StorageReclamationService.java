@@ -0,0 +1,20 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+/**
+ * A service for reclaiming disk space used by files that are no longer
+ * referenced by anything in the database, such as the files of deleted
+ * sequencing runs and analyses, or old revisions of sequence files that were
+ * rewritten during file processing.
+ */
+public interface StorageReclamationService {
+
+	/**
+	 * Find revision directories in the file stores that no stored file refers
+	 * to and move them into quarantine. Directories that have been in
+	 * quarantine for longer than the grace period are deleted, and
+	 * quarantined directories that are referenced again are put back.
+	 *
+	 * @return the number of bytes of disk space that were freed.
+	 */
+	public long reclaimStorage();
+}
@@ -1,6 +1,8 @@
 package ca.corefacility.bioinformatics.irida.service.analysis.execution;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.Future;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
@@ -66,6 +68,22 @@ public interface AnalysisExecutionService {
 	 */
 	public GalaxyWorkflowStatus getWorkflowStatus(AnalysisSubmission submittedAnalysis) throws ExecutionManagerException;
 
+	/**
+	 * Gets the status for many submitted analyses at once.
+	 * 
+	 * @param submittedAnalyses
+	 *            The {@link AnalysisSubmission}s to check the status of in the
+	 *            execution manager.
+	 * @return The status of each analysis, keyed by the id of the
+	 *         {@link AnalysisSubmission}. An analysis the execution manager
+	 *         didn't report on isn't in the map, and its status should be
+	 *         checked with {@link #getWorkflowStatus(AnalysisSubmission)}.
+	 * @throws ExecutionManagerException
+	 *             If there was an issue checking the statuses.
+	 */
+	public Map<Long, GalaxyWorkflowStatus> getWorkflowStatuses(Collection<AnalysisSubmission> submittedAnalyses)
+			throws ExecutionManagerException;
+
 	/**
 	 * Downloads and saves the results of an {@link AnalysisSubmission} that was
 	 * previously submitted from an execution manager.
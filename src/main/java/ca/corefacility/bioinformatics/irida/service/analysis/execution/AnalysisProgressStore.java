@@ -0,0 +1,107 @@
+package ca.corefacility.bioinformatics.irida.service.analysis.execution;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.AnalysisProgressSnapshot;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisProgressSnapshotRepository;
+
+/**
+ * Keeps the last progress seen for each running {@link AnalysisSubmission}.
+ * The progress is written when running analyses are monitored, so that pages
+ * and status polls showing progress can read it without contacting the
+ * execution manager. The progress is kept in the database, so pages served by
+ * a different server than the one monitoring the analysis see it too.
+ * Progress older than a configurable age is ignored.
+ */
+@Component
+public class AnalysisProgressStore {
+	private static final Logger logger = LoggerFactory.getLogger(AnalysisProgressStore.class);
+
+	private final AnalysisProgressSnapshotRepository snapshotRepository;
+	private final Duration maxAge;
+	private final Clock clock;
+
+	/**
+	 * Construct a new {@link AnalysisProgressStore}.
+	 *
+	 * @param snapshotRepository
+	 *            the repository the progress is kept in.
+	 * @param maxAge
+	 *            the number of seconds the progress of an analysis is kept for.
+	 *            This should be longer than the longest time between checks of
+	 *            a running analysis.
+	 */
+	@Autowired
+	public AnalysisProgressStore(AnalysisProgressSnapshotRepository snapshotRepository,
+			@Value("${irida.analysis.progress.max-age:600}") long maxAge) {
+		this(snapshotRepository, maxAge, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link AnalysisProgressStore}.
+	 *
+	 * @param snapshotRepository
+	 *            the repository the progress is kept in.
+	 * @param maxAge
+	 *            the number of seconds the progress of an analysis is kept for.
+	 * @param clock
+	 *            the {@link Clock} used to record when progress was seen.
+	 */
+	public AnalysisProgressStore(AnalysisProgressSnapshotRepository snapshotRepository, long maxAge, Clock clock) {
+		this.snapshotRepository = snapshotRepository;
+		this.maxAge = Duration.ofSeconds(maxAge);
+		this.clock = clock;
+	}
+
+	/**
+	 * Record the progress of a running analysis.
+	 *
+	 * @param submission
+	 *            the {@link AnalysisSubmission} that was checked.
+	 * @param workflowStatus
+	 *            the status of the analysis in the execution manager.
+	 */
+	public void record(AnalysisSubmission submission, GalaxyWorkflowStatus workflowStatus) {
+		AnalysisProgressSnapshot snapshot = AnalysisProgressSnapshot.fromWorkflowStatus(submission, workflowStatus,
+				clock.instant());
+		logger.trace("Recording progress of " + submission + ": " + snapshot);
+		snapshotRepository.save(snapshot);
+	}
+
+	/**
+	 * Get the last progress recorded for an analysis.
+	 *
+	 * @param submissionId
+	 *            the id of the {@link AnalysisSubmission}.
+	 * @return the last progress recorded, or null if no progress was recorded
+	 *         recently.
+	 */
+	public AnalysisProgressSnapshot getSnapshot(Long submissionId) {
+		AnalysisProgressSnapshot snapshot = snapshotRepository.findOne(submissionId);
+		if (snapshot == null || snapshot.getCapturedAt().plus(maxAge).isBefore(clock.instant())) {
+			return null;
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Forget the progress of an analysis.
+	 *
+	 * @param submissionId
+	 *            the id of the {@link AnalysisSubmission}.
+	 */
+	public void remove(Long submissionId) {
+		if (snapshotRepository.exists(submissionId)) {
+			snapshotRepository.delete(submissionId);
+		}
+	}
+}
@@ -18,6 +18,8 @@ import org.springframework.beans.factory.annotation.Value;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Future;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -138,6 +140,32 @@ public class AnalysisExecutionServiceGalaxy implements AnalysisExecutionService
 		return galaxyHistoriesService.getStatusForHistory(analysisId);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Map<Long, GalaxyWorkflowStatus> getWorkflowStatuses(Collection<AnalysisSubmission> submittedAnalyses)
+			throws ExecutionManagerException {
+		checkNotNull(submittedAnalyses, "submittedAnalyses is null");
+
+		Map<String, AnalysisSubmission> submissionsByHistory = new HashMap<>();
+		for (AnalysisSubmission submittedAnalysis : submittedAnalyses) {
+			if (submittedAnalysis.getRemoteAnalysisId() != null) {
+				submissionsByHistory.put(submittedAnalysis.getRemoteAnalysisId(), submittedAnalysis);
+			}
+		}
+
+		Map<String, GalaxyWorkflowStatus> historyStatuses = galaxyHistoriesService
+				.getStatusForHistories(submissionsByHistory.keySet());
+
+		Map<Long, GalaxyWorkflowStatus> statuses = new HashMap<>();
+		for (Map.Entry<String, GalaxyWorkflowStatus> historyStatus : historyStatuses.entrySet()) {
+			statuses.put(submissionsByHistory.get(historyStatus.getKey()).getId(), historyStatus.getValue());
+		}
+
+		return statuses;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
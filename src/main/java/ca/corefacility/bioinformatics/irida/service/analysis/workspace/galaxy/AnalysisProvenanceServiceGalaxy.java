@@ -2,6 +2,8 @@ package ca.corefacility.bioinformatics.irida.service.analysis.workspace.galaxy;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -85,6 +87,31 @@ public class AnalysisProvenanceServiceGalaxy {
 	 */
 	public ToolExecution buildToolExecutionForOutputFile(final String remoteAnalysisId,
 			final String analysisOutputFilename) throws ExecutionManagerException {
+		return buildToolExecutionsForOutputFiles(remoteAnalysisId, Collections.singleton(analysisOutputFilename))
+				.get(analysisOutputFilename);
+	}
+
+	/**
+	 * Build up provenance reports for several files that are attached to the
+	 * outputs of an analysis submission. Outputs of an analysis usually share
+	 * upstream steps, so the provenance, job and tool for each step in the
+	 * history are only loaded from Galaxy once for all of the files.
+	 * 
+	 * @param remoteAnalysisId
+	 *            the identifier of the submission history that the output
+	 *            files are attached to on the execution manager (i.e., Galaxy's
+	 *            history id).
+	 * @param analysisOutputFilenames
+	 *            the filenames to build the reports for. These should be the
+	 *            raw basenames of the files (i.e., only the filename +
+	 *            extension part).
+	 * @return the complete report for each file, keyed by filename.
+	 * @throws ExecutionManagerException
+	 *             if the history contents could not be shown for any of the
+	 *             specified files.
+	 */
+	public Map<String, ToolExecution> buildToolExecutionsForOutputFiles(final String remoteAnalysisId,
+			final Collection<String> analysisOutputFilenames) throws ExecutionManagerException {
 		final List<HistoryContents> historyContents = galaxyHistoriesService.showHistoryContents(remoteAnalysisId);
 		// group the history contents by name. The names that we're interested
 		// in starting from should match the filename of the output file.
@@ -92,45 +119,134 @@ public class AnalysisProvenanceServiceGalaxy {
 				filter(content -> !COLLECTION.equals(content.getHistoryContentType())).
 				collect(Collectors.groupingBy(HistoryContents::getName));
 
-		final List<HistoryContents> currentContents = historyContentsByName.get(analysisOutputFilename);
-		if (currentContents == null || currentContents.isEmpty() || currentContents.size() > 1) {
-			throw new ExecutionManagerException("Could not load a unique history contents for the specified filename ["
-					+ analysisOutputFilename + "] in history with id [" + remoteAnalysisId + "]");
+		final HistoryProvenance historyProvenance = new HistoryProvenance(remoteAnalysisId);
+		final Map<String, ToolExecution> toolExecutions = new HashMap<>();
+		for (final String analysisOutputFilename : analysisOutputFilenames) {
+			final List<HistoryContents> currentContents = historyContentsByName.get(analysisOutputFilename);
+			if (currentContents == null || currentContents.isEmpty() || currentContents.size() > 1) {
+				throw new ExecutionManagerException("Could not load a unique history contents for the specified filename ["
+						+ analysisOutputFilename + "] in history with id [" + remoteAnalysisId + "]");
+			}
+
+			try {
+				toolExecutions.put(analysisOutputFilename,
+						historyProvenance.buildToolExecution(currentContents.get(0).getId()));
+			} catch (final RuntimeException e) {
+				throw new ExecutionManagerException("Failed to build tool execution provenance.", e);
+			}
 		}
-		final HistoryContentsProvenance currentProvenance = galaxyHistoriesService.showProvenance(
-				remoteAnalysisId, currentContents.get(0).getId());
 
-		try {
-			final Tool toolDetails = toolsClient.showTool(currentProvenance.getToolId());
-	
-			return buildToolExecutionForHistoryStep(toolDetails, currentProvenance, remoteAnalysisId);
-		} catch (final RuntimeException e) {
-			throw new ExecutionManagerException("Failed to build tool execution provenance.", e);
+		return toolExecutions;
+	}
+
+	/**
+	 * The steps that produced the datasets in a single Galaxy history. Each
+	 * step's provenance, job and tool is loaded from Galaxy the first time the
+	 * step is visited and re-used for every later dataset that the step is
+	 * upstream of.
+	 */
+	private class HistoryProvenance {
+		private final String historyId;
+		private final Map<String, HistoryStep> steps = new HashMap<>();
+		private final Map<String, Tool> tools = new HashMap<>();
+		private final Map<String, JobDetails> jobs = new HashMap<>();
+
+		public HistoryProvenance(final String historyId) {
+			this.historyId = historyId;
+		}
+
+		/**
+		 * Build up a complete *tree* of ToolExecution for a dataset in the
+		 * history by following the predecessors of the step that created it.
+		 * ToolExecutions aren't shared between trees, so every call builds
+		 * new ToolExecutions, but from the steps that were already loaded.
+		 * 
+		 * @param datasetId
+		 *            the Galaxy ID of the dataset.
+		 * @return the entire tree of ToolExecutions for the dataset.
+		 * @throws ExecutionManagerException
+		 *             if we could not get the history contents provenance for
+		 *             the dataset or a predecessor.
+		 */
+		public ToolExecution buildToolExecution(final String datasetId) throws ExecutionManagerException {
+			final HistoryStep step = getStep(datasetId);
+
+			final Set<ToolExecution> prevSteps = new HashSet<>();
+			for (final String predecessor : step.predecessors) {
+				prevSteps.add(buildToolExecution(predecessor));
+			}
+			return new ToolExecution(prevSteps, step.toolName, step.toolVersion, step.jobId,
+					new HashMap<>(step.paramStrings), step.commandLine);
+		}
+
+		private HistoryStep getStep(final String datasetId) throws ExecutionManagerException {
+			HistoryStep step = steps.get(datasetId);
+			if (step == null) {
+				final HistoryContentsProvenance provenance = galaxyHistoriesService.showProvenance(historyId,
+						datasetId);
+				step = buildHistoryStep(getTool(provenance.getToolId()), getJob(provenance.getJobId()), provenance);
+				steps.put(datasetId, step);
+			}
+			return step;
+		}
+
+		private Tool getTool(final String toolId) {
+			Tool tool = tools.get(toolId);
+			if (tool == null) {
+				tool = toolsClient.showTool(toolId);
+				tools.put(toolId, tool);
+			}
+			return tool;
+		}
+
+		private JobDetails getJob(final String jobId) {
+			JobDetails job = jobs.get(jobId);
+			if (job == null) {
+				job = jobsClient.showJob(jobId);
+				jobs.put(jobId, job);
+			}
+			return job;
 		}
 	}
 
 	/**
-	 * Build up a complete *tree* of ToolExecution from Galaxy's history
-	 * contents provenance objects. Recursively follows predecessors from the
-	 * current history.
+	 * A single step in a Galaxy history: the tool that was run, how it was run
+	 * and the datasets that it took as input.
+	 */
+	private static class HistoryStep {
+		private final String toolName;
+		private final String toolVersion;
+		private final String jobId;
+		private final String commandLine;
+		private final Map<String, String> paramStrings;
+		private final List<String> predecessors;
+
+		public HistoryStep(final String toolName, final String toolVersion, final String jobId,
+				final String commandLine, final Map<String, String> paramStrings, final List<String> predecessors) {
+			this.toolName = toolName;
+			this.toolVersion = toolVersion;
+			this.jobId = jobId;
+			this.commandLine = commandLine;
+			this.paramStrings = paramStrings;
+			this.predecessors = predecessors;
+		}
+	}
+
+	/**
+	 * Collect the details of a step in a Galaxy history from Galaxy's history
+	 * contents provenance.
 	 * 
 	 * @param toolDetails
-	 *            the details of the current tool to build up tool execution
-	 *            details for.
+	 *            the details of the tool that was run in the step.
+	 * @param jobDetails
+	 *            the details of the job that ran the tool.
 	 * @param currentProvenance
 	 *            the provenance that corresponds to the tool details.
-	 * @param historyId
-	 *            the Galaxy ID we should use to extract tool execution
-	 *            information.
-	 * @return the entire tree of ToolExecutions for the tool and its
-	 *         provenance.
-	 * @throws ExecutionManagerException
-	 *             if we could not get the history contents provenance or the
-	 *             tool details for a predecessor of the current tool details or
-	 *             provenance.
+	 * @return the details of the step, with the ids of the datasets that were
+	 *         inputs to the step.
 	 */
-	private ToolExecution buildToolExecutionForHistoryStep(final Tool toolDetails,
-			final HistoryContentsProvenance currentProvenance, final String historyId) throws ExecutionManagerException {
+	private HistoryStep buildHistoryStep(final Tool toolDetails, final JobDetails jobDetails,
+			final HistoryContentsProvenance currentProvenance) {
 		final Map<String, Set<String>> predecessors = getPredecessors(currentProvenance);
 		final Map<String, Object> parameters = currentProvenance.getParameters();
 		// remove keys from parameters that are Galaxy-related (and thus
@@ -150,27 +266,12 @@ public class AnalysisProvenanceServiceGalaxy {
 			paramValues.put(parameterKey, parameters.get(parameterKey));
 		}
 
-		final Set<ToolExecution> prevSteps = new HashSet<>();
-		final String toolName = toolDetails.getName();
-		final String toolVersion = toolDetails.getVersion();
-		final String jobId = currentProvenance.getJobId();
-		final JobDetails jobDetails = jobsClient.showJob(jobId);
-		final String commandLine = jobDetails.getCommandLine();
-		final Map<String, String> paramStrings = buildParamMap(paramValues);
+		// arbitrarily select one of the predecessors from each set of inputs
+		final List<String> predecessorIds = predecessors.values().stream().map(p -> p.iterator().next())
+				.collect(Collectors.toList());
 
-		for (final String predecessorKey : predecessors.keySet()) {
-			// arbitrarily select one of the predecessors from the set, then
-			// recurse on that predecessor:
-			final String predecessor = predecessors.get(predecessorKey).iterator().next();
-			final HistoryContentsProvenance previousProvenance = galaxyHistoriesService.showProvenance(historyId,
-					predecessor);
-			final Tool previousToolDetails = toolsClient.showTool(previousProvenance.getToolId());
-
-			final ToolExecution toolExecution = buildToolExecutionForHistoryStep(previousToolDetails,
-					previousProvenance, historyId);
-			prevSteps.add(toolExecution);
-		}
-		return new ToolExecution(prevSteps, toolName, toolVersion, jobId, paramStrings, commandLine);
+		return new HistoryStep(toolDetails.getName(), toolDetails.getVersion(), currentProvenance.getJobId(),
+				jobDetails.getCommandLine(), buildParamMap(paramValues), predecessorIds);
 	}
 
 	/**
@@ -27,10 +27,14 @@ import ca.corefacility.bioinformatics.irida.service.analysis.workspace.AnalysisW
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
 import com.github.jmchilton.blend4j.galaxy.beans.*;
 import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionResponse;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -38,6 +42,8 @@ import java.nio.file.Path;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -67,9 +73,25 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 
 	private SequencingObjectService sequencingObjectService;
 
+	/**
+	 * The default number of analysis output files downloaded at the same time.
+	 */
+	public static final int DEFAULT_DOWNLOAD_THREADS = 4;
+
+	/**
+	 * The default number of times downloading an analysis output file is
+	 * attempted.
+	 */
+	public static final int DEFAULT_DOWNLOAD_ATTEMPTS = 3;
+
+	private final AsyncTaskExecutor downloadExecutor;
+
+	private final int downloadAttempts;
+
 	/**
 	 * Builds a new {@link AnalysisWorkspaceServiceGalaxy} with the given
-	 * information.
+	 * information, downloading output files one at a time on the calling thread
+	 * with the default number of attempts.
 	 *
 	 * @param galaxyHistoriesService          A GalaxyHistoriesService for interacting with Galaxy
 	 *                                        Histories.
@@ -88,6 +110,39 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 			AnalysisProvenanceServiceGalaxy analysisProvenanceServiceGalaxy,
 			AnalysisParameterServiceGalaxy analysisParameterServiceGalaxy,
 			SequencingObjectService sequencingObjectService) {
+		this(galaxyHistoriesService, galaxyWorkflowService, galaxyLibrariesService, iridaWorkflowsService,
+				analysisCollectionServiceGalaxy, analysisProvenanceServiceGalaxy, analysisParameterServiceGalaxy,
+				sequencingObjectService, new TaskExecutorAdapter(new SyncTaskExecutor()), DEFAULT_DOWNLOAD_ATTEMPTS);
+	}
+
+	/**
+	 * Builds a new {@link AnalysisWorkspaceServiceGalaxy} with the given
+	 * information.
+	 *
+	 * @param galaxyHistoriesService          A GalaxyHistoriesService for interacting with Galaxy
+	 *                                        Histories.
+	 * @param galaxyWorkflowService           A GalaxyWorkflowService for interacting with Galaxy workflows.
+	 * @param galaxyLibrariesService          An object for building libraries in Galaxy.
+	 * @param iridaWorkflowsService           A service used for loading workflows from IRIDA.
+	 * @param analysisCollectionServiceGalaxy A service for constructing dataset collections of input files.
+	 * @param analysisProvenanceServiceGalaxy The service for provenance information.
+	 * @param analysisParameterServiceGalaxy  A service for setting up parameters in Galaxy.
+	 * @param sequencingObjectService         A service for reading {@link SequencingObject}s
+	 * @param downloadExecutor                The executor that downloads output files from Galaxy, shared by
+	 *                                        all analyses.
+	 * @param downloadAttempts                The number of times downloading an output file is attempted
+	 *                                        before giving up.
+	 */
+	public AnalysisWorkspaceServiceGalaxy(GalaxyHistoriesService galaxyHistoriesService,
+			GalaxyWorkflowService galaxyWorkflowService, GalaxyLibrariesService galaxyLibrariesService,
+			IridaWorkflowsService iridaWorkflowsService,
+			AnalysisCollectionServiceGalaxy analysisCollectionServiceGalaxy,
+			AnalysisProvenanceServiceGalaxy analysisProvenanceServiceGalaxy,
+			AnalysisParameterServiceGalaxy analysisParameterServiceGalaxy,
+			SequencingObjectService sequencingObjectService, AsyncTaskExecutor downloadExecutor,
+			int downloadAttempts) {
+		checkNotNull(downloadExecutor, "downloadExecutor is null");
+		checkArgument(downloadAttempts > 0, "downloadAttempts=" + downloadAttempts + " must be positive");
 		this.galaxyHistoriesService = galaxyHistoriesService;
 		this.galaxyWorkflowService = galaxyWorkflowService;
 		this.galaxyLibrariesService = galaxyLibrariesService;
@@ -96,6 +151,8 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 		this.analysisProvenanceServiceGalaxy = analysisProvenanceServiceGalaxy;
 		this.analysisParameterServiceGalaxy = analysisParameterServiceGalaxy;
 		this.sequencingObjectService = sequencingObjectService;
+		this.downloadExecutor = downloadExecutor;
+		this.downloadAttempts = downloadAttempts;
 	}
 
 	/**
@@ -120,6 +177,8 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 	 *            The prefix to add to the label of this file.
 	 * @param dataset
 	 *            The dataset containing the data for the AnalysisOutputFile.
+	 * @param toolExecution
+	 *            The provenance of the dataset.
 	 * @param outputDirectory
 	 *            A directory to download the resulting output files.
 	 * @return An AnalysisOutputFile storing a local copy of the Galaxy file.
@@ -127,19 +186,14 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 	 *             If there was an issue creating a local file.
 	 * @throws ExecutionManagerDownloadException
 	 *             If there was an issue downloading the data from Galaxy.
-	 * @throws ExecutionManagerException
-	 *             If there was an issue extracting tool execution provenance
-	 *             from Galaxy.
 	 */
 	private AnalysisOutputFile buildOutputFile(String analysisId, String labelPrefix, Dataset dataset,
-			Path outputDirectory) throws IOException, ExecutionManagerDownloadException, ExecutionManagerException {
+			ToolExecution toolExecution, Path outputDirectory) throws IOException, ExecutionManagerDownloadException {
 		String datasetId = dataset.getId();
 		String fileName = dataset.getName();
 
 		Path outputFile = outputDirectory.resolve(fileName);
-		galaxyHistoriesService.downloadDatasetTo(analysisId, datasetId, outputFile);
-		final ToolExecution toolExecution = analysisProvenanceServiceGalaxy.buildToolExecutionForOutputFile(analysisId,
-				fileName);
+		downloadDataset(analysisId, dataset, outputFile);
 
 		AnalysisOutputFile analysisOutputFile = new AnalysisOutputFile(outputFile, labelPrefix, datasetId,
 				toolExecution);
@@ -147,6 +201,68 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 		return analysisOutputFile;
 	}
 
+	/**
+	 * Downloads a dataset from Galaxy, checking that the downloaded file has
+	 * the size Galaxy reports for the dataset. A failed or incomplete download
+	 * is discarded and attempted again, up to the configured number of
+	 * attempts.
+	 * 
+	 * @param analysisId
+	 *            The id of the analysis performed in Galaxy.
+	 * @param dataset
+	 *            The dataset to download.
+	 * @param outputFile
+	 *            The file to download the dataset to.
+	 * @throws IOException
+	 *             If there was an issue writing the local file.
+	 * @throws ExecutionManagerDownloadException
+	 *             If the dataset couldn't be downloaded in any of the attempts.
+	 */
+	private void downloadDataset(String analysisId, Dataset dataset, Path outputFile) throws IOException,
+			ExecutionManagerDownloadException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				galaxyHistoriesService.downloadDatasetTo(analysisId, dataset.getId(), outputFile);
+				verifyDownloadedSize(dataset, outputFile);
+				return;
+			} catch (ExecutionManagerDownloadException e) {
+				Files.deleteIfExists(outputFile);
+				if (attempt >= downloadAttempts) {
+					throw e;
+				}
+				logger.warn("Attempt " + attempt + " of " + downloadAttempts + " to download dataset "
+						+ dataset.getId() + " from history " + analysisId + " failed, trying again", e);
+			}
+		}
+	}
+
+	/**
+	 * Checks that a downloaded file is the size Galaxy reports for the dataset,
+	 * when Galaxy reports a size.
+	 * 
+	 * @param dataset
+	 *            The dataset that was downloaded.
+	 * @param outputFile
+	 *            The downloaded file.
+	 * @throws IOException
+	 *             If the size of the downloaded file couldn't be read.
+	 * @throws ExecutionManagerDownloadException
+	 *             If the downloaded file isn't the expected size.
+	 */
+	private void verifyDownloadedSize(Dataset dataset, Path outputFile) throws IOException,
+			ExecutionManagerDownloadException {
+		Integer expectedSize = dataset.getFileSize();
+		if (expectedSize == null) {
+			return;
+		}
+
+		long downloadedSize = Files.exists(outputFile) ? Files.size(outputFile) : -1;
+		if (downloadedSize != expectedSize) {
+			throw new ExecutionManagerDownloadException("Downloaded " + downloadedSize + " bytes for dataset "
+					+ dataset.getId() + " to " + outputFile + ", but Galaxy reports " + expectedSize + " bytes");
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -373,18 +489,66 @@ public class AnalysisWorkspaceServiceGalaxy implements AnalysisWorkspaceService
 
 		String labelPrefix = getLabelPrefix(analysisSubmission, iridaWorkflow);
 
-		Map<String, AnalysisOutputFile> analysisOutputFiles = Maps.newHashMap();
-		for (String analysisOutputName : outputsMap.keySet()) {
-			String outputFileName = outputsMap.get(analysisOutputName).getFileName();
-			Dataset outputDataset = galaxyHistoriesService.getDatasetForFileInHistory(outputFileName, analysisId);
+		// list the history once for all of the outputs
+		Set<String> outputFileNames = outputsMap.values().stream().map(IridaWorkflowOutput::getFileName)
+				.collect(Collectors.toSet());
+		Map<String, Dataset> datasetsByFileName = galaxyHistoriesService.getDatasetsForFilesInHistory(outputFileNames,
+				analysisId);
+
+		// outputs share upstream steps, so build the provenance for all of
+		// them together
+		Map<String, ToolExecution> toolExecutions = analysisProvenanceServiceGalaxy.buildToolExecutionsForOutputFiles(
+				analysisId, datasetsByFileName.values().stream().map(Dataset::getName).collect(Collectors.toSet()));
+
+		// download the outputs in parallel, the files for a single analysis
+		// can be large (e.g., assemblies or SNV matrices)
+		Map<String, Future<AnalysisOutputFile>> downloads = Maps.newHashMap();
+		for (Map.Entry<String, IridaWorkflowOutput> output : outputsMap.entrySet()) {
+			Dataset dataset = datasetsByFileName.get(output.getValue().getFileName());
+			ToolExecution toolExecution = toolExecutions.get(dataset.getName());
+			downloads.put(output.getKey(), downloadExecutor.submit(
+					() -> buildOutputFile(analysisId, labelPrefix, dataset, toolExecution, outputDirectory)));
+		}
 
-			AnalysisOutputFile analysisOutput = buildOutputFile(analysisId, labelPrefix, outputDataset,
-					outputDirectory);
-			analysisOutputFiles.put(analysisOutputName, analysisOutput);
+		Map<String, AnalysisOutputFile> analysisOutputFiles = Maps.newHashMap();
+		try {
+			for (Map.Entry<String, Future<AnalysisOutputFile>> download : downloads.entrySet()) {
+				analysisOutputFiles.put(download.getKey(), getDownload(download.getValue()));
+			}
+		} finally {
+			// stop any downloads that are still running if one failed
+			downloads.values().forEach(d -> d.cancel(true));
 		}
 
 		AnalysisType analysisType = iridaWorkflow.getWorkflowDescription().getAnalysisType();
 		
 		return new Analysis(analysisId, analysisOutputFiles, analysisType);
 	}
+
+	/**
+	 * Waits for an output file to be downloaded, passing on the exception
+	 * thrown while downloading it.
+	 * 
+	 * @param download
+	 *            The download to wait for.
+	 * @return The downloaded output file.
+	 * @throws IOException
+	 *             If there was an issue creating a local file.
+	 * @throws ExecutionManagerDownloadException
+	 *             If there was an issue downloading the data from Galaxy, or
+	 *             waiting for the download was interrupted.
+	 */
+	private static AnalysisOutputFile getDownload(Future<AnalysisOutputFile> download) throws IOException,
+			ExecutionManagerDownloadException {
+		try {
+			return download.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ExecutionManagerDownloadException("Interrupted while downloading analysis output files", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			Throwables.propagateIfPossible(cause, IOException.class, ExecutionManagerDownloadException.class);
+			throw new ExecutionManagerDownloadException("Could not download analysis output file", cause);
+		}
+	}
 }
\ No newline at end of file
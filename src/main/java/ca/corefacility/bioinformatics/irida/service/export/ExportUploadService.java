@@ -18,6 +18,7 @@ import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateServi
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.apache.commons.net.ftp.FTP;
 import org.apache.commons.net.ftp.FTPClient;
@@ -36,6 +37,7 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import javax.annotation.PreDestroy;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -47,14 +49,27 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.ConnectException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Class which handles uploading a {@link NcbiExportSubmission} to NCBI
+ * Class which handles uploading a {@link NcbiExportSubmission} to NCBI. The
+ * files of a submission are uploaded in parallel over a bounded pool of FTP
+ * connections, and the progress of each upload is kept in a
+ * {@link FtpTransferManifest} so that uploads interrupted by a restart resume
+ * where they left off.
  */
 @Service
 public class ExportUploadService {
@@ -94,6 +109,27 @@ public class ExportUploadService {
 	@Value("${irida.administrative.notifications.email}")
 	private String notificationAdminEmail;
 
+	@Value("${ncbi.upload.connections:4}")
+	private int maxConnections = 4;
+
+	@Value("${ncbi.upload.manifest.directory:}")
+	private String manifestDirectory = "";
+
+	// manifests are kept next to the stored sequence files by default so that
+	// they survive restarts
+	@Value("${sequence.file.base.directory:}")
+	private String sequenceFileBaseDirectory = "";
+
+	// guards the pool and executor separately from the upload methods, so
+	// they can be shut down while an upload is running
+	private final Object transferLock = new Object();
+
+	private FtpConnectionPool connectionPool;
+
+	private ExecutorService uploadExecutor;
+
+	private volatile boolean shuttingDown = false;
+
 	private static final int MAX_RETRIES = 3;
 
 	private static final long WAIT_BETWEEN_RETRIES = 5000L;
@@ -130,23 +166,71 @@ public class ExportUploadService {
 	 */
 	public void setConnectionDetails(String ftpHost, int ftpPort, String ftpUser, String ftpPassword,
 			String baseDirectory) {
-		this.ftpHost = ftpHost;
-		this.ftpPort = ftpPort;
-		this.ftpUser = ftpUser;
-		this.ftpPassword = ftpPassword;
-		this.baseDirectory = baseDirectory;
+		synchronized (transferLock) {
+			this.ftpHost = ftpHost;
+			this.ftpPort = ftpPort;
+			this.ftpUser = ftpUser;
+			this.ftpPassword = ftpPassword;
+			this.baseDirectory = baseDirectory;
+
+			// connections to the old server can't be re-used
+			if (connectionPool != null) {
+				connectionPool.close();
+				connectionPool = null;
+			}
+		}
+	}
+
+	/**
+	 * Manually configure how uploads are run
+	 *
+	 * @param maxConnections
+	 *            the maximum number of connections (and files uploaded at
+	 *            once)
+	 * @param manifestDirectory
+	 *            the directory to keep the progress of uploads in
+	 */
+	public void setTransferDetails(int maxConnections, String manifestDirectory) {
+		synchronized (transferLock) {
+			shutdown();
+			this.maxConnections = maxConnections;
+			this.manifestDirectory = manifestDirectory;
+			shuttingDown = false;
+		}
+	}
+
+	/**
+	 * Close the FTP connections and stop any uploads that haven't started.
+	 * Submissions that were uploading are left in the
+	 * {@link ExportUploadState#UPLOADING} state and resume when IRIDA starts
+	 * again.
+	 */
+	@PreDestroy
+	public void shutdown() {
+		synchronized (transferLock) {
+			shuttingDown = true;
+			if (uploadExecutor != null) {
+				uploadExecutor.shutdownNow();
+				uploadExecutor = null;
+			}
+			if (connectionPool != null) {
+				connectionPool.close();
+				connectionPool = null;
+			}
+		}
 	}
 
 	/**
 	 * Check for new {@link NcbiExportSubmission}s to be uploaded and begin
-	 * their upload
+	 * their upload. Submissions still marked as uploading were interrupted by
+	 * a restart, so their uploads are resumed.
 	 */
 	public synchronized void launchUpload() {
 
 		logger.trace("Getting new exports");
 
 		List<NcbiExportSubmission> submissionsWithState = exportSubmissionService
-				.getSubmissionsWithState(ExportUploadState.NEW);
+				.getSubmissionsWithState(ImmutableSet.of(ExportUploadState.NEW, ExportUploadState.UPLOADING));
 
 		for (NcbiExportSubmission submission : submissionsWithState) {
 
@@ -163,6 +247,10 @@ public class ExportUploadService {
 				submission.setUploadState(ExportUploadState.UPLOADED);
 				submission = exportSubmissionService.update(submission);
 			} catch (Exception e) {
+				if (shuttingDown) {
+					logger.info("Upload of submission " + submission.getId() + " will resume after restarting");
+					return;
+				}
 				logger.error("Upload failed", e);
 
 				submission.setUploadState(ExportUploadState.UPLOAD_ERROR);
@@ -184,22 +272,34 @@ public class ExportUploadService {
 		List<NcbiExportSubmission> submissionsWithState = exportSubmissionService
 				.getSubmissionsWithState(updateableStates);
 
+		FtpConnectionPool pool = getConnectionPool();
 		FTPClient client = null;
 		try {
+			// every submission is checked over the same connection
+			client = pool.borrow();
 			for (NcbiExportSubmission submission : submissionsWithState) {
-				// connect to FTP site
-				client = getFtpClient();
+				if (!pool.reset(client)) {
+					pool.invalidate(client);
+					client = null;
+					client = pool.borrow();
+				}
+
 				try {
 					logger.trace("Getting report for submission " + submission.getId());
 					InputStream xmlStream = getLatestXMLStream(client, submission);
 
 					if (xmlStream != null) {
-						NcbiExportSubmission updateSubmissionForXml = updateSubmissionForXml(submission, xmlStream);
+						NcbiExportSubmission updateSubmissionForXml;
+						try {
+							updateSubmissionForXml = updateSubmissionForXml(submission, xmlStream);
+						} finally {
+							xmlStream.close();
+							// finish the transfer so the connection can be used for the next submission
+							client.completePendingCommand();
+						}
 
 						exportSubmissionService.update(updateSubmissionForXml);
 
-						xmlStream.close();
-
 						//If we're done processing, add the accessions
 						if (updateSubmissionForXml.getUploadState().equals(ExportUploadState.PROCESSED_OK)) {
 							addSampleAccessions(submission);
@@ -219,11 +319,10 @@ public class ExportUploadService {
 
 			}
 
-			disconnectFtpCient(client);
+			pool.release(client);
 		} catch (Exception e) {
 			logger.error("Couldn't connect to FTP site", e);
-		} finally {
-			disconnectFtpCient(client);
+			pool.invalidate(client);
 		}
 	}
 
@@ -257,80 +356,186 @@ public class ExportUploadService {
 	 *             if the upload failed
 	 */
 	public NcbiExportSubmission uploadSubmission(NcbiExportSubmission submission, String xml) throws UploadException {
+		FtpConnectionPool pool = getConnectionPool();
 
-		FTPClient client = null;
+		FtpTransferManifest manifest;
 		try {
-			client = getFtpClient();
-
-			// create submission directory name
-			String directoryName = submission.getId().toString() + "-" + new Date().getTime();
-
-			// cd to submission base directory
-			if (!client.changeWorkingDirectory(baseDirectory)) {
-				throw new UploadException("Couldn't change to base directory " + baseDirectory + " : "
-						+ client.getReplyString());
-			}
-
-			// create new submission directory
-			if (!client.makeDirectory(directoryName)) {
-				throw new UploadException("Couldn't create new upload directory " + directoryName + " : "
-						+ client.getReplyString());
-			}
+			manifest = FtpTransferManifest.load(getManifestDirectory(), submission.getId());
+		} catch (IOException e) {
+			throw new UploadException("Couldn't read upload manifest for submission " + submission.getId(), e);
+		}
 
-			// cd to submission directory
-			if (!client.changeWorkingDirectory(directoryName)) {
-				throw new UploadException("Couldn't change to upload directory " + directoryName + " : "
-						+ client.getReplyString());
-			}
+		boolean uploaded = false;
+		try {
+			String directoryPath = openSubmissionDirectory(pool, submission, manifest);
 
 			// set the directory saved
-			String directoryPath = baseDirectory + "/" + directoryName;
 			submission.setDirectoryPath(directoryPath);
 
 			// upload submission.xml file
-			uploadString(client, "submission.xml", xml);
+			uploadString(pool, directoryPath, "submission.xml", xml);
 
 			// upload biosample files
+			AtomicBoolean failed = new AtomicBoolean(false);
+			List<Future<?>> uploads = new ArrayList<>();
 			for (NcbiBioSampleFiles bsFile : submission.getBioSampleFiles()) {
 
 				// upload single end files
 				for (SingleEndSequenceFile file : bsFile.getFiles()) {
-					// Just using file IDs as the basename for uploaded files to
-					// avoid accidentally sending sensitive sample names to NCBI
-					String filename = file.getSequenceFile().getId() + ".fastq";
-
-					uploadPath(client, filename, file.getSequenceFile().getFile());
+					uploads.add(submitUpload(pool, manifest, directoryPath, file.getSequenceFile(), failed));
 				}
 
 				// upload paired end files
 				for (SequenceFilePair pair : bsFile.getPairs()) {
-					// upload forward
-					SequenceFile file = pair.getForwardSequenceFile();
-					// Just using file IDs as the basename for uploaded files to
-					// avoid accidentally sending sensitive sample names to NCBI
-					String filename = file.getId() + ".fastq";
-					uploadPath(client, filename, file.getFile());
-
-					// upload reverse
-					file = pair.getReverseSequenceFile();
-					filename = file.getId() + ".fastq";
-					uploadPath(client, filename, file.getFile());
+					uploads.add(submitUpload(pool, manifest, directoryPath, pair.getForwardSequenceFile(), failed));
+					uploads.add(submitUpload(pool, manifest, directoryPath, pair.getReverseSequenceFile(), failed));
 				}
 
 			}
+			waitForUploads(uploads);
 
-			// create submit.ready file
-			uploadString(client, "submit.ready", "");
+			// create submit.ready file once everything else is there
+			uploadString(pool, directoryPath, "submit.ready", "");
 
+			uploaded = true;
+		} finally {
+			// keep the progress of an upload interrupted by a shutdown so it
+			// can be resumed
+			if (uploaded || !shuttingDown) {
+				try {
+					manifest.delete();
+				} catch (IOException e) {
+					logger.warn("Couldn't remove upload manifest for submission " + submission.getId(), e);
+				}
+			}
+		}
+
+		return submission;
+
+	}
+
+	/**
+	 * Get the directory to upload an {@link NcbiExportSubmission} to. The
+	 * directory from an interrupted upload is used if it still exists,
+	 * otherwise a new one is created in the base directory.
+	 *
+	 * @param pool
+	 *            the pool to get a connection from
+	 * @param submission
+	 *            the {@link NcbiExportSubmission} being uploaded
+	 * @param manifest
+	 *            the progress of the upload
+	 * @return the path of the directory relative to the login directory
+	 * @throws UploadException
+	 *             if the directory couldn't be created
+	 */
+	private String openSubmissionDirectory(FtpConnectionPool pool, NcbiExportSubmission submission,
+			FtpTransferManifest manifest) throws UploadException {
+		FTPClient client = null;
+		try {
+			client = pool.borrow();
+
+			String directoryPath = manifest.getRemoteDirectory();
+			if (directoryPath != null && client.changeWorkingDirectory(directoryPath)) {
+				logger.debug("Resuming upload of submission " + submission.getId() + " to " + directoryPath);
+				pool.release(client);
+				return directoryPath;
+			}
+
+			// create submission directory name
+			String directoryName = submission.getId().toString() + "-" + new Date().getTime();
+
+			// cd to submission base directory
+			if (!client.changeWorkingDirectory(baseDirectory)) {
+				throw new UploadException("Couldn't change to base directory " + baseDirectory + " : "
+						+ client.getReplyString());
+			}
+
+			// create new submission directory
+			if (!client.makeDirectory(directoryName)) {
+				throw new UploadException("Couldn't create new upload directory " + directoryName + " : "
+						+ client.getReplyString());
+			}
+
+			directoryPath = baseDirectory + "/" + directoryName;
+			manifest.setRemoteDirectory(directoryPath);
+
+			pool.release(client);
+			return directoryPath;
+		} catch (UploadException e) {
+			// the connection is still fine
+			pool.release(client);
+			throw e;
 		} catch (IOException e) {
+			pool.invalidate(client);
 			logger.error("Error in upload", e);
 			throw new UploadException("Could not upload run", e);
-		} finally {
-			disconnectFtpCient(client);
 		}
+	}
 
-		return submission;
+	/**
+	 * Start uploading a {@link SequenceFile} in the background. Files are
+	 * skipped once another file of the submission has failed.
+	 *
+	 * @param pool
+	 *            the pool to get connections from
+	 * @param manifest
+	 *            the progress of the upload
+	 * @param directoryPath
+	 *            the directory to upload to
+	 * @param file
+	 *            the {@link SequenceFile} to upload
+	 * @param failed
+	 *            set when any file of the submission fails
+	 * @return the {@link Future} of the upload
+	 */
+	private Future<?> submitUpload(FtpConnectionPool pool, FtpTransferManifest manifest, String directoryPath,
+			SequenceFile file, AtomicBoolean failed) {
+		// Just using file IDs as the basename for uploaded files to
+		// avoid accidentally sending sensitive sample names to NCBI
+		String filename = file.getId() + ".fastq";
+
+		return getUploadExecutor().submit(() -> {
+			if (failed.get()) {
+				return null;
+			}
+			try {
+				uploadPath(pool, manifest, directoryPath, filename, file.getFile());
+			} catch (UploadException | RuntimeException e) {
+				failed.set(true);
+				throw e;
+			}
+			return null;
+		});
+	}
 
+	/**
+	 * Wait for every file upload to finish.
+	 *
+	 * @param uploads
+	 *            the {@link Future}s of the uploads
+	 * @throws UploadException
+	 *             the first failure of any upload
+	 */
+	private void waitForUploads(List<Future<?>> uploads) throws UploadException {
+		UploadException failure = null;
+		for (Future<?> upload : uploads) {
+			try {
+				upload.get();
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof UploadException ? (UploadException) e.getCause()
+							: new UploadException("Could not upload run", e.getCause());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UploadException("Interrupted waiting for files to upload", e);
+			}
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
 	}
 
 	/**
@@ -507,6 +712,11 @@ public class ExportUploadService {
 	 * @throws IOException if a connection error occurred
 	 */
 	private FTPClient getFtpClient() throws IOException {
+		if (controlKeepAliveTimeout < 0 || controlKeepAliveReplyTimeout < 0) {
+			throw new IllegalArgumentException("Error: controlKeepAliveTimeout [" + controlKeepAliveTimeout
+					+ "] or controlKeepAliveReplyTimeout [" + controlKeepAliveReplyTimeout + "] < 0");
+		}
+
 		FTPClient client = new FTPClient();
 		// login to host
 		logger.trace("Logging in to " + ftpHost + " as " + ftpUser);
@@ -519,19 +729,16 @@ public class ExportUploadService {
 		}
 
 		if (!client.login(ftpUser, ftpPassword)) {
-			throw new IOException("Couldn't log in as " + ftpUser + client.getReplyString());
+			String reply = client.getReplyString();
+			disconnectFtpCient(client);
+			throw new IOException("Couldn't log in as " + ftpUser + reply);
 		}
 
 		logger.trace(client.getStatus());
 
-		if (controlKeepAliveTimeout < 0 || controlKeepAliveReplyTimeout < 0) {
-			throw new IllegalArgumentException("Error: controlKeepAliveTimeout [" + controlKeepAliveTimeout
-					+ "] or controlKeepAliveReplyTimeout [" + controlKeepAliveReplyTimeout + "] < 0");
-		} else {
-			logger.trace("Using controlKeepAliveTimeout=" + controlKeepAliveTimeout + ", controlKeepAliveReplyTimeout="
-					+ controlKeepAliveReplyTimeout);
-			client.setControlKeepAliveTimeout(controlKeepAliveTimeout);
-		}
+		logger.trace("Using controlKeepAliveTimeout=" + controlKeepAliveTimeout + ", controlKeepAliveReplyTimeout="
+				+ controlKeepAliveReplyTimeout);
+		client.setControlKeepAliveTimeout(controlKeepAliveTimeout);
 		
 		return client;
 	}
@@ -554,32 +761,102 @@ public class ExportUploadService {
 	}
 
 	/**
-	 * Upload a string to remote ftp client
+	 * Get the pool of connections to the configured ftp site, creating it if
+	 * it hasn't been used yet
 	 *
-	 * @param client
-	 *            {@link FTPClient} to use for upload
+	 * @return the {@link FtpConnectionPool}
+	 */
+	private FtpConnectionPool getConnectionPool() {
+		synchronized (transferLock) {
+			if (connectionPool == null) {
+				connectionPool = new FtpConnectionPool(this::getFtpClient, maxConnections);
+			}
+			return connectionPool;
+		}
+	}
+
+	/**
+	 * Get the executor that uploads files, creating it if it hasn't been used
+	 * yet. It has a thread for each connection in the pool.
+	 *
+	 * @return the {@link ExecutorService} for uploads
+	 */
+	private ExecutorService getUploadExecutor() {
+		synchronized (transferLock) {
+			if (uploadExecutor == null) {
+				uploadExecutor = Executors.newFixedThreadPool(Math.max(1, maxConnections),
+						new ThreadFactoryBuilder().setNameFormat("ncbi-upload-%d").setDaemon(true).build());
+			}
+			return uploadExecutor;
+		}
+	}
+
+	/**
+	 * @return the directory to keep {@link FtpTransferManifest}s in,
+	 *         {@code ncbi.upload.manifest.directory} or an
+	 *         {@code ncbi-uploads} directory beside the sequence file base
+	 *         directory
+	 * @throws UploadException
+	 *             if neither directory is configured
+	 */
+	private Path getManifestDirectory() throws UploadException {
+		if (!Strings.isNullOrEmpty(manifestDirectory)) {
+			return Paths.get(manifestDirectory);
+		} else if (!Strings.isNullOrEmpty(sequenceFileBaseDirectory)) {
+			return Paths.get(sequenceFileBaseDirectory).toAbsolutePath().resolveSibling("ncbi-uploads");
+		}
+		throw new UploadException(
+				"No directory to keep upload progress in, set ncbi.upload.manifest.directory");
+	}
+
+	/**
+	 * Something to do with a connection in an upload directory.
+	 */
+	@FunctionalInterface
+	private interface FtpOperation {
+		void run(FTPClient client) throws IOException;
+	}
+
+	/**
+	 * Run an operation on a pooled connection in the given directory, trying
+	 * again on a new connection if it fails
+	 *
+	 * @param pool
+	 *            the pool to get connections from
+	 * @param directoryPath
+	 *            the directory to run the operation in
 	 * @param filename
-	 *            name of file to create
-	 * @param content
-	 *            content of file to create
+	 *            name of the file the operation is for
+	 * @param operation
+	 *            the operation to run
 	 * @throws UploadException
-	 *             if file could not be uploaded
+	 *             if the operation failed every time
 	 */
-	private void uploadString(FTPClient client, String filename, String content) throws UploadException, IOException {
+	private void withRetries(FtpConnectionPool pool, String directoryPath, String filename, FtpOperation operation)
+			throws UploadException {
 		int tries = 0;
 		boolean done = false;
-		
-		client.setFileType(FTP.ASCII_FILE_TYPE);
 
 		do {
 			tries++;
-			try (ByteArrayInputStream stringStream = new ByteArrayInputStream(content.getBytes())) {
+			FTPClient client = null;
+			try {
+				client = pool.borrow();
 
-				client.storeFile(filename, stringStream);
+				if (!client.changeWorkingDirectory(directoryPath)) {
+					throw new IOException("Couldn't change to upload directory " + directoryPath + " : "
+							+ client.getReplyString());
+				}
+
+				operation.run(client);
 
+				pool.release(client);
 				done = true;
-			} catch (Exception e) {
-				String reply = client.getReplyString();
+			} catch (IOException e) {
+				String reply = client == null ? e.getMessage() : client.getReplyString();
+				// the connection may be broken, so use a new one for the next try
+				pool.invalidate(client);
+
 				if (tries >= MAX_RETRIES) {
 					throw new UploadException("Could not upload file " + filename + " : " + reply, e);
 				}
@@ -588,6 +865,7 @@ public class ExportUploadService {
 				try {
 					Thread.sleep(WAIT_BETWEEN_RETRIES);
 				} catch (InterruptedException e1) {
+					Thread.currentThread().interrupt();
 					throw new UploadException("Sleep failed", e1);
 				}
 			}
@@ -595,40 +873,107 @@ public class ExportUploadService {
 	}
 
 	/**
-	 * Upload a file {@link Path} to a remote ftp client
+	 * Upload a string to remote ftp client
+	 *
+	 * @param pool
+	 *            the pool to get connections from
+	 * @param directoryPath
+	 *            the directory to upload to
+	 * @param filename
+	 *            name of file to create
+	 * @param content
+	 *            content of file to create
+	 * @throws UploadException
+	 *             if file could not be uploaded
+	 */
+	private void uploadString(FtpConnectionPool pool, String directoryPath, String filename, String content)
+			throws UploadException {
+		withRetries(pool, directoryPath, filename, client -> {
+			client.setFileType(FTP.ASCII_FILE_TYPE);
+
+			try (ByteArrayInputStream stringStream = new ByteArrayInputStream(content.getBytes())) {
+				if (!client.storeFile(filename, stringStream)) {
+					throw new IOException("Server refused file " + filename);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Upload a file {@link Path} to a remote ftp client. If part of the file
+	 * is already on the server from an interrupted upload, the rest of it is
+	 * appended.
 	 *
-	 * @param client   {@link FTPClient} to upload with
-	 * @param filename name of file to create
-	 * @param path     {@link Path} to upload
+	 * @param pool          the pool to get connections from
+	 * @param manifest      the progress of the upload
+	 * @param directoryPath the directory to upload to
+	 * @param filename      name of file to create
+	 * @param path          {@link Path} to upload
 	 * @throws UploadException if file could not be uploaded
 	 */
-	private void uploadPath(FTPClient client, String filename, Path path) throws UploadException, IOException {
-		int tries = 0;
-		boolean done = false;
-		
-		client.setFileType(FTP.BINARY_FILE_TYPE);
-		
-		do {
-			tries++;
+	private void uploadPath(FtpConnectionPool pool, FtpTransferManifest manifest, String directoryPath,
+			String filename, Path path) throws UploadException {
+		long size;
+		try {
+			size = Files.size(path);
+		} catch (IOException e) {
+			throw new UploadException("Couldn't read file " + path, e);
+		}
 
-			try (InputStream stream = Files.newInputStream(path)) {
-				client.storeFile(filename, stream);
+		if (manifest.isComplete(filename, size)) {
+			logger.trace("Already uploaded " + filename);
+			return;
+		}
 
-				done = true;
-			} catch (Exception e) {
-				String reply = client.getReplyString();
-				if (tries >= MAX_RETRIES) {
-					throw new UploadException("Could not upload file " + filename + " : " + reply, e);
+		withRetries(pool, directoryPath, filename, client -> {
+			client.setFileType(FTP.BINARY_FILE_TYPE);
+
+			long remoteSize = getRemoteSize(client, filename);
+			if (remoteSize > size) {
+				// not the file we're sending, so start again
+				client.deleteFile(filename);
+				remoteSize = -1;
+			}
+
+			if (remoteSize < size) {
+				long offset = Math.max(remoteSize, 0);
+				if (offset > 0) {
+					logger.debug("Resuming upload of " + filename + " from byte " + offset);
 				}
-				logger.error("Error uploading file: " + reply, e);
 
-				try {
-					Thread.sleep(WAIT_BETWEEN_RETRIES);
-				} catch (InterruptedException e1) {
-					throw new UploadException("Sleep failed", e1);
+				try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+						InputStream stream = Channels.newInputStream(channel.position(offset))) {
+					boolean stored = offset == 0 ? client.storeFile(filename, stream)
+							: client.appendFile(filename, stream);
+					if (!stored) {
+						throw new IOException("Server refused file " + filename);
+					}
+				}
+
+				long uploaded = getRemoteSize(client, filename);
+				if (uploaded != size) {
+					throw new IOException("Only " + uploaded + " of " + size + " bytes of " + filename + " arrived");
 				}
 			}
-		} while (!done);
+
+			manifest.markComplete(filename, size);
+		});
+	}
+
+	/**
+	 * Get the size of a file on the server
+	 *
+	 * @param client   {@link FTPClient} in the directory of the file
+	 * @param filename name of the file
+	 * @return the size of the file, or -1 if it doesn't exist
+	 * @throws IOException if the directory couldn't be listed
+	 */
+	private long getRemoteSize(FTPClient client, String filename) throws IOException {
+		FTPFile[] files = client.listFiles(filename);
+		if (files.length == 1 && files[0] != null && files[0].isFile()) {
+			return files[0].getSize();
+		}
+		return -1;
 	}
 
 	/**
@@ -0,0 +1,190 @@
+package ca.corefacility.bioinformatics.irida.service.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded pool of logged in {@link FTPClient}s. Idle connections are
+ * checked with a NOOP before they're handed out again, and are always handed
+ * out in the directory they logged in to.
+ */
+public class FtpConnectionPool implements Closeable {
+	private static final Logger logger = LoggerFactory.getLogger(FtpConnectionPool.class);
+
+	private final Connector connector;
+	private final Semaphore permits;
+	private final BlockingQueue<FTPClient> idle = new LinkedBlockingQueue<>();
+
+	// the directory each connection logged in to
+	private final Map<FTPClient, String> homeDirectories = new ConcurrentHashMap<>();
+
+	private volatile boolean closed = false;
+
+	/**
+	 * Opens new connections for the pool.
+	 */
+	@FunctionalInterface
+	public interface Connector {
+		/**
+		 * Open and log in a new connection.
+		 *
+		 * @return a connected {@link FTPClient}
+		 * @throws IOException
+		 *             if the connection couldn't be opened
+		 */
+		FTPClient connect() throws IOException;
+	}
+
+	/**
+	 * Create a new {@link FtpConnectionPool}
+	 *
+	 * @param connector
+	 *            opens new connections
+	 * @param maxConnections
+	 *            the maximum number of connections open at once
+	 */
+	public FtpConnectionPool(Connector connector, int maxConnections) {
+		this.connector = connector;
+		this.permits = new Semaphore(Math.max(1, maxConnections), true);
+	}
+
+	/**
+	 * Get a connection, waiting for one to be returned if the pool is at its
+	 * limit. The connection must be given back with
+	 * {@link #release(FTPClient)} or {@link #invalidate(FTPClient)}.
+	 *
+	 * @return a connected {@link FTPClient} in its login directory
+	 * @throws IOException
+	 *             if a new connection couldn't be opened
+	 */
+	public FTPClient borrow() throws IOException {
+		if (closed) {
+			throw new IOException("FTP connection pool is closed");
+		}
+
+		try {
+			permits.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for an FTP connection");
+		}
+
+		try {
+			FTPClient client;
+			while ((client = idle.poll()) != null) {
+				if (reset(client)) {
+					return client;
+				}
+				logger.trace("Discarding stale FTP connection");
+				disconnect(client);
+			}
+
+			client = connector.connect();
+			String home;
+			try {
+				home = client.printWorkingDirectory();
+			} catch (IOException e) {
+				disconnect(client);
+				throw e;
+			}
+			if (home != null) {
+				homeDirectories.put(client, home);
+			}
+			return client;
+		} catch (IOException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Return a working connection to the pool.
+	 *
+	 * @param client
+	 *            a connection from {@link #borrow()}
+	 */
+	public void release(FTPClient client) {
+		if (closed || !client.isConnected()) {
+			disconnect(client);
+		} else {
+			idle.offer(client);
+		}
+		permits.release();
+	}
+
+	/**
+	 * Close a connection that failed rather than returning it to the pool.
+	 * Does nothing if the connection is null, which is the case if
+	 * {@link #borrow()} failed.
+	 *
+	 * @param client
+	 *            a connection from {@link #borrow()}, or null
+	 */
+	public void invalidate(FTPClient client) {
+		if (client != null) {
+			disconnect(client);
+			permits.release();
+		}
+	}
+
+	/**
+	 * Close the idle connections. Connections that are in use are closed when
+	 * they're returned.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		FTPClient client;
+		while ((client = idle.poll()) != null) {
+			disconnect(client);
+		}
+	}
+
+	/**
+	 * Check that a connection is still open and move it back to the directory
+	 * it logged in to, so that relative paths can be used after changing
+	 * directories.
+	 *
+	 * @param client
+	 *            a connection from the pool
+	 * @return true if the connection can still be used
+	 */
+	public boolean reset(FTPClient client) {
+		try {
+			if (!client.isConnected() || !client.sendNoOp()) {
+				return false;
+			}
+			String home = homeDirectories.get(client);
+			return home == null || client.changeWorkingDirectory(home);
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	private void disconnect(FTPClient client) {
+		homeDirectories.remove(client);
+		if (client.isConnected()) {
+			try {
+				client.logout();
+			} catch (IOException e) {
+				// the connection is going away anyway
+				logger.trace("Couldn't log out of FTP connection", e);
+			}
+			try {
+				client.disconnect();
+			} catch (IOException e) {
+				logger.error("Couldn't disconnect FTP Client", e);
+			}
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package ca.corefacility.bioinformatics.irida.service.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import ca.corefacility.bioinformatics.irida.model.NcbiExportSubmission;
+
+/**
+ * Records the progress of uploading an {@link NcbiExportSubmission} to disk so
+ * that an upload interrupted by a restart can carry on in the same remote
+ * directory, skipping the files that were already sent. Files that were part
+ * way through are resumed from however much of them reached the server.
+ */
+public class FtpTransferManifest {
+
+	private static final String DIRECTORY_KEY = "directory";
+	private static final String COMPLETE_PREFIX = "complete.";
+
+	private final Path file;
+	private final Properties properties = new Properties();
+
+	private FtpTransferManifest(Path file) {
+		this.file = file;
+	}
+
+	/**
+	 * Read the manifest for a submission, or start a new one if the
+	 * submission hasn't been uploaded before.
+	 *
+	 * @param directory
+	 *            the directory manifests are kept in
+	 * @param submissionId
+	 *            the identifier of the {@link NcbiExportSubmission}
+	 * @return the {@link FtpTransferManifest} for the submission
+	 * @throws IOException
+	 *             if an existing manifest couldn't be read
+	 */
+	public static FtpTransferManifest load(Path directory, Long submissionId) throws IOException {
+		Files.createDirectories(directory);
+		FtpTransferManifest manifest = new FtpTransferManifest(directory.resolve(submissionId + ".properties"));
+		if (Files.exists(manifest.file)) {
+			try (InputStream stream = Files.newInputStream(manifest.file)) {
+				manifest.properties.load(stream);
+			}
+		}
+		return manifest;
+	}
+
+	/**
+	 * @return the remote directory the submission is being uploaded to, or
+	 *         null if one hasn't been created
+	 */
+	public synchronized String getRemoteDirectory() {
+		return properties.getProperty(DIRECTORY_KEY);
+	}
+
+	/**
+	 * Start uploading to a new remote directory. Any files recorded as sent
+	 * to an earlier directory are forgotten.
+	 *
+	 * @param remoteDirectory
+	 *            the remote directory the submission is uploaded to
+	 * @throws IOException
+	 *             if the manifest couldn't be saved
+	 */
+	public synchronized void setRemoteDirectory(String remoteDirectory) throws IOException {
+		properties.clear();
+		properties.setProperty(DIRECTORY_KEY, remoteDirectory);
+		save();
+	}
+
+	/**
+	 * Check if a file was completely sent.
+	 *
+	 * @param remoteName
+	 *            the name of the file on the server
+	 * @param size
+	 *            the size of the local file
+	 * @return true if a file of the same size was completely sent
+	 */
+	public synchronized boolean isComplete(String remoteName, long size) {
+		return String.valueOf(size).equals(properties.getProperty(COMPLETE_PREFIX + remoteName));
+	}
+
+	/**
+	 * Record that a file was completely sent.
+	 *
+	 * @param remoteName
+	 *            the name of the file on the server
+	 * @param size
+	 *            the size of the file
+	 * @throws IOException
+	 *             if the manifest couldn't be saved
+	 */
+	public synchronized void markComplete(String remoteName, long size) throws IOException {
+		properties.setProperty(COMPLETE_PREFIX + remoteName, String.valueOf(size));
+		save();
+	}
+
+	/**
+	 * Remove the manifest once the submission is finished with.
+	 *
+	 * @throws IOException
+	 *             if the manifest couldn't be removed
+	 */
+	public synchronized void delete() throws IOException {
+		properties.clear();
+		Files.deleteIfExists(file);
+	}
+
+	/**
+	 * Write the manifest to a temporary file and move it into place so that a
+	 * crash while saving doesn't leave half a manifest behind.
+	 */
+	private void save() throws IOException {
+		Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+		try (OutputStream stream = Files.newOutputStream(temp)) {
+			properties.store(stream, "NCBI upload progress");
+		}
+		Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -1,9 +1,17 @@
 package ca.corefacility.bioinformatics.irida.service.impl;
 
 import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +33,7 @@ import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.Job
 import ca.corefacility.bioinformatics.irida.service.AnalysisExecutionScheduledTask;
 import ca.corefacility.bioinformatics.irida.service.CleanupAnalysisSubmissionCondition;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisExecutionService;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisProgressStore;
 import ca.corefacility.bioinformatics.irida.service.EmailController;
 
 import com.google.common.collect.Sets;
@@ -45,12 +54,35 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 
 	private static final Logger logger = LoggerFactory.getLogger(AnalysisExecutionScheduledTaskImpl.class);
 
+	/**
+	 * Running analyses at least this close to complete are checked every time
+	 * the running analyses are monitored.
+	 */
+	private static final float NEARLY_COMPLETE_PROPORTION = 0.9f;
+
+	/**
+	 * Running analyses that aren't nearly complete are checked less often the
+	 * longer they run: the time until the next check is the time the analysis
+	 * has been running divided by this.
+	 */
+	private static final int RUNNING_TIME_CHECK_DIVISOR = 10;
+
+	/**
+	 * The longest time a running analysis will go without being checked.
+	 */
+	private static final Duration MAX_CHECK_INTERVAL = Duration.ofMinutes(5);
+
 	private AnalysisSubmissionRepository analysisSubmissionRepository;
 	private AnalysisExecutionService analysisExecutionService;
 	private final CleanupAnalysisSubmissionCondition cleanupCondition;
 	private GalaxyJobErrorsService galaxyJobErrorsService;
 	private JobErrorRepository jobErrorRepository;
 	private final EmailController emailController;
+	private final AnalysisProgressStore analysisProgressStore;
+	private final Clock clock;
+
+	// when each running analysis was first seen, and when to check it next
+	private final Map<Long, MonitoredAnalysis> monitoredAnalyses = new HashMap<>();
 
 	/**
 	 * Builds a new AnalysisExecutionScheduledTaskImpl with the given service
@@ -63,18 +95,45 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 	 * @param galaxyJobErrorsService         {@link GalaxyJobErrorsService} for getting {@link JobError} objects
 	 * @param jobErrorRepository             {@link JobErrorRepository} for {@link JobError} objects
 	 * @param emailController                {@link EmailController} for sending completion/error emails for {@link AnalysisSubmission}s
+	 * @param analysisProgressStore          {@link AnalysisProgressStore} to record the progress of running {@link AnalysisSubmission}s in
 	 */
 	@Autowired
 	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
 			AnalysisExecutionService analysisExecutionServiceGalaxy,
 			CleanupAnalysisSubmissionCondition cleanupCondition, GalaxyJobErrorsService galaxyJobErrorsService,
-			JobErrorRepository jobErrorRepository, EmailController emailController) {
+			JobErrorRepository jobErrorRepository, EmailController emailController,
+			AnalysisProgressStore analysisProgressStore) {
+		this(analysisSubmissionRepository, analysisExecutionServiceGalaxy, cleanupCondition, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisProgressStore, Clock.systemUTC());
+	}
+
+	/**
+	 * Builds a new AnalysisExecutionScheduledTaskImpl with the given service
+	 * classes and a clock used to decide when running analyses are checked.
+	 *
+	 * @param analysisSubmissionRepository   A repository for {@link AnalysisSubmission}s.
+	 * @param analysisExecutionServiceGalaxy A service for executing {@link AnalysisSubmission}s.
+	 * @param cleanupCondition               The condition defining when an {@link AnalysisSubmission}
+	 *                                       should be cleaned up.
+	 * @param galaxyJobErrorsService         {@link GalaxyJobErrorsService} for getting {@link JobError} objects
+	 * @param jobErrorRepository             {@link JobErrorRepository} for {@link JobError} objects
+	 * @param emailController                {@link EmailController} for sending completion/error emails for {@link AnalysisSubmission}s
+	 * @param analysisProgressStore          {@link AnalysisProgressStore} to record the progress of running {@link AnalysisSubmission}s in
+	 * @param clock                          The {@link Clock} to schedule checks of running analyses with.
+	 */
+	public AnalysisExecutionScheduledTaskImpl(AnalysisSubmissionRepository analysisSubmissionRepository,
+			AnalysisExecutionService analysisExecutionServiceGalaxy,
+			CleanupAnalysisSubmissionCondition cleanupCondition, GalaxyJobErrorsService galaxyJobErrorsService,
+			JobErrorRepository jobErrorRepository, EmailController emailController,
+			AnalysisProgressStore analysisProgressStore, Clock clock) {
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
 		this.analysisExecutionService = analysisExecutionServiceGalaxy;
 		this.cleanupCondition = cleanupCondition;
 		this.galaxyJobErrorsService = galaxyJobErrorsService;
 		this.jobErrorRepository = jobErrorRepository;
 		this.emailController = emailController;
+		this.analysisProgressStore = analysisProgressStore;
+		this.clock = clock;
 	}
 
 	/**
@@ -163,13 +222,47 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 					AnalysisState.RUNNING);
 
 			Set<Future<AnalysisSubmission>> submissions = Sets.newHashSet();
+			Instant now = clock.instant();
+
+			// forget about analyses that have stopped running
+			monitoredAnalyses.keySet()
+					.retainAll(analysisSubmissions.stream()
+							.map(AnalysisSubmission::getId)
+							.collect(Collectors.toSet()));
 
+			List<AnalysisSubmission> dueSubmissions = new ArrayList<>();
 			for (AnalysisSubmission analysisSubmission : analysisSubmissions) {
+				MonitoredAnalysis monitored = monitoredAnalyses.computeIfAbsent(analysisSubmission.getId(),
+						id -> new MonitoredAnalysis(now));
+				if (monitored.isDue(now)) {
+					dueSubmissions.add(analysisSubmission);
+				} else {
+					logger.trace("Not checking state of " + analysisSubmission + " until " + monitored.nextCheck);
+				}
+			}
+
+			if (dueSubmissions.isEmpty()) {
+				return submissions;
+			}
+
+			Map<Long, GalaxyWorkflowStatus> workflowStatuses;
+			try {
+				workflowStatuses = analysisExecutionService.getWorkflowStatuses(dueSubmissions);
+			} catch (ExecutionManagerException | RuntimeException e) {
+				logger.warn("Could not check the state of running analyses together, checking them one at a time", e);
+				workflowStatuses = Collections.emptyMap();
+			}
+
+			for (AnalysisSubmission analysisSubmission : dueSubmissions) {
 				logger.trace("Checking state of " + analysisSubmission);
 
 				try {
-					GalaxyWorkflowStatus workflowStatus = analysisExecutionService.getWorkflowStatus(
-							analysisSubmission);
+					GalaxyWorkflowStatus workflowStatus = workflowStatuses.get(analysisSubmission.getId());
+					if (workflowStatus == null) {
+						workflowStatus = analysisExecutionService.getWorkflowStatus(analysisSubmission);
+					}
+
+					monitoredAnalyses.get(analysisSubmission.getId()).checked(workflowStatus, now);
 					submissions.add(handleWorkflowStatus(workflowStatus, analysisSubmission));
 				} catch (ExecutionManagerException | RuntimeException e) {
 					logger.error("Error checking state for " + analysisSubmission, e);
@@ -280,6 +373,7 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		} else if (workflowStatus.isRunning()) {
 			logger.trace("Workflow for analysis " + analysisSubmission + " is running: proportion complete "
 					+ workflowStatus.getProportionComplete());
+			analysisProgressStore.record(analysisSubmission, workflowStatus);
 			returnedSubmission = new AsyncResult<>(analysisSubmission);
 		} else {
 			// If one of the above combinations did not match, assume an error occurred.
@@ -298,6 +392,10 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 		 and the user selected to be emailed on completion, then the following code
 		 will be executed.
 		 */
+		if (finalWorkflowStatusSet) {
+			analysisProgressStore.remove(analysisSubmission.getId());
+		}
+
 		if (finalWorkflowStatusSet && analysisSubmission.getEmailPipelineResult()) {
 			emailController.sendPipelineStatusEmail(analysisSubmission);
 		}
@@ -338,4 +436,32 @@ public class AnalysisExecutionScheduledTaskImpl implements AnalysisExecutionSche
 			return cleanedSubmissions;
 		}
 	}
+
+	/**
+	 * Keeps track of when a running analysis should next be checked. Analyses
+	 * that are nearly complete are checked every time, and analyses that have
+	 * been running for a long time are checked less often.
+	 */
+	private static class MonitoredAnalysis {
+		private final Instant firstSeen;
+		private Instant nextCheck;
+
+		public MonitoredAnalysis(Instant firstSeen) {
+			this.firstSeen = firstSeen;
+			this.nextCheck = firstSeen;
+		}
+
+		public boolean isDue(Instant now) {
+			return !now.isBefore(nextCheck);
+		}
+
+		public void checked(GalaxyWorkflowStatus workflowStatus, Instant now) {
+			if (workflowStatus.getProportionComplete() >= NEARLY_COMPLETE_PROPORTION) {
+				nextCheck = now;
+			} else {
+				Duration delay = Duration.between(firstSeen, now).dividedBy(RUNNING_TIME_CHECK_DIVISOR);
+				nextCheck = now.plus(delay.compareTo(MAX_CHECK_INTERVAL) > 0 ? MAX_CHECK_INTERVAL : delay);
+			}
+		}
+	}
 }
@@ -0,0 +1,317 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastQCCharts;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.FastQCChartDataRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.service.FastQCChartService;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Draws FastQC charts from their {@link FastQCChartData} and keeps the drawn
+ * charts in a cache directory named by analysis, when the analysis was created
+ * and chart. An analysis never changes once it's saved, so cached charts never
+ * go stale; the least recently used charts are removed when the cache grows
+ * past its limit.
+ * <p>
+ * Analyses saved before the series were kept still have their charts stored as
+ * images in the database. Those images are served until
+ * {@link #backfillChartData(int)} replaces them.
+ */
+@Service
+public class FastQCChartServiceImpl implements FastQCChartService {
+	private static final Logger logger = LoggerFactory.getLogger(FastQCChartServiceImpl.class);
+
+	// the columns analyses saved before FastQCChartData stored their images in
+	private static final Map<Chart, String> LEGACY_COLUMNS = ImmutableMap.of(Chart.PER_BASE_QUALITY,
+			"perBaseQualityScoreChart", Chart.PER_SEQUENCE_QUALITY, "perSequenceQualityScoreChart",
+			Chart.DUPLICATION_LEVEL, "duplicationLevelChart");
+
+	private static final String BACKFILL_QUERY = "SELECT a.id AS analysis_id, f.id AS file_id FROM analysis_fastqc a "
+			+ "INNER JOIN sequence_file f ON f.fastqc_analysis_id = a.id "
+			+ "LEFT JOIN analysis_fastqc_chart_data c ON c.analysis_id = a.id "
+			+ "WHERE c.analysis_id IS NULL AND a.id > ? ORDER BY a.id LIMIT ?";
+
+	private final AnalysisRepository analysisRepository;
+	private final FastQCChartDataRepository chartDataRepository;
+	private final SequenceFileRepository sequenceFileRepository;
+	private final FastqcFileProcessor fastqcFileProcessor;
+	private final JdbcTemplate jdbcTemplate;
+	private final Path cacheDirectory;
+	private final long maxCacheBytes;
+
+	// an estimate of the size of the cache, corrected whenever it's trimmed
+	private final AtomicLong cacheBytes = new AtomicLong();
+
+	// analyses up to this one have been looked at by the backfill already
+	private final AtomicLong lastBackfilled = new AtomicLong();
+
+	/**
+	 * Create a new {@link FastQCChartServiceImpl}
+	 *
+	 * @param analysisRepository
+	 *            repository for finding the analysis of a file
+	 * @param chartDataRepository
+	 *            repository for the series behind the charts
+	 * @param sequenceFileRepository
+	 *            repository for reading files to backfill
+	 * @param fastqcFileProcessor
+	 *            runs FastQC over files to backfill
+	 * @param dataSource
+	 *            the database, for reading and clearing images stored by
+	 *            older versions
+	 * @param cacheDirectory
+	 *            the directory to keep drawn charts in. If empty, a
+	 *            {@code fastqc-charts} directory beside the sequence file base
+	 *            directory is used.
+	 * @param sequenceFileBaseDirectory
+	 *            the directory sequence files are stored in
+	 * @param maxCacheMegabytes
+	 *            the most space cached charts can use
+	 * @throws StorageException
+	 *             if neither directory is configured, or the cache directory
+	 *             can't be created
+	 */
+	@Autowired
+	public FastQCChartServiceImpl(AnalysisRepository analysisRepository,
+			FastQCChartDataRepository chartDataRepository, SequenceFileRepository sequenceFileRepository,
+			FastqcFileProcessor fastqcFileProcessor, DataSource dataSource,
+			@Value("${fastqc.chart.cache.directory:}") String cacheDirectory,
+			@Value("${sequence.file.base.directory:}") String sequenceFileBaseDirectory,
+			@Value("${fastqc.chart.cache.max.size:256}") long maxCacheMegabytes) {
+		this.analysisRepository = analysisRepository;
+		this.chartDataRepository = chartDataRepository;
+		this.sequenceFileRepository = sequenceFileRepository;
+		this.fastqcFileProcessor = fastqcFileProcessor;
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		// cached charts are kept with this server's data so they're never
+		// shared with another installation or readable by other users
+		if (!cacheDirectory.isEmpty()) {
+			this.cacheDirectory = Paths.get(cacheDirectory);
+		} else if (!sequenceFileBaseDirectory.isEmpty()) {
+			this.cacheDirectory = Paths.get(sequenceFileBaseDirectory).toAbsolutePath().resolveSibling("fastqc-charts");
+		} else {
+			throw new StorageException("No directory to cache FastQC charts in, set fastqc.chart.cache.directory");
+		}
+		this.maxCacheBytes = maxCacheMegabytes * 1024 * 1024;
+
+		try {
+			Files.createDirectories(this.cacheDirectory);
+		} catch (IOException e) {
+			throw new StorageException("Could not create FastQC chart cache directory [" + this.cacheDirectory + "]",
+					e);
+		}
+		trimCache();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_TECHNICIAN') or hasPermission(#object, 'canReadSequencingObject')")
+	public byte[] getChart(SequencingObject object, Long fileId, Chart chart) throws IOException {
+		AnalysisFastQC analysis = analysisRepository.findFastqcAnalysisForSequenceFile(object.getFileWithId(fileId));
+		if (analysis == null) {
+			return null;
+		}
+
+		// the created date keeps charts of an analysis from a rebuilt database
+		// from being confused with one that had the same id
+		Path cached = cacheDirectory.resolve(analysis.getId() + "-" + analysis.getCreatedDate().getTime() + "-"
+				+ chart.name().toLowerCase() + ".png");
+		byte[] image = readCached(cached);
+		if (image == null) {
+			image = drawChart(analysis.getId(), chart);
+			if (image != null) {
+				writeCached(cached, image);
+			}
+		}
+		return image;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int backfillChartData(int batchSize) {
+		List<Map<String, Object>> analyses = jdbcTemplate.queryForList(BACKFILL_QUERY, lastBackfilled.get(),
+				batchSize);
+
+		int captured = 0;
+		for (Map<String, Object> row : analyses) {
+			Long analysisId = ((Number) row.get("analysis_id")).longValue();
+			Long fileId = ((Number) row.get("file_id")).longValue();
+			lastBackfilled.set(analysisId);
+
+			SequenceFile file = sequenceFileRepository.findOne(fileId);
+			if (file == null || file.getFile() == null || !Files.exists(file.getFile())) {
+				logger.debug("Can't capture FastQC charts for analysis " + analysisId + ", its file is missing.");
+				continue;
+			}
+
+			try {
+				FastQCChartData chartData = fastqcFileProcessor.computeChartData(file);
+				chartDataRepository.save(chartData.forAnalysis(analysisId));
+				clearLegacyCharts(analysisId);
+				captured++;
+			} catch (FileProcessorException e) {
+				logger.warn("Could not capture FastQC charts for analysis " + analysisId, e);
+			}
+		}
+
+		if (captured > 0) {
+			logger.info("Captured FastQC chart data for " + captured + " analyses.");
+		}
+		return captured;
+	}
+
+	/**
+	 * Draw a chart from its series, or fall back to the image stored by an
+	 * older version.
+	 */
+	private byte[] drawChart(Long analysisId, Chart chart) throws IOException {
+		FastQCChartData chartData = chartDataRepository.findOne(analysisId);
+		if (chartData != null) {
+			return FastQCCharts.render(chartData, chart);
+		}
+		return readLegacyChart(analysisId, chart);
+	}
+
+	private byte[] readLegacyChart(Long analysisId, Chart chart) {
+		try {
+			return jdbcTemplate.query("SELECT " + LEGACY_COLUMNS.get(chart) + " FROM analysis_fastqc WHERE id = ?",
+					(ResultSetExtractor<byte[]>) rs -> rs.next() ? rs.getBytes(1) : null, analysisId);
+		} catch (DataAccessException e) {
+			// the image columns don't exist in schemas created after they
+			// were removed from the model
+			logger.trace("Could not read stored chart for analysis " + analysisId, e);
+			return null;
+		}
+	}
+
+	private void clearLegacyCharts(Long analysisId) {
+		try {
+			jdbcTemplate.update("UPDATE analysis_fastqc SET perBaseQualityScoreChart = NULL, "
+					+ "perSequenceQualityScoreChart = NULL, duplicationLevelChart = NULL WHERE id = ?", analysisId);
+		} catch (DataAccessException e) {
+			logger.trace("Could not clear stored charts for analysis " + analysisId, e);
+		}
+	}
+
+	private byte[] readCached(Path cached) {
+		try {
+			byte[] image = Files.readAllBytes(cached);
+			// the modification time orders charts for removal
+			Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+			return image;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			logger.warn("Could not read cached chart [" + cached + "]", e);
+			return null;
+		}
+	}
+
+	private void writeCached(Path cached, byte[] image) {
+		try {
+			Path temp = Files.createTempFile(cacheDirectory, "chart", ".tmp");
+			Files.write(temp, image);
+			Files.move(temp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("Could not cache chart [" + cached + "]", e);
+			return;
+		}
+
+		if (cacheBytes.addAndGet(image.length) > maxCacheBytes) {
+			trimCache();
+		}
+	}
+
+	/**
+	 * Remove the least recently used charts until the cache is comfortably
+	 * under its limit.
+	 */
+	private synchronized void trimCache() {
+		List<CachedChart> charts = new ArrayList<>();
+		long total = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(cacheDirectory)) {
+			for (Path file : files) {
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+					charts.add(new CachedChart(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+					total += attributes.size();
+				} catch (NoSuchFileException e) {
+					// removed while we were looking
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Could not list FastQC chart cache [" + cacheDirectory + "]", e);
+			return;
+		}
+
+		if (total > maxCacheBytes) {
+			long target = maxCacheBytes * 9 / 10;
+			charts.sort(Comparator.comparingLong(c -> c.lastUsed));
+			for (CachedChart chart : charts) {
+				if (total <= target) {
+					break;
+				}
+				try {
+					Files.deleteIfExists(chart.file);
+					total -= chart.size;
+				} catch (IOException e) {
+					logger.warn("Could not remove cached chart [" + chart.file + "]", e);
+				}
+			}
+		}
+		cacheBytes.set(total);
+	}
+
+	private static class CachedChart {
+		private final Path file;
+		private final long size;
+		private final long lastUsed;
+
+		private CachedChart(Path file, long size, long lastUsed) {
+			this.file = file;
+			this.size = size;
+			this.lastUsed = lastUsed;
+		}
+	}
+}
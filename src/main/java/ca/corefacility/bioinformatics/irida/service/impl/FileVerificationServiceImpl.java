@@ -0,0 +1,116 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata.FileStatus;
+import ca.corefacility.bioinformatics.irida.model.FileMetadataFields;
+import ca.corefacility.bioinformatics.irida.model.IridaThing;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.service.FileVerificationService;
+
+/**
+ * Checks stored files a batch at a time, least recently checked first. Each
+ * file's metadata is recorded with a bulk update so that checking a file
+ * doesn't create a revision of it or change its modified date. The update only
+ * applies if the file hasn't been rewritten or recorded again since it was
+ * read, so a slow check can't overwrite what the processing chain recorded in
+ * the meantime.
+ */
+@Service
+public class FileVerificationServiceImpl implements FileVerificationService {
+	private static final Logger logger = LoggerFactory.getLogger(FileVerificationServiceImpl.class);
+
+	private final SequenceFileRepository sequenceFileRepository;
+	private final AnalysisOutputFileRepository outputFileRepository;
+
+	@Autowired
+	public FileVerificationServiceImpl(SequenceFileRepository sequenceFileRepository,
+			AnalysisOutputFileRepository outputFileRepository) {
+		this.sequenceFileRepository = sequenceFileRepository;
+		this.outputFileRepository = outputFileRepository;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int verifyFiles(int batchSize) {
+		int flagged = verify(sequenceFileRepository.findLeastRecentlyVerified(new PageRequest(0, batchSize)),
+				(f, m) -> sequenceFileRepository.updateFileMetadata(f.getId(), m.getSizeBytes(),
+						m.getFileModifiedDate(), m.getVerifiedDate(), m.getStatus(), f.getFileRevisionNumber(),
+						checkedVerifiedDate(f)));
+		flagged += verify(outputFileRepository.findLeastRecentlyVerified(new PageRequest(0, batchSize)),
+				(f, m) -> outputFileRepository.updateFileMetadata(f.getId(), m.getSizeBytes(),
+						m.getFileModifiedDate(), m.getVerifiedDate(), m.getStatus(), checkedVerifiedDate(f)));
+
+		if (flagged > 0) {
+			logger.warn(flagged + " stored files are missing or have changed since they were written.");
+		}
+		return flagged;
+	}
+
+	/**
+	 * Check a batch of files and record what was found.
+	 *
+	 * @param files
+	 *            the files to check
+	 * @param recorder
+	 *            records the metadata of a file, returning the number of files
+	 *            updated
+	 * @return the number of files found missing or changed
+	 */
+	private <T extends FileMetadataFields & IridaThing> int verify(List<T> files,
+			BiFunction<T, FileMetadata, Integer> recorder) {
+		int flagged = 0;
+		for (T file : files) {
+			FileMetadata recorded = file.getFileMetadata();
+			FileMetadata checked;
+			try {
+				checked = FileMetadata.verify(recorded, file.getFile());
+			} catch (IOException e) {
+				logger.warn("Could not check file [" + file.getFile() + "]", e);
+				continue;
+			}
+
+			if (recorder.apply(file, checked) == 0) {
+				// what was checked is no longer what's stored, it'll be checked
+				// again with the next batch
+				logger.debug("File [" + file.getFile() + "] for " + file.getClass().getSimpleName() + " "
+						+ file.getId() + " changed while it was being checked, skipping");
+				continue;
+			}
+
+			if (checked.getStatus() != FileStatus.AVAILABLE) {
+				flagged++;
+				if (recorded == null || recorded.getStatus() != checked.getStatus()) {
+					logger.warn("File [" + file.getFile() + "] for " + file.getClass().getSimpleName() + " "
+							+ file.getId() + " is " + checked.getStatus());
+				}
+			}
+		}
+		return flagged;
+	}
+
+	/**
+	 * Get the verified date recorded for a file when it was read.
+	 *
+	 * @param file
+	 *            the file that was read
+	 * @return the verified date, or null if the file hasn't been checked
+	 */
+	private static Date checkedVerifiedDate(FileMetadataFields file) {
+		FileMetadata recorded = file.getFileMetadata();
+		return recorded == null ? null : recorded.getVerifiedDate();
+	}
+}
@@ -17,6 +17,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -74,7 +75,9 @@ import ca.corefacility.bioinformatics.irida.repositories.referencefile.Reference
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
 import ca.corefacility.bioinformatics.irida.service.ProjectService;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndex;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
@@ -105,6 +108,8 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 	private final ProjectAnalysisSubmissionJoinRepository pasRepository;
 	private final SequencingObjectRepository sequencingObjectRepository;
 	private final ProjectRepository projectRepository;
+	private final ProjectMembershipCache membershipCache;
+	private final SearchIndex searchIndex;
 
 	@Autowired
 	public ProjectServiceImpl(ProjectRepository projectRepository, SampleRepository sampleRepository,
@@ -113,7 +118,8 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 			ReferenceFileRepository referenceFileRepository, ProjectReferenceFileJoinRepository prfjRepository,
 			final UserGroupProjectJoinRepository ugpjRepository, SampleSequencingObjectJoinRepository ssoRepository,
 			ProjectAnalysisSubmissionJoinRepository pasRepository,
-			SequencingObjectRepository sequencingObjectRepository, Validator validator) {
+			SequencingObjectRepository sequencingObjectRepository, ProjectMembershipCache membershipCache,
+			SearchIndex searchIndex, Validator validator) {
 		super(projectRepository, validator, Project.class);
 		this.projectRepository = projectRepository;
 		this.sampleRepository = sampleRepository;
@@ -127,6 +133,8 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 		this.ssoRepository = ssoRepository;
 		this.pasRepository = pasRepository;
 		this.sequencingObjectRepository = sequencingObjectRepository;
+		this.membershipCache = membershipCache;
+		this.searchIndex = searchIndex;
 	}
 
 	/**
@@ -188,6 +196,9 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 		UserDetails userDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 		User user = userRepository.loadUserByUsername(userDetails.getUsername());
 		addUserToProject(project, user, ProjectRole.PROJECT_OWNER);
+		// calling addUserToProject on this instance doesn't launch the event
+		// that would normally refresh the user's project roles
+		membershipCache.invalidate(user.getUsername());
 		return project;
 	}
 	
@@ -647,6 +658,11 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 		final UserDetails loggedInDetails = (UserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
 		final User loggedIn = userRepository.loadUserByUsername(loggedInDetails.getUsername());
 		final PageRequest pr = new PageRequest(page, count, getOrDefaultSort(sort));
+		final Optional<Set<Long>> projectIds = searchIndex.findProjectIds(search,
+				membershipCache.getProjectIds(loggedIn.getUsername()));
+		if (projectIds.isPresent()) {
+			return findProjectsWithIds(projectIds.get(), pr);
+		}
 		return projectRepository.findAll(searchForProjects(search, null, null, loggedIn), pr);
 	}
 	
@@ -657,9 +673,29 @@ public class ProjectServiceImpl extends CRUDServiceImpl<Long, Project> implement
 	@PreAuthorize("hasRole('ROLE_ADMIN')")
 	public Page<Project> findAllProjects(String searchValue, int currentPage, int length, Sort sort) {
 		final PageRequest pr = new PageRequest(currentPage, length, sort);
+		final Optional<Set<Long>> projectIds = searchIndex.findProjectIds(searchValue, null);
+		if (projectIds.isPresent()) {
+			return findProjectsWithIds(projectIds.get(), pr);
+		}
 		return projectRepository.findAll(searchForProjects(searchValue, null, null, null), pr);
 	}
 
+	/**
+	 * Get a page of the {@link Project}s found in the search index.
+	 * 
+	 * @param projectIds
+	 *            the identifiers of the projects that were found.
+	 * @param pr
+	 *            the page to get.
+	 * @return the page of projects.
+	 */
+	private Page<Project> findProjectsWithIds(final Set<Long> projectIds, final PageRequest pr) {
+		if (projectIds.isEmpty()) {
+			return new PageImpl<>(new ArrayList<>(), pr, 0);
+		}
+		return projectRepository.findAll((root, query, cb) -> root.get("id").in(projectIds), pr);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
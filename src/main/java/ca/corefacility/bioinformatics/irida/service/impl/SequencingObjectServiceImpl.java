@@ -17,6 +17,7 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceCo
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.specification.SampleSequencingObjectSpecification;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import com.google.common.collect.ImmutableMap;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,17 +44,20 @@ public class SequencingObjectServiceImpl extends CRUDServiceImpl<Long, Sequencin
 
 	private final SequencingObjectRepository repository;
 	private final SequenceConcatenationRepository concatenationRepository;
+	private final SequencingObjectProcessingService processingService;
 
 	@Autowired
 	public SequencingObjectServiceImpl(SequencingObjectRepository repository,
 			SequenceFileRepository sequenceFileRepository, SampleSequencingObjectJoinRepository ssoRepository,
-			SequenceConcatenationRepository concatenationRepository, Validator validator) {
+			SequenceConcatenationRepository concatenationRepository,
+			SequencingObjectProcessingService processingService, Validator validator) {
 		super(repository, validator, SequencingObject.class);
 		this.repository = repository;
 		this.ssoRepository = ssoRepository;
 
 		this.sequenceFileRepository = sequenceFileRepository;
 		this.concatenationRepository = concatenationRepository;
+		this.processingService = processingService;
 	}
 
 	/**
@@ -86,7 +90,13 @@ public class SequencingObjectServiceImpl extends CRUDServiceImpl<Long, Sequencin
 			file = sequenceFileRepository.save(file);
 		}
 
-		return super.create(object);
+		SequencingObject created = super.create(object);
+
+		// start processing as soon as the new object is visible to other
+		// transactions instead of waiting for the next processing sweep
+		processingService.dispatchAfterCommit(created.getId());
+
+		return created;
 	}
 
 	/**
@@ -125,6 +135,19 @@ public class SequencingObjectServiceImpl extends CRUDServiceImpl<Long, Sequencin
 		return ssoRepository.findAll(SampleSequencingObjectSpecification.getSequenceOfTypeForSample(sample, type));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_SEQUENCER') or hasPermission(#samples, 'canReadSample')")
+	@Override
+	public Collection<SampleSequencingObjectJoin> getSequencesForSamplesOfType(Collection<Sample> samples,
+			Class<? extends SequencingObject> type) {
+		if (samples.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return ssoRepository.findAll(SampleSequencingObjectSpecification.getSequencesOfTypeForSamples(samples, type));
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
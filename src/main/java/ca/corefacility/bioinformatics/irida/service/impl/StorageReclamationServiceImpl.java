@@ -0,0 +1,506 @@
+package ca.corefacility.bioinformatics.irida.service.impl;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ContentAddressedFileStore;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ShardedStorageLayout;
+import ca.corefacility.bioinformatics.irida.service.StorageReclamationService;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Reclaims the space used by revision directories
+ * (<code>base/id/revision</code>, or
+ * <code>base/shards/xx/yy/id/revision</code>) that none of the
+ * <code>file_path</code> columns refer to any more.
+ * <p>
+ * Orphaned directories aren't deleted straight away. They're first moved into
+ * <code>base/.quarantine</code>, keeping their path, once nothing in them has
+ * changed for the grace period. They're deleted on a later run once they've
+ * sat in quarantine for the grace period, unless something refers to them
+ * again in the meantime, in which case they're moved back. The grace period
+ * also keeps files that are still being written by a transaction that hasn't
+ * committed yet from being touched.
+ * <p>
+ * De-duplicated sequence file blobs (see {@link ContentAddressedFileStore})
+ * that no stored file links to any more are deleted once they're older than
+ * the grace period.
+ */
+@Service
+public class StorageReclamationServiceImpl implements StorageReclamationService {
+	private static final Logger logger = LoggerFactory.getLogger(StorageReclamationServiceImpl.class);
+
+	/**
+	 * The directory under each base directory that orphaned revision
+	 * directories are moved to before they're deleted.
+	 */
+	public static final String QUARANTINE_DIRECTORY = ".quarantine";
+
+	private static final String SEQUENCE_FILE_PATHS = "SELECT file_path FROM sequence_file";
+	private static final String REFERENCE_FILE_PATHS = "SELECT filePath FROM reference_file";
+	private static final String OUTPUT_FILE_PATHS = "SELECT file_path FROM analysis_output_file";
+
+	private static final Pattern NUMERIC = Pattern.compile("\\d+");
+	private static final Pattern SHARD = Pattern.compile("[0-9a-f]{2}");
+
+	// the number of entity directories handed to a worker at once
+	private static final int BATCH_SIZE = 500;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final Path sequenceFileBaseDirectory;
+	private final Path referenceFileBaseDirectory;
+	private final Path outputFileBaseDirectory;
+	private final MetricRegistry metricRegistry;
+	private final long gracePeriodMillis;
+	private final int threads;
+
+	@Autowired
+	public StorageReclamationServiceImpl(DataSource dataSource,
+			@Qualifier("sequenceFileBaseDirectory") Path sequenceFileBaseDirectory,
+			@Qualifier("referenceFileBaseDirectory") Path referenceFileBaseDirectory,
+			@Qualifier("outputFileBaseDirectory") Path outputFileBaseDirectory, MetricRegistry metricRegistry,
+			@Value("${storage.reclamation.grace.period.days:7}") int gracePeriodDays,
+			@Value("${storage.reclamation.threads:4}") int threads) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+		this.jdbcTemplate.setFetchSize(1000);
+		this.sequenceFileBaseDirectory = sequenceFileBaseDirectory;
+		this.referenceFileBaseDirectory = referenceFileBaseDirectory;
+		this.outputFileBaseDirectory = outputFileBaseDirectory;
+		this.metricRegistry = metricRegistry;
+		this.gracePeriodMillis = TimeUnit.DAYS.toMillis(gracePeriodDays);
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized long reclaimStorage() {
+		final long cutoff = System.currentTimeMillis() - gracePeriodMillis;
+
+		// base directories may be shared between types, so group the
+		// references by the directory they're relative to
+		final Map<Path, Set<String>> referenced = new LinkedHashMap<>();
+		loadReferencedDirectories(SEQUENCE_FILE_PATHS, sequenceFileBaseDirectory, referenced);
+		loadReferencedDirectories(REFERENCE_FILE_PATHS, referenceFileBaseDirectory, referenced);
+		loadReferencedDirectories(OUTPUT_FILE_PATHS, outputFileBaseDirectory, referenced);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads,
+				new ThreadFactoryBuilder().setNameFormat("storage-reclamation-%d").setDaemon(true).build());
+		final Tally tally = new Tally();
+		try {
+			for (Map.Entry<Path, Set<String>> entry : referenced.entrySet()) {
+				reclaim(entry.getKey(), entry.getValue(), cutoff, executor, tally);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		logger.info("Storage reclamation quarantined " + tally.quarantined + " revision directories, restored "
+				+ tally.restored + " and deleted " + tally.deleted + ", freeing " + tally.bytes + " bytes.");
+		metricRegistry.counter("irida_storage_reclaimed_bytes_total",
+				"Bytes of disk space freed by deleting unreferenced files").add(tally.bytes.get());
+
+		return tally.bytes.get();
+	}
+
+	/**
+	 * Read the stored paths of one type of file and record the revision
+	 * directory each one is in, relative to the base directory.
+	 */
+	private void loadReferencedDirectories(String query, Path baseDirectory, Map<Path, Set<String>> referenced) {
+		final Path base = baseDirectory.toAbsolutePath().normalize();
+		final Set<String> directories = referenced.computeIfAbsent(base, b -> new HashSet<>());
+		Path realBase;
+		try {
+			realBase = base.toRealPath();
+		} catch (IOException e) {
+			realBase = base;
+		}
+		final Path resolvedBase = realBase;
+
+		jdbcTemplate.query(query, rs -> {
+			final String stored = rs.getString(1);
+			if (stored == null) {
+				return;
+			}
+			Path path = Paths.get(stored);
+			if (path.isAbsolute()) {
+				// some very old paths were stored as absolute paths
+				path = path.normalize();
+				if (path.startsWith(base)) {
+					path = base.relativize(path);
+				} else if (path.startsWith(resolvedBase)) {
+					path = resolvedBase.relativize(path);
+				} else {
+					return;
+				}
+			}
+			final Path directory = path.getParent();
+			if (directory != null) {
+				directories.add(directory.toString());
+			}
+		});
+	}
+
+	/**
+	 * Reclaim the space in one base directory.
+	 */
+	private void reclaim(Path baseDirectory, Set<String> referenced, long cutoff, ExecutorService executor,
+			Tally tally) {
+		if (!Files.isDirectory(baseDirectory)) {
+			logger.warn("Not reclaiming storage in [" + baseDirectory + "], it is not a directory.");
+			return;
+		}
+		final Path quarantine = baseDirectory.resolve(QUARANTINE_DIRECTORY);
+
+		// deal with what earlier runs quarantined first, so that directories
+		// quarantined by this run get a full grace period
+		if (Files.isDirectory(quarantine)) {
+			inParallel(quarantine, executor, entity -> {
+				forEachRevision(entity, revision -> {
+					final String key = quarantine.relativize(revision).toString();
+					if (referenced.contains(key)) {
+						restore(revision, baseDirectory.resolve(key), tally);
+					} else if (lastModified(revision) < cutoff) {
+						tally.bytes.addAndGet(delete(revision));
+						tally.deleted.incrementAndGet();
+					}
+				});
+				deleteIfEmpty(entity);
+			});
+		}
+
+		inParallel(baseDirectory, executor, entity -> {
+			forEachRevision(entity, revision -> {
+				final String key = baseDirectory.relativize(revision).toString();
+				if (!referenced.contains(key) && newestModification(revision) < cutoff) {
+					quarantine(revision, quarantine.resolve(key), tally);
+				}
+			});
+			// nothing can be written to an entity directory without first
+			// creating a revision directory in it, so an empty one is safe to
+			// remove
+			deleteIfEmpty(entity);
+		});
+
+		final Path blobs = baseDirectory.resolve(ContentAddressedFileStore.BLOB_DIRECTORY);
+		if (Files.isDirectory(blobs)) {
+			tally.bytes.addAndGet(deleteUnlinkedBlobs(blobs, cutoff));
+		}
+	}
+
+	/**
+	 * Find the entity directories under a root directory and process them in
+	 * batches on the executor, waiting for every batch to finish.
+	 */
+	private void inParallel(Path root, ExecutorService executor, Consumer<Path> action) {
+		final List<Future<?>> batches = new ArrayList<>();
+		final Batcher batcher = new Batcher(batch -> batches.add(executor.submit(() -> batch.forEach(action))));
+		forEachEntity(root, batcher);
+		batcher.flush();
+
+		try {
+			for (Future<?> batch : batches) {
+				batch.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StorageException("Interrupted while reclaiming storage in [" + root + "]", e);
+		} catch (ExecutionException e) {
+			throw new StorageException("Failed to reclaim storage in [" + root + "]", e.getCause());
+		}
+	}
+
+	/**
+	 * Find the entity directories written by either storage layout. Anything
+	 * that doesn't look like it was written by a layout is left alone,
+	 * including the blob and quarantine directories.
+	 */
+	private void forEachEntity(Path root, Consumer<Path> consumer) {
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(root)) {
+			for (Path child : children) {
+				final String name = child.getFileName().toString();
+				if (!Files.isDirectory(child)) {
+					continue;
+				}
+				if (NUMERIC.matcher(name).matches()) {
+					consumer.accept(child);
+				} else if (name.equals(ShardedStorageLayout.SHARD_ROOT)) {
+					forEachShardedEntity(child, consumer);
+				}
+			}
+		} catch (IOException e) {
+			throw new StorageException("Could not list directory [" + root + "]", e);
+		}
+	}
+
+	/**
+	 * Shard directory names can look like entity identifiers, so tell them
+	 * apart by what's in them: an entity directory holds revision directories
+	 * that hold files, where a shard directory holds more directories.
+	 */
+	private void forEachShardedEntity(Path shard, Consumer<Path> consumer) throws IOException {
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(shard)) {
+			for (Path child : children) {
+				final String name = child.getFileName().toString();
+				if (!Files.isDirectory(child)) {
+					continue;
+				}
+				if (NUMERIC.matcher(name).matches() && isEntityDirectory(child)) {
+					consumer.accept(child);
+				} else if (SHARD.matcher(name).matches()) {
+					forEachShardedEntity(child, consumer);
+				}
+			}
+		}
+	}
+
+	private boolean isEntityDirectory(Path directory) throws IOException {
+		try (DirectoryStream<Path> revisions = Files.newDirectoryStream(directory)) {
+			for (Path revision : revisions) {
+				if (!Files.isDirectory(revision) || !NUMERIC.matcher(revision.getFileName().toString()).matches()) {
+					continue;
+				}
+				try (DirectoryStream<Path> files = Files.newDirectoryStream(revision)) {
+					for (Path file : files) {
+						if (Files.isRegularFile(file)) {
+							return true;
+						}
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private void forEachRevision(Path entity, Consumer<Path> consumer) {
+		final List<Path> revisions = new ArrayList<>();
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(entity)) {
+			for (Path child : children) {
+				if (Files.isDirectory(child) && NUMERIC.matcher(child.getFileName().toString()).matches()) {
+					revisions.add(child);
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Could not list entity directory [" + entity + "]", e);
+			return;
+		}
+		revisions.forEach(consumer);
+	}
+
+	private void quarantine(Path revision, Path target, Tally tally) {
+		try {
+			Files.createDirectories(target.getParent());
+			Files.move(revision, target);
+			// the time it went into quarantine starts its grace period there
+			Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+			tally.quarantined.incrementAndGet();
+			logger.debug("Quarantined unreferenced directory [" + revision + "]");
+		} catch (IOException e) {
+			logger.warn("Could not quarantine unreferenced directory [" + revision + "]", e);
+		}
+	}
+
+	private void restore(Path quarantined, Path target, Tally tally) {
+		if (Files.exists(target)) {
+			logger.warn("Not restoring [" + quarantined + "], [" + target + "] already exists.");
+			return;
+		}
+		try {
+			Files.createDirectories(target.getParent());
+			Files.move(quarantined, target);
+			tally.restored.incrementAndGet();
+			logger.info("Restored quarantined directory [" + target + "], it is referenced again.");
+		} catch (IOException e) {
+			logger.warn("Could not restore quarantined directory [" + quarantined + "]", e);
+		}
+	}
+
+	/**
+	 * Delete a directory and everything in it.
+	 *
+	 * @return the number of bytes freed
+	 */
+	private long delete(Path directory) {
+		final AtomicLong freed = new AtomicLong();
+		try {
+			Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					final long size = linkCount(file) <= 1 ? attrs.size() : 0;
+					Files.delete(file);
+					freed.addAndGet(size);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+					if (e != null) {
+						throw e;
+					}
+					Files.delete(dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+			logger.debug("Deleted quarantined directory [" + directory + "]");
+		} catch (IOException e) {
+			logger.warn("Could not delete quarantined directory [" + directory + "]", e);
+		}
+		return freed.get();
+	}
+
+	/**
+	 * Delete the blobs that are the only remaining link to their contents.
+	 *
+	 * @return the number of bytes freed
+	 */
+	private long deleteUnlinkedBlobs(Path blobs, long cutoff) {
+		final AtomicLong freed = new AtomicLong();
+		try {
+			Files.walkFileTree(blobs, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+					if (attrs.lastModifiedTime().toMillis() < cutoff && linkCount(file) == 1) {
+						Files.delete(file);
+						freed.addAndGet(attrs.size());
+						logger.debug("Deleted unlinked blob [" + file + "]");
+					}
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		} catch (IOException e) {
+			logger.warn("Could not clean up blob directory [" + blobs + "]", e);
+		}
+		return freed.get();
+	}
+
+	private void deleteIfEmpty(Path directory) {
+		try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+			if (children.iterator().hasNext()) {
+				return;
+			}
+		} catch (IOException e) {
+			return;
+		}
+		try {
+			Files.delete(directory);
+		} catch (DirectoryNotEmptyException e) {
+			// something was written to it after all
+		} catch (IOException e) {
+			logger.trace("Could not remove empty directory [" + directory + "]", e);
+		}
+	}
+
+	/**
+	 * The number of hard links to a file. Deleting a file that's linked
+	 * elsewhere doesn't free any space. Filesystems that can't tell us are
+	 * assumed not to have any other links.
+	 */
+	private static int linkCount(Path file) {
+		try {
+			return (Integer) Files.getAttribute(file, "unix:nlink");
+		} catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+			return 1;
+		}
+	}
+
+	private static long lastModified(Path path) {
+		try {
+			return Files.getLastModifiedTime(path).toMillis();
+		} catch (IOException e) {
+			// if we can't tell, treat it as new
+			return Long.MAX_VALUE;
+		}
+	}
+
+	/**
+	 * The latest modification time of a revision directory or anything
+	 * directly in it. Files are moved into the revision directory, so they
+	 * may be older than the directory itself.
+	 */
+	private static long newestModification(Path revision) {
+		long newest = lastModified(revision);
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(revision)) {
+			for (Path file : files) {
+				newest = Math.max(newest, lastModified(file));
+			}
+		} catch (IOException e) {
+			return Long.MAX_VALUE;
+		}
+		return newest;
+	}
+
+	/**
+	 * Collects entity directories into batches as they're found.
+	 */
+	private static class Batcher implements Consumer<Path> {
+		private final Consumer<List<Path>> submit;
+		private List<Path> batch = new ArrayList<>(BATCH_SIZE);
+
+		private Batcher(Consumer<List<Path>> submit) {
+			this.submit = submit;
+		}
+
+		@Override
+		public void accept(Path entity) {
+			batch.add(entity);
+			if (batch.size() == BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (!batch.isEmpty()) {
+				submit.accept(batch);
+				batch = new ArrayList<>(BATCH_SIZE);
+			}
+		}
+	}
+
+	/**
+	 * Counts of what a run did.
+	 */
+	private static class Tally {
+		private final AtomicInteger quarantined = new AtomicInteger();
+		private final AtomicInteger restored = new AtomicInteger();
+		private final AtomicInteger deleted = new AtomicInteger();
+		private final AtomicLong bytes = new AtomicLong();
+	}
+}
@@ -51,6 +51,7 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequence
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.workflow.IridaWorkflow;
 import ca.corefacility.bioinformatics.irida.model.workflow.description.IridaWorkflowDescription;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.AnalysisProgressSnapshot;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.IridaWorkflowNamedParameters;
@@ -62,6 +63,7 @@ import ca.corefacility.bioinformatics.irida.repositories.referencefile.Reference
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisProgressStore;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxyCleanupAsync;
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
@@ -106,6 +108,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	private final SequencingObjectService sequencingObjectService;
 	private final IridaWorkflowsService iridaWorkflowsService;
 	private JobErrorRepository jobErrorRepository;
+	private final AnalysisProgressStore analysisProgressStore;
 
 	// required, but not constructor injected because we have circular dependencies :(
 	@Autowired
@@ -121,6 +124,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 	 * @param pasRepository                The {@link ProjectAnalysisSubmissionJoinRepository}
 	 * @param jobErrorRepository           A repository for accessing {@link JobError}
 	 * @param iridaWorkflowsService		   The {@link IridaWorkflowsService}
+	 * @param analysisProgressStore        The {@link AnalysisProgressStore} holding the progress of running analyses.
 	 * @param validator                    A validator.
 	 */
 	@Autowired
@@ -128,7 +132,8 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 			UserRepository userRepository, final ReferenceFileRepository referenceFileRepository,
 			final SequencingObjectService sequencingObjectService, final GalaxyHistoriesService galaxyHistoriesService,
 			ProjectAnalysisSubmissionJoinRepository pasRepository, JobErrorRepository jobErrorRepository,
-			IridaWorkflowsService iridaWorkflowsService, Validator validator) {
+			IridaWorkflowsService iridaWorkflowsService, AnalysisProgressStore analysisProgressStore,
+			Validator validator) {
 		super(analysisSubmissionRepository, validator, AnalysisSubmission.class);
 		this.userRepository = userRepository;
 		this.analysisSubmissionRepository = analysisSubmissionRepository;
@@ -138,6 +143,7 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 		this.pasRepository = pasRepository;
 		this.jobErrorRepository = jobErrorRepository;
 		this.iridaWorkflowsService = iridaWorkflowsService;
+		this.analysisProgressStore = analysisProgressStore;
 	}
 	
 	public void setAnalysisExecutionService(final AnalysisExecutionServiceGalaxyCleanupAsync analysisExecutionService) {
@@ -635,10 +641,15 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 			 * 90%.
 			 */
 		case RUNNING:
+			AnalysisProgressSnapshot snapshot = analysisProgressStore.getSnapshot(analysisSubmission.getId());
+			if (snapshot != null) {
+				return getRunningPercentComplete(snapshot.getProportionComplete());
+			}
+
 			String workflowHistoryId = analysisSubmission.getRemoteAnalysisId();
 			GalaxyWorkflowStatus workflowStatus = galaxyHistoriesService.getStatusForHistory(workflowHistoryId);
-			return RUNNING_PERCENT + (FINISHED_RUNNING_PERCENT - RUNNING_PERCENT)
-					* workflowStatus.getProportionComplete();
+			analysisProgressStore.record(analysisSubmission, workflowStatus);
+			return getRunningPercentComplete(workflowStatus.getProportionComplete());
 			
 		case FINISHED_RUNNING:
 		case COMPLETING:
@@ -651,6 +662,37 @@ public class AnalysisSubmissionServiceImpl extends CRUDServiceImpl<Long, Analysi
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#analysisSubmission, 'canReadAnalysisSubmission')")
+	public float getLastKnownPercentCompleteForAnalysisSubmission(AnalysisSubmission analysisSubmission)
+			throws NoPercentageCompleteException {
+		AnalysisState analysisState = analysisSubmission.getAnalysisState();
+
+		if (AnalysisState.RUNNING.equals(analysisState)) {
+			AnalysisProgressSnapshot snapshot = analysisProgressStore.getSnapshot(analysisSubmission.getId());
+			return getRunningPercentComplete(snapshot == null ? 0.0f : snapshot.getProportionComplete());
+		} else if (STATE_PERCENTAGE.containsKey(analysisState)) {
+			return STATE_PERCENTAGE.get(analysisState);
+		} else {
+			throw new NoPercentageCompleteException("No valid percent complete for state " + analysisState);
+		}
+	}
+
+	/**
+	 * Scale the proportion of jobs complete in the execution manager to the
+	 * percent complete for a running analysis.
+	 *
+	 * @param proportionComplete
+	 *            the proportion of jobs complete.
+	 * @return the percent complete for the analysis.
+	 */
+	private static float getRunningPercentComplete(float proportionComplete) {
+		return RUNNING_PERCENT + (FINISHED_RUNNING_PERCENT - RUNNING_PERCENT) * proportionComplete;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
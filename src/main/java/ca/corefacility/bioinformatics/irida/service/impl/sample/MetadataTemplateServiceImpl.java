@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.impl.sample;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -149,22 +150,39 @@ public class MetadataTemplateServiceImpl extends CRUDServiceImpl<Long, MetadataT
 	@Transactional
 	@PreAuthorize("permitAll()")
 	public Map<MetadataTemplateField, MetadataEntry> getMetadataMap(Map<String, MetadataEntry> metadataMap) {
+		Map<String, MetadataTemplateField> fields = getOrCreateMetadataFields(metadataMap.keySet());
+
 		Map<MetadataTemplateField, MetadataEntry> metadata = new HashMap<>();
-		metadataMap.entrySet().forEach(e -> {
+		metadataMap.entrySet().forEach(e -> metadata.put(fields.get(e.getKey()), e.getValue()));
 
-			// get the metadatatemplatefield if it exists
-			MetadataTemplateField field = readMetadataFieldByLabel(e.getKey());
+		return metadata;
+	}
 
-			// if not, create a new one
-			if (field == null) {
-				field = new MetadataTemplateField(e.getKey(), "text");
-				field = saveMetadataField(field);
-			}
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("permitAll()")
+	public Map<String, MetadataTemplateField> getOrCreateMetadataFields(Collection<String> labels) {
+		Map<String, MetadataTemplateField> fields = new HashMap<>();
+		if (labels.isEmpty()) {
+			return fields;
+		}
+
+		// get the metadatatemplatefields that exist
+		for (MetadataTemplateField field : fieldRepository.findMetadataFieldsByLabels(labels)) {
+			fields.putIfAbsent(field.getLabel(), field);
+		}
 
-			metadata.put(field, e.getValue());
-		});
+		// and create new ones for the rest
+		for (String label : labels) {
+			if (!fields.containsKey(label)) {
+				fields.put(label, saveMetadataField(new MetadataTemplateField(label, "text")));
+			}
+		}
 
-		return metadata;
+		return fields;
 	}
 
 	/**
@@ -13,6 +13,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
@@ -24,6 +25,8 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Iterables;
+
 import ca.corefacility.bioinformatics.irida.exceptions.EntityNotFoundException;
 import ca.corefacility.bioinformatics.irida.exceptions.InvalidPropertyException;
 import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisException;
@@ -34,9 +37,11 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.user.User;
@@ -54,8 +59,10 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.Sequencing
 import ca.corefacility.bioinformatics.irida.repositories.specification.ProjectSampleJoinSpecification;
 import ca.corefacility.bioinformatics.irida.repositories.specification.ProjectSampleSpecification;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndex;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -69,6 +76,11 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 
 	private static final Logger logger = LoggerFactory.getLogger(SampleServiceImpl.class);
 
+	/**
+	 * Number of sample names to look up in each query.
+	 */
+	private static final int SAMPLE_NAME_LOOKUP_SIZE = 1000;
+
 	/**
 	 * Reference to {@link SampleRepository} for managing {@link Sample}.
 	 */
@@ -94,6 +106,10 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 
 	private final UserRepository userRepository;
 
+	private final SearchIndex searchIndex;
+
+	private final ProjectMembershipCache membershipCache;
+
 	/**
 	 * Constructor.
 	 *
@@ -105,13 +121,16 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 	 * @param qcEntryRepository                  a repository for storing and reading {@link QCEntry}
 	 * @param sampleGenomeAssemblyJoinRepository A {@link SampleGenomeAssemblyJoinRepository}
 	 * @param userRepository                     A {@link UserRepository}
+	 * @param searchIndex                        the index used to search for samples
+	 * @param membershipCache                    the projects users are on, used to limit searches
 	 * @param validator                          validator.
 	 */
 	@Autowired
 	public SampleServiceImpl(SampleRepository sampleRepository, ProjectSampleJoinRepository psjRepository,
 			final AnalysisRepository analysisRepository, SampleSequencingObjectJoinRepository ssoRepository,
 			QCEntryRepository qcEntryRepository, SequencingObjectRepository sequencingObjectRepository,
-			SampleGenomeAssemblyJoinRepository sampleGenomeAssemblyJoinRepository, UserRepository userRepository, Validator validator) {
+			SampleGenomeAssemblyJoinRepository sampleGenomeAssemblyJoinRepository, UserRepository userRepository,
+			SearchIndex searchIndex, ProjectMembershipCache membershipCache, Validator validator) {
 		super(sampleRepository, validator, Sample.class);
 		this.sampleRepository = sampleRepository;
 		this.psjRepository = psjRepository;
@@ -121,6 +140,8 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		this.sequencingObjectRepository = sequencingObjectRepository;
 		this.userRepository = userRepository;
 		this.sampleGenomeAssemblyJoinRepository = sampleGenomeAssemblyJoinRepository;
+		this.searchIndex = searchIndex;
+		this.membershipCache = membershipCache;
 	}
 
 	/**
@@ -222,6 +243,50 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		}
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasAnyRole('ROLE_ADMIN', 'ROLE_SEQUENCER') or hasPermission(#project, 'canReadProject')")
+	public Map<String, Long> getSampleIdsBySampleName(Project project, Collection<String> sampleNames) {
+		Map<String, Long> sampleIds = new HashMap<>();
+		// keep the number of query parameters reasonable for large lists of names
+		for (List<String> names : Iterables.partition(new HashSet<>(sampleNames), SAMPLE_NAME_LOOKUP_SIZE)) {
+			for (Object[] row : sampleRepository.getSampleIdsBySampleName(project, names)) {
+				sampleIds.put((String) row[0], (Long) row[1]);
+			}
+		}
+		return sampleIds;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	@Transactional
+	@PreAuthorize("hasRole('ROLE_ADMIN') or ((hasRole('ROLE_SEQUENCER') or hasPermission(#project, 'canReadProject')) and hasPermission(#metadata.keySet(), 'canUpdateSample'))")
+	public Set<Long> mergeSampleMetadata(Project project,
+			Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata) {
+		if (metadata.isEmpty()) {
+			return Collections.emptySet();
+		}
+
+		// the entries are written in batches with JDBC, the samples stay
+		// attached to this transaction so that their new modified dates are
+		// audited in the same revision
+		Date modifiedDate = new Date();
+		Map<Long, Map<MetadataTemplateField, MetadataEntry>> inProject = new HashMap<>();
+		for (Sample sample : sampleRepository.getSamplesWithMetadata(project, metadata.keySet())) {
+			inProject.put(sample.getId(), metadata.get(sample.getId()));
+			sample.setModifiedDate(modifiedDate);
+		}
+		sampleRepository.mergeMetadataEntries(inProject);
+
+		logger.trace("Merged metadata into " + inProject.size() + " samples in project " + project.getId());
+		return inProject.keySet();
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -250,6 +315,16 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 		return samplesForProjectShallow;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Transactional(readOnly = true)
+	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#project, 'canReadProject')")
+	@Override
+	public List<Sample> getSamplesForProjectModifiedSince(Project project, Date since) {
+		return psjRepository.getSamplesForProjectModifiedSince(project, since);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -494,6 +569,12 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 
 		final PageRequest pr = new PageRequest(page, count, sort);
 
+		final Set<Long> projectIds = membershipCache.getProjectIds(loggedIn.getUsername());
+		final Optional<Set<Long>> sampleIds = searchIndex.findSampleIds(query, projectIds);
+		if (sampleIds.isPresent()) {
+			return findSamplesInProjects(sampleIds.get(), projectIds, pr);
+		}
+
 		return psjRepository.findAll(sampleForUserSpecification(loggedIn, query), pr);
 	}
 
@@ -506,9 +587,38 @@ public class SampleServiceImpl extends CRUDServiceImpl<Long, Sample> implements
 			final Sort sort) {
 		final PageRequest pr = new PageRequest(page, count, sort);
 
+		final Optional<Set<Long>> sampleIds = searchIndex.findSampleIds(query, null);
+		if (sampleIds.isPresent()) {
+			return findSamplesInProjects(sampleIds.get(), null, pr);
+		}
+
 		return psjRepository.findAll(sampleForUserSpecification(null, query), pr);
 	}
 
+	/**
+	 * Get a page of the {@link ProjectSampleJoin}s for samples found in the
+	 * search index.
+	 *
+	 * @param sampleIds
+	 *            the identifiers of the samples that were found.
+	 * @param projectIds
+	 *            the projects to get joins for, or null for any project.
+	 * @param pr
+	 *            the page to get.
+	 * @return the page of joins.
+	 */
+	private Page<ProjectSampleJoin> findSamplesInProjects(final Set<Long> sampleIds, final Set<Long> projectIds,
+			final PageRequest pr) {
+		if (sampleIds.isEmpty() || (projectIds != null && projectIds.isEmpty())) {
+			return new PageImpl<>(new ArrayList<>(), pr, 0);
+		}
+
+		return psjRepository.findAll((root, query, cb) -> {
+			final Predicate samples = root.get("sample").get("id").in(sampleIds);
+			return projectIds == null ? samples : cb.and(samples, root.get("project").get("id").in(projectIds));
+		}, pr);
+	}
+
 	/**
 	 * Verify that the given sort properties array is not null or empty. If it
 	 * is, give a default sort property.
@@ -39,6 +39,7 @@ import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroup
 import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
 import ca.corefacility.bioinformatics.irida.service.impl.CRUDServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.user.UserGroupService;
 
@@ -53,6 +54,7 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	private final UserRepository userRepository;
 	private final UserGroupProjectJoinRepository userGroupProjectJoinRepository;
 	private final UserGroupRepository userGroupRepository;
+	private final ProjectMembershipCache membershipCache;
 
 	/**
 	 * Create a new {@link UserGroupServiceImpl}.
@@ -65,18 +67,23 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	 *            the {@link UserRepository}
 	 * @param userGroupProjectJoinRepository
 	 *            The {@link UserGroupProjectJoinRepository}
+	 * @param membershipCache
+	 *            the {@link ProjectMembershipCache} to refresh when group
+	 *            membership changes
 	 * @param validator
 	 *            the {@link Validator}
 	 */
 	@Autowired
 	public UserGroupServiceImpl(final UserGroupRepository userGroupRepository,
 			final UserGroupJoinRepository userGroupJoinRepository, final UserRepository userRepository,
-			final UserGroupProjectJoinRepository userGroupProjectJoinRepository, final Validator validator) {
+			final UserGroupProjectJoinRepository userGroupProjectJoinRepository,
+			final ProjectMembershipCache membershipCache, final Validator validator) {
 		super(userGroupRepository, validator, UserGroup.class);
 		this.userGroupRepository = userGroupRepository;
 		this.userGroupJoinRepository = userGroupJoinRepository;
 		this.userRepository = userRepository;
 		this.userGroupProjectJoinRepository = userGroupProjectJoinRepository;
+		this.membershipCache = membershipCache;
 	}
 
 	/**
@@ -118,6 +125,8 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#id, 'canUpdateUserGroup')")
 	public void delete(Long id) throws EntityNotFoundException {
 		super.delete(id);
+		// the group may have been on any number of projects
+		membershipCache.invalidateAll();
 	}
 
 	/**
@@ -219,9 +228,10 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 	@Override
 	@PreAuthorize("hasRole('ROLE_ADMIN') or hasPermission(#userGroup, 'canUpdateUserGroup')")
 	public UserGroupJoin addUserToGroup(final User user, final UserGroup userGroup, final UserGroupRole role) {
-		final UserGroupJoin join = new UserGroupJoin(user, userGroup, role);
+		final UserGroupJoin join = userGroupJoinRepository.save(new UserGroupJoin(user, userGroup, role));
+		membershipCache.invalidate(user.getUsername());
 
-		return userGroupJoinRepository.save(join);
+		return join;
 	}
 
 	/**
@@ -256,6 +266,7 @@ public class UserGroupServiceImpl extends CRUDServiceImpl<Long, UserGroup> imple
 		}
 
 		userGroupJoinRepository.delete(join);
+		membershipCache.invalidate(user.getUsername());
 	}
 
 	/**
@@ -28,22 +28,39 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 /**
  * Service class to run a project synchornization task. Ths class will be
  * responsible for communicating with Remote IRIDA installations and pulling
  * metadata and sequencing data into the local installation.
+ * 
+ * Marked projects are synchronized in parallel on the project sync executor,
+ * and the samples in each project are synchronized in parallel on the sample
+ * sync executor. The number of samples being synchronized from a single
+ * {@link RemoteAPI} at once is capped so one large project can't flood a
+ * remote installation with requests.
  */
 @Service
 public class ProjectSynchronizationService {
 	private static final Logger logger = LoggerFactory.getLogger(ProjectSynchronizationService.class);
 
+	// how far before the last synchronization to look for remote changes
+	private static final long CLOCK_SKEW_ALLOWANCE = 60 * 60 * 1000; // 1 hour
+
 	private ProjectService projectService;
 	private SampleService sampleService;
 	private SequencingObjectService objectService;
@@ -55,11 +72,56 @@ public class ProjectSynchronizationService {
 	private SequenceFilePairRemoteService pairRemoteService;
 	private RemoteAPITokenService tokenService;
 
+	private TaskExecutor projectExecutor;
+	private TaskExecutor sampleExecutor;
+	private int samplesPerApi;
+
+	// samples being synchronized from each remote API
+	private final Map<RemoteAPI, Semaphore> apiPermits = new ConcurrentHashMap<>();
+
+	// metadata fields are created on the fly, so samples that introduce the
+	// same new field must not create it concurrently
+	private final Object metadataFieldLock = new Object();
+
+	/**
+	 * Create a new {@link ProjectSynchronizationService}
+	 * 
+	 * @param projectService
+	 *            the local {@link ProjectService}
+	 * @param sampleService
+	 *            the local {@link SampleService}
+	 * @param objectService
+	 *            the local {@link SequencingObjectService}
+	 * @param metadataTemplateService
+	 *            the local {@link MetadataTemplateService}
+	 * @param projectRemoteService
+	 *            service to read remote projects
+	 * @param sampleRemoteService
+	 *            service to read remote samples
+	 * @param singleEndRemoteService
+	 *            service to read remote single end files
+	 * @param pairRemoteService
+	 *            service to read remote file pairs
+	 * @param tokenService
+	 *            service to refresh OAuth2 tokens
+	 * @param projectExecutor
+	 *            executor to synchronize projects on
+	 * @param sampleExecutor
+	 *            executor to synchronize samples on. This must not be the
+	 *            same executor as the project executor as project tasks wait
+	 *            for their sample tasks.
+	 * @param samplesPerApi
+	 *            the maximum number of samples to synchronize from a single
+	 *            {@link RemoteAPI} at once
+	 */
 	@Autowired
 	public ProjectSynchronizationService(ProjectService projectService, SampleService sampleService,
 			SequencingObjectService objectService, MetadataTemplateService metadataTemplateService, ProjectRemoteService projectRemoteService,
 			SampleRemoteService sampleRemoteService, SingleEndSequenceFileRemoteService singleEndRemoteService,
-			SequenceFilePairRemoteService pairRemoteService, RemoteAPITokenService tokenService) {
+			SequenceFilePairRemoteService pairRemoteService, RemoteAPITokenService tokenService,
+			@Qualifier("projectSyncExecutor") TaskExecutor projectExecutor,
+			@Qualifier("sampleSyncExecutor") TaskExecutor sampleExecutor,
+			@Value("${project.sync.api.concurrency:4}") int samplesPerApi) {
 
 		this.projectService = projectService;
 		this.sampleService = sampleService;
@@ -70,6 +132,9 @@ public class ProjectSynchronizationService {
 		this.singleEndRemoteService = singleEndRemoteService;
 		this.pairRemoteService = pairRemoteService;
 		this.tokenService = tokenService;
+		this.projectExecutor = projectExecutor;
+		this.sampleExecutor = sampleExecutor;
+		this.samplesPerApi = samplesPerApi;
 	}
 
 	/**
@@ -116,7 +181,7 @@ public class ProjectSynchronizationService {
 
 	/**
 	 * Find projects which should be synchronized and launch a synchornization
-	 * task.
+	 * task. Returns once every marked project has been synchronized.
 	 */
 	public synchronized void findMarkedProjectsToSync() {
 		// mark any projects which should be synched first
@@ -126,42 +191,54 @@ public class ProjectSynchronizationService {
 
 		logger.trace("Checking for projects to sync");
 
+		List<CompletableFuture<Void>> projectTasks = new ArrayList<>();
 		for (Project project : markedProjects) {
 			/*
 			 * Set the correct authorization for the user who's syncing the
 			 * project
 			 */
-			User readBy = project.getRemoteStatus().getReadBy();
-			setAuthentication(readBy);
+			SecurityContext context = createSecurityContext(project.getRemoteStatus().getReadBy());
 
-			logger.trace("Syncing project at " + project.getRemoteStatus().getURL());
+			projectTasks.add(CompletableFuture.runAsync(withContext(context, () -> syncMarkedProject(project)),
+					projectExecutor));
+		}
 
-			try {
-				RemoteAPI api = project.getRemoteStatus().getApi();
-				tokenService.updateTokenFromRefreshToken(api);
-
-				syncProject(project);
-			} catch (IridaOAuthException e) {
-				logger.trace("Can't sync project " + project.getRemoteStatus().getURL() + " due to oauth error:", e);
-				//re-reading project to get updated version
-				project = projectService.read(project.getId());
-				project.getRemoteStatus().setSyncStatus(SyncStatus.UNAUTHORIZED);
-				projectService.update(project);
-			} catch (Exception e) {
-				logger.debug("An error occurred while synchronizing project " + project.getRemoteStatus().getURL(), e);
-				//re-reading project to get updated version
-				project = projectService.read(project.getId());
-				project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
-				projectService.update(project);
-			} finally {
-				// clear the context holder when you're done
-				SecurityContextHolder.clearContext();
+		// errors are handled in each project task
+		CompletableFuture.allOf(projectTasks.toArray(new CompletableFuture[projectTasks.size()])).join();
+	}
 
-				logger.trace("Done project " + project.getRemoteStatus().getURL());
-			}
+	/**
+	 * Synchronize a single marked {@link Project}, recording any failure in
+	 * its {@link RemoteStatus}. This must be run with the
+	 * {@link ProjectSynchronizationAuthenticationToken} of the user who's
+	 * syncing the project.
+	 * 
+	 * @param project
+	 *            the {@link Project} to synchronize
+	 */
+	private void syncMarkedProject(Project project) {
+		logger.trace("Syncing project at " + project.getRemoteStatus().getURL());
 
+		try {
+			RemoteAPI api = project.getRemoteStatus().getApi();
+			tokenService.updateTokenFromRefreshToken(api);
+
+			syncProject(project);
+		} catch (IridaOAuthException e) {
+			logger.trace("Can't sync project " + project.getRemoteStatus().getURL() + " due to oauth error:", e);
+			//re-reading project to get updated version
+			project = projectService.read(project.getId());
+			project.getRemoteStatus().setSyncStatus(SyncStatus.UNAUTHORIZED);
+			projectService.update(project);
+		} catch (Exception e) {
+			logger.debug("An error occurred while synchronizing project " + project.getRemoteStatus().getURL(), e);
+			//re-reading project to get updated version
+			project = projectService.read(project.getId());
+			project.getRemoteStatus().setSyncStatus(SyncStatus.ERROR);
+			projectService.update(project);
+		} finally {
+			logger.trace("Done project " + project.getRemoteStatus().getURL());
 		}
-
 	}
 
 	/**
@@ -172,6 +249,8 @@ public class ProjectSynchronizationService {
 	 *            from a remote api.
 	 */
 	private void syncProject(Project project) {
+		Date lastSync = project.getRemoteStatus().getLastUpdate();
+
 		project.getRemoteStatus().setSyncStatus(SyncStatus.UPDATING);
 		project.getRemoteStatus().setLastUpdate(new Date());
 		projectService.update(project);
@@ -236,14 +315,11 @@ public class ProjectSynchronizationService {
 			samplesByUrl.remove(localUrl);
 		}
 
-		List<ProjectSynchronizationException> syncExceptions = new ArrayList<>();
-		for (Sample s : readSamplesForProject) {
-			s.setId(null);
-			s = syncSampleMetadata(s);
-			List<ProjectSynchronizationException> syncExceptionsSample = syncSample(s, project, samplesByUrl);
+		List<Sample> samplesToSync = findSamplesToSync(readProject, readSamplesForProject, samplesByUrl, lastSync);
+		logger.debug("Synchronizing " + samplesToSync.size() + " of " + readSamplesForProject.size()
+				+ " samples for project " + readProject.getSelfHref());
 
-			syncExceptions.addAll(syncExceptionsSample);
-		}
+		List<ProjectSynchronizationException> syncExceptions = syncSamples(samplesToSync, project, samplesByUrl);
 
 		// re-read project to ensure any updates are reflected
 		project = projectService.read(project.getId());
@@ -260,6 +336,120 @@ public class ProjectSynchronizationService {
 		projectService.update(project);
 	}
 
+	/**
+	 * Find the remote samples which need to be synchronized. Rather than
+	 * reading the metadata and files for every sample in the project, only
+	 * samples that have changed remotely since the last synchronization, that
+	 * don't exist locally yet, or that weren't successfully synchronized last
+	 * time are synchronized.
+	 * 
+	 * @param readProject
+	 *            the {@link Project} read from the remote api
+	 * @param remoteSamples
+	 *            all {@link Sample}s in the remote project
+	 * @param existingSamples
+	 *            the local samples in the project by their remote URL
+	 * @param lastSync
+	 *            when the project was last synchronized, or null if it's
+	 *            unknown
+	 * @return the {@link Sample}s to synchronize
+	 */
+	private List<Sample> findSamplesToSync(Project readProject, List<Sample> remoteSamples,
+			Map<String, Sample> existingSamples, Date lastSync) {
+		if (lastSync == null) {
+			return remoteSamples;
+		}
+
+		// the clocks of the two installations may not agree
+		Date changedSince = new Date(lastSync.getTime() - CLOCK_SKEW_ALLOWANCE);
+		Set<String> changedUrls = sampleRemoteService.getSamplesForProjectModifiedSince(readProject, changedSince)
+				.stream().map(s -> s.getRemoteStatus().getURL()).collect(Collectors.toSet());
+
+		return remoteSamples.stream().filter(s -> {
+			String url = s.getRemoteStatus().getURL();
+			Sample localSample = existingSamples.get(url);
+
+			return localSample == null || changedUrls.contains(url)
+					|| localSample.getRemoteStatus().getSyncStatus() != SyncStatus.SYNCHRONIZED;
+		}).collect(Collectors.toList());
+	}
+
+	/**
+	 * Synchronize the samples read from a remote project in parallel. Each
+	 * sample task runs with the caller's security context. If a sample fails
+	 * with anything other than a {@link ProjectSynchronizationException}, no
+	 * more samples are started and the failure is rethrown once the running
+	 * samples have finished.
+	 * 
+	 * @param samples
+	 *            the {@link Sample}s read from the remote api
+	 * @param project
+	 *            the local {@link Project} the samples belong in
+	 * @param existingSamples
+	 *            the local samples in the project by their remote URL
+	 * @return A list of {@link ProjectSynchronizationException}s, empty if no
+	 *         errors.
+	 */
+	private List<ProjectSynchronizationException> syncSamples(List<Sample> samples, Project project,
+			Map<String, Sample> existingSamples) {
+		SecurityContext context = SecurityContextHolder.getContext();
+		Semaphore permits = apiPermits.computeIfAbsent(project.getRemoteStatus().getApi(),
+				api -> new Semaphore(samplesPerApi));
+
+		List<ProjectSynchronizationException> syncExceptions = Collections.synchronizedList(new ArrayList<>());
+		AtomicReference<RuntimeException> failure = new AtomicReference<>();
+		List<CompletableFuture<Void>> sampleTasks = new ArrayList<>();
+
+		for (Sample sample : samples) {
+			if (failure.get() != null) {
+				break;
+			}
+
+			try {
+				permits.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ProjectSynchronizationException("Interrupted while synchronizing project " + project.getId(),
+						e);
+			}
+
+			Runnable syncTask = withContext(context, () -> {
+				if (failure.get() != null) {
+					return;
+				}
+
+				try {
+					sample.setId(null);
+					Sample withMetadata = syncSampleMetadata(sample);
+					syncExceptions.addAll(syncSample(withMetadata, project, existingSamples));
+				} catch (RuntimeException e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+
+			try {
+				sampleTasks.add(CompletableFuture.runAsync(syncTask, sampleExecutor)
+						.whenComplete((result, e) -> permits.release()));
+			} catch (RuntimeException e) {
+				permits.release();
+				throw e;
+			}
+		}
+
+		try {
+			CompletableFuture.allOf(sampleTasks.toArray(new CompletableFuture[sampleTasks.size()])).join();
+		} catch (CompletionException e) {
+			failure.compareAndSet(null, new ProjectSynchronizationException(
+					"Could not synchronize samples for project " + project.getId(), e.getCause()));
+		}
+
+		if (failure.get() != null) {
+			throw failure.get();
+		}
+
+		return syncExceptions;
+	}
+
 	/**
 	 * Synchronize a given {@link Sample} to the local installation.
 	 *
@@ -364,7 +554,10 @@ public class ProjectSynchronizationService {
 		
 		sampleMetadata.values().forEach(e -> e.setId(null));
 		
-		Map<MetadataTemplateField, MetadataEntry> metadata = metadataTemplateService.getMetadataMap(sampleMetadata);
+		Map<MetadataTemplateField, MetadataEntry> metadata;
+		synchronized (metadataFieldLock) {
+			metadata = metadataTemplateService.getMetadataMap(sampleMetadata);
+		}
 		sample.setMetadata(metadata);
 		
 		return sample;
@@ -469,17 +662,41 @@ public class ProjectSynchronizationService {
 	}
 
 	/**
-	 * Set the given user's authentication in the SecurityContextHolder
+	 * Create a {@link SecurityContext} holding the given user's
+	 * {@link ProjectSynchronizationAuthenticationToken}
 	 * 
 	 * @param user
-	 *            The {@link User} to set in the context holder
+	 *            The {@link User} to authenticate as
+	 * @return a new {@link SecurityContext} for the user
 	 */
-	private void setAuthentication(User user) {
+	private SecurityContext createSecurityContext(User user) {
 		ProjectSynchronizationAuthenticationToken userAuthentication = new ProjectSynchronizationAuthenticationToken(
 				user);
 
 		SecurityContext context = SecurityContextHolder.createEmptyContext();
 		context.setAuthentication(userAuthentication);
-		SecurityContextHolder.setContext(context);
+		return context;
+	}
+
+	/**
+	 * Wrap a task so that it runs with the given {@link SecurityContext},
+	 * restoring the worker's previous context when it's done.
+	 * 
+	 * @param context
+	 *            the {@link SecurityContext} to run the task with
+	 * @param task
+	 *            the task to run
+	 * @return the wrapped task
+	 */
+	private Runnable withContext(SecurityContext context, Runnable task) {
+		return () -> {
+			SecurityContext previous = SecurityContextHolder.getContext();
+			SecurityContextHolder.setContext(context);
+			try {
+				task.run();
+			} finally {
+				SecurityContextHolder.setContext(previous);
+			}
+		};
 	}
 }
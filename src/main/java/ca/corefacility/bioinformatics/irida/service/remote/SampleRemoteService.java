@@ -1,5 +1,6 @@
 package ca.corefacility.bioinformatics.irida.service.remote;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -23,6 +24,20 @@ public interface SampleRemoteService extends RemoteService<Sample> {
 	 */
 	public List<Sample> getSamplesForProject(Project project);
 
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that have changed on the
+	 * remote installation since a given date. Remote installations that don't
+	 * support listing changed samples will return every {@link Sample} in the
+	 * {@link Project}.
+	 * 
+	 * @param project
+	 *            The {@link Project} to get samples from
+	 * @param since
+	 *            the date to look for changes after
+	 * @return A List of the changed {@link Sample}s
+	 */
+	public List<Sample> getSamplesForProjectModifiedSince(Project project, Date since);
+
 	/**
 	 * Get the {@link Sample} metadata for a remote sample
 	 * 
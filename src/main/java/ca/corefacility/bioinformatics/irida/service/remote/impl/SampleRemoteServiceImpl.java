@@ -1,11 +1,13 @@
 package ca.corefacility.bioinformatics.irida.service.remote.impl;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.hateoas.Link;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
@@ -13,6 +15,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.repositories.RemoteAPIRepository;
 import ca.corefacility.bioinformatics.irida.repositories.remote.SampleRemoteRepository;
 import ca.corefacility.bioinformatics.irida.service.remote.SampleRemoteService;
+import ca.corefacility.bioinformatics.irida.web.controller.api.projects.RESTProjectSamplesController;
 
 /**
  * Implementation of {@link SampleRemoteService} using
@@ -45,6 +48,17 @@ public class SampleRemoteServiceImpl extends RemoteServiceImpl<Sample> implement
 		return list(samplesHref, project.getRemoteStatus().getApi());
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public List<Sample> getSamplesForProjectModifiedSince(Project project, Date since) {
+		Link link = project.getLink(PROJECT_SAMPLES_REL);
+		String samplesHref = UriComponentsBuilder.fromHttpUrl(link.getHref())
+				.queryParam(RESTProjectSamplesController.MODIFIED_SINCE_PARAM, since.getTime()).toUriString();
+		return list(samplesHref, project.getRemoteStatus().getApi());
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -8,6 +8,7 @@ import ca.corefacility.bioinformatics.irida.model.sample.StaticMetadataTemplateF
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.service.CRUDService;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -117,6 +118,15 @@ public interface MetadataTemplateService extends CRUDService<Long, MetadataTempl
 	 */
 	public Map<MetadataTemplateField, MetadataEntry> getMetadataMap(Map<String, MetadataEntry> metadata);
 
+	/**
+	 * Get the {@link MetadataTemplateField}s with the given labels, creating a text field for any label that doesn't
+	 * have one yet. Existing fields are read with a single query.
+	 *
+	 * @param labels the {@link String} field labels
+	 * @return a Map of label to {@link MetadataTemplateField}
+	 */
+	public Map<String, MetadataTemplateField> getOrCreateMetadataFields(Collection<String> labels);
+
 	/**
 	 * Get all the {@link MetadataTemplateField}s on a given {@link Project}
 	 *
@@ -3,6 +3,8 @@ package ca.corefacility.bioinformatics.irida.service.sample;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
@@ -16,10 +18,12 @@ import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.SampleGenomeAssemblyJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ReferenceFile;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.service.CRUDService;
@@ -76,6 +80,21 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 */
 	public List<Sample> getSamplesForProjectShallow(Project project);
 
+	/**
+	 * Get the {@link Sample}s in a {@link Project} that have changed since a
+	 * given date. A {@link Sample} has changed if it was created, modified,
+	 * added to the {@link Project}, or had a sequencing object added to it
+	 * after the date. Note: This method will not return any metadata or
+	 * associated objects.
+	 *
+	 * @param project
+	 *            The {@link Project} to get samples for
+	 * @param since
+	 *            the date to look for changes after
+	 * @return a List of the changed {@link Sample}s
+	 */
+	public List<Sample> getSamplesForProjectModifiedSince(Project project, Date since);
+
 	/**
 	 * Get a list of {@link Sample} in a {@link Project} given some Sample ids.
 	 * @param project {@link Project} to get samples for.
@@ -135,6 +154,35 @@ public interface SampleService extends CRUDService<Long, Sample> {
 	 * @return A {@link Sample} with the given ID
 	 */
 	public Sample getSampleBySampleName(Project project, String sampleName);
+
+	/**
+	 * Get the identifiers of the {@link Sample}s in a {@link Project} with the
+	 * given names. Names are looked up in bulk rather than one at a time.
+	 *
+	 * @param project
+	 *            the {@link Project} that the {@link Sample}s belong to.
+	 * @param sampleNames
+	 *            the names of the samples to find.
+	 * @return the identifier of each sample that was found, by name. Names
+	 *         without a sample in the project are left out.
+	 */
+	public Map<String, Long> getSampleIdsBySampleName(Project project, Collection<String> sampleNames);
+
+	/**
+	 * Merge {@link MetadataEntry}s into {@link Sample}s in a {@link Project}.
+	 * Every sample is written in one transaction, and the entries are sent to
+	 * the database in batches. The user must be allowed to update every
+	 * sample.
+	 *
+	 * @param project
+	 *            the {@link Project} the {@link Sample}s are in.
+	 * @param metadata
+	 *            the plain metadata entries to merge, by sample identifier.
+	 * @return the identifiers of the samples that were updated. Samples that
+	 *         aren't in the project are not updated.
+	 */
+	public Set<Long> mergeSampleMetadata(Project project,
+			Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata);
 	
 	/**
 	 * Remove a {@link SequencingObject} from a given {@link Sample}. This will
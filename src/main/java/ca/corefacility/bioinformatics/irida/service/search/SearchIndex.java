@@ -0,0 +1,469 @@
+package ca.corefacility.bioinformatics.irida.service.search;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+
+/**
+ * A search index over {@link Sample} names and identifiers and {@link Project}
+ * names, organisms and identifiers. Searching the index finds the identifiers
+ * of matching samples and projects without scanning the tables with
+ * {@code LIKE '%term%'}, which the database can't serve from an index. The
+ * index matches the same fields as the database searches it stands in for,
+ * so a search finds the same entities whichever answers it.
+ * <p>
+ * The index is built from the database in the background at startup, and
+ * then kept up to date from entity lifecycle events (see
+ * {@link SearchIndexListener}) as transactions commit. Those events only
+ * come from this server, so the index is also rebuilt from the database on a
+ * schedule to pick up changes made by other servers sharing the database
+ * (synchronizing remote projects, or a second web server, for example). If
+ * rebuilds stop succeeding, searches go back to the database once the index
+ * is more than two rebuild intervals old. The index is only kept in memory:
+ * changes made while the server is down can't be seen, so an index written
+ * by a previous run could not be searched before the rebuild anyway.
+ * <p>
+ * Searches return an empty {@link Optional} when the index can't answer them
+ * (it's disabled or not built yet, the term is blank, or too many entities
+ * match), and callers should fall back to searching the database.
+ */
+@Component
+public class SearchIndex {
+	private static final Logger logger = LoggerFactory.getLogger(SearchIndex.class);
+
+	private static final int REBUILD_BATCH_SIZE = 5000;
+
+	private final SampleRepository sampleRepository;
+	private final ProjectSampleJoinRepository psjRepository;
+	private final ProjectRepository projectRepository;
+
+	private final TaskScheduler scheduler;
+	private final Clock clock;
+
+	private final boolean enabled;
+	private final int maxResults;
+	private final Duration rebuildInterval;
+
+	private TrigramIndex samples = new TrigramIndex();
+	private TrigramIndex projects = new TrigramIndex();
+	private volatile boolean ready = false;
+	// when the rebuild that built the current index started reading
+	private volatile Instant builtFrom = Instant.MIN;
+	private ScheduledFuture<?> rebuildTask;
+
+	// only one rebuild runs at a time, so that an older rebuild can't replace
+	// the index built by a newer one
+	private final Object rebuildLock = new Object();
+
+	// updates made while the index is being rebuilt are applied again to the
+	// rebuilt index, since the rebuild may have read the database before they
+	// were committed
+	private List<IndexUpdate> updatesDuringRebuild = null;
+
+	/**
+	 * Construct a new {@link SearchIndex}.
+	 *
+	 * @param sampleRepository
+	 *            repository used to read samples when building the index.
+	 * @param psjRepository
+	 *            repository used to read the projects of samples when building
+	 *            the index.
+	 * @param projectRepository
+	 *            repository used to read projects when building the index.
+	 * @param scheduler
+	 *            scheduler the index is rebuilt with.
+	 * @param enabled
+	 *            whether searches should use the index.
+	 * @param maxResults
+	 *            the most matches the index returns for a search. Searches
+	 *            matching more than this are left to the database.
+	 * @param rebuildInterval
+	 *            the number of seconds between rebuilds of the index.
+	 */
+	@Autowired
+	public SearchIndex(final SampleRepository sampleRepository, final ProjectSampleJoinRepository psjRepository,
+			final ProjectRepository projectRepository, @Qualifier("searchIndexScheduler") final TaskScheduler scheduler,
+			@Value("${search.index.enabled:true}") final boolean enabled,
+			@Value("${search.index.max-results:10000}") final int maxResults,
+			@Value("${search.index.rebuild-interval:300}") final long rebuildInterval) {
+		this(sampleRepository, psjRepository, projectRepository, scheduler, enabled, maxResults,
+				Duration.ofSeconds(rebuildInterval), Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link SearchIndex} that tells the age of the index
+	 * with the given {@link Clock}.
+	 *
+	 * @param sampleRepository
+	 *            repository used to read samples when building the index.
+	 * @param psjRepository
+	 *            repository used to read the projects of samples when building
+	 *            the index.
+	 * @param projectRepository
+	 *            repository used to read projects when building the index.
+	 * @param scheduler
+	 *            scheduler the index is rebuilt with.
+	 * @param enabled
+	 *            whether searches should use the index.
+	 * @param maxResults
+	 *            the most matches the index returns for a search. Searches
+	 *            matching more than this are left to the database.
+	 * @param rebuildInterval
+	 *            the time between rebuilds of the index.
+	 * @param clock
+	 *            the {@link Clock} used to tell how old the index is.
+	 */
+	public SearchIndex(final SampleRepository sampleRepository, final ProjectSampleJoinRepository psjRepository,
+			final ProjectRepository projectRepository, final TaskScheduler scheduler, final boolean enabled,
+			final int maxResults, final Duration rebuildInterval, final Clock clock) {
+		checkArgument(!rebuildInterval.isNegative() && !rebuildInterval.isZero(),
+				"search.index.rebuild-interval=" + rebuildInterval.getSeconds() + " must be > 0");
+		this.sampleRepository = sampleRepository;
+		this.psjRepository = psjRepository;
+		this.projectRepository = projectRepository;
+		this.scheduler = scheduler;
+		this.enabled = enabled;
+		this.maxResults = maxResults;
+		this.rebuildInterval = rebuildInterval;
+		this.clock = clock;
+	}
+
+	/**
+	 * Start building the index from the database in the background, and
+	 * rebuilding it every rebuild interval. Searches use the database until
+	 * it's built.
+	 */
+	@PostConstruct
+	public synchronized void start() {
+		if (!enabled) {
+			logger.debug("Search index is disabled, searches will use the database.");
+			return;
+		}
+
+		SearchIndexListener.setSearchIndex(this);
+		rebuildTask = scheduler.scheduleWithFixedDelay(this::rebuild, rebuildInterval.toMillis());
+	}
+
+	/**
+	 * Stop keeping the index up to date. Searches use the database from now
+	 * on, until the index is rebuilt.
+	 */
+	@PreDestroy
+	public synchronized void stop() {
+		if (rebuildTask != null) {
+			rebuildTask.cancel(false);
+			rebuildTask = null;
+		}
+		SearchIndexListener.setSearchIndex(null);
+		ready = false;
+	}
+
+	/**
+	 * Find the {@link Sample}s whose name contains a term, or whose identifier
+	 * is the term.
+	 *
+	 * @param term
+	 *            the term to search for.
+	 * @param projectIds
+	 *            only samples in these projects are found, or null to find
+	 *            samples in any project.
+	 * @return the identifiers of the matching samples, or empty if the index
+	 *         can't answer the search.
+	 */
+	public Optional<Set<Long>> findSampleIds(final String term, final Set<Long> projectIds) {
+		if (!canSearch(term)) {
+			return Optional.empty();
+		}
+
+		final Optional<Set<Long>> found = currentSamples().search(term, projectIds, maxResults);
+		// samples are also found by their exact identifier
+		final Long id = parseId(term);
+		if (found.isPresent() && id != null) {
+			final Set<Long> withId = new LinkedHashSet<>(found.get());
+			withId.add(id);
+			return Optional.of(withId);
+		}
+		return found;
+	}
+
+	/**
+	 * Find the {@link Project}s whose name, organism or identifier contains a
+	 * term.
+	 *
+	 * @param term
+	 *            the term to search for.
+	 * @param projectIds
+	 *            only these projects are found, or null to find any project.
+	 * @return the identifiers of the matching projects, or empty if the index
+	 *         can't answer the search.
+	 */
+	public Optional<Set<Long>> findProjectIds(final String term, final Set<Long> projectIds) {
+		if (!canSearch(term)) {
+			return Optional.empty();
+		}
+		return currentProjects().search(term, projectIds, maxResults);
+	}
+
+	/**
+	 * Index a sample that was created or changed, once the current
+	 * transaction commits.
+	 *
+	 * @param sample
+	 *            the sample.
+	 */
+	void sampleSaved(final Sample sample) {
+		final long id = sample.getId();
+		final String text = Strings.nullToEmpty(sample.getSampleName());
+		afterCommit((s, p) -> s.putText(id, text));
+	}
+
+	/**
+	 * Remove a deleted sample from the index, once the current transaction
+	 * commits.
+	 *
+	 * @param sampleId
+	 *            the identifier of the sample.
+	 */
+	void sampleRemoved(final long sampleId) {
+		afterCommit((s, p) -> s.remove(sampleId));
+	}
+
+	/**
+	 * Record that a sample was added to a project, once the current
+	 * transaction commits.
+	 *
+	 * @param sampleId
+	 *            the identifier of the sample.
+	 * @param projectId
+	 *            the identifier of the project.
+	 */
+	void sampleAddedToProject(final long sampleId, final long projectId) {
+		afterCommit((s, p) -> s.addFilter(sampleId, projectId));
+	}
+
+	/**
+	 * Record that a sample was removed from a project, once the current
+	 * transaction commits.
+	 *
+	 * @param sampleId
+	 *            the identifier of the sample.
+	 * @param projectId
+	 *            the identifier of the project.
+	 */
+	void sampleRemovedFromProject(final long sampleId, final long projectId) {
+		afterCommit((s, p) -> s.removeFilter(sampleId, projectId));
+	}
+
+	/**
+	 * Index a project that was created or changed, once the current
+	 * transaction commits.
+	 *
+	 * @param project
+	 *            the project.
+	 */
+	void projectSaved(final Project project) {
+		final long id = project.getId();
+		final String text = projectText(id, project.getName(), project.getOrganism());
+		afterCommit((s, p) -> p.put(id, text, ImmutableSet.of(id)));
+	}
+
+	/**
+	 * Remove a deleted project from the index, once the current transaction
+	 * commits.
+	 *
+	 * @param projectId
+	 *            the identifier of the project.
+	 */
+	void projectRemoved(final long projectId) {
+		afterCommit((s, p) -> p.remove(projectId));
+	}
+
+	/**
+	 * Build the index from the database, replacing the current index when
+	 * it's done. A rebuild started while another is running waits for it to
+	 * finish.
+	 */
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			try {
+				synchronized (this) {
+					updatesDuringRebuild = new ArrayList<>();
+				}
+
+				final long start = System.currentTimeMillis();
+				final Instant readFrom = clock.instant();
+				final TrigramIndex rebuiltSamples = buildSampleIndex();
+				final TrigramIndex rebuiltProjects = buildProjectIndex();
+
+				synchronized (this) {
+					for (final IndexUpdate update : updatesDuringRebuild) {
+						update.apply(rebuiltSamples, rebuiltProjects);
+					}
+					updatesDuringRebuild = null;
+					samples = rebuiltSamples;
+					projects = rebuiltProjects;
+					builtFrom = readFrom;
+					ready = true;
+				}
+				logger.info("Built search index of " + rebuiltSamples.size() + " samples and "
+						+ rebuiltProjects.size() + " projects in " + (System.currentTimeMillis() - start) + "ms");
+			} catch (RuntimeException e) {
+				synchronized (this) {
+					updatesDuringRebuild = null;
+				}
+				logger.error("Could not build the search index, searches will use the database.", e);
+			}
+		}
+	}
+
+	private boolean canSearch(final String term) {
+		return ready && isFresh() && !Strings.isNullOrEmpty(term) && !term.trim().isEmpty();
+	}
+
+	/**
+	 * The index is fresh enough to search while the last rebuild read the
+	 * database less than two rebuild intervals ago, leaving one interval for
+	 * the next rebuild to finish.
+	 */
+	private boolean isFresh() {
+		final boolean fresh = clock.instant().isBefore(builtFrom.plus(rebuildInterval.multipliedBy(2)));
+		if (!fresh) {
+			logger.debug("Search index was last rebuilt from the database at " + builtFrom
+					+ ", searches will use the database until it's rebuilt.");
+		}
+		return fresh;
+	}
+
+	private synchronized TrigramIndex currentSamples() {
+		return samples;
+	}
+
+	private synchronized TrigramIndex currentProjects() {
+		return projects;
+	}
+
+	/**
+	 * Apply an update to the index once the current transaction commits, or
+	 * now if there's no transaction. Updates are applied after commit so that
+	 * a rolled back change is never searchable.
+	 */
+	private void afterCommit(final IndexUpdate update) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					apply(update);
+				}
+			});
+		} else {
+			apply(update);
+		}
+	}
+
+	private synchronized void apply(final IndexUpdate update) {
+		update.apply(samples, projects);
+		if (updatesDuringRebuild != null) {
+			updatesDuringRebuild.add(update);
+		}
+	}
+
+	private TrigramIndex buildSampleIndex() {
+		final TrigramIndex index = new TrigramIndex();
+		Long lastId = 0L;
+		List<Object[]> names = sampleRepository.findSampleNamesAfter(lastId, new PageRequest(0, REBUILD_BATCH_SIZE));
+		while (!names.isEmpty()) {
+			final Long fromId = lastId;
+			lastId = (Long) names.get(names.size() - 1)[0];
+
+			final Map<Long, List<String>> sampleProjects = groupByFirst(
+					psjRepository.findProjectIdsForSamplesBetween(fromId, lastId));
+
+			for (final Object[] name : names) {
+				final Long id = (Long) name[0];
+				final List<Long> projectIds = sampleProjects.getOrDefault(id, new ArrayList<>()).stream()
+						.map(Long::valueOf).collect(Collectors.toList());
+				index.put(id, Strings.nullToEmpty((String) name[1]), projectIds);
+			}
+
+			names = sampleRepository.findSampleNamesAfter(lastId, new PageRequest(0, REBUILD_BATCH_SIZE));
+		}
+		return index;
+	}
+
+	private TrigramIndex buildProjectIndex() {
+		final TrigramIndex index = new TrigramIndex();
+		for (final Object[] project : projectRepository.findProjectSearchFields()) {
+			final Long id = (Long) project[0];
+			index.put(id, projectText(id, (String) project[1], (String) project[2]), ImmutableSet.of(id));
+		}
+		return index;
+	}
+
+	private static String projectText(final Long id, final String name, final String organism) {
+		return Joiner.on('\n').skipNulls().join(name, organism, id);
+	}
+
+	// the database compares the identifier as text, so only a term that's
+	// exactly an identifier finds a sample by it
+	private static Long parseId(final String term) {
+		try {
+			final Long id = Long.valueOf(term);
+			return id.toString().equals(term) ? id : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static Map<Long, List<String>> groupByFirst(final List<Object[]> rows) {
+		final Map<Long, List<String>> grouped = new HashMap<>();
+		for (final Object[] row : rows) {
+			if (row[1] != null) {
+				grouped.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(row[1].toString());
+			}
+		}
+		return grouped;
+	}
+
+	/**
+	 * A change to the sample and project indexes.
+	 */
+	@FunctionalInterface
+	private interface IndexUpdate {
+		void apply(TrigramIndex samples, TrigramIndex projects);
+	}
+}
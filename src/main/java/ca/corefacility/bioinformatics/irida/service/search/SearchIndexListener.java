@@ -0,0 +1,84 @@
+package ca.corefacility.bioinformatics.irida.service.search;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+
+/**
+ * A JPA event listener that keeps the {@link SearchIndex} up to date as
+ * {@link Sample}s, {@link Project}s and {@link ProjectSampleJoin}s are saved
+ * and deleted. JPA creates the listener, so the index is registered with
+ * {@link #setSearchIndex(SearchIndex)} when it starts. Nothing is indexed
+ * while no index is registered.
+ */
+public class SearchIndexListener {
+	private static final Logger logger = LoggerFactory.getLogger(SearchIndexListener.class);
+
+	private static volatile SearchIndex searchIndex;
+
+	/**
+	 * Set the index to keep up to date.
+	 *
+	 * @param index
+	 *            the index, or null to stop indexing.
+	 */
+	static void setSearchIndex(final SearchIndex index) {
+		searchIndex = index;
+	}
+
+	/**
+	 * Index an entity that was created or changed.
+	 *
+	 * @param entity
+	 *            the entity.
+	 */
+	@PostPersist
+	@PostUpdate
+	public void saved(final Object entity) {
+		final SearchIndex index = searchIndex;
+		if (index == null) {
+			return;
+		}
+
+		logger.trace("Indexing saved entity {}", entity);
+		if (entity instanceof Sample) {
+			index.sampleSaved((Sample) entity);
+		} else if (entity instanceof Project) {
+			index.projectSaved((Project) entity);
+		} else if (entity instanceof ProjectSampleJoin) {
+			final ProjectSampleJoin join = (ProjectSampleJoin) entity;
+			index.sampleAddedToProject(join.getObject().getId(), join.getSubject().getId());
+		}
+	}
+
+	/**
+	 * Remove a deleted entity from the index.
+	 *
+	 * @param entity
+	 *            the entity.
+	 */
+	@PostRemove
+	public void removed(final Object entity) {
+		final SearchIndex index = searchIndex;
+		if (index == null) {
+			return;
+		}
+
+		logger.trace("Removing deleted entity {} from the search index", entity);
+		if (entity instanceof Sample) {
+			index.sampleRemoved(((Sample) entity).getId());
+		} else if (entity instanceof Project) {
+			index.projectRemoved(((Project) entity).getId());
+		} else if (entity instanceof ProjectSampleJoin) {
+			final ProjectSampleJoin join = (ProjectSampleJoin) entity;
+			index.sampleRemovedFromProject(join.getObject().getId(), join.getSubject().getId());
+		}
+	}
+}
@@ -0,0 +1,378 @@
+package ca.corefacility.bioinformatics.irida.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * An inverted index from the trigrams (three character substrings) of some
+ * text to the identifiers of the entities the text belongs to. Finding the
+ * entities whose text contains a search term only looks at the entities that
+ * have every trigram of the term, rather than at every entity.
+ * <p>
+ * Each entity can also have a set of filter identifiers (e.g., the projects a
+ * sample belongs to), so that a search can be limited to the entities a user
+ * is allowed to read.
+ * <p>
+ * Text is matched without regard to case. The index is safe to use from
+ * multiple threads.
+ */
+public class TrigramIndex {
+	private static final long[] NO_FILTERS = new long[0];
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// documents are numbered in the order they're added, so posting lists are
+	// always sorted. Updating an entity adds a new document and deletes the
+	// old one.
+	private long[] entityIds = new long[16];
+	private String[] texts = new String[16];
+	private long[][] filters = new long[16][];
+	private final BitSet deleted = new BitSet();
+	private int documentCount = 0;
+	private int deletedCount = 0;
+
+	private final Map<Long, Integer> documentsByEntity = new HashMap<>();
+	private final Map<Long, Postings> postings = new HashMap<>();
+
+	/**
+	 * Add an entity to the index, replacing it if it's already indexed.
+	 *
+	 * @param entityId
+	 *            the identifier of the entity.
+	 * @param text
+	 *            the text to search for the entity.
+	 * @param filterIds
+	 *            the filter identifiers of the entity.
+	 */
+	public void put(final long entityId, final String text, final Collection<Long> filterIds) {
+		lock.writeLock().lock();
+		try {
+			putInternal(entityId, normalize(text), toArray(filterIds));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Change the text of an entity, keeping its filter identifiers. An entity
+	 * that isn't indexed yet is added without any filter identifiers.
+	 *
+	 * @param entityId
+	 *            the identifier of the entity.
+	 * @param text
+	 *            the text to search for the entity.
+	 */
+	public void putText(final long entityId, final String text) {
+		lock.writeLock().lock();
+		try {
+			final Integer document = documentsByEntity.get(entityId);
+			putInternal(entityId, normalize(text), document == null ? NO_FILTERS : filters[document]);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add a filter identifier to an indexed entity. Nothing happens if the
+	 * entity isn't indexed.
+	 *
+	 * @param entityId
+	 *            the identifier of the entity.
+	 * @param filterId
+	 *            the filter identifier to add.
+	 */
+	public void addFilter(final long entityId, final long filterId) {
+		lock.writeLock().lock();
+		try {
+			final Integer document = documentsByEntity.get(entityId);
+			if (document != null && !contains(filters[document], filterId)) {
+				final long[] current = filters[document];
+				final long[] updated = Arrays.copyOf(current, current.length + 1);
+				updated[current.length] = filterId;
+				filters[document] = updated;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove a filter identifier from an indexed entity. Nothing happens if
+	 * the entity isn't indexed.
+	 *
+	 * @param entityId
+	 *            the identifier of the entity.
+	 * @param filterId
+	 *            the filter identifier to remove.
+	 */
+	public void removeFilter(final long entityId, final long filterId) {
+		lock.writeLock().lock();
+		try {
+			final Integer document = documentsByEntity.get(entityId);
+			if (document != null) {
+				filters[document] = Arrays.stream(filters[document]).filter(f -> f != filterId).toArray();
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Remove an entity from the index.
+	 *
+	 * @param entityId
+	 *            the identifier of the entity.
+	 */
+	public void remove(final long entityId) {
+		lock.writeLock().lock();
+		try {
+			final Integer document = documentsByEntity.remove(entityId);
+			if (document != null) {
+				delete(document);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Find the entities whose text contains a term.
+	 *
+	 * @param term
+	 *            the term to search for.
+	 * @param allowedFilterIds
+	 *            only entities with at least one of these filter identifiers
+	 *            are found, or null to find entities regardless of their
+	 *            filter identifiers.
+	 * @param limit
+	 *            the most entities to find.
+	 * @return the identifiers of the entities that were found, or empty if
+	 *         more than {@code limit} entities contain the term.
+	 */
+	public Optional<Set<Long>> search(final String term, final Set<Long> allowedFilterIds, final int limit) {
+		final String normalized = normalize(term);
+		final Set<Long> found = new LinkedHashSet<>();
+
+		lock.readLock().lock();
+		try {
+			final DocumentIterator candidates = candidates(normalized);
+			for (int document = candidates.next(); document >= 0; document = candidates.next()) {
+				if (!deleted.get(document) && texts[document].contains(normalized)
+						&& isAllowed(filters[document], allowedFilterIds)) {
+					found.add(entityIds[document]);
+					if (found.size() > limit) {
+						return Optional.empty();
+					}
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		return Optional.of(found);
+	}
+
+	/**
+	 * Get the number of entities in the index.
+	 *
+	 * @return the number of entities in the index.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return documentsByEntity.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Lower case the text so that searches ignore case. Text is stored and
+	 * searched in this form.
+	 *
+	 * @param text
+	 *            the text to normalize.
+	 * @return the normalized text.
+	 */
+	static String normalize(final String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+	private void putInternal(final long entityId, final String text, final long[] filterIds) {
+		final Integer existing = documentsByEntity.get(entityId);
+		if (existing != null) {
+			delete(existing);
+		}
+
+		final int document = documentCount++;
+		if (document == entityIds.length) {
+			final int capacity = entityIds.length * 2;
+			entityIds = Arrays.copyOf(entityIds, capacity);
+			texts = Arrays.copyOf(texts, capacity);
+			filters = Arrays.copyOf(filters, capacity);
+		}
+		entityIds[document] = entityId;
+		texts[document] = text;
+		filters[document] = filterIds;
+		documentsByEntity.put(entityId, document);
+
+		for (final long trigram : trigrams(text)) {
+			postings.computeIfAbsent(trigram, t -> new Postings()).add(document);
+		}
+
+		// numbers of deleted documents stay in the posting lists until
+		// they're compacted
+		if (deletedCount > documentsByEntity.size()) {
+			compact();
+		}
+	}
+
+	private void delete(final int document) {
+		deleted.set(document);
+		deletedCount++;
+		texts[document] = null;
+		filters[document] = null;
+	}
+
+	/**
+	 * Renumber the documents that haven't been deleted, dropping deleted
+	 * documents from the posting lists.
+	 */
+	private void compact() {
+		final long[] oldEntityIds = entityIds;
+		final String[] oldTexts = texts;
+		final long[][] oldFilters = filters;
+		final int oldDocumentCount = documentCount;
+		final BitSet oldDeleted = (BitSet) deleted.clone();
+
+		entityIds = new long[Math.max(16, documentsByEntity.size() * 2)];
+		texts = new String[entityIds.length];
+		filters = new long[entityIds.length][];
+		deleted.clear();
+		deletedCount = 0;
+		documentCount = 0;
+		documentsByEntity.clear();
+		postings.clear();
+
+		for (int document = 0; document < oldDocumentCount; document++) {
+			if (!oldDeleted.get(document)) {
+				putInternal(oldEntityIds[document], oldTexts[document], oldFilters[document]);
+			}
+		}
+	}
+
+	/**
+	 * Get the documents that may contain the term: the documents with every
+	 * trigram of the term, or every document for terms that are too short to
+	 * have a trigram.
+	 */
+	private DocumentIterator candidates(final String term) {
+		final Set<Long> termTrigrams = trigrams(term);
+		if (termTrigrams.isEmpty()) {
+			final int[] next = { 0 };
+			return () -> next[0] < documentCount ? next[0]++ : -1;
+		}
+
+		final List<Postings> lists = new ArrayList<>();
+		for (final long trigram : termTrigrams) {
+			final Postings list = postings.get(trigram);
+			if (list == null) {
+				return () -> -1;
+			}
+			lists.add(list);
+		}
+		lists.sort(Comparator.comparingInt(p -> p.size));
+
+		// walk the shortest list, checking for each document in the others
+		final Postings shortest = lists.get(0);
+		final List<Postings> others = lists.subList(1, lists.size());
+		final int[] position = { 0 };
+		return () -> {
+			while (position[0] < shortest.size) {
+				final int document = shortest.documents[position[0]++];
+				if (others.stream().allMatch(p -> p.contains(document))) {
+					return document;
+				}
+			}
+			return -1;
+		};
+	}
+
+	private static Set<Long> trigrams(final String text) {
+		if (text.length() < 3) {
+			return ImmutableSet.of();
+		}
+		final Set<Long> trigrams = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= text.length(); i++) {
+			trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+		}
+		return trigrams;
+	}
+
+	private static boolean isAllowed(final long[] filterIds, final Set<Long> allowedFilterIds) {
+		if (allowedFilterIds == null) {
+			return true;
+		}
+		for (final long filterId : filterIds) {
+			if (allowedFilterIds.contains(filterId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean contains(final long[] values, final long value) {
+		for (final long v : values) {
+			if (v == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static long[] toArray(final Collection<Long> values) {
+		return values.stream().distinct().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * Iterates over document numbers in increasing order, returning -1 once
+	 * there are no more.
+	 */
+	@FunctionalInterface
+	private interface DocumentIterator {
+		int next();
+	}
+
+	/**
+	 * A sorted list of the documents that have a trigram.
+	 */
+	private static class Postings {
+		private int[] documents = new int[4];
+		private int size = 0;
+
+		private void add(final int document) {
+			if (size == documents.length) {
+				documents = Arrays.copyOf(documents, size * 2);
+			}
+			documents[size++] = document;
+		}
+
+		private boolean contains(final int document) {
+			return Arrays.binarySearch(documents, 0, size, document) >= 0;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package ca.corefacility.bioinformatics.irida.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.FileStorageLayout;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.IdentifierStorageLayout;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ShardedStorageLayout;
+import static com.google.common.base.Preconditions.*;
+
+/**
+ * Moves existing sequence files from the original one-directory-per-file
+ * layout into the {@link ShardedStorageLayout}, updating the relative paths
+ * stored in the database (including the audit tables) as it goes. Each
+ * sequence file's directory is moved with a single rename, so the migration
+ * doesn't copy any data. Files that have already been moved are skipped, so
+ * the migration can safely be re-run if it's interrupted.
+ *
+ * IRIDA should be stopped while this runs. Use the same number of shard levels
+ * as <code>sequence.file.storage.shard.levels</code> in
+ * <code>/etc/irida/irida.conf</code>.
+ *
+ * Run this using the exec:java goal in maven: <code>
+ * mvn exec:java -Dexec.mainClass="ca.corefacility.bioinformatics.irida.util.SequenceFileShardMigration" -Dsequence.file.base.directory="/opt/irida/data/sequence" \\
+ * 		-Dsequence.file.storage.shard.levels=2 -Djdbc.url="jdbc:mysql://localhost:3306/irida" -Djdbc.user="jdbc_user" -Djdbc.pass="jdbc_pass"
+ * </code>
+ */
+public class SequenceFileShardMigration {
+
+	private static final Logger logger = LoggerFactory.getLogger(SequenceFileShardMigration.class);
+
+	private static final String BASE_DIRECTORY = System.getProperty("sequence.file.base.directory");
+	private static final String SHARD_LEVELS = System.getProperty("sequence.file.storage.shard.levels");
+	private static final String JDBC_URL = System.getProperty("jdbc.url");
+	private static final String JDBC_USER = System.getProperty("jdbc.user");
+	private static final String JDBC_PASS = System.getProperty("jdbc.pass");
+
+	private static final String[] TABLES = { "sequence_file", "sequence_file_AUD" };
+
+	private final Path baseDirectory;
+	private final FileStorageLayout sourceLayout;
+	private final FileStorageLayout targetLayout;
+	private final JdbcTemplate template;
+
+	public SequenceFileShardMigration(final Path baseDirectory, final FileStorageLayout targetLayout,
+			final JdbcTemplate template) {
+		this.baseDirectory = baseDirectory;
+		this.sourceLayout = new IdentifierStorageLayout();
+		this.targetLayout = targetLayout;
+		this.template = template;
+	}
+
+	public static void main(String[] args) {
+		checkNotNull(BASE_DIRECTORY, "Sequence file base directory is required. [sequence.file.base.directory]");
+		checkNotNull(SHARD_LEVELS, "Number of shard levels is required. [sequence.file.storage.shard.levels]");
+		checkNotNull(JDBC_URL, "JDBC URL is required. [jdbc.url]");
+		checkNotNull(JDBC_USER, "JDBC user is required. [jdbc.user]");
+		checkNotNull(JDBC_PASS, "JDBC password is required. [jdbc.pass]");
+
+		final Path baseDirectory = Paths.get(BASE_DIRECTORY);
+		checkArgument(Files.isDirectory(baseDirectory), "Base directory [" + baseDirectory + "] does not exist.");
+
+		final DriverManagerDataSource dataSource = new DriverManagerDataSource(JDBC_URL, JDBC_USER, JDBC_PASS);
+		dataSource.setDriverClassName("com.mysql.jdbc.Driver");
+
+		final SequenceFileShardMigration migration = new SequenceFileShardMigration(baseDirectory,
+				new ShardedStorageLayout(Integer.parseInt(SHARD_LEVELS)), new JdbcTemplate(dataSource));
+		final int migrated = migration.migrate();
+
+		logger.info("Moved " + migrated + " sequence file directories into the sharded layout.");
+	}
+
+	/**
+	 * Move every sequence file directory that's still in the original layout.
+	 *
+	 * @return the number of directories that were moved.
+	 */
+	public int migrate() {
+		final List<Long> identifiers = template
+				.queryForList("select id from sequence_file union select id from sequence_file_AUD", Long.class);
+		logger.info("Checking " + identifiers.size() + " sequence files for migration.");
+
+		int migrated = 0;
+		for (final Long id : identifiers) {
+			if (migrate(id)) {
+				migrated++;
+				if (migrated % 1000 == 0) {
+					logger.info("Moved " + migrated + " sequence file directories so far.");
+				}
+			}
+		}
+
+		return migrated;
+	}
+
+	/**
+	 * Move the directory for a single sequence file and update its paths in
+	 * the database. If the database can't be updated, the directory is moved
+	 * back.
+	 *
+	 * @param id
+	 *            the identifier of the sequence file.
+	 * @return true if the directory was moved, false if there was nothing to
+	 *         move.
+	 */
+	public boolean migrate(final Long id) {
+		final Path source = sourceLayout.getEntityDirectory(baseDirectory, id);
+		final Path target = targetLayout.getEntityDirectory(baseDirectory, id);
+
+		if (!Files.isDirectory(source) || source.equals(target)) {
+			logger.trace("Nothing to move for sequence file [" + id + "]");
+			return false;
+		}
+
+		try {
+			Files.createDirectories(target.getParent());
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			throw new StorageException("Failed to move [" + source + "] to [" + target + "]", e);
+		}
+
+		try {
+			for (final String table : TABLES) {
+				updatePaths(table, id, baseDirectory.relativize(source), baseDirectory.relativize(target));
+			}
+		} catch (final DataAccessException e) {
+			logger.error("Failed to update paths for sequence file [" + id + "], moving files back.", e);
+			try {
+				Files.move(target, source, StandardCopyOption.ATOMIC_MOVE);
+			} catch (final IOException moveBack) {
+				logger.error("Failed to move [" + target + "] back to [" + source + "]", moveBack);
+			}
+			throw e;
+		}
+
+		logger.debug("Moved [" + source + "] to [" + target + "]");
+		return true;
+	}
+
+	/**
+	 * Rewrite the relative paths for a sequence file that start with the old
+	 * directory to start with the new directory.
+	 *
+	 * @param table
+	 *            the table to update.
+	 * @param id
+	 *            the identifier of the sequence file.
+	 * @param source
+	 *            the old directory, relative to the base directory.
+	 * @param target
+	 *            the new directory, relative to the base directory.
+	 */
+	private void updatePaths(final String table, final Long id, final Path source, final Path target) {
+		final List<String> paths = template.queryForList(
+				"select distinct file_path from " + table + " where id = ? and file_path is not null", String.class,
+				id);
+
+		for (final String path : paths) {
+			final Path relative = Paths.get(path);
+			if (relative.isAbsolute() || !relative.startsWith(source)) {
+				logger.warn("Not updating unexpected path [" + path + "] for sequence file [" + id + "] in [" + table
+						+ "]");
+				continue;
+			}
+
+			final String updated = target.resolve(source.relativize(relative)).toString();
+			template.update("update " + table + " set file_path = ? where id = ? and file_path = ?", updated, id,
+					path);
+		}
+	}
+}
@@ -24,10 +24,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.view.RedirectView;
 
 import javax.servlet.http.HttpServletResponse;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -54,6 +56,12 @@ public class RESTProjectSamplesController {
 	
 	public static final String REL_PROJECT_SAMPLE = "project/sample";
 
+	/**
+	 * Request parameter used to only list the samples in a project that have
+	 * changed since a time, in milliseconds since the epoch.
+	 */
+	public static final String MODIFIED_SINCE_PARAM = "modifiedSince";
+
 	/**
 	 * Reference to {@link ProjectService}.
 	 */
@@ -197,6 +205,45 @@ public class RESTProjectSamplesController {
 		return modelMap;
 	}
 
+	/**
+	 * Get the list of {@link Sample}s associated with this {@link Project}
+	 * that have changed since a given time. Remote installations use this to
+	 * only synchronize the samples that have changed since their last
+	 * synchronization.
+	 *
+	 * @param projectId
+	 *            the identifier of the {@link Project} to get the
+	 *            {@link Sample}s for.
+	 * @param modifiedSince
+	 *            the time to look for changes after, in milliseconds since the
+	 *            epoch.
+	 * @return the list of changed {@link Sample}s associated with this
+	 *         {@link Project}.
+	 */
+	@RequestMapping(value = "/api/projects/{projectId}/samples", method = RequestMethod.GET, params = MODIFIED_SINCE_PARAM)
+	public ModelMap getProjectSamplesModifiedSince(@PathVariable Long projectId,
+			@RequestParam(MODIFIED_SINCE_PARAM) Long modifiedSince) {
+
+		ModelMap modelMap = new ModelMap();
+		Project p = projectService.read(projectId);
+		List<Sample> samples = sampleService.getSamplesForProjectModifiedSince(p, new Date(modifiedSince));
+
+		ResourceCollection<Sample> sampleResources = new ResourceCollection<>(samples.size());
+
+		for (Sample sample : samples) {
+			addLinksForSample(Optional.of(p), sample);
+			sampleResources.add(sample);
+		}
+
+		sampleResources.add(linkTo(
+				methodOn(RESTProjectSamplesController.class).getProjectSamplesModifiedSince(projectId, modifiedSince))
+				.withSelfRel());
+
+		modelMap.addAttribute(RESTGenericController.RESOURCE_NAME, sampleResources);
+
+		return modelMap;
+	}
+
 	/**
 	 * Get samples by a given string name
 	 *
@@ -1,13 +1,17 @@
 package ca.corefacility.bioinformatics.irida.web.spring.view;
 
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.servlet.view.AbstractView;
@@ -24,6 +28,8 @@ import com.google.common.net.HttpHeaders;
 public class FastqView extends AbstractView {
     public static final String DEFAULT_CONTENT_TYPE = "application/fastq";
     private static final Logger logger = LoggerFactory.getLogger(FastqView.class);
+    // a single range of bytes, optionally open ended
+    private static final Pattern BYTE_RANGE = Pattern.compile("bytes=(\\d+)-(\\d*)");
 
     /**
      * Default constructor
@@ -34,18 +40,58 @@ public class FastqView extends AbstractView {
 
     /**
      * {@inheritDoc}
+     *
+     * Supports a single byte range request (<code>Range: bytes=first-[last]</code>) so that clients can resume an
+     * interrupted download. The file's size and modification time are sent as an entity tag so that clients can
+     * use <code>If-Range</code> to make sure they're resuming the same file.
      */
     @Override
     protected void renderMergedOutputModel(Map<String, Object> model, HttpServletRequest request, HttpServletResponse response) throws Exception {
     	SequenceFile sfr = (SequenceFile) model.get(RESTGenericController.RESOURCE_NAME);
         Path fileContent = sfr.getFile();
         String filename = fileContent.getFileName().toString();
+        long fileSize = Files.size(fileContent);
+        String entityTag = "\"" + fileSize + "-" + Files.getLastModifiedTime(fileContent).toMillis() + "\"";
         logger.trace("Sending file to client [" + filename + "]");
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
         response.setHeader(HttpHeaders.CONTENT_TYPE, DEFAULT_CONTENT_TYPE);
-        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(Files.size(fileContent)));
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, entityTag);
+
+        long first = 0;
+        long last = fileSize - 1;
+
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // if the file changed since the client started downloading it, send the whole file
+        if (range != null && (ifRange == null || ifRange.equals(entityTag))) {
+            Matcher matcher = BYTE_RANGE.matcher(range);
+            if (matcher.matches()) {
+                first = Long.parseLong(matcher.group(1));
+                if (!matcher.group(2).isEmpty()) {
+                    last = Math.min(Long.parseLong(matcher.group(2)), fileSize - 1);
+                }
+
+                if (first >= fileSize || first > last) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+
+                logger.trace("Sending bytes [" + first + "-" + last + "] of [" + filename + "]");
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + first + "-" + last + "/" + fileSize);
+            } else {
+                logger.trace("Ignoring unsupported range [" + range + "]");
+            }
+        }
+
+        long length = last - first + 1;
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, String.valueOf(length));
         OutputStream os = response.getOutputStream();
-        Files.copy(fileContent, os);
+        try (InputStream is = Files.newInputStream(fileContent)) {
+            IOUtils.copyLarge(is, os, first, length);
+        }
         os.flush();
         os.close();
     }
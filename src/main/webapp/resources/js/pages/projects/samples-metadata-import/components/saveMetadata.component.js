@@ -15,6 +15,7 @@ const template = `
           disabled="disabled"
           class="btn btn-success">
      <i class="fas fa-circle-notch fa-spin"></i>
+     <span ng-if="$ctrl.progress !== null">{{ $ctrl.progress }}%</span>
 </button>
 </span>
 `;
@@ -26,24 +27,58 @@ const saveMetadata = {
   template,
   controller: [
     "$window",
+    "$timeout",
     "sampleMetadataService",
-    function($window, sampleMetadataService) {
+    function($window, $timeout, sampleMetadataService) {
+      this.progress = null;
+
+      /**
+       * Show the result of the save once it is complete.
+       * @param {object} results of the save
+       */
+      const showResults = results => {
+        if (results.success) {
+          showNotification({
+            text: results.success
+          });
+          $window.location.href = this.url;
+        }
+        if (results["save-errors"]) {
+          results["save-errors"].forEach(text => {
+            showNotification({ text, type: "error" });
+          });
+        }
+        this.saving = false;
+        this.progress = null;
+      };
+
+      /**
+       * The metadata is saved in the background, so check on it until it
+       * is complete.
+       */
+      const checkStatus = () => {
+        sampleMetadataService.getSaveStatus().then(status => {
+          if (status.complete || status["stored-error"]) {
+            showResults(status);
+          } else {
+            if (status.total) {
+              this.progress = Math.floor(
+                (status.processed * 100) / status.total
+              );
+            }
+            $timeout(checkStatus, 1000);
+          }
+        });
+      };
+
       this.saveMetadata = () => {
         this.saving = true;
         sampleMetadataService.saveMetadata().then(response => {
-          const results = response.data;
-          if (results.success) {
-            showNotification({
-              text: results.success
-            });
-            $window.location.href = this.url;
-          }
-          if (results["save-errors"]) {
-            results["save-errors"].forEach(text => {
-              showNotification({ text, type: "error" });
-            });
+          if (response.data.started) {
+            checkStatus();
+          } else {
+            showResults(response.data);
           }
-          this.saving = false;
         });
       };
     }
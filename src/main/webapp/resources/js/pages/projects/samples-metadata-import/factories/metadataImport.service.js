@@ -52,6 +52,15 @@ export function sampleMetadataService($http, $window, Upload) {
     return $http.post(`${URL}/save`);
   };
 
+  /**
+   * Get the progress of saving the metadata.
+   * @return {object} the number of rows saved and the total, and the
+   * result once the save is complete.
+   */
+  const getSaveStatus = () => {
+    return $http.get(`${URL}/save/status`).then(result => result.data);
+  };
+
   /**
    * Clear any metadata uploaded to the server.
    * @return {object} ajax promise
@@ -65,6 +74,7 @@ export function sampleMetadataService($http, $window, Upload) {
     getProjectData,
     setSampleIdColumn,
     saveMetadata,
+    getSaveStatus,
     clearProject
   };
 }
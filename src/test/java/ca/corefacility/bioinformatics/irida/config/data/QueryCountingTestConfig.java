@@ -0,0 +1,38 @@
+package ca.corefacility.bioinformatics.irida.config.data;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ca.corefacility.bioinformatics.irida.utils.QueryCountingDataSource;
+
+/**
+ * Wraps the application's {@link DataSource} in a
+ * {@link QueryCountingDataSource} so that tests can check how many statements
+ * loading something takes.
+ */
+@Configuration
+public class QueryCountingTestConfig {
+
+	@Bean
+	public static BeanPostProcessor queryCountingDataSourcePostProcessor() {
+		return new BeanPostProcessor() {
+
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+				return bean;
+			}
+
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+				if (bean instanceof DataSource && !(bean instanceof QueryCountingDataSource)) {
+					return new QueryCountingDataSource((DataSource) bean);
+				}
+				return bean;
+			}
+		};
+	}
+}
@@ -33,6 +33,7 @@ import ca.corefacility.bioinformatics.irida.repositories.ProjectEventRepository;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
@@ -43,6 +44,7 @@ public class ProjectEventHandlerTest {
 	private ProjectSampleJoinRepository psjRepository;
 	private ProjectRepository projectRepository;
 	private SampleRepository sampleRepository;
+	private ProjectMembershipCache membershipCache;
 
 	@Before
 	public void setup() {
@@ -50,7 +52,9 @@ public class ProjectEventHandlerTest {
 		psjRepository = mock(ProjectSampleJoinRepository.class);
 		projectRepository = mock(ProjectRepository.class);
 		sampleRepository = mock(SampleRepository.class);
-		handler = new ProjectEventHandler(eventRepository, psjRepository, projectRepository, sampleRepository);
+		membershipCache = mock(ProjectMembershipCache.class);
+		handler = new ProjectEventHandler(eventRepository, psjRepository, projectRepository, sampleRepository,
+				membershipCache);
 	}
 
 	@Test
@@ -79,6 +83,7 @@ public class ProjectEventHandlerTest {
 		Class<? extends ProjectEvent> clazz = UserRoleSetProjectEvent.class;
 		Project project = new Project();
 		User user = new User();
+		user.setUsername("tom");
 		ProjectUserJoin returnValue = new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER);
 		Object[] args = { project, user, ProjectRole.PROJECT_USER };
 		MethodEvent methodEvent = new MethodEvent(clazz, returnValue, args);
@@ -93,6 +98,7 @@ public class ProjectEventHandlerTest {
 		assertTrue(event instanceof UserRoleSetProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
+		verify(membershipCache).invalidate("tom");
 	}
 
 	@Test
@@ -100,6 +106,7 @@ public class ProjectEventHandlerTest {
 		Class<? extends ProjectEvent> clazz = UserRemovedProjectEvent.class;
 		Project project = new Project();
 		User user = new User();
+		user.setUsername("tom");
 		Object[] args = { project, user };
 		MethodEvent methodEvent = new MethodEvent(clazz, null, args);
 
@@ -113,6 +120,7 @@ public class ProjectEventHandlerTest {
 		assertTrue(event instanceof UserRemovedProjectEvent);
 
 		verify(projectRepository).save(any(Project.class));
+		verify(membershipCache).invalidate("tom");
 	}
 
 	@SuppressWarnings("unchecked")
@@ -219,6 +227,7 @@ public class ProjectEventHandlerTest {
 		Class<? extends ProjectEvent> clazz = ProjectEvent.class;
 		Project project = new Project();
 		User user = new User();
+		user.setUsername("tom");
 		Object[] args = { project, user };
 		MethodEvent methodEvent = new MethodEvent(clazz, null, args);
 
@@ -0,0 +1,92 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Unit tests for {@link ExecutorMetrics}
+ */
+public class ExecutorMetricsTest {
+
+	private MetricRegistry registry;
+	private ThreadPoolTaskExecutor executor;
+	private CountDownLatch release;
+
+	@Before
+	public void setUp() {
+		registry = new MetricRegistry();
+		release = new CountDownLatch(1);
+
+		executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(1);
+		executor.setMaxPoolSize(1);
+		executor.setQueueCapacity(1);
+		ExecutorMetrics.monitor(registry, "testExecutor", executor);
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void testGaugesBeforeInitialize() throws IOException {
+		assertTrue("uninitialized executors should have nothing queued",
+				write().contains("irida_executor_queued_tasks{executor=\"testExecutor\"} 0\n"));
+
+		executor.initialize();
+		assertTrue("gauges should read the executor once it's initialized",
+				write().contains("irida_executor_pool_threads{executor=\"testExecutor\"} 0\n"));
+	}
+
+	@Test
+	public void testSaturatedExecutor() throws Exception {
+		executor.initialize();
+
+		CountDownLatch started = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		started.await();
+		executor.execute(() -> {
+		});
+
+		try {
+			executor.execute(() -> {
+			});
+			fail("the third task should be rejected");
+		} catch (RejectedExecutionException e) {
+			// expected
+		}
+
+		assertEquals(1, registry.counter("irida_executor_rejected_tasks_total", "", "executor", "testExecutor")
+				.getCount());
+		String text = write();
+		assertTrue(text.contains("irida_executor_queued_tasks{executor=\"testExecutor\"} 1\n"));
+		assertTrue(text.contains("irida_executor_active_threads{executor=\"testExecutor\"} 1\n"));
+		assertTrue(text.contains("irida_executor_pool_threads{executor=\"testExecutor\"} 1\n"));
+	}
+
+	private String write() throws IOException {
+		StringWriter writer = new StringWriter();
+		registry.write(writer);
+		return writer.toString();
+	}
+}
@@ -0,0 +1,71 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.jmchilton.blend4j.galaxy.GalaxyInstance;
+import com.github.jmchilton.blend4j.galaxy.HistoriesClient;
+import com.github.jmchilton.blend4j.galaxy.beans.History;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Unit tests for {@link GalaxyMetrics}
+ */
+public class GalaxyMetricsTest {
+
+	private MetricRegistry registry;
+	private HistoriesClient historiesClient;
+	private GalaxyInstance galaxyInstance;
+
+	@Before
+	public void setUp() {
+		registry = new MetricRegistry();
+		historiesClient = mock(HistoriesClient.class);
+
+		GalaxyInstance delegate = mock(GalaxyInstance.class);
+		when(delegate.getHistoriesClient()).thenReturn(historiesClient);
+		when(delegate.getGalaxyUrl()).thenReturn("http://galaxy");
+
+		galaxyInstance = GalaxyMetrics.instrument(delegate, registry);
+	}
+
+	@Test
+	public void testClientCallsTimed() {
+		List<History> histories = ImmutableList.of(new History("history"));
+		when(historiesClient.getHistories()).thenReturn(histories);
+
+		assertSame(histories, galaxyInstance.getHistoriesClient().getHistories());
+		assertEquals("http://galaxy", galaxyInstance.getGalaxyUrl());
+
+		assertEquals(1, registry.timer("irida_galaxy_request_seconds", "", "client", "HistoriesClient", "method",
+				"getHistories").getCount());
+	}
+
+	@Test
+	public void testFailedCallsCounted() {
+		RuntimeException failure = new RuntimeException("Galaxy is down");
+		when(historiesClient.showHistory("1")).thenThrow(failure);
+
+		try {
+			galaxyInstance.getHistoriesClient().showHistory("1");
+			fail("the exception from the client should be thrown");
+		} catch (RuntimeException e) {
+			assertSame("the original exception should be thrown", failure, e);
+		}
+
+		verify(historiesClient).showHistory("1");
+		assertEquals(1, registry.counter("irida_galaxy_request_failures_total", "", "client", "HistoriesClient",
+				"method", "showHistory").getCount());
+		assertEquals(1, registry.timer("irida_galaxy_request_seconds", "", "client", "HistoriesClient", "method",
+				"showHistory").getCount());
+	}
+}
@@ -0,0 +1,86 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link MetricRegistry}
+ */
+public class MetricRegistryTest {
+
+	private MetricRegistry registry;
+
+	@Before
+	public void setUp() {
+		registry = new MetricRegistry();
+	}
+
+	@Test
+	public void testMetricsReused() {
+		Timer timer = registry.timer("test_seconds", "help", "task", "a");
+		assertSame("timer should be reused", timer, registry.timer("test_seconds", "help", "task", "a"));
+
+		Counter counter = registry.counter("test_total", "help", "task", "a");
+		assertSame("counter should be reused", counter, registry.counter("test_total", "help", "task", "a"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNameReusedForOtherType() {
+		registry.counter("test_total", "help");
+		registry.timer("test_total", "help");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnpairedLabels() {
+		registry.counter("test_total", "help", "task");
+	}
+
+	@Test
+	public void testWriteTimer() throws IOException {
+		Timer timer = registry.timer("test_seconds", "Time taken", "task", "a");
+		timer.record(3, TimeUnit.MILLISECONDS);
+		timer.record(2, TimeUnit.SECONDS);
+		timer.record(1, TimeUnit.HOURS);
+
+		assertEquals(3, timer.getCount());
+
+		String text = write();
+		assertTrue(text.contains("# HELP test_seconds Time taken\n"));
+		assertTrue(text.contains("# TYPE test_seconds histogram\n"));
+		assertTrue(text.contains("test_seconds_bucket{task=\"a\",le=\"0.005\"} 1\n"));
+		assertTrue(text.contains("test_seconds_bucket{task=\"a\",le=\"1.0\"} 1\n"));
+		assertTrue(text.contains("test_seconds_bucket{task=\"a\",le=\"2.5\"} 2\n"));
+		assertTrue(text.contains("test_seconds_bucket{task=\"a\",le=\"600.0\"} 2\n"));
+		assertTrue(text.contains("test_seconds_bucket{task=\"a\",le=\"+Inf\"} 3\n"));
+		assertTrue(text.contains("test_seconds_sum{task=\"a\"} 3602.003\n"));
+		assertTrue(text.contains("test_seconds_count{task=\"a\"} 3\n"));
+	}
+
+	@Test
+	public void testWriteCounterAndGauge() throws IOException {
+		registry.counter("test_total", "Things counted").increment();
+		registry.gauge("test_queued", "Things queued", () -> 7, "executor", "quote\"d");
+		registry.gauge("test_broken", "Gauge that can't be read", () -> {
+			throw new IllegalStateException();
+		});
+
+		String text = write();
+		assertTrue(text.contains("# TYPE test_total counter\ntest_total 1\n"));
+		assertTrue(text.contains("# TYPE test_queued gauge\ntest_queued{executor=\"quote\\\"d\"} 7\n"));
+		assertTrue("unreadable gauges should be written as NaN", text.contains("test_broken NaN\n"));
+	}
+
+	private String write() throws IOException {
+		StringWriter writer = new StringWriter();
+		registry.write(writer);
+		return writer.toString();
+	}
+}
@@ -0,0 +1,75 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Unit tests for {@link RemoteApiMetrics}
+ */
+public class RemoteApiMetricsTest {
+
+	private MetricRegistry registry;
+	private CloseableHttpClient httpClient;
+
+	@Before
+	public void setUp() {
+		registry = new MetricRegistry();
+		httpClient = RemoteApiMetrics.clientBuilder(registry).build();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		httpClient.close();
+	}
+
+	@Test
+	public void testRequestsTimed() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/api", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+		server.start();
+		try (CloseableHttpResponse response = httpClient
+				.execute(new HttpGet("http://localhost:" + server.getAddress().getPort() + "/api"))) {
+			assertEquals(404, response.getStatusLine().getStatusCode());
+		} finally {
+			server.stop(0);
+		}
+
+		assertEquals(1, registry.timer("irida_remote_api_request_seconds", "", "host", "localhost", "method", "GET",
+				"status", "404").getCount());
+	}
+
+	@Test
+	public void testFailedRequestsTimed() throws IOException {
+		// a port that nothing is listening on
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+
+		try {
+			httpClient.execute(new HttpGet("http://localhost:" + port + "/api"));
+			fail("the connection should be refused");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertEquals(1, registry.timer("irida_remote_api_request_seconds", "", "host", "localhost", "method", "GET",
+				"status", "error").getCount());
+	}
+}
@@ -0,0 +1,79 @@
+package ca.corefacility.bioinformatics.irida.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.support.ScheduledMethodRunnable;
+
+/**
+ * Unit tests for {@link TimedTaskScheduler}
+ */
+public class TimedTaskSchedulerTest {
+
+	private MetricRegistry registry;
+	private TaskScheduler delegate;
+	private TimedTaskScheduler scheduler;
+
+	@Before
+	public void setUp() {
+		registry = new MetricRegistry();
+		delegate = mock(TaskScheduler.class);
+		scheduler = new TimedTaskScheduler(delegate, registry);
+	}
+
+	@Test
+	public void testScheduledMethodTimed() throws NoSuchMethodException {
+		Task task = new Task();
+		scheduler.scheduleWithFixedDelay(new ScheduledMethodRunnable(task, "run"), 1000);
+
+		runScheduled();
+		runScheduled();
+
+		assertEquals(2, task.runs);
+		assertEquals(2, registry.timer("irida_scheduled_task_seconds", "", "task", "Task.run").getCount());
+		assertEquals(0, registry.counter("irida_scheduled_task_failures_total", "", "task", "Task.run").getCount());
+	}
+
+	@Test
+	public void testFailedRunCounted() throws NoSuchMethodException {
+		scheduler.scheduleWithFixedDelay(new ScheduledMethodRunnable(new Task(), "fail"), 1000);
+
+		try {
+			runScheduled();
+			fail("the exception from the task should be thrown");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+
+		assertEquals(1, registry.timer("irida_scheduled_task_seconds", "", "task", "Task.fail").getCount());
+		assertEquals(1, registry.counter("irida_scheduled_task_failures_total", "", "task", "Task.fail").getCount());
+	}
+
+	private void runScheduled() {
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(delegate).scheduleWithFixedDelay(captor.capture(), eq(1000L));
+		captor.getValue().run();
+	}
+
+	/**
+	 * A class with methods to schedule.
+	 */
+	public static class Task {
+		private int runs;
+
+		public void run() {
+			runs++;
+		}
+
+		public void fail() {
+			throw new IllegalStateException("failed");
+		}
+	}
+}
@@ -1,9 +1,13 @@
 package ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.unit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.net.URISyntaxException;
@@ -47,6 +51,8 @@ import com.github.jmchilton.blend4j.galaxy.beans.collection.request.HistoryDatas
 import com.github.jmchilton.blend4j.galaxy.beans.collection.response.CollectionResponse;
 import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
+import com.google.common.collect.ImmutableList;
 
 /**
  * Tests the GalaxyHistory class
@@ -61,6 +67,7 @@ public class GalaxyHistoriesServiceTest {
 	@Mock private ClientResponse invalidResponse;
 	@Mock private ClientResponse okayResponse;
 	@Mock private GalaxyLibrariesService galaxyLibrariesService;
+	@Mock private WebResource historiesResource;
 	
 	private GalaxyHistoriesService galaxyHistory;
 	
@@ -207,6 +214,39 @@ public class GalaxyHistoriesServiceTest {
 		when(historiesClient.showHistory(INVALID_HISTORY_ID)).thenThrow(uniformInterfaceException);
 		galaxyHistory.getStatusForHistory(INVALID_HISTORY_ID);
 	}
+
+	/**
+	 * Tests getting the status for many histories with one request.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testGetStatusForHistories() throws ExecutionManagerException {
+		galaxyHistory = new GalaxyHistoriesService(historiesClient, toolsClient, galaxyLibrariesService,
+				historiesResource);
+		when(historiesResource.queryParams(any())).thenReturn(historiesResource);
+		when(historiesResource.get(String.class)).thenReturn(
+				"[{\"id\":\"1\",\"state\":\"ok\",\"state_ids\":{\"ok\":[\"3\"]}},"
+						+ "{\"id\":\"5\",\"state\":\"running\",\"state_ids\":{\"running\":[\"4\"]}}]");
+
+		Map<String, GalaxyWorkflowStatus> statuses = galaxyHistory
+				.getStatusForHistories(ImmutableList.of(VALID_HISTORY_ID, INVALID_HISTORY_ID));
+
+		assertEquals("only the requested history that was listed should have a status", 1, statuses.size());
+		assertEquals(GalaxyWorkflowState.OK, statuses.get(VALID_HISTORY_ID).getState());
+		assertFalse("the unlisted history should not have a status", statuses.containsKey(INVALID_HISTORY_ID));
+	}
+
+	/**
+	 * Tests that no statuses are listed in bulk without a histories resource.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testGetStatusForHistoriesWithoutResource() throws ExecutionManagerException {
+		assertTrue("statuses should not be listed without a histories resource",
+				galaxyHistory.getStatusForHistories(ImmutableList.of(VALID_HISTORY_ID)).isEmpty());
+	}
 	
 	/**
 	 * Tests building a new history.
@@ -373,6 +413,43 @@ public class GalaxyHistoriesServiceTest {
 		assertNotNull(galaxyHistory.getDatasetForFileInHistory(FILENAME, HISTORY_ID));
 	}
 	
+	/**
+	 * Tests getting datasets for several files with a single listing of the
+	 * history.
+	 * @throws GalaxyDatasetException 
+	 */
+	@Test
+	public void testGetDatasetsForFilesInHistory() throws GalaxyDatasetException {
+		Dataset dataset1 = new Dataset();
+		Dataset dataset2 = new Dataset();
+
+		when(historiesClient.showHistoryContents(HISTORY_ID))
+				.thenReturn(buildHistoryContentsList("output1.txt", "output1", "output2.txt", "output2"));
+		when(historiesClient.showDataset(HISTORY_ID, "output1")).thenReturn(dataset1);
+		when(historiesClient.showDataset(HISTORY_ID, "output2")).thenReturn(dataset2);
+
+		Map<String, Dataset> datasets = galaxyHistory
+				.getDatasetsForFilesInHistory(Arrays.asList("output1.txt", "output2.txt"), HISTORY_ID);
+
+		assertEquals("should have found both datasets", 2, datasets.size());
+		assertTrue("should have found output1.txt", dataset1 == datasets.get("output1.txt"));
+		assertTrue("should have found output2.txt", dataset2 == datasets.get("output2.txt"));
+		verify(historiesClient, times(1)).showHistoryContents(HISTORY_ID);
+	}
+
+	/**
+	 * Tests getting datasets when one of the files isn't in the history.
+	 * @throws GalaxyDatasetException 
+	 */
+	@Test(expected=GalaxyDatasetNotFoundException.class)
+	public void testGetDatasetsForFilesInHistoryMissingFile() throws GalaxyDatasetException {
+		when(historiesClient.showHistoryContents(HISTORY_ID))
+				.thenReturn(buildHistoryContentsList("output1.txt", DATA_ID));
+		when(historiesClient.showDataset(HISTORY_ID, DATA_ID)).thenReturn(new Dataset());
+
+		galaxyHistory.getDatasetsForFilesInHistory(Arrays.asList("output1.txt", "output2.txt"), HISTORY_ID);
+	}
+
 	/**
 	 * Tests getting an invalid history dataset given a file name and history.
 	 * @throws GalaxyDatasetException 
@@ -1,11 +1,21 @@
 package ca.corefacility.bioinformatics.irida.processing.concatenate.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -52,10 +62,94 @@ public class SingleEndSequenceFileConcatenatorTest {
 
 	}
 
+	@Test
+	public void testConcatenateNonTextBytes() throws IOException, ConcatenateException {
+		byte[] contents = new byte[256];
+		for (int i = 0; i < contents.length; i++) {
+			contents[i] = (byte) i;
+		}
+		Path file = Files.createTempFile("testFile", ".fastq");
+		Files.write(file, contents);
+
+		SingleEndSequenceFile f1 = new SingleEndSequenceFile(new SequenceFile(file));
+		SingleEndSequenceFile f2 = new SingleEndSequenceFile(new SequenceFile(file));
+
+		SingleEndSequenceFile concatenateFiles = concat.concatenateFiles(Lists.newArrayList(f1, f2), "newFile");
+
+		byte[] expected = new byte[contents.length * 2];
+		System.arraycopy(contents, 0, expected, 0, contents.length);
+		System.arraycopy(contents, 0, expected, contents.length, contents.length);
+
+		assertArrayEquals("bytes should be copied unchanged", expected,
+				Files.readAllBytes(concatenateFiles.getSequenceFile().getFile()));
+	}
+
+	@Test
+	public void testConcatenateCompressedFiles() throws IOException, ConcatenateException {
+		SequenceFile original1 = createCompressedSequenceFile("testFile");
+		SequenceFile original2 = createCompressedSequenceFile("testFile2");
+
+		long originalLength = original1.getFile().toFile().length();
+
+		SingleEndSequenceFile f1 = new SingleEndSequenceFile(original1);
+		SingleEndSequenceFile f2 = new SingleEndSequenceFile(original2);
+
+		List<Long> progress = new ArrayList<>();
+		concat.setProgressListener((written, total) -> progress.add(written));
+
+		SingleEndSequenceFile concatenateFiles = concat.concatenateFiles(Lists.newArrayList(f1, f2), "newFile");
+
+		Path newFile = concatenateFiles.getSequenceFile().getFile();
+		assertEquals("new file should be gzipped", "newFile.fastq.gz", newFile.getFileName().toString());
+		assertEquals("compressed files should be joined without recompressing", originalLength * 2,
+				newFile.toFile().length());
+		assertArrayEquals("all members should decompress", concat(FASTQ_FILE_CONTENTS, FASTQ_FILE_CONTENTS),
+				decompress(newFile));
+		assertEquals("progress should be reported for each file",
+				Lists.newArrayList(originalLength, originalLength * 2), progress);
+	}
+
+	@Test
+	public void testConcatenateMixedFiles() throws IOException, ConcatenateException {
+		SingleEndSequenceFile f1 = new SingleEndSequenceFile(createSequenceFile("testFile"));
+		SingleEndSequenceFile f2 = new SingleEndSequenceFile(createCompressedSequenceFile("testFile2"));
+
+		SingleEndSequenceFile concatenateFiles = concat.concatenateFiles(Lists.newArrayList(f1, f2), "newFile");
+
+		Path newFile = concatenateFiles.getSequenceFile().getFile();
+		assertEquals("new file should not be gzipped", "newFile.fastq", newFile.getFileName().toString());
+		assertArrayEquals("compressed file should be decompressed", concat(FASTQ_FILE_CONTENTS, FASTQ_FILE_CONTENTS),
+				Files.readAllBytes(newFile));
+	}
+
 	private SequenceFile createSequenceFile(String name) throws IOException {
 		Path sequenceFile = Files.createTempFile(name, ".fastq");
 		Files.write(sequenceFile, FASTQ_FILE_CONTENTS);
 
 		return new SequenceFile(sequenceFile);
 	}
+
+	private SequenceFile createCompressedSequenceFile(String name) throws IOException {
+		Path sequenceFile = Files.createTempFile(name, ".fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(sequenceFile))) {
+			out.write(FASTQ_FILE_CONTENTS);
+		}
+
+		return new SequenceFile(sequenceFile);
+	}
+
+	private static byte[] decompress(Path file) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			IOUtils.copy(in, out);
+		}
+		return out.toByteArray();
+	}
+
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] joined = new byte[first.length + second.length];
+		System.arraycopy(first, 0, joined, 0, first.length);
+		System.arraycopy(second, 0, joined, first.length, second.length);
+		return joined;
+	}
 }
@@ -17,18 +17,21 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
 import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ContentAddressedFileStore;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 public class ChecksumFileProcessorTest {
 	private ChecksumFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
+	private ContentAddressedFileStore contentStore;
 	private static final String FILE_CONTENTS = ">test read\nACGTACTCATG";
 	private static final String CHECKSUM = "aeaa0755dc44b393ffe12f02e9bd42b0169b12ca9c15708085db6a4ac9110ee0";
 
 	@Before
 	public void setUp() {
 		sequenceFileRepository = mock(SequenceFileRepository.class);
-		fileProcessor = new ChecksumFileProcessor(sequenceFileRepository);
+		contentStore = mock(ContentAddressedFileStore.class);
+		fileProcessor = new ChecksumFileProcessor(sequenceFileRepository, contentStore);
 	}
 
 	@Test
@@ -45,6 +48,9 @@ public class ChecksumFileProcessorTest {
 		SequenceFile file = fileCaptor.getValue();
 
 		assertEquals("checksums should be equal", CHECKSUM, file.getUploadSha256());
+		verify(contentStore).deduplicate(sf.getFile(), CHECKSUM);
+		assertEquals("file size should be recorded", Long.valueOf(FILE_CONTENTS.length()),
+				file.getFileMetadata().getSizeBytes());
 	}
 
 	@Test(expected = FileProcessorException.class)
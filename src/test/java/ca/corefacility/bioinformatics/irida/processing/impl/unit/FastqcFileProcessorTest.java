@@ -4,9 +4,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
@@ -14,6 +19,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Iterator;
 
+import javax.imageio.ImageIO;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -26,8 +33,12 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.OverrepresentedSe
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
 import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastQCCharts;
 import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.FastQCChartDataRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 
 /**
@@ -38,6 +49,7 @@ import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFi
 public class FastqcFileProcessorTest {
 	private FastqcFileProcessor fileProcessor;
 	private SequenceFileRepository sequenceFileRepository;
+	private FastQCChartDataRepository chartDataRepository;
 	private MessageSource messageSource;
 	private static final Logger logger = LoggerFactory.getLogger(FastqcFileProcessorTest.class);
 
@@ -50,7 +62,10 @@ public class FastqcFileProcessorTest {
 	public void setUp() {
 		messageSource = mock(MessageSource.class);
 		sequenceFileRepository = mock(SequenceFileRepository.class);
-		fileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository);
+		chartDataRepository = mock(FastQCChartDataRepository.class);
+		fileProcessor = new FastqcFileProcessor(messageSource, sequenceFileRepository, chartDataRepository);
+
+		when(sequenceFileRepository.saveMetadata(any(SequenceFile.class))).then(returnsFirstArg());
 	}
 
 	@Test(expected = FileProcessorException.class)
@@ -101,16 +116,15 @@ public class FastqcFileProcessorTest {
 		assertEquals("Total number of bases was not correct.", Long.valueOf(SEQUENCE.length() * 2),
 				updated.getTotalBases());
 
-		assertNotNull("Per-base quality score chart was not created.", updated.getPerBaseQualityScoreChart());
-		assertTrue("Per-base quality score chart was created, but was empty.",
-				((byte[]) updated.getPerBaseQualityScoreChart()).length > 0);
-
-		assertNotNull("Per-sequence quality score chart was not created.", updated.getPerSequenceQualityScoreChart());
-		assertTrue("Per-sequence quality score chart was created, but was empty.",
-				((byte[]) updated.getPerSequenceQualityScoreChart()).length > 0);
-
-		assertNotNull("Duplication level chart was not created.", updated.getDuplicationLevelChart());
-		assertTrue("Duplication level chart was not created.", ((byte[]) updated.getDuplicationLevelChart()).length > 0);
+		ArgumentCaptor<FastQCChartData> chartData = ArgumentCaptor.forClass(FastQCChartData.class);
+		verify(chartDataRepository).save(chartData.capture());
+		for (Chart chart : Chart.values()) {
+			assertNotNull("Series for " + chart + " was not captured.", chartData.getValue().getSeries(chart));
+			BufferedImage image = ImageIO
+					.read(new ByteArrayInputStream(FastQCCharts.render(chartData.getValue(), chart)));
+			assertEquals("Chart " + chart + " was not drawn at the right size.", FastQCCharts.WIDTH,
+					image.getWidth());
+		}
 
 		Iterator<OverrepresentedSequence> ovrs = updated.getOverrepresentedSequences().iterator();
 		assertTrue("No overrepresented sequences added to analysis.", ovrs.hasNext());
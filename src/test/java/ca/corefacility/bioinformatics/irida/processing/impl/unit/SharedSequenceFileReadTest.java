@@ -0,0 +1,164 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.MessageSource;
+import org.springframework.util.ReflectionUtils;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessorException;
+import ca.corefacility.bioinformatics.irida.processing.StreamingFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.ChecksumFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.GzipFileProcessor;
+import ca.corefacility.bioinformatics.irida.processing.impl.SharedSequenceFileRead;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.FastQCChartDataRepository;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ContentAddressedFileStore;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+
+/**
+ * Tests for {@link SharedSequenceFileRead}.
+ */
+public class SharedSequenceFileReadTest {
+	private static final String SEQUENCE = "ACGTACGTN";
+	private static final String FASTQ_FILE_CONTENTS = "@testread\n" + SEQUENCE + "\n+\n?????????\n@testread2\n"
+			+ SEQUENCE + "\n+\n?????????\n";
+	private static final String FASTA_FILE_CONTENTS = ">test read\n" + SEQUENCE;
+
+	private SequenceFileRepository sequenceFileRepository;
+	private ChecksumFileProcessor checksumProcessor;
+	private GzipFileProcessor gzipProcessor;
+	private FastqcFileProcessor fastqcProcessor;
+	private List<StreamingFileProcessor> processors;
+
+	@Before
+	public void setUp() {
+		sequenceFileRepository = mock(SequenceFileRepository.class);
+		checksumProcessor = new ChecksumFileProcessor(sequenceFileRepository, mock(ContentAddressedFileStore.class));
+		gzipProcessor = new GzipFileProcessor(sequenceFileRepository, Boolean.FALSE);
+		fastqcProcessor = new FastqcFileProcessor(mock(MessageSource.class), sequenceFileRepository,
+				mock(FastQCChartDataRepository.class));
+		when(sequenceFileRepository.saveMetadata(any(SequenceFile.class))).then(returnsFirstArg());
+		processors = ImmutableList.of(checksumProcessor, gzipProcessor, fastqcProcessor);
+	}
+
+	@Test
+	public void testCompressedFile() throws IOException, IllegalAccessException {
+		Path compressed = Files.createTempFile(null, ".fastq.gz");
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+			out.write(FASTQ_FILE_CONTENTS.getBytes());
+		}
+		String expectedChecksum = DigestUtils.sha256Hex(Files.readAllBytes(compressed));
+
+		SequenceFile sf = new SequenceFile(compressed);
+		sf.setId(1L);
+
+		SharedSequenceFileRead read = SharedSequenceFileRead.read(sf, processors);
+		for (StreamingFileProcessor processor : processors) {
+			read.complete(processor);
+		}
+
+		assertEquals("checksum should be for the compressed upload", expectedChecksum, sf.getUploadSha256());
+		assertNotEquals("file should have been replaced by the decompressed file", compressed, sf.getFile());
+		assertEquals("decompressed file should have the original contents", FASTQ_FILE_CONTENTS,
+				new String(Files.readAllBytes(sf.getFile())));
+		assertEquals("FastQC should have seen every sequence", Integer.valueOf(2), getFastQC(sf).getTotalSequences());
+		assertEquals("FastQC should have counted every base", Long.valueOf(SEQUENCE.length() * 2),
+				getFastQC(sf).getTotalBases());
+
+		Files.deleteIfExists(sf.getFile());
+		Files.deleteIfExists(compressed);
+	}
+
+	@Test
+	public void testUncompressedFile() throws IOException, IllegalAccessException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		Files.write(fastq, FASTQ_FILE_CONTENTS.getBytes());
+
+		SequenceFile sf = new SequenceFile(fastq);
+		sf.setId(1L);
+
+		SharedSequenceFileRead read = SharedSequenceFileRead.read(sf, processors);
+		for (StreamingFileProcessor processor : processors) {
+			read.complete(processor);
+		}
+
+		assertEquals("checksums should be equal", DigestUtils.sha256Hex(FASTQ_FILE_CONTENTS), sf.getUploadSha256());
+		assertEquals("uncompressed file should not be replaced", fastq, sf.getFile());
+		verify(sequenceFileRepository, never()).save(any(SequenceFile.class));
+		assertEquals("FastQC should have seen every sequence", Integer.valueOf(2), getFastQC(sf).getTotalSequences());
+
+		Files.deleteIfExists(fastq);
+	}
+
+	@Test
+	public void testParseFailureOnlyFailsSequenceConsumers() throws IOException {
+		Path fasta = Files.createTempFile(null, null);
+		Files.write(fasta, FASTA_FILE_CONTENTS.getBytes());
+
+		SequenceFile sf = new SequenceFile(fasta);
+		sf.setId(1L);
+
+		SharedSequenceFileRead read = SharedSequenceFileRead.read(sf, processors);
+		read.complete(checksumProcessor);
+		read.complete(gzipProcessor);
+
+		assertEquals("checksum should still be calculated", DigestUtils.sha256Hex(FASTA_FILE_CONTENTS),
+				sf.getUploadSha256());
+
+		try {
+			read.complete(fastqcProcessor);
+			fail("FastQC should fail to parse a fasta file");
+		} catch (FileProcessorException e) {
+			// expected
+		}
+
+		Files.deleteIfExists(fasta);
+	}
+
+	@Test
+	public void testMissingFileFailsEveryone() {
+		SequenceFile sf = new SequenceFile(Paths.get("/reallyfakefile"));
+
+		SharedSequenceFileRead read = SharedSequenceFileRead.read(sf, processors);
+
+		for (StreamingFileProcessor processor : processors) {
+			try {
+				read.complete(processor);
+				fail("processor should fail when the file doesn't exist");
+			} catch (FileProcessorException e) {
+				assertTrue("cause should be an IOException", e.getCause() instanceof IOException);
+			}
+		}
+	}
+
+	private AnalysisFastQC getFastQC(SequenceFile sf) throws IllegalAccessException {
+		final Field fastqcAnalysis = ReflectionUtils.findField(SequenceFile.class, "fastqcAnalysis");
+		ReflectionUtils.makeAccessible(fastqcAnalysis);
+		return (AnalysisFastQC) fastqcAnalysis.get(sf);
+	}
+}
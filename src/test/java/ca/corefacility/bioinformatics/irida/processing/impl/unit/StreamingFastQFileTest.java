@@ -0,0 +1,103 @@
+package ca.corefacility.bioinformatics.irida.processing.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.processing.impl.StreamingFastQFile;
+import uk.ac.babraham.FastQC.Sequence.Sequence;
+import uk.ac.babraham.FastQC.Sequence.SequenceFactory;
+import uk.ac.babraham.FastQC.Sequence.SequenceFile;
+import uk.ac.babraham.FastQC.Sequence.SequenceFormatException;
+
+/**
+ * Tests for {@link StreamingFastQFile}.
+ */
+public class StreamingFastQFileTest {
+	private static final String FASTQ_FILE_CONTENTS = "@upper\nACGTN\n+\n?????\n@lower\nacgtn\n+\n?????\n\n"
+			+ "@mixed\nAcGtN\n+mixed\n?????\n";
+
+	@Test
+	public void testUpperCasesBases() throws IOException, SequenceFormatException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		try {
+			StreamingFastQFile file = new StreamingFastQFile(fastq.toFile(),
+					new BufferedReader(new StringReader(FASTQ_FILE_CONTENTS)));
+			List<Sequence> sequences = readAll(file);
+
+			assertEquals("should read every record", 3, sequences.size());
+			for (Sequence sequence : sequences) {
+				assertEquals("bases should be upper case", "ACGTN", sequence.getSequence());
+				assertEquals("quality should be unchanged", "?????", sequence.getQualityString());
+			}
+			assertEquals("should keep the id line", "@lower", sequences.get(1).getID());
+		} finally {
+			Files.delete(fastq);
+		}
+	}
+
+	@Test
+	public void testMatchesFastQC() throws IOException, SequenceFormatException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		try {
+			Files.write(fastq, FASTQ_FILE_CONTENTS.getBytes());
+			List<Sequence> expected = readAll(SequenceFactory.getSequenceFile(fastq.toFile()));
+			List<Sequence> actual = readAll(new StreamingFastQFile(fastq.toFile(),
+					new BufferedReader(new StringReader(FASTQ_FILE_CONTENTS))));
+
+			assertEquals("should read as many records as FastQC", expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals("should read the same id as FastQC", expected.get(i).getID(), actual.get(i).getID());
+				assertEquals("should read the same bases as FastQC", expected.get(i).getSequence(),
+						actual.get(i).getSequence());
+				assertEquals("should read the same quality as FastQC", expected.get(i).getQualityString(),
+						actual.get(i).getQualityString());
+			}
+		} finally {
+			Files.delete(fastq);
+		}
+	}
+
+	@Test(expected = SequenceFormatException.class)
+	public void testTruncatedRecord() throws IOException, SequenceFormatException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		try {
+			StreamingFastQFile file = new StreamingFastQFile(fastq.toFile(),
+					new BufferedReader(new StringReader("@upper\nACGTN\n+\n?????\n@truncated\nACGTN\n")));
+			assertTrue("should read the first record", file.hasNext());
+			file.next();
+		} finally {
+			Files.delete(fastq);
+		}
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException, SequenceFormatException {
+		Path fastq = Files.createTempFile(null, ".fastq");
+		try {
+			StreamingFastQFile file = new StreamingFastQFile(fastq.toFile(), new BufferedReader(new StringReader("")));
+			assertFalse("an empty file should have no records", file.hasNext());
+			assertEquals("an empty file should be read completely", 100, file.getPercentComplete());
+		} finally {
+			Files.delete(fastq);
+		}
+	}
+
+	private static List<Sequence> readAll(SequenceFile file) throws SequenceFormatException {
+		List<Sequence> sequences = new ArrayList<>();
+		while (file.hasNext()) {
+			sequences.add(file.next());
+		}
+		return sequences;
+	}
+}
@@ -0,0 +1,96 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.util.RecursiveDeleteVisitor;
+
+/**
+ * Tests for {@link ContentAddressedFileStore}.
+ */
+public class ContentAddressedFileStoreTest {
+	private static final String CONTENTS = "@read\nACGT\n+\n????\n";
+
+	private Path baseDirectory;
+	private ContentAddressedFileStore store;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDirectory = Files.createTempDirectory(null);
+		store = new ContentAddressedFileStore(baseDirectory.resolve(".blobs"), true);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walkFileTree(baseDirectory, new RecursiveDeleteVisitor());
+	}
+
+	@Test
+	public void testFirstFileBecomesBlob() throws IOException {
+		Path file = writeFile("1", CONTENTS);
+		String sha = DigestUtils.sha256Hex(CONTENTS);
+
+		store.deduplicate(file, sha);
+
+		Path blob = store.getBlob(sha);
+		assertTrue("blob should exist", Files.exists(blob));
+		assertTrue("file should be the blob", Files.isSameFile(blob, file));
+	}
+
+	@Test
+	public void testIdenticalFilesShareBlob() throws IOException {
+		Path first = writeFile("1", CONTENTS);
+		Path second = writeFile("2", CONTENTS);
+		String sha = DigestUtils.sha256Hex(CONTENTS);
+
+		store.deduplicate(first, sha);
+		store.deduplicate(second, sha);
+
+		assertTrue("files should share storage", Files.isSameFile(first, second));
+		assertEquals("file contents should be unchanged", CONTENTS, new String(Files.readAllBytes(second)));
+		assertFalse("temporary link should be cleaned up",
+				Files.exists(second.resolveSibling(second.getFileName() + ".link")));
+
+		// de-duplicating again shouldn't change anything
+		store.deduplicate(second, sha);
+		assertTrue("files should still share storage", Files.isSameFile(first, second));
+	}
+
+	@Test
+	public void testSizeMismatchNotLinked() throws IOException {
+		Path first = writeFile("1", CONTENTS);
+		Path second = writeFile("2", CONTENTS + "extra");
+		String sha = DigestUtils.sha256Hex(CONTENTS);
+
+		store.deduplicate(first, sha);
+		store.deduplicate(second, sha);
+
+		assertFalse("files with different sizes shouldn't be linked", Files.isSameFile(first, second));
+	}
+
+	@Test
+	public void testDisabled() throws IOException {
+		store = new ContentAddressedFileStore(baseDirectory.resolve(".blobs"), false);
+		Path file = writeFile("1", CONTENTS);
+		String sha = DigestUtils.sha256Hex(CONTENTS);
+
+		store.deduplicate(file, sha);
+
+		assertFalse("no blob should be written when disabled", Files.exists(store.getBlob(sha)));
+	}
+
+	private Path writeFile(String directory, String contents) throws IOException {
+		Path file = Files.createDirectories(baseDirectory.resolve(directory).resolve("1")).resolve("reads.fastq");
+		return Files.write(file, contents.getBytes());
+	}
+}
@@ -0,0 +1,59 @@
+package ca.corefacility.bioinformatics.irida.repositories.filesystem;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Test;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.FilesystemSupplementedRepositoryImpl.RelativePathTranslatorListener;
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.PathFields.PathField;
+
+/**
+ * Tests for {@link PathFields}.
+ */
+public class PathFieldsTest {
+
+	@Test
+	public void testFindsPathFields() {
+		List<PathField> fields = PathFields.forType(SequenceFile.class);
+
+		assertEquals("sequence file has a single path", 1, fields.size());
+		assertEquals("the path field is the file", "file", fields.get(0).getName());
+		assertSame("accessors should be cached", fields, PathFields.forType(SequenceFile.class));
+	}
+
+	@Test
+	public void testNoPathFields() {
+		assertTrue("strings have no path fields", PathFields.forType(String.class).isEmpty());
+	}
+
+	@Test
+	public void testGetAndSet() {
+		PathField field = PathFields.forType(SequenceFile.class).get(0);
+		SequenceFile sf = new SequenceFile(Paths.get("/tmp/reads.fastq"));
+
+		assertEquals(Paths.get("/tmp/reads.fastq"), field.get(sf));
+		field.set(sf, Paths.get("/tmp/other.fastq"));
+		assertEquals(Paths.get("/tmp/other.fastq"), sf.getFile());
+	}
+
+	@Test
+	public void testListenerTranslatesPaths() {
+		Path base = Paths.get("/data/sequence");
+		RelativePathTranslatorListener.addBaseDirectory(SequenceFile.class, base);
+		RelativePathTranslatorListener listener = new RelativePathTranslatorListener();
+		SequenceFile sf = new SequenceFile(Paths.get("1/1/reads.fastq"));
+
+		listener.absolutePath(sf);
+		assertEquals(base.resolve("1/1/reads.fastq"), sf.getFile());
+
+		listener.relativePath(sf);
+		assertEquals(Paths.get("1/1/reads.fastq"), sf.getFile());
+	}
+}
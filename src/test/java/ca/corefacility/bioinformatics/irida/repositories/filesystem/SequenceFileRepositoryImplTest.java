@@ -82,6 +82,27 @@ public class SequenceFileRepositoryImplTest {
 		Files.delete(p);
 	}
 
+	@Test
+	public void testCreateFileShardedLayout() throws IOException {
+		Long lid = new Long(1111);
+		Path f = getTempFile();
+		SequenceFile s = new SequenceFile(f);
+		s.setId(lid);
+		FileStorageLayout layout = new ShardedStorageLayout(2);
+		repository = new SequenceFileRepositoryImpl(entityManager, baseDirectory, layout);
+		when(entityManager.merge(s)).thenReturn(s);
+		s = repository.save(s);
+
+		// the created file should be nested in the shard directories
+		Path p = layout.getEntityDirectory(baseDirectory, lid).resolve(s.getFileRevisionNumber().toString())
+				.resolve(f.getFileName());
+		assertEquals(p, s.getFile());
+		assertTrue(Files.exists(p));
+		assertEquals("file should be two shard levels below the shard root",
+				baseDirectory.resolve(ShardedStorageLayout.SHARD_ROOT),
+				p.getParent().getParent().getParent().getParent().getParent());
+	}
+
 	@Test
 	public void testUpdateFileMissingIdentifier() throws IOException {
 		SequenceFile s = new SequenceFile(getTempFile());
@@ -0,0 +1,68 @@
+package ca.corefacility.bioinformatics.irida.repositories.remote.resttemplate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
+import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.service.RemoteAPITokenService;
+
+/**
+ * Unit tests for {@link OAuthTokenRestTemplateProvider}
+ */
+public class OAuthTokenRestTemplateProviderTest {
+
+	private OAuthTokenRestTemplateProvider provider;
+	private RemoteAPI remoteAPI;
+
+	@Before
+	public void setUp() {
+		provider = new OAuthTokenRestTemplateProvider(mock(RemoteAPITokenService.class), 2, 4,
+				new MetricRegistry());
+		remoteAPI = new RemoteAPI("service name", "http://uri", "a service", "clientId", "clientSecret");
+		remoteAPI.setId(1L);
+	}
+
+	@After
+	public void tearDown() {
+		provider.shutdown();
+	}
+
+	@Test
+	public void testTemplateReused() {
+		OAuthTokenRestTemplate template = provider.getRestTemplate(remoteAPI);
+
+		assertSame("template should be reused for the same API", template, provider.getRestTemplate(remoteAPI));
+		assertTrue("template should use pooled connections",
+				template.getRequestFactory() instanceof HttpComponentsClientHttpRequestFactory);
+	}
+
+	@Test
+	public void testTemplateRebuiltWhenApiChanges() {
+		OAuthTokenRestTemplate template = provider.getRestTemplate(remoteAPI);
+
+		RemoteAPI updated = new RemoteAPI("service name", "http://other-uri", "a service", "clientId",
+				"clientSecret");
+		updated.setId(1L);
+
+		OAuthTokenRestTemplate updatedTemplate = provider.getRestTemplate(updated);
+		assertNotSame("template should be rebuilt for the changed API", template, updatedTemplate);
+		assertEquals(updated, updatedTemplate.getRemoteAPI());
+	}
+
+	@Test
+	public void testUnsavedApiNotCached() {
+		RemoteAPI unsaved = new RemoteAPI("service name", "http://uri", "a service", "clientId", "clientSecret");
+
+		assertNotSame("unsaved APIs shouldn't be cached", provider.getRestTemplate(unsaved),
+				provider.getRestTemplate(unsaved));
+	}
+}
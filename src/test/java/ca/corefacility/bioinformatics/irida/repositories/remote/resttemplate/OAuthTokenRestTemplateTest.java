@@ -69,6 +69,21 @@ public class OAuthTokenRestTemplateTest {
 		restTemplate.createRequest(serviceURI, HttpMethod.GET);
 	}
 
+	@Test
+	public void testCreateRequestRefreshesExpiredToken() throws URISyntaxException, IOException {
+		RemoteAPIToken expired = new RemoteAPIToken("token111111", remoteAPI,
+				new Date(System.currentTimeMillis() - 10000));
+		RemoteAPIToken refreshed = new RemoteAPIToken("token222222", remoteAPI,
+				new Date(System.currentTimeMillis() + 10000));
+		when(tokenService.getToken(remoteAPI)).thenReturn(expired);
+		when(tokenService.updateTokenFromRefreshToken(remoteAPI)).thenReturn(refreshed);
+
+		ClientHttpRequest createRequest = restTemplate.createRequest(serviceURI, HttpMethod.GET);
+
+		verify(tokenService).updateTokenFromRefreshToken(remoteAPI);
+		assertTrue(createRequest.getHeaders().get("Authorization").contains("Bearer token222222"));
+	}
+
 	@Test(expected = IridaOAuthException.class)
 	public void testCreateRequestNoToken() throws URISyntaxException, IOException {
 		when(tokenService.getToken(remoteAPI)).thenThrow(new EntityNotFoundException("no token for this service"));
@@ -5,6 +5,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.HttpInputMessage;
@@ -83,6 +84,88 @@ public class SequenceFileMessageConverterTest {
 		converter.read(Path.class, inputMessage);
 	}
 
+	@Test
+	public void testResumePartialFile() throws HttpMessageNotReadableException, IOException {
+		String message = "Some fastq file";
+		Path partialFile = Files.createTempFile(null, ".part");
+		Files.write(partialFile, message.substring(0, 5).getBytes());
+
+		byte[] rest = message.substring(5).getBytes();
+		HttpInputMessage inputMessage = new MockHttpInputMessage(rest);
+		inputMessage.getHeaders().add("Content-Length", Long.toString(rest.length));
+		inputMessage.getHeaders().add("Content-Range", "bytes 5-" + (message.length() - 1) + "/" + message.length());
+
+		converter = new SequenceFileMessageConverter(fileName, partialFile, DigestUtils.sha256Hex(message));
+		Path read = converter.read(Path.class, inputMessage);
+
+		assertEquals("file should keep the remote file name", fileName, read.getFileName().toString());
+		assertEquals(message, new String(Files.readAllBytes(read)));
+		assertFalse("partial file should be moved", Files.exists(partialFile));
+
+		Files.delete(read);
+	}
+
+	@Test
+	public void testInterruptedDownloadKeepsPartialFile() throws IOException {
+		String message = "Some fastq file";
+		byte[] messageBytes = message.getBytes();
+		Path partialFile = Files.createTempFile(null, ".part");
+
+		HttpInputMessage inputMessage = new MockHttpInputMessage(messageBytes);
+		inputMessage.getHeaders().add("Content-Length", Long.toString(messageBytes.length + 10));
+
+		converter = new SequenceFileMessageConverter(fileName, partialFile, null);
+		try {
+			converter.read(Path.class, inputMessage);
+			fail("short download should fail");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertEquals("downloaded bytes should be kept", message, new String(Files.readAllBytes(partialFile)));
+
+		Files.delete(partialFile);
+	}
+
+	@Test
+	public void testUnexpectedRangeDiscardsPartialFile() throws IOException {
+		Path partialFile = Files.createTempFile(null, ".part");
+		Files.write(partialFile, "Some".getBytes());
+
+		HttpInputMessage inputMessage = new MockHttpInputMessage(" fastq file".getBytes());
+		inputMessage.getHeaders().add("Content-Range", "bytes 10-20/21");
+
+		converter = new SequenceFileMessageConverter(fileName, partialFile, null);
+		try {
+			converter.read(Path.class, inputMessage);
+			fail("range that doesn't continue the partial file should fail");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertFalse("partial file should be discarded", Files.exists(partialFile));
+	}
+
+	@Test
+	public void testChecksumMismatchDiscardsFile() throws IOException {
+		String message = "Some fastq file";
+		byte[] messageBytes = message.getBytes();
+		Path partialFile = Files.createTempFile(null, ".part");
+
+		HttpInputMessage inputMessage = new MockHttpInputMessage(messageBytes);
+		inputMessage.getHeaders().add("Content-Length", Long.toString(messageBytes.length));
+
+		converter = new SequenceFileMessageConverter(fileName, partialFile, DigestUtils.sha256Hex("something else"));
+		try {
+			converter.read(Path.class, inputMessage);
+			fail("corrupt download should fail");
+		} catch (IOException e) {
+			// expected
+		}
+
+		assertFalse("corrupt file should be discarded", Files.exists(partialFile));
+	}
+
 	@Test
 	public void testGetMediaTypes() {
 		List<MediaType> supportedMediaTypes = converter.getSupportedMediaTypes();
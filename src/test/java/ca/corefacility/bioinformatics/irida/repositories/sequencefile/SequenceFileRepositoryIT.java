@@ -0,0 +1,99 @@
+package ca.corefacility.bioinformatics.irida.repositories.sequencefile;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Date;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata.FileStatus;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+
+/**
+ * Tests recording the {@link FileMetadata} of a {@link SequenceFile} after it
+ * has been checked.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/repositories/sequencefile/SequenceFileRepositoryIT.xml")
+@DatabaseTearDown("/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml")
+public class SequenceFileRepositoryIT {
+
+	@Autowired
+	private SequenceFileRepository sequenceFileRepository;
+
+	@Test
+	public void testUpdateFileMetadata() {
+		SequenceFile file = sequenceFileRepository.findOne(1L);
+		FileMetadata recorded = file.getFileMetadata();
+		Date checked = new Date();
+
+		assertEquals("The file should be updated", 1,
+				sequenceFileRepository.updateFileMetadata(1L, recorded.getSizeBytes(), recorded.getFileModifiedDate(),
+						checked, FileStatus.MISSING, file.getFileRevisionNumber(), recorded.getVerifiedDate()));
+
+		assertEquals("The status should be recorded", FileStatus.MISSING,
+				sequenceFileRepository.findOne(1L).getFileMetadata().getStatus());
+	}
+
+	@Test
+	public void testUpdateFileMetadataNeverChecked() {
+		SequenceFile file = sequenceFileRepository.findOne(2L);
+
+		assertEquals("The file should be updated", 1, sequenceFileRepository.updateFileMetadata(2L, 100L, new Date(),
+				new Date(), FileStatus.AVAILABLE, file.getFileRevisionNumber(), null));
+
+		assertEquals("The size should be recorded", Long.valueOf(100L),
+				sequenceFileRepository.findOne(2L).getFileMetadata().getSizeBytes());
+	}
+
+	@Test
+	public void testUpdateFileMetadataRewritten() {
+		SequenceFile file = sequenceFileRepository.findOne(1L);
+		FileMetadata recorded = file.getFileMetadata();
+
+		assertEquals("A check of an earlier revision should update nothing", 0,
+				sequenceFileRepository.updateFileMetadata(1L, recorded.getSizeBytes(), recorded.getFileModifiedDate(),
+						new Date(), FileStatus.CHANGED, file.getFileRevisionNumber() - 1, recorded.getVerifiedDate()));
+
+		assertEquals("The status should not change", FileStatus.AVAILABLE,
+				sequenceFileRepository.findOne(1L).getFileMetadata().getStatus());
+	}
+
+	@Test
+	public void testUpdateFileMetadataRecordedAgain() {
+		SequenceFile file = sequenceFileRepository.findOne(1L);
+		FileMetadata recorded = file.getFileMetadata();
+		Date readBefore = new Date(recorded.getVerifiedDate().getTime() - 60000);
+
+		assertEquals("A check of metadata that has since been recorded again should update nothing", 0,
+				sequenceFileRepository.updateFileMetadata(1L, recorded.getSizeBytes(), recorded.getFileModifiedDate(),
+						new Date(), FileStatus.CHANGED, file.getFileRevisionNumber(), readBefore));
+		assertEquals("A check of a file that was never recorded should update nothing", 0,
+				sequenceFileRepository.updateFileMetadata(1L, recorded.getSizeBytes(), recorded.getFileModifiedDate(),
+						new Date(), FileStatus.CHANGED, file.getFileRevisionNumber(), null));
+
+		assertEquals("The status should not change", FileStatus.AVAILABLE,
+				sequenceFileRepository.findOne(1L).getFileMetadata().getStatus());
+	}
+}
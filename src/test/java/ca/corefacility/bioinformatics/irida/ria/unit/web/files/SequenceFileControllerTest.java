@@ -3,7 +3,9 @@ package ca.corefacility.bioinformatics.irida.ria.unit.web.files;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -21,9 +23,12 @@ import org.springframework.ui.ExtendedModelMap;
 import org.springframework.ui.Model;
 
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
 import ca.corefacility.bioinformatics.irida.ria.web.files.SequenceFileController;
 import ca.corefacility.bioinformatics.irida.service.AnalysisService;
+import ca.corefacility.bioinformatics.irida.service.FastQCChartService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.SequencingRunService;
 
@@ -42,13 +47,15 @@ public class SequenceFileControllerTest {
 	private SequencingRunService sequencingRunService;
 	private SequencingObjectService objectService;
 	private AnalysisService analysisService;
+	private FastQCChartService chartService;
 
 	@Before
 	public void setUp() {
 		sequencingRunService = mock(SequencingRunService.class);
 		analysisService = mock(AnalysisService.class);
+		chartService = mock(FastQCChartService.class);
 		objectService = mock(SequencingObjectService.class);
-		controller = new SequenceFileController(objectService, sequencingRunService, analysisService);
+		controller = new SequenceFileController(objectService, sequencingRunService, analysisService, chartService);
 
 		Path path = Paths.get(FILE_PATH);
 		SequenceFile file = new SequenceFile(path);
@@ -103,6 +110,19 @@ public class SequenceFileControllerTest {
 		assertArrayEquals("Response contents the correct file content", origBytes, responseBytes);
 	}
 
+	@Test
+	public void testDownloadSequenceFileImage() throws IOException {
+		byte[] chart = new byte[] { 1, 2, 3 };
+		when(chartService.getChart(any(SequencingObject.class), eq(FILE_ID), eq(Chart.PER_SEQUENCE_QUALITY)))
+				.thenReturn(chart);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		controller.downloadSequenceFileImages(OBJECT_ID, FILE_ID, SequenceFileController.IMG_PERSEQUENCE, response,
+				false);
+		assertArrayEquals("Response should contain the chart", chart, response.getContentAsByteArray());
+		assertEquals("Response should be a PNG", "image/png", response.getContentType());
+	}
+
 	private void testModel(Model model) {
 		assertTrue("Model should contain information about the file.", model.containsAttribute("file"));
 		assertTrue("Model should contain the created date for the file.", model.containsAttribute("created"));
@@ -3,6 +3,7 @@ package ca.corefacility.bioinformatics.irida.ria.unit.web.pipelines;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -116,7 +117,8 @@ public class PipelineControllerTest {
 				.thenReturn(true);
 		when(cartController.getSelected()).thenReturn(TestDataFactory.constructCart());
 
-		when(sequencingObjectService.getSequencesForSampleOfType(any(Sample.class), eq(SingleEndSequenceFile.class)))
+		when(sequencingObjectService.getSequencesForSamplesOfType(anyCollectionOf(Sample.class),
+				eq(SingleEndSequenceFile.class)))
 				.thenReturn(TestDataFactory.generateSequencingObjectsForSample(TestDataFactory.constructSample()));
 
 		when(workflowsService.getDisplayableIridaWorkflow(id)).thenReturn(TestDataFactory.getIridaWorkflow(id));
@@ -20,6 +20,7 @@ import org.mockito.ArgumentCaptor;
 import org.springframework.context.MessageSource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -37,6 +38,7 @@ import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequence
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.ria.unit.TestDataFactory;
+import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesExportTypes;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesParams;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.DataTablesResponse;
 import ca.corefacility.bioinformatics.irida.ria.web.components.datatables.models.DataTablesResponseModel;
@@ -321,6 +323,54 @@ public class ProjectSamplesControllerTest {
 
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testExportProjectSamplesTable() throws IOException {
+		Project project = getProject();
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		Sample first = new Sample("first");
+		first.setId(1L);
+		Sample second = new Sample("second");
+		second.setId(2L);
+
+		when(messageSource.getMessage(any(String.class), any(Object[].class), any(Locale.class))).thenReturn("header");
+		when(sampleService.getFilteredSamplesForProjects(any(List.class), any(List.class), any(String.class),
+				any(String.class), any(String.class), any(Date.class), any(Date.class), eq(0), any(Integer.class),
+				any(Sort.class))).thenReturn(new PageImpl<>(ImmutableList.of(new ProjectSampleJoin(project, first, true)),
+						new PageRequest(0, 1), 2));
+		when(sampleService.getFilteredSamplesForProjects(any(List.class), any(List.class), any(String.class),
+				any(String.class), any(String.class), any(Date.class), any(Date.class), eq(1), any(Integer.class),
+				any(Sort.class))).thenReturn(new PageImpl<>(
+						ImmutableList.of(new ProjectSampleJoin(project, second, true)), new PageRequest(1, 1), 2));
+		DataTablesParams params = mock(DataTablesParams.class);
+		when(params.getSort()).thenReturn(new Sort(Direction.ASC, "sample.sampleName"));
+
+		controller.exportProjectSamplesTable(PROJECT_ID, DataTablesExportTypes.csv, params, ImmutableList.of(),
+				ImmutableList.of(), new UISampleFilter(), null, response, Locale.US);
+
+		String[] lines = response.getContentAsString().split("\n");
+		assertEquals("should write the headers and a row for each sample on every page", 3, lines.length);
+		assertTrue("should write the first page", lines[1].contains("\"first\""));
+		assertTrue("should write the second page", lines[2].contains("\"second\""));
+		assertEquals("should name the file after the project", "attachment; filename=\"test_project.csv\"",
+				response.getHeader("Content-Disposition"));
+	}
+
+	@Test
+	public void testExportEmptyProjectSamplesTable() throws IOException {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		when(messageSource.getMessage(any(String.class), any(Object[].class), any(Locale.class))).thenReturn("header");
+		DataTablesParams params = mock(DataTablesParams.class);
+		when(params.getSort()).thenReturn(new Sort(Direction.ASC, "sample.sampleName"));
+		when(sampleService.getFilteredSamplesForProjects(any(), any(), any(), any(), any(), any(), any(), anyInt(),
+				anyInt(), any())).thenReturn(new PageImpl<>(ImmutableList.of()));
+
+		controller.exportProjectSamplesTable(PROJECT_ID, DataTablesExportTypes.excel, params, ImmutableList.of(),
+				ImmutableList.of(), new UISampleFilter(), null, response, Locale.US);
+
+		assertTrue("should write a workbook with only the headers", response.getContentAsByteArray().length > 0);
+	}
+
 	@Test
 	public void testDownloadSamples() throws IOException {
 		Project project = TestDataFactory.constructProject();
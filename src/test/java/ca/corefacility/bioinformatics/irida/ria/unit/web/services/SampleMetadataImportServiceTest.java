@@ -0,0 +1,214 @@
+package ca.corefacility.bioinformatics.irida.ria.unit.web.services;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.MessageSource;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.ria.utilities.SampleMetadataStorage;
+import ca.corefacility.bioinformatics.irida.ria.web.services.SampleMetadataImportService;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+public class SampleMetadataImportServiceTest {
+	private SampleService sampleService;
+	private MetadataTemplateService metadataTemplateService;
+	private MessageSource messageSource;
+	private SampleMetadataImportService importService;
+
+	private Project project;
+	private Path directory;
+	private SampleMetadataStorage storage;
+	private MetadataTemplateField serotype;
+
+	@Before
+	public void setUp() throws IOException {
+		sampleService = mock(SampleService.class);
+		metadataTemplateService = mock(MetadataTemplateService.class);
+		messageSource = mock(MessageSource.class);
+		importService = new SampleMetadataImportService(sampleService, metadataTemplateService, messageSource,
+				new SyncTaskExecutor());
+
+		project = new Project("project");
+		project.setId(1L);
+		directory = Files.createTempDirectory("sample-metadata");
+		storage = new SampleMetadataStorage(directory);
+		// held by the session
+		storage.valueBound(null);
+		serotype = new MetadataTemplateField("Serotype", "text");
+
+		when(metadataTemplateService.getOrCreateMetadataFields(ImmutableList.of("Serotype")))
+				.thenReturn(ImmutableMap.of("Serotype", serotype));
+		when(messageSource.getMessage(any(String.class), any(Object[].class), any(Locale.class)))
+				.thenAnswer(i -> i.getArguments()[0]);
+	}
+
+	@After
+	public void tearDown() {
+		storage.valueUnbound(null);
+	}
+
+	@Test
+	public void testReadCsv() throws IOException {
+		readCsv("Sample,,Serotype\n", "s1,ignored,Enteritidis\n", ",,\n", "s2\n");
+
+		assertEquals("should skip columns without a header", ImmutableList.of("Sample", "Serotype"),
+				storage.getHeaders());
+		List<Map<String, String>> rows = Lists.newArrayList(storage.getRows());
+		assertEquals("should skip rows without values", 2, rows.size());
+		assertEquals("should read the values under each header",
+				ImmutableMap.of("Sample", "s1", "Serotype", "Enteritidis"), rows.get(0));
+		assertEquals("should leave out cells missing from the file", ImmutableMap.of("Sample", "s2"), rows.get(1));
+	}
+
+	@Test
+	public void testReadXlsx() throws IOException {
+		Path file = directory.resolve("upload.xlsx");
+		try (XSSFWorkbook workbook = new XSSFWorkbook(); OutputStream out = Files.newOutputStream(file)) {
+			Sheet sheet = workbook.createSheet();
+			Row headers = sheet.createRow(0);
+			headers.createCell(0).setCellValue("Sample");
+			headers.createCell(2).setCellValue("Year");
+			Row row = sheet.createRow(1);
+			row.createCell(0).setCellValue("s1");
+			row.createCell(2).setCellValue(2017);
+			workbook.write(out);
+		}
+
+		importService.readFile(file, "xlsx", storage);
+
+		assertEquals("should read the headers", ImmutableList.of("Sample", "Year"), storage.getHeaders());
+		assertEquals("should read numbers as they are converted to text",
+				ImmutableList.of(ImmutableMap.of("Sample", "s1", "Year", "2017")),
+				Lists.newArrayList(storage.getRows()));
+	}
+
+	@Test
+	public void testFindSamples() throws IOException {
+		readCsv("Sample,Serotype\n", "s1,Enteritidis\n", "s2,Heidelberg\n", "s1,Typhimurium\n");
+		when(sampleService.getSampleIdsBySampleName(project, ImmutableSet.of("s1", "s2")))
+				.thenReturn(ImmutableMap.of("s1", 10L));
+
+		importService.findSamples(project, storage, "Sample");
+
+		verify(sampleService, times(1)).getSampleIdsBySampleName(eq(project), anyCollectionOf(String.class));
+		assertNull("should remove the unsorted rows", storage.getRows());
+		assertEquals("should find rows for existing samples", 2, Lists.newArrayList(storage.getFound()).size());
+		assertEquals("should count the found rows", 2, storage.getFoundCount());
+		assertEquals("should keep rows for missing samples",
+				ImmutableList.of(ImmutableMap.of("Sample", "s2", "Serotype", "Heidelberg")),
+				Lists.newArrayList(storage.getMissing()));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSave() throws IOException, InterruptedException {
+		readCsv("Sample,Serotype\n", "s1,Enteritidis\n", "s2,Heidelberg\n", "s1,Typhimurium\n");
+		when(sampleService.getSampleIdsBySampleName(eq(project), anyCollectionOf(String.class)))
+				.thenReturn(ImmutableMap.of("s1", 10L, "s2", 20L));
+		when(sampleService.mergeSampleMetadata(eq(project), any(Map.class))).thenReturn(ImmutableSet.of(10L));
+		importService.findSamples(project, storage, "Sample");
+
+		importService.startSave(project, storage, Locale.ENGLISH);
+		Map<String, Object> status = waitForSave();
+
+		ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+		verify(sampleService).mergeSampleMetadata(eq(project), captor.capture());
+		Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata = captor.getValue();
+		assertEquals("should save every sample in one batch", ImmutableSet.of(10L, 20L), metadata.keySet());
+		assertEquals("later rows should overwrite earlier rows", "Typhimurium",
+				metadata.get(10L).get(serotype).getValue());
+		assertEquals("should not save the sample name as metadata", ImmutableSet.of(serotype),
+				metadata.get(20L).keySet());
+
+		assertEquals("should report samples that were not updated",
+				ImmutableList.of("metadata.results.save.sample-not-found"), status.get("save-errors"));
+	}
+
+	@Test
+	public void testSaveSuccess() throws IOException, InterruptedException {
+		readCsv("Sample,Serotype\n", "s1,Enteritidis\n");
+		when(sampleService.getSampleIdsBySampleName(eq(project), anyCollectionOf(String.class)))
+				.thenReturn(ImmutableMap.of("s1", 10L));
+		when(sampleService.mergeSampleMetadata(eq(project), any())).thenReturn(ImmutableSet.of(10L));
+		importService.findSamples(project, storage, "Sample");
+
+		importService.startSave(project, storage, Locale.ENGLISH);
+		Map<String, Object> status = waitForSave();
+
+		assertEquals("should report success", "metadata.results.save.success", status.get("success"));
+	}
+
+	@Test
+	public void testStorageKeptUntilSaveCompletes() throws IOException {
+		List<Runnable> tasks = new ArrayList<>();
+		importService = new SampleMetadataImportService(sampleService, metadataTemplateService, messageSource,
+				tasks::add);
+		readCsv("Sample,Serotype\n", "s1,Enteritidis\n");
+		when(sampleService.getSampleIdsBySampleName(eq(project), anyCollectionOf(String.class)))
+				.thenReturn(ImmutableMap.of("s1", 10L));
+		when(sampleService.mergeSampleMetadata(eq(project), any())).thenReturn(ImmutableSet.of(10L));
+		importService.findSamples(project, storage, "Sample");
+
+		importService.startSave(project, storage, Locale.ENGLISH);
+		// the upload leaves the session before the save runs
+		storage.valueUnbound(null);
+		assertTrue("should keep the rows while the save is waiting", Files.exists(directory));
+
+		tasks.forEach(Runnable::run);
+		assertEquals("should save the rows", "metadata.results.save.success", storage.getSaveStatus().get("success"));
+		assertFalse("should remove the rows once the save is done", Files.exists(directory));
+	}
+
+	private void readCsv(String... lines) throws IOException {
+		Path file = directory.resolve("upload.csv");
+		Files.write(file, String.join("", lines).getBytes(StandardCharsets.UTF_8));
+		importService.readFile(file, "csv", storage);
+	}
+
+	private Map<String, Object> waitForSave() throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			Map<String, Object> status = storage.getSaveStatus();
+			if (Boolean.TRUE.equals(status.get("complete"))) {
+				return status;
+			}
+			Thread.sleep(50);
+		}
+		throw new AssertionError("save did not complete");
+	}
+}
@@ -0,0 +1,105 @@
+package ca.corefacility.bioinformatics.irida.security.permissions.project;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectUserJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+
+/**
+ * Tests for {@link ProjectMembershipCache}.
+ */
+public class ProjectMembershipCacheTest {
+	private static final String USERNAME = "fbristow";
+
+	private ProjectMembershipCache membershipCache;
+	private UserRepository userRepository;
+	private ProjectUserJoinRepository pujRepository;
+	private UserGroupProjectJoinRepository ugpjRepository;
+
+	private User user;
+	private Project project;
+
+	@Before
+	public void setUp() {
+		userRepository = mock(UserRepository.class);
+		pujRepository = mock(ProjectUserJoinRepository.class);
+		ugpjRepository = mock(UserGroupProjectJoinRepository.class);
+		membershipCache = new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 10, 60);
+
+		user = new User();
+		user.setUsername(USERNAME);
+		project = new Project();
+		project.setId(1L);
+
+		when(userRepository.loadUserByUsername(USERNAME)).thenReturn(user);
+		when(ugpjRepository.findProjectsByUser(user)).thenReturn(ImmutableList.of());
+	}
+
+	@Test
+	public void testHighestRoleWins() {
+		when(pujRepository.getProjectsForUser(user))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER)));
+		when(ugpjRepository.findProjectsByUser(user)).thenReturn(ImmutableList
+				.of(new UserGroupProjectJoin(project, new UserGroup("owners"), ProjectRole.PROJECT_OWNER)));
+
+		assertEquals("group ownership should win over direct membership", ProjectRole.PROJECT_OWNER,
+				membershipCache.getProjectRole(USERNAME, project));
+	}
+
+	@Test
+	public void testGetProjectIds() {
+		final Project groupProject = new Project();
+		groupProject.setId(2L);
+		when(pujRepository.getProjectsForUser(user))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER)));
+		when(ugpjRepository.findProjectsByUser(user)).thenReturn(ImmutableList
+				.of(new UserGroupProjectJoin(groupProject, new UserGroup("users"), ProjectRole.PROJECT_USER)));
+
+		assertEquals("should include direct and group projects", ImmutableSet.of(1L, 2L),
+				membershipCache.getProjectIds(USERNAME));
+	}
+
+	@Test
+	public void testInvalidate() {
+		when(pujRepository.getProjectsForUser(user)).thenReturn(ImmutableList.of());
+		assertNull("user should not be on the project", membershipCache.getProjectRole(USERNAME, project));
+
+		when(pujRepository.getProjectsForUser(user))
+				.thenReturn(ImmutableList.of(new ProjectUserJoin(project, user, ProjectRole.PROJECT_USER)));
+		assertNull("memberships should be cached", membershipCache.getProjectRole(USERNAME, project));
+
+		membershipCache.invalidate(USERNAME);
+		assertEquals("memberships should be reloaded after invalidating", ProjectRole.PROJECT_USER,
+				membershipCache.getProjectRole(USERNAME, project));
+		verify(pujRepository, times(2)).getProjectsForUser(user);
+	}
+
+	@Test
+	public void testCacheDisabled() {
+		membershipCache = new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 10, 0);
+		when(pujRepository.getProjectsForUser(user)).thenReturn(ImmutableList.of());
+
+		membershipCache.getProjectRole(USERNAME, project);
+		membershipCache.getProjectRole(USERNAME, project);
+
+		verify(pujRepository, times(2)).getProjectsForUser(user);
+	}
+}
@@ -20,13 +20,13 @@ import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
+import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.security.ProjectSynchronizationAuthenticationToken;
-import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectOwnerPermission;
 
 public class ProjectOwnerPermissionTest {
 
@@ -40,8 +40,6 @@ public class ProjectOwnerPermissionTest {
 	ProjectUserJoinRepository pujRepository;
 	@Mock
 	UserGroupProjectJoinRepository ugpjRepository;
-	@Mock
-	UserGroupJoinRepository ugRepository;
 
 	Project project = new Project();
 	Long projectId = 1L;
@@ -54,12 +52,14 @@ public class ProjectOwnerPermissionTest {
 		user.setSystemRole(Role.ROLE_USER);
 		user.setUsername("tom");
 
-		permission = new ProjectOwnerPermission(projectRepository, userRepository, pujRepository, ugpjRepository,
-				ugRepository);
+		project.setId(projectId);
+
+		permission = new ProjectOwnerPermission(projectRepository,
+				new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 10, 60));
 
 		when(projectRepository.findOne(projectId)).thenReturn(project);
 		when(userRepository.loadUserByUsername(user.getUsername())).thenReturn(user);
-		when(pujRepository.getUsersForProjectByRole(project, ProjectRole.PROJECT_OWNER))
+		when(pujRepository.getProjectsForUser(user))
 				.thenReturn(Lists.newArrayList(new ProjectUserJoin(project, user, ProjectRole.PROJECT_OWNER)));
 	}
 
@@ -89,6 +89,25 @@ public class ProjectOwnerPermissionTest {
 		assertFalse("user should not be able to read project", customPermissionAllowed);
 	}
 
+	@Test
+	public void testProjectOwnerByGroup() {
+		User user2 = new User();
+		user2.setUsername("bob");
+		user2.setSystemRole(Role.ROLE_USER);
+		UserGroup group = new UserGroup("owners");
+
+		when(userRepository.loadUserByUsername(user2.getUsername())).thenReturn(user2);
+		when(pujRepository.getProjectsForUser(user2))
+				.thenReturn(Lists.newArrayList(new ProjectUserJoin(project, user2, ProjectRole.PROJECT_USER)));
+		when(ugpjRepository.findProjectsByUser(user2))
+				.thenReturn(Lists.newArrayList(new UserGroupProjectJoin(project, group, ProjectRole.PROJECT_OWNER)));
+
+		Authentication authentication = new PreAuthenticatedAuthenticationToken(user2, user2.getSystemRole());
+		boolean customPermissionAllowed = permission.customPermissionAllowed(authentication, project);
+
+		assertTrue("group owner should be able to manage project", customPermissionAllowed);
+	}
+
 	@Test
 	public void testRemoteProject() {
 		project.setRemoteStatus(new RemoteStatus("http://somewhere", null));
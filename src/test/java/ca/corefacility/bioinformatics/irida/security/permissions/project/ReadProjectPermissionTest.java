@@ -24,14 +24,11 @@ import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.user.Role;
 import ca.corefacility.bioinformatics.irida.model.user.User;
 import ca.corefacility.bioinformatics.irida.model.user.group.UserGroup;
-import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupJoin;
 import ca.corefacility.bioinformatics.irida.model.user.group.UserGroupProjectJoin;
 import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectUserJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.joins.project.UserGroupProjectJoinRepository;
-import ca.corefacility.bioinformatics.irida.repositories.user.UserGroupJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
-import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
 
 import com.google.common.collect.ImmutableList;
 
@@ -46,7 +43,6 @@ public class ReadProjectPermissionTest {
 	private ProjectRepository projectRepository;
 	private ProjectUserJoinRepository pujRepository;
 	private UserGroupProjectJoinRepository ugpjRepository;
-	private UserGroupJoinRepository ugRepository;
 
 	@Before
 	public void setUp() {
@@ -54,9 +50,8 @@ public class ReadProjectPermissionTest {
 		projectRepository = mock(ProjectRepository.class);
 		pujRepository = mock(ProjectUserJoinRepository.class);
 		ugpjRepository = mock(UserGroupProjectJoinRepository.class);
-		ugRepository = mock(UserGroupJoinRepository.class);
-		readProjectPermission = new ReadProjectPermission(projectRepository, userRepository, pujRepository,
-				ugpjRepository, ugRepository);
+		readProjectPermission = new ReadProjectPermission(projectRepository,
+				new ProjectMembershipCache(userRepository, pujRepository, ugpjRepository, 10, 60));
 	}
 
 	@Test
@@ -65,12 +60,14 @@ public class ReadProjectPermissionTest {
 		User u = new User();
 		u.setUsername(username);
 		Project p = new Project();
-		List<Join<Project, User>> projectUsers = new ArrayList<>();
-		projectUsers.add(new ProjectUserJoin(p, u, ProjectRole.PROJECT_USER));
+		p.setId(1L);
+		List<Join<Project, User>> userProjects = new ArrayList<>();
+		userProjects.add(new ProjectUserJoin(p, u, ProjectRole.PROJECT_USER));
 
 		when(userRepository.loadUserByUsername(username)).thenReturn(u);
 		when(projectRepository.findOne(1L)).thenReturn(p);
-		when(pujRepository.getUsersForProject(p)).thenReturn(projectUsers);
+		when(pujRepository.getProjectsForUser(u)).thenReturn(userProjects);
+		when(ugpjRepository.findProjectsByUser(u)).thenReturn(ImmutableList.of());
 
 		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
 
@@ -78,7 +75,7 @@ public class ReadProjectPermissionTest {
 
 		verify(userRepository).loadUserByUsername(username);
 		verify(projectRepository).findOne(1L);
-		verify(pujRepository).getUsersForProject(p);
+		verify(pujRepository).getProjectsForUser(u);
 	}
 
 	@Test
@@ -87,13 +84,16 @@ public class ReadProjectPermissionTest {
 		User u = new User();
 		u.setUsername(username);
 		Project p = new Project();
-		List<Join<Project, User>> projectUsers = new ArrayList<>();
-		projectUsers.add(new ProjectUserJoin(p, new User(), ProjectRole.PROJECT_USER));
+		p.setId(1L);
+		Project other = new Project();
+		other.setId(2L);
+		List<Join<Project, User>> userProjects = new ArrayList<>();
+		userProjects.add(new ProjectUserJoin(other, u, ProjectRole.PROJECT_USER));
 
 		when(userRepository.loadUserByUsername(username)).thenReturn(u);
 		when(projectRepository.findOne(1L)).thenReturn(p);
-		when(pujRepository.getUsersForProject(p)).thenReturn(projectUsers);
-		when(ugpjRepository.findGroupsByProject(p)).thenReturn(ImmutableList.of());
+		when(pujRepository.getProjectsForUser(u)).thenReturn(userProjects);
+		when(ugpjRepository.findProjectsByUser(u)).thenReturn(ImmutableList.of());
 
 		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
 
@@ -101,8 +101,7 @@ public class ReadProjectPermissionTest {
 
 		verify(userRepository).loadUserByUsername(username);
 		verify(projectRepository).findOne(1L);
-		verify(pujRepository).getUsersForProject(p);
-		verifyZeroInteractions(ugRepository);
+		verify(pujRepository).getProjectsForUser(u);
 	}
 
 	@Test
@@ -125,16 +124,15 @@ public class ReadProjectPermissionTest {
 		final User u = new User();
 		u.setUsername(username);
 		final Project p = new Project();
+		p.setId(1L);
 		final UserGroup g = new UserGroup("The group");
-		final List<UserGroupProjectJoin> projectGroups = new ArrayList<>();
-		projectGroups.add(new UserGroupProjectJoin(p, g, ProjectRole.PROJECT_USER));
+		final List<UserGroupProjectJoin> userGroupProjects = new ArrayList<>();
+		userGroupProjects.add(new UserGroupProjectJoin(p, g, ProjectRole.PROJECT_USER));
 
 		when(userRepository.loadUserByUsername(username)).thenReturn(u);
 		when(projectRepository.findOne(1L)).thenReturn(p);
-		when(pujRepository.getUsersForProject(p)).thenReturn(ImmutableList.of());
-		when(ugpjRepository.findGroupsByProject(p)).thenReturn(projectGroups);
-		when(ugRepository.findUsersInGroup(g))
-				.thenReturn(ImmutableList.of(new UserGroupJoin(u, g, UserGroupJoin.UserGroupRole.GROUP_MEMBER)));
+		when(pujRepository.getProjectsForUser(u)).thenReturn(ImmutableList.of());
+		when(ugpjRepository.findProjectsByUser(u)).thenReturn(userGroupProjects);
 
 		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
 
@@ -142,6 +140,35 @@ public class ReadProjectPermissionTest {
 
 		verify(userRepository).loadUserByUsername(username);
 		verify(projectRepository).findOne(1L);
-		verify(pujRepository).getUsersForProject(p);
+		verify(ugpjRepository).findProjectsByUser(u);
+	}
+
+	@Test
+	public void testPermissionCachedForCollection() {
+		final String username = "fbristow";
+		final User u = new User();
+		u.setUsername(username);
+		final List<Project> projects = new ArrayList<>();
+		final List<Join<Project, User>> userProjects = new ArrayList<>();
+		for (long i = 1; i <= 3; i++) {
+			final Project p = new Project();
+			p.setId(i);
+			projects.add(p);
+			userProjects.add(new ProjectUserJoin(p, u, ProjectRole.PROJECT_USER));
+		}
+
+		when(userRepository.loadUserByUsername(username)).thenReturn(u);
+		when(pujRepository.getProjectsForUser(u)).thenReturn(userProjects);
+		when(ugpjRepository.findProjectsByUser(u)).thenReturn(ImmutableList.of());
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertTrue("permission should be granted on every project.", readProjectPermission.isAllowed(auth, projects));
+		assertTrue("permission should be granted on every project.", readProjectPermission.isAllowed(auth, projects));
+
+		// memberships should only be loaded once for all of the checks
+		verify(userRepository).loadUserByUsername(username);
+		verify(pujRepository).getProjectsForUser(u);
+		verify(ugpjRepository).findProjectsByUser(u);
 	}
 }
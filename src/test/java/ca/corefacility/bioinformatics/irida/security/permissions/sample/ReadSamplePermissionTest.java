@@ -32,6 +32,8 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository
 import ca.corefacility.bioinformatics.irida.security.permissions.project.ReadProjectPermission;
 import ca.corefacility.bioinformatics.irida.security.permissions.sample.ReadSamplePermission;
 
+import com.google.common.collect.Lists;
+
 /**
  * Tests for {@link ReadSamplePermission}.
  * 
@@ -138,4 +140,53 @@ public class ReadSamplePermissionTest {
 		// we should fast pass through to permission granted for administrators.
 		verifyZeroInteractions(psjRepository);
 	}
+
+	@Test
+	public void testGrantPermissionInBulk() {
+		Project p = new Project();
+		p.setId(1L);
+		List<Long> sampleIds = new ArrayList<>();
+		List<ProjectSampleJoin> projectSampleList = new ArrayList<>();
+		for (long i = 1; i <= 3; i++) {
+			Sample s = new Sample("sample" + i);
+			s.setId(i);
+			sampleIds.add(i);
+			projectSampleList.add(new ProjectSampleJoin(p, s, true));
+		}
+
+		when(psjRepository.getProjectsForSampleIds(any())).thenReturn(projectSampleList);
+		when(readProjectPermission.isAllowed(any(), eq(p))).thenReturn(true);
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertTrue("permission was not granted.", readSamplePermission.isAllowed(auth, sampleIds));
+
+		// the samples and their projects should be checked together
+		verify(psjRepository).getProjectsForSampleIds(any());
+		verify(readProjectPermission).isAllowed(any(), eq(p));
+		verifyZeroInteractions(sampleRepository);
+	}
+
+	@Test
+	public void testRejectPermissionInBulk() {
+		Project p = new Project();
+		p.setId(1L);
+		Sample readable = new Sample("readable");
+		readable.setId(1L);
+		Sample unreadable = new Sample("unreadable");
+		unreadable.setId(2L);
+
+		when(psjRepository.getProjectsForSampleIds(any()))
+				.thenReturn(Lists.newArrayList(new ProjectSampleJoin(p, readable, true)));
+		when(readProjectPermission.isAllowed(any(), eq(p))).thenReturn(true);
+		when(sampleRepository.findOne(2L)).thenReturn(unreadable);
+
+		Authentication auth = new UsernamePasswordAuthenticationToken("fbristow", "password1");
+
+		assertFalse("permission was granted.", readSamplePermission.isAllowed(auth, Lists.newArrayList(1L, 2L)));
+
+		// only the sample that wasn't granted in bulk is checked on its own
+		verify(sampleRepository).findOne(2L);
+		verify(psjRepository).getProjectForSample(unreadable);
+	}
 }
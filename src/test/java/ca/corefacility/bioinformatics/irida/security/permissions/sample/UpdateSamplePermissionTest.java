@@ -2,7 +2,10 @@ package ca.corefacility.bioinformatics.irida.security.permissions.sample;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -99,4 +102,27 @@ public class UpdateSamplePermissionTest {
 
 		assertFalse("Permission to update sample should not be given.", updateSamplePermission.isAllowed(auth, s));
 	}
+
+	@Test
+	public void testPermissionInBulkRequiresOwningProject() {
+		final Project p = new Project();
+		p.setId(1L);
+		final Sample owned = new Sample("owned");
+		owned.setId(1L);
+		final Sample shared = new Sample("shared");
+		shared.setId(2L);
+
+		when(projectSampleJoinRepository.getProjectsForSampleIds(any())).thenReturn(
+				ImmutableList.of(new ProjectSampleJoin(p, owned, true), new ProjectSampleJoin(p, shared, false)));
+		when(projectOwnerPermission.isAllowed(auth, p)).thenReturn(true);
+
+		assertFalse("Permission to update a sample the project doesn't own should not be given.",
+				updateSamplePermission.isAllowed(auth, ImmutableList.of(owned, shared)));
+		assertTrue("Permission to update a sample the project owns should be given.",
+				updateSamplePermission.isAllowed(auth, ImmutableList.of(owned)));
+
+		// the owned sample is granted in bulk, without checking it on its own
+		verify(projectSampleJoinRepository, never()).getProjectForSample(owned);
+		verify(projectSampleJoinRepository).getProjectForSample(shared);
+	}
 }
@@ -1,14 +1,23 @@
 package ca.corefacility.bioinformatics.irida.service;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import ca.corefacility.bioinformatics.irida.exceptions.IridaOAuthException;
 import ca.corefacility.bioinformatics.irida.exceptions.ProjectSynchronizationException;
 import ca.corefacility.bioinformatics.irida.model.RemoteAPI;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
 import ca.corefacility.bioinformatics.irida.model.project.ProjectSyncFrequency;
 import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus;
@@ -16,6 +25,7 @@ import ca.corefacility.bioinformatics.irida.model.remote.RemoteStatus.SyncStatus
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.security.ProjectSynchronizationAuthenticationToken;
 import ca.corefacility.bioinformatics.irida.service.remote.*;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
@@ -25,7 +35,9 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 public class ProjectSynchronizationServiceTest {
@@ -62,7 +74,7 @@ public class ProjectSynchronizationServiceTest {
 
 		syncService = new ProjectSynchronizationService(projectService, sampleService, objectService,
 				metadataTemplateService, projectRemoteService, sampleRemoteService, singleEndRemoteService,
-				pairRemoteService, tokenService);
+				pairRemoteService, tokenService, new SyncTaskExecutor(), new SyncTaskExecutor(), 1);
 
 		api = new RemoteAPI();
 		expired = new Project();
@@ -125,6 +137,123 @@ public class ProjectSynchronizationServiceTest {
 		assertEquals(SyncStatus.SYNCHRONIZED, remoteProject.getRemoteStatus().getSyncStatus());
 	}
 	
+	@Test
+	public void testSyncSamplesOnWorkerThreads() {
+		// run every task on a separate thread so the security context has to
+		// be carried over
+		TaskExecutor threadPerTask = task -> {
+			Thread thread = new Thread(task);
+			thread.start();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		syncService = new ProjectSynchronizationService(projectService, sampleService, objectService,
+				metadataTemplateService, projectRemoteService, sampleRemoteService, singleEndRemoteService,
+				pairRemoteService, tokenService, threadPerTask, threadPerTask, 1);
+
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		User readBy = new User();
+		expired.getRemoteStatus().setReadBy(readBy);
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		Sample remoteSample = new Sample();
+		remoteSample.setRemoteStatus(new RemoteStatus("http://sample", api));
+
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+		when(sampleRemoteService.getSamplesForProject(remoteProject)).thenReturn(Lists.newArrayList(remoteSample));
+		when(sampleService.create(remoteSample)).thenReturn(remoteSample);
+
+		List<Authentication> sampleAuthentications = new ArrayList<>();
+		when(sampleRemoteService.getSampleMetadata(remoteSample)).thenAnswer(invocation -> {
+			sampleAuthentications.add(SecurityContextHolder.getContext().getAuthentication());
+			return Maps.newHashMap();
+		});
+
+		syncService.findMarkedProjectsToSync();
+
+		assertEquals("sample should have been synchronized once", 1, sampleAuthentications.size());
+		Authentication authentication = sampleAuthentications.get(0);
+		assertTrue("sample should be synchronized as the project's user",
+				authentication instanceof ProjectSynchronizationAuthenticationToken);
+		assertEquals(readBy, authentication.getPrincipal());
+		verify(projectService).addSampleToProject(remoteProject, remoteSample, true);
+		assertEquals(SyncStatus.SYNCHRONIZED, remoteSample.getRemoteStatus().getSyncStatus());
+	}
+
+	@Test
+	public void testSyncProjectsSampleOAuthError() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setReadBy(new User());
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+		Sample remoteSample = new Sample();
+		remoteSample.setRemoteStatus(new RemoteStatus("http://sample", api));
+
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+		when(sampleRemoteService.getSamplesForProject(remoteProject)).thenReturn(Lists.newArrayList(remoteSample));
+		when(sampleRemoteService.getSampleMetadata(remoteSample))
+				.thenThrow(new IridaOAuthException("token expired", api));
+
+		syncService.findMarkedProjectsToSync();
+
+		assertEquals(SyncStatus.UNAUTHORIZED, expired.getRemoteStatus().getSyncStatus());
+		verify(sampleService, never()).create(any(Sample.class));
+	}
+	
+	@Test
+	public void testSyncOnlyChangedSamples() {
+		expired.getRemoteStatus().setSyncStatus(SyncStatus.MARKED);
+		expired.getRemoteStatus().setReadBy(new User());
+		Date lastSync = expired.getRemoteStatus().getLastUpdate();
+		Project remoteProject = new Project();
+		remoteProject.setRemoteStatus(expired.getRemoteStatus());
+
+		Sample unchanged = new Sample("unchanged");
+		unchanged.setRemoteStatus(new RemoteStatus("http://unchanged", api));
+		Sample changed = new Sample("changed");
+		changed.setRemoteStatus(new RemoteStatus("http://changed", api));
+
+		Sample localUnchanged = new Sample("unchanged");
+		localUnchanged.setRemoteStatus(new RemoteStatus("http://unchanged", api));
+		localUnchanged.getRemoteStatus().setSyncStatus(SyncStatus.SYNCHRONIZED);
+
+		when(projectService.getProjectsWithRemoteSyncStatus(RemoteStatus.SyncStatus.MARKED))
+				.thenReturn(Lists.newArrayList(expired));
+		when(projectService.read(expired.getId())).thenReturn(expired);
+		when(projectRemoteService.read(expired.getRemoteStatus().getURL())).thenReturn(remoteProject);
+		when(projectService.update(remoteProject)).thenReturn(remoteProject);
+		when(sampleService.getSamplesForProject(any(Project.class)))
+				.thenReturn(Lists.newArrayList(new ProjectSampleJoin(expired, localUnchanged, true)));
+		when(sampleRemoteService.getSamplesForProject(remoteProject))
+				.thenReturn(Lists.newArrayList(unchanged, changed));
+		when(sampleRemoteService.getSamplesForProjectModifiedSince(eq(remoteProject), any(Date.class)))
+				.thenReturn(Lists.newArrayList(changed));
+		when(sampleRemoteService.getSampleMetadata(any(Sample.class))).thenReturn(Maps.newHashMap());
+		when(sampleService.create(changed)).thenReturn(changed);
+
+		syncService.findMarkedProjectsToSync();
+
+		ArgumentCaptor<Date> sinceCaptor = ArgumentCaptor.forClass(Date.class);
+		verify(sampleRemoteService).getSamplesForProjectModifiedSince(eq(remoteProject), sinceCaptor.capture());
+		assertTrue("should look for changes from before the last sync", !sinceCaptor.getValue().after(lastSync));
+
+		verify(sampleRemoteService).getSampleMetadata(changed);
+		verify(sampleRemoteService, never()).getSampleMetadata(unchanged);
+		verify(pairRemoteService, never()).getSequenceFilePairsForSample(unchanged);
+		verify(projectService).addSampleToProject(remoteProject, changed, true);
+	}
+
 	@Test
 	public void testSyncNewSample(){
 		Sample sample = new Sample();
@@ -0,0 +1,109 @@
+package ca.corefacility.bioinformatics.irida.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ca.corefacility.bioinformatics.irida.exceptions.FileProcessorTimeoutException;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.processing.FileProcessingChain;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class SequencingObjectProcessingServiceTest {
+
+	@Mock
+	private SequencingObjectRepository objectRepository;
+	@Mock
+	private ThreadPoolTaskExecutor executor;
+	@Mock
+	private FileProcessingChain chain;
+
+	private SequencingObjectProcessingService processingService;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+
+		processingService = new SequencingObjectProcessingService(objectRepository, executor, chain);
+
+		// run dispatched tasks in the calling thread
+		doAnswer(invocation -> {
+			((Runnable) invocation.getArguments()[0]).run();
+			return null;
+		}).when(executor).execute(any(Runnable.class));
+	}
+
+	@After
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testDispatchWithoutTransaction() throws FileProcessorTimeoutException {
+		when(objectRepository.markFileProcessor(eq(1L), anyString(), eq(SequencingObject.ProcessingState.PROCESSING)))
+				.thenReturn(1);
+
+		processingService.dispatchAfterCommit(1L);
+
+		verify(chain).launchChain(1L);
+	}
+
+	@Test
+	public void testDispatchWaitsForCommit() throws FileProcessorTimeoutException {
+		when(objectRepository.markFileProcessor(eq(1L), anyString(), eq(SequencingObject.ProcessingState.PROCESSING)))
+				.thenReturn(1);
+		TransactionSynchronizationManager.initSynchronization();
+
+		processingService.dispatchAfterCommit(1L);
+
+		verifyZeroInteractions(executor);
+		verify(chain, never()).launchChain(anyLong());
+
+		assertEquals("one synchronization should be registered", 1,
+				TransactionSynchronizationManager.getSynchronizations().size());
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCommit();
+		}
+
+		verify(chain).launchChain(1L);
+	}
+
+	@Test
+	public void testDispatchAlreadyClaimed() throws FileProcessorTimeoutException {
+		when(objectRepository.markFileProcessor(eq(1L), anyString(), eq(SequencingObject.ProcessingState.PROCESSING)))
+				.thenReturn(0);
+
+		processingService.dispatchAfterCommit(1L);
+
+		verify(chain, never()).launchChain(anyLong());
+	}
+
+	@Test
+	public void testDispatchQueueFull() throws FileProcessorTimeoutException {
+		doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+		processingService.dispatchAfterCommit(1L);
+
+		ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+		verify(executor).execute(captor.capture());
+		verify(objectRepository, never()).markFileProcessor(anyLong(), anyString(),
+				any(SequencingObject.ProcessingState.class));
+		verify(chain, never()).launchChain(anyLong());
+	}
+}
@@ -0,0 +1,125 @@
+package ca.corefacility.bioinformatics.irida.service.analysis.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.google.common.collect.ImmutableMap;
+
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.AnalysisProgressSnapshot;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowState;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
+import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisProgressSnapshotRepository;
+
+/**
+ * Tests for {@link AnalysisProgressStore}.
+ */
+public class AnalysisProgressStoreTest {
+
+	private static final Long ID = 1L;
+	private static final long MAX_AGE = 600;
+
+	@Mock
+	private AnalysisProgressSnapshotRepository snapshotRepository;
+	@Mock
+	private AnalysisSubmission analysisSubmission;
+	@Mock
+	private GalaxyWorkflowStatus workflowStatus;
+
+	private MutableClock clock;
+	private AnalysisProgressStore analysisProgressStore;
+
+	@Before
+	public void setUp() {
+		MockitoAnnotations.initMocks(this);
+		clock = new MutableClock();
+		analysisProgressStore = new AnalysisProgressStore(snapshotRepository, MAX_AGE, clock);
+
+		when(analysisSubmission.getId()).thenReturn(ID);
+		when(workflowStatus.getProportionComplete()).thenReturn(0.5f);
+		when(workflowStatus.getStateCounts()).thenReturn(ImmutableMap.of(GalaxyWorkflowState.OK, 1,
+				GalaxyWorkflowState.RUNNING, 1));
+	}
+
+	@Test
+	public void testRecord() {
+		analysisProgressStore.record(analysisSubmission, workflowStatus);
+
+		ArgumentCaptor<AnalysisProgressSnapshot> captor = ArgumentCaptor.forClass(AnalysisProgressSnapshot.class);
+		verify(snapshotRepository).save(captor.capture());
+		AnalysisProgressSnapshot snapshot = captor.getValue();
+		assertEquals("snapshot should be for the submission", ID, snapshot.getAnalysisSubmissionId());
+		assertEquals("snapshot should have the progress", 0.5f, snapshot.getProportionComplete(), 0.0001f);
+		assertEquals("snapshot should have the job counts", workflowStatus.getStateCounts(), snapshot.getJobCounts());
+		assertEquals("snapshot should be captured now", clock.instant(), snapshot.getCapturedAt());
+	}
+
+	@Test
+	public void testGetSnapshot() {
+		AnalysisProgressSnapshot snapshot = AnalysisProgressSnapshot.fromWorkflowStatus(analysisSubmission,
+				workflowStatus, clock.instant());
+		when(snapshotRepository.findOne(ID)).thenReturn(snapshot);
+
+		clock.advance(Duration.ofSeconds(MAX_AGE));
+		assertEquals("snapshot should be read until it's too old", snapshot, analysisProgressStore.getSnapshot(ID));
+
+		clock.advance(Duration.ofSeconds(1));
+		assertNull("an old snapshot should be ignored", analysisProgressStore.getSnapshot(ID));
+	}
+
+	@Test
+	public void testRemove() {
+		when(snapshotRepository.exists(ID)).thenReturn(true);
+		analysisProgressStore.remove(ID);
+		verify(snapshotRepository).delete(ID);
+	}
+
+	@Test
+	public void testRemoveMissing() {
+		when(snapshotRepository.exists(ID)).thenReturn(false);
+		analysisProgressStore.remove(ID);
+		verify(snapshotRepository, never()).delete(ID);
+	}
+
+	/**
+	 * A {@link Clock} that only moves when it's told to.
+	 */
+	private static class MutableClock extends Clock {
+		// the database keeps whole seconds
+		private Instant instant = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+		public void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneId.systemDefault();
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
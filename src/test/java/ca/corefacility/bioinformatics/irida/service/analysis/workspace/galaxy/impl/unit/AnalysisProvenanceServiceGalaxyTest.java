@@ -6,8 +6,11 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
@@ -54,6 +57,45 @@ public class AnalysisProvenanceServiceGalaxyTest {
 		this.provenanceService = new AnalysisProvenanceServiceGalaxy(galaxyHistoriesService, toolsClient, jobsClient);
 	}
 
+	@Test
+	public void testBuildToolExecutionsSharesUpstreamSteps() throws ExecutionManagerException, IOException {
+		final RecordedGalaxyResponses galaxy = new RecordedGalaxyResponses("assembly-history-provenance.json");
+		provenanceService = new AnalysisProvenanceServiceGalaxy(galaxy.getGalaxyHistoriesService(),
+				galaxy.getToolsClient(), galaxy.getJobsClient());
+
+		final Map<String, ToolExecution> toolExecutions = provenanceService.buildToolExecutionsForOutputFiles(
+				"history", ImmutableList.of("contigs.fasta", "report.txt", "trimmed.fastq"));
+
+		final ToolExecution report = toolExecutions.get("report.txt");
+		assertEquals("report should be made by quast", "Quast", report.getToolName());
+		assertEquals("quast parameters should be kept", "500", report.getExecutionTimeParameters().get("min_contig"));
+		final ToolExecution contigs = report.getPreviousSteps().iterator().next();
+		assertEquals("quast should follow spades", "SPAdes", contigs.getToolName());
+		assertEquals("spades command line should be kept", "spades.py -s trimmed.fastq -k 21,33,55",
+				contigs.getCommandLine());
+		final ToolExecution trimmed = contigs.getPreviousSteps().iterator().next();
+		assertEquals("spades should follow trimmomatic", "Trimmomatic", trimmed.getToolName());
+		assertTrue("upload should be the input step", trimmed.getPreviousSteps().iterator().next().isInputTool());
+		assertEquals("contigs should have the same provenance as the report's input", "SPAdes",
+				toolExecutions.get("contigs.fasta").getToolName());
+		assertEquals("trimmed reads should have their own provenance", "Trimmomatic",
+				toolExecutions.get("trimmed.fastq").getToolName());
+		assertFalse("tool executions shouldn't be shared between outputs",
+				contigs == toolExecutions.get("contigs.fasta"));
+
+		// each step in the history is loaded from Galaxy once
+		verify(galaxy.getGalaxyHistoriesService(), times(1)).showHistoryContents("history");
+		for (final String datasetId : ImmutableList.of("d0reads", "d1trimmed", "d2contigs", "d3report")) {
+			verify(galaxy.getGalaxyHistoriesService(), times(1)).showProvenance("history", datasetId);
+		}
+		for (final String jobId : ImmutableList.of("j0upload", "j1trim", "j2spades", "j3quast")) {
+			verify(galaxy.getJobsClient(), times(1)).showJob(jobId);
+		}
+		for (final String toolId : ImmutableList.of("upload1", "trimmomatic", "spades", "quast")) {
+			verify(galaxy.getToolsClient(), times(1)).showTool(toolId);
+		}
+	}
+
 	@Test(expected = ExecutionManagerException.class)
 	public void testHistoriesFailure() throws ExecutionManagerException {
 		when(galaxyHistoriesService.showHistoryContents(any(String.class))).thenThrow(new ExecutionManagerException());
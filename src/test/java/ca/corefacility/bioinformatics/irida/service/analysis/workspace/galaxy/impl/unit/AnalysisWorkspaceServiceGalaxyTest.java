@@ -40,6 +40,7 @@ import org.mockito.MockitoAnnotations;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
@@ -120,6 +121,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 	private Dataset output2Dataset;
 	private String output1Filename = "output1.txt";
 	private String output2Filename = "output2.txt";
+	private Set<String> outputFilenames = Sets.newHashSet(output1Filename, output2Filename);
 
 	private UUID workflowId = IridaWorkflowTestBuilder.DEFAULT_ID;
 	private UUID workflowIdMultiSamples = IridaWorkflowTestBuilder.MULTI_SAMPLES_ID;
@@ -716,8 +718,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 				.thenReturn(Sets.newHashSet(singleFiles));
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(singleFiles))
 				.thenReturn(sampleSingleSequenceFileMap);
@@ -733,8 +735,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "SampleA-output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID);
 	}
 
 	/**
@@ -757,8 +758,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getSequencingObjectsForAnalysisSubmission(submission))
 				.thenReturn(Sets.newHashSet(pairedFiles));
@@ -777,8 +778,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "SampleB-output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID);
 	}
 
 	/**
@@ -814,8 +814,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowIdMultiSamples))
 				.thenReturn(iridaWorkflowSinglePairedMultipleSamples);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(joinedFiles))
 				.thenReturn(joinedMap);
@@ -833,8 +833,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID);
 	}
 
 	/**
@@ -865,8 +864,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 				SequenceFilePair.class)).thenReturn(pairedFiles);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		when(sequencingObjectService.getUniqueSamplesForSequencingObjects(singleFiles))
 				.thenReturn(sampleSingleSequenceFileMap);
@@ -886,8 +885,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID);
 	}
 
 	/**
@@ -910,8 +908,8 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID)).thenReturn(output1Dataset);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output2Filename, HISTORY_ID)).thenReturn(output2Dataset);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
 
 		Analysis analysis = workflowPreparation.getAnalysisResults(submission);
 
@@ -926,8 +924,7 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		assertEquals("missing output file for analysis", "output2.txt",
 				analysis.getAnalysisOutputFile("output2").getLabel());
 
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output1.txt", HISTORY_ID);
-		verify(galaxyHistoriesService).getDatasetForFileInHistory("output2.txt", HISTORY_ID);
+		verify(galaxyHistoriesService).getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID);
 	}
 
 	/**
@@ -948,9 +945,74 @@ public class AnalysisWorkspaceServiceGalaxyTest {
 		submission.setRemoteAnalysisId(HISTORY_ID);
 
 		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
-		when(galaxyHistoriesService.getDatasetForFileInHistory(output1Filename, HISTORY_ID))
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
 				.thenThrow(new GalaxyDatasetException());
 
 		workflowPreparation.getAnalysisResults(submission);
 	}
+
+	/**
+	 * Tests that a failed download of an analysis output file is attempted
+	 * again.
+	 * 
+	 * @throws IridaWorkflowNotFoundException
+	 * @throws IOException
+	 * @throws ExecutionManagerException
+	 * @throws IridaWorkflowAnalysisTypeException
+	 */
+	@Test
+	public void testGetAnalysisResultsRetryDownload() throws IridaWorkflowNotFoundException,
+			IridaWorkflowAnalysisTypeException, ExecutionManagerException, IOException {
+		submission = AnalysisSubmission.builder(workflowId).name("my analysis").inputFiles(pairedInputFiles)
+				.referenceFile(referenceFile).build();
+		submission.setRemoteWorkflowId(WORKFLOW_ID);
+		submission.setRemoteAnalysisId(HISTORY_ID);
+		output1Dataset.setFileSize(4);
+
+		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
+		// the first download is cut short, the second is complete
+		doAnswer(invocation -> Files.write((Path) invocation.getArguments()[2], "ab".getBytes()))
+				.doAnswer(invocation -> Files.write((Path) invocation.getArguments()[2], "abcd".getBytes()))
+				.when(galaxyHistoriesService).downloadDatasetTo(eq(HISTORY_ID), eq("1"), any(Path.class));
+
+		Analysis analysis = workflowPreparation.getAnalysisResults(submission);
+
+		Path output1 = analysis.getAnalysisOutputFile("output1").getFile();
+		assertEquals("should have kept the complete download", 4, Files.size(output1));
+		verify(galaxyHistoriesService, times(2)).downloadDatasetTo(HISTORY_ID, "1", output1);
+		verify(galaxyHistoriesService, times(1)).downloadDatasetTo(eq(HISTORY_ID), eq("2"), any(Path.class));
+	}
+
+	/**
+	 * Tests failure to get analysis results from Galaxy when every attempt to
+	 * download an output file fails.
+	 * 
+	 * @throws IridaWorkflowNotFoundException
+	 * @throws IOException
+	 * @throws ExecutionManagerException
+	 * @throws IridaWorkflowAnalysisTypeException
+	 */
+	@Test(expected = ExecutionManagerDownloadException.class)
+	public void testGetAnalysisResultsDownloadFail() throws IridaWorkflowNotFoundException,
+			IridaWorkflowAnalysisTypeException, ExecutionManagerException, IOException {
+		submission = AnalysisSubmission.builder(workflowId).name("my analysis").inputFiles(pairedInputFiles)
+				.referenceFile(referenceFile).build();
+		submission.setRemoteWorkflowId(WORKFLOW_ID);
+		submission.setRemoteAnalysisId(HISTORY_ID);
+
+		when(iridaWorkflowsService.getIridaWorkflow(workflowId)).thenReturn(iridaWorkflowSingle);
+		when(galaxyHistoriesService.getDatasetsForFilesInHistory(outputFilenames, HISTORY_ID))
+				.thenReturn(ImmutableMap.of(output1Filename, output1Dataset, output2Filename, output2Dataset));
+		doThrow(new ExecutionManagerDownloadException("failed")).when(galaxyHistoriesService)
+				.downloadDatasetTo(eq(HISTORY_ID), eq("2"), any(Path.class));
+
+		try {
+			workflowPreparation.getAnalysisResults(submission);
+		} finally {
+			verify(galaxyHistoriesService, times(AnalysisWorkspaceServiceGalaxy.DEFAULT_DOWNLOAD_ATTEMPTS))
+					.downloadDatasetTo(eq(HISTORY_ID), eq("2"), any(Path.class));
+		}
+	}
 }
@@ -0,0 +1,94 @@
+package ca.corefacility.bioinformatics.irida.service.analysis.workspace.galaxy.impl.unit;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.DeserializationConfig;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
+import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
+
+import com.github.jmchilton.blend4j.galaxy.JobsClient;
+import com.github.jmchilton.blend4j.galaxy.ToolsClient;
+import com.github.jmchilton.blend4j.galaxy.beans.HistoryContents;
+import com.github.jmchilton.blend4j.galaxy.beans.HistoryContentsProvenance;
+import com.github.jmchilton.blend4j.galaxy.beans.JobDetails;
+import com.github.jmchilton.blend4j.galaxy.beans.Tool;
+
+/**
+ * A stand-in for Galaxy that answers history contents, provenance, job and
+ * tool requests with responses recorded from a Galaxy history. The returned
+ * clients are Mockito mocks, so tests can verify the requests that were made.
+ */
+public class RecordedGalaxyResponses {
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.configure(DeserializationConfig.Feature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final GalaxyHistoriesService galaxyHistoriesService = mock(GalaxyHistoriesService.class);
+	private final ToolsClient toolsClient = mock(ToolsClient.class);
+	private final JobsClient jobsClient = mock(JobsClient.class);
+
+	/**
+	 * Load recorded responses from a resource. The resource is a JSON object
+	 * with the history contents as {@code history_contents}, and the
+	 * provenance, job and tool responses keyed by id as {@code provenance},
+	 * {@code jobs} and {@code tools}.
+	 *
+	 * @param resource
+	 *            the name of the resource, relative to this class.
+	 * @throws IOException
+	 *             if the resource can't be read.
+	 * @throws ExecutionManagerException
+	 *             never, required by the stubbed methods.
+	 */
+	public RecordedGalaxyResponses(final String resource) throws IOException, ExecutionManagerException {
+		final JsonNode recorded;
+		try (InputStream in = RecordedGalaxyResponses.class.getResourceAsStream(resource)) {
+			recorded = mapper.readTree(in);
+		}
+
+		final List<HistoryContents> historyContents = new ArrayList<>();
+		for (final JsonNode contents : recorded.get("history_contents")) {
+			historyContents.add(mapper.readValue(contents, HistoryContents.class));
+		}
+		when(galaxyHistoriesService.showHistoryContents(anyString())).thenReturn(historyContents);
+
+		when(galaxyHistoriesService.showProvenance(anyString(), any(String.class)))
+				.thenAnswer(invocation -> readRecorded(recorded.get("provenance"),
+						(String) invocation.getArguments()[1], HistoryContentsProvenance.class));
+		when(jobsClient.showJob(any(String.class))).thenAnswer(invocation -> readRecorded(recorded.get("jobs"),
+				(String) invocation.getArguments()[0], JobDetails.class));
+		when(toolsClient.showTool(any(String.class))).thenAnswer(invocation -> readRecorded(recorded.get("tools"),
+				(String) invocation.getArguments()[0], Tool.class));
+	}
+
+	public GalaxyHistoriesService getGalaxyHistoriesService() {
+		return galaxyHistoriesService;
+	}
+
+	public ToolsClient getToolsClient() {
+		return toolsClient;
+	}
+
+	public JobsClient getJobsClient() {
+		return jobsClient;
+	}
+
+	private static <T> T readRecorded(final JsonNode responses, final String id, final Class<T> type)
+			throws IOException {
+		final JsonNode response = responses.get(id);
+		if (response == null) {
+			throw new IllegalArgumentException("No response was recorded for [" + id + "]");
+		}
+		return mapper.readValue(response, type);
+	}
+}
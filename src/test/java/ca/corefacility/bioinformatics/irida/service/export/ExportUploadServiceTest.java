@@ -9,29 +9,42 @@ import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
 import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
 import ca.corefacility.bioinformatics.irida.service.impl.TestEmailController;
 import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.junit.Test;
+import org.mockftpserver.core.command.Command;
+import org.mockftpserver.core.command.CommandNames;
+import org.mockftpserver.core.session.Session;
 import org.mockftpserver.fake.FakeFtpServer;
 import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.command.UserCommandHandler;
 import org.mockftpserver.fake.filesystem.DirectoryEntry;
 import org.mockftpserver.fake.filesystem.FileEntry;
 import org.mockftpserver.fake.filesystem.FileSystem;
 import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
 import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.*;
@@ -64,6 +77,7 @@ public class ExportUploadServiceTest {
 			int ftpPort = server.getServerControlPort();
 
 			exportUploadService.setConnectionDetails(ftpHost, ftpPort, ftpUser, ftpPassword, baseDirectory);
+			exportUploadService.setTransferDetails(1, Files.createTempDirectory("ncbi-manifests").toString());
 			String xml = "<xml></xml>";
 
 			exportUploadService.uploadSubmission(submission, xml);
@@ -83,6 +97,124 @@ public class ExportUploadServiceTest {
 		assertTrue("seqfile created", fileSystem.exists(createdDirectory + "/" + createdFile.getId() + ".fastq"));
 	}
 
+	@Test
+	public void testUploadSubmissionPairsInParallel() throws UploadException, IOException {
+		NcbiExportSubmission submission = new NcbiExportSubmission();
+		submission.setId(2L);
+
+		List<SequenceFilePair> pairs = new ArrayList<>();
+		List<SequenceFile> files = new ArrayList<>();
+		for (long i = 1; i <= 4; i++) {
+			SequenceFile forward = createSequenceFile(i * 2, "sample" + i + "_R1.fastq", "forward " + i);
+			SequenceFile reverse = createSequenceFile(i * 2 + 1, "sample" + i + "_R2.fastq", "reverse " + i);
+			pairs.add(new SequenceFilePair(forward, reverse));
+			files.add(forward);
+			files.add(reverse);
+		}
+		NcbiBioSampleFiles ncbiBioSampleFiles = new NcbiBioSampleFiles();
+		ncbiBioSampleFiles.setPairs(pairs);
+		submission.setBioSampleFiles(Lists.newArrayList(ncbiBioSampleFiles));
+
+		String ftpUser = "test";
+		String ftpPassword = "password";
+		String baseDirectory = "/home/test/submit/Test";
+		Path manifestDirectory = Files.createTempDirectory("ncbi-manifests");
+
+		FakeFtpServer server = new FakeFtpServer();
+		server.addUserAccount(new UserAccount(ftpUser, ftpPassword, "/home/test"));
+
+		FileSystem fileSystem = new UnixFakeFileSystem();
+		fileSystem.add(new DirectoryEntry(baseDirectory));
+		server.setFileSystem(fileSystem);
+		server.setServerControlPort(0);
+
+		ExportUploadService exportUploadService = new ExportUploadService(null, null, null, null,
+				new TestEmailController());
+		exportUploadService.setTransferDetails(3, manifestDirectory.toString());
+		try {
+			server.start();
+
+			exportUploadService.setConnectionDetails("localhost", server.getServerControlPort(), ftpUser, ftpPassword,
+					baseDirectory);
+			exportUploadService.uploadSubmission(submission, "<xml></xml>");
+		} finally {
+			exportUploadService.shutdown();
+			server.stop();
+		}
+
+		String createdDirectory = submission.getDirectoryPath();
+		assertTrue("submit.ready created", fileSystem.exists(createdDirectory + "/submit.ready"));
+		for (SequenceFile file : files) {
+			assertArrayEquals("file should be uploaded", Files.readAllBytes(file.getFile()),
+					readRemoteFile(fileSystem, createdDirectory + "/" + file.getId() + ".fastq"));
+		}
+		assertEquals("manifest should be removed", 0, manifestDirectory.toFile().list().length);
+	}
+
+	@Test
+	public void testResumeInterruptedUpload() throws UploadException, IOException {
+		NcbiExportSubmission submission = new NcbiExportSubmission();
+		submission.setId(3L);
+
+		SequenceFile partialFile = createSequenceFile(10L, "partial.fastq", "a file that was part way through uploading");
+		SequenceFile completeFile = createSequenceFile(11L, "complete.fastq", "a file that was completely uploaded");
+		NcbiBioSampleFiles ncbiBioSampleFiles = new NcbiBioSampleFiles();
+		ncbiBioSampleFiles.setFiles(Lists.newArrayList(new SingleEndSequenceFile(partialFile),
+				new SingleEndSequenceFile(completeFile)));
+		submission.setBioSampleFiles(Lists.newArrayList(ncbiBioSampleFiles));
+
+		String ftpUser = "test";
+		String ftpPassword = "password";
+		String baseDirectory = "/home/test/submit/Test";
+		String submissionDirectory = baseDirectory + "/3-interrupted";
+		Path manifestDirectory = Files.createTempDirectory("ncbi-manifests");
+
+		// the upload was interrupted after sending the first file and part of
+		// the second
+		byte[] partialContents = Files.readAllBytes(partialFile.getFile());
+		String sentContents = new String(partialContents, 0, 10, StandardCharsets.UTF_8);
+		long completeSize = Files.size(completeFile.getFile());
+		String completeContents = Strings.repeat("x", (int) completeSize);
+
+		FtpTransferManifest manifest = FtpTransferManifest.load(manifestDirectory, 3L);
+		manifest.setRemoteDirectory(submissionDirectory);
+		manifest.markComplete("11.fastq", completeSize);
+
+		FakeFtpServer server = new FakeFtpServer();
+		server.addUserAccount(new UserAccount(ftpUser, ftpPassword, "/home/test"));
+
+		FileSystem fileSystem = new UnixFakeFileSystem();
+		fileSystem.add(new DirectoryEntry(submissionDirectory));
+		fileSystem.add(new FileEntry(submissionDirectory + "/10.fastq", sentContents));
+		fileSystem.add(new FileEntry(submissionDirectory + "/11.fastq", completeContents));
+		server.setFileSystem(fileSystem);
+		server.setServerControlPort(0);
+
+		ExportUploadService exportUploadService = new ExportUploadService(null, null, null, null,
+				new TestEmailController());
+		exportUploadService.setTransferDetails(2, manifestDirectory.toString());
+		try {
+			server.start();
+
+			exportUploadService.setConnectionDetails("localhost", server.getServerControlPort(), ftpUser, ftpPassword,
+					baseDirectory);
+			exportUploadService.uploadSubmission(submission, "<xml></xml>");
+		} finally {
+			exportUploadService.shutdown();
+			server.stop();
+		}
+
+		assertEquals("upload should resume in the same directory", submissionDirectory,
+				submission.getDirectoryPath());
+		assertEquals("no new directory should be created", 1, fileSystem.listNames(baseDirectory).size());
+		assertArrayEquals("rest of the partial file should be appended", partialContents,
+				readRemoteFile(fileSystem, submissionDirectory + "/10.fastq"));
+		assertEquals("completed file should not be sent again", completeContents,
+				new String(readRemoteFile(fileSystem, submissionDirectory + "/11.fastq"), StandardCharsets.UTF_8));
+		assertTrue("submit.ready created", fileSystem.exists(submissionDirectory + "/submit.ready"));
+		assertFalse("manifest should be removed", Files.exists(manifestDirectory.resolve("3.properties")));
+	}
+
 	@Test(expected = UploadException.class)
 	public void testUploadSubmissionNoBaseDirectory() throws UploadException, IOException {
 		NcbiExportSubmission submission = createFakeSubmission();
@@ -305,6 +437,107 @@ public class ExportUploadServiceTest {
 		assertTrue("saved sample shuold contain accession", savedSample.getMetadata().containsKey(field));
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testGetResultsReusesConnection() throws IOException {
+		NcbiExportSubmissionService exportSubmissionService = mock(NcbiExportSubmissionService.class);
+
+		String report = "<?xml version='1.0' encoding='utf-8'?>\n"
+				+ "<SubmissionStatus submission_id=\"SUB189884\" status=\"processing\">\n"
+				+ "  <Action action_id=\"SUB189884-nmltest\" target_db=\"SRA\" status=\"processing\"/>\n"
+				+ "</SubmissionStatus>\n";
+
+		FileSystem fileSystem = new UnixFakeFileSystem();
+		List<NcbiExportSubmission> submissions = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			NcbiBioSampleFiles sample = new NcbiBioSampleFiles();
+			sample.setId("NMLTEST");
+			NcbiExportSubmission submission = new NcbiExportSubmission();
+			submission.setBioSampleFiles(Lists.newArrayList(sample));
+			// relative to the login directory
+			submission.setDirectoryPath("submit/Test/example" + i);
+			submissions.add(submission);
+
+			String submissionDirectory = "/home/test/submit/Test/example" + i;
+			fileSystem.add(new DirectoryEntry(submissionDirectory));
+			fileSystem.add(new FileEntry(submissionDirectory + "/report.1.xml", report));
+		}
+
+		when(exportSubmissionService.getSubmissionsWithState(any(Set.class))).thenReturn(submissions);
+
+		FakeFtpServer server = new FakeFtpServer();
+		server.addUserAccount(new UserAccount("test", "password", "/home/test"));
+		server.setFileSystem(fileSystem);
+		server.setServerControlPort(0);
+
+		AtomicInteger logins = new AtomicInteger();
+		server.setCommandHandler(CommandNames.USER, new UserCommandHandler() {
+			@Override
+			protected void handle(Command command, Session session) {
+				logins.incrementAndGet();
+				super.handle(command, session);
+			}
+		});
+
+		ExportUploadService exportUploadService = new ExportUploadService(exportSubmissionService, null, null, null,
+				new TestEmailController());
+		try {
+			server.start();
+
+			exportUploadService.setConnectionDetails("localhost", server.getServerControlPort(), "test", "password",
+					"/home/test/submit/Test");
+			exportUploadService.updateRunningUploads();
+			exportUploadService.updateRunningUploads();
+		} finally {
+			exportUploadService.shutdown();
+			server.stop();
+		}
+
+		for (NcbiExportSubmission submission : submissions) {
+			assertEquals("every submission should be updated", ExportUploadState.PROCESSING,
+					submission.getUploadState());
+		}
+		assertEquals("status checks should share one connection", 1, logins.get());
+	}
+
+	/**
+	 * Create a sequence file with the given id, name and contents
+	 *
+	 * @param id       the id of the file
+	 * @param name     the name of the file
+	 * @param contents the contents of the file
+	 * @return a {@link SequenceFile}
+	 * @throws IOException if the file couldn't be created
+	 */
+	private SequenceFile createSequenceFile(Long id, String name, String contents) throws IOException {
+		Path file = Files.createTempDirectory("sequencefile").resolve(name);
+		Files.write(file, ("@read\n" + contents + "\n+\n" + Strings.repeat("I", contents.length()) + "\n")
+				.getBytes(StandardCharsets.UTF_8));
+		SequenceFile sequenceFile = new SequenceFile(file);
+		sequenceFile.setId(id);
+		return sequenceFile;
+	}
+
+	/**
+	 * Read the contents of a file on the fake ftp server
+	 *
+	 * @param fileSystem the server's {@link FileSystem}
+	 * @param path       the path to the file
+	 * @return the contents of the file
+	 * @throws IOException if the file couldn't be read
+	 */
+	private byte[] readRemoteFile(FileSystem fileSystem, String path) throws IOException {
+		ByteArrayOutputStream contents = new ByteArrayOutputStream();
+		try (InputStream stream = ((FileEntry) fileSystem.getEntry(path)).createInputStream()) {
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = stream.read(buffer)) != -1) {
+				contents.write(buffer, 0, read);
+			}
+		}
+		return contents.toByteArray();
+	}
+
 	/**
 	 * Create a fake submission for test uploads
 	 *
@@ -0,0 +1,115 @@
+package ca.corefacility.bioinformatics.irida.service.export;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.net.ftp.FTPClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockftpserver.fake.FakeFtpServer;
+import org.mockftpserver.fake.UserAccount;
+import org.mockftpserver.fake.filesystem.DirectoryEntry;
+import org.mockftpserver.fake.filesystem.FileSystem;
+import org.mockftpserver.fake.filesystem.UnixFakeFileSystem;
+
+/**
+ * Unit tests for {@link FtpConnectionPool}
+ */
+public class FtpConnectionPoolTest {
+
+	private FakeFtpServer server;
+	private FtpConnectionPool pool;
+	private AtomicInteger connections;
+
+	@Before
+	public void setUp() {
+		server = new FakeFtpServer();
+		server.addUserAccount(new UserAccount("test", "password", "/home/test"));
+
+		FileSystem fileSystem = new UnixFakeFileSystem();
+		fileSystem.add(new DirectoryEntry("/home/test/submit"));
+		server.setFileSystem(fileSystem);
+
+		// finds an open port
+		server.setServerControlPort(0);
+		server.start();
+
+		connections = new AtomicInteger();
+		pool = new FtpConnectionPool(() -> {
+			connections.incrementAndGet();
+			FTPClient client = new FTPClient();
+			client.connect("localhost", server.getServerControlPort());
+			client.login("test", "password");
+			return client;
+		}, 1);
+	}
+
+	@After
+	public void tearDown() {
+		pool.close();
+		server.stop();
+	}
+
+	@Test
+	public void testConnectionReused() throws IOException {
+		FTPClient client = pool.borrow();
+		assertTrue(client.changeWorkingDirectory("submit"));
+		pool.release(client);
+
+		FTPClient reused = pool.borrow();
+		assertSame("connection should be reused", client, reused);
+		assertEquals("connection should be back in its login directory", "/home/test",
+				reused.printWorkingDirectory());
+		pool.release(reused);
+
+		assertEquals(1, connections.get());
+	}
+
+	@Test
+	public void testInvalidatedConnectionReplaced() throws IOException {
+		FTPClient client = pool.borrow();
+		pool.invalidate(client);
+		assertFalse("invalidated connection should be closed", client.isConnected());
+
+		FTPClient replacement = pool.borrow();
+		assertNotSame("a new connection should be opened", client, replacement);
+		pool.release(replacement);
+
+		assertEquals(2, connections.get());
+	}
+
+	@Test
+	public void testPoolBounded() throws Exception {
+		FTPClient client = pool.borrow();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<FTPClient> waiting = executor.submit(pool::borrow);
+			try {
+				waiting.get(200, TimeUnit.MILLISECONDS);
+				throw new AssertionError("a second connection shouldn't be handed out while the first is in use");
+			} catch (TimeoutException e) {
+				// expected
+			}
+
+			pool.release(client);
+			assertSame("the returned connection should be handed to the waiting thread", client,
+					waiting.get(5, TimeUnit.SECONDS));
+			pool.release(client);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package ca.corefacility.bioinformatics.irida.service.impl.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.exceptions.ProjectWithoutOwnerException;
+import ca.corefacility.bioinformatics.irida.model.enums.ProjectRole;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.user.Role;
+import ca.corefacility.bioinformatics.irida.model.user.User;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
+import ca.corefacility.bioinformatics.irida.service.ProjectService;
+import ca.corefacility.bioinformatics.irida.service.user.UserService;
+
+/**
+ * Checks that project permissions follow membership changes straight away
+ * while users' project roles are cached. The other integration tests turn the
+ * cache off, this one runs with the default expiry.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+@TestPropertySource(properties = "security.permission.cache_expiry=60")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/service/impl/ProjectServiceImplIT.xml")
+@DatabaseTearDown("/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml")
+public class ProjectMembershipCacheIT {
+	// owner of project 2
+	private static final String OWNER = "user1";
+	// not on any project
+	private static final String MEMBER = "user";
+	private static final Long PROJECT_ID = 2L;
+
+	@Autowired
+	private ProjectService projectService;
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private ProjectMembershipCache projectMembershipCache;
+
+	@Before
+	public void setUp() {
+		// the test data is reloaded underneath the cache between tests
+		projectMembershipCache.invalidateAll();
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void testAddAndRemoveMemberIsSeenImmediately() throws ProjectWithoutOwnerException {
+		// cache the member's roles before they're on the project
+		assertCanRead(MEMBER, false);
+
+		authenticate(OWNER);
+		Project project = projectService.read(PROJECT_ID);
+		User member = userService.getUserByUsername(MEMBER);
+		projectService.addUserToProject(project, member, ProjectRole.PROJECT_USER);
+
+		assertCanRead(MEMBER, true);
+
+		authenticate(OWNER);
+		projectService.removeUserFromProject(projectService.read(PROJECT_ID), member);
+
+		assertCanRead(MEMBER, false);
+	}
+
+	@Test
+	public void testRoleChangeIsSeenImmediately() throws ProjectWithoutOwnerException {
+		authenticate(OWNER);
+		Project project = projectService.read(PROJECT_ID);
+		User member = userService.getUserByUsername(MEMBER);
+		projectService.addUserToProject(project, member, ProjectRole.PROJECT_USER);
+
+		// cache the member's role as a project user
+		assertCanManage(MEMBER, false);
+
+		authenticate(OWNER);
+		projectService.updateUserProjectRole(projectService.read(PROJECT_ID), member, ProjectRole.PROJECT_OWNER);
+
+		assertCanManage(MEMBER, true);
+	}
+
+	private void assertCanRead(String username, boolean expected) {
+		authenticate(username);
+		boolean canRead;
+		try {
+			projectService.read(PROJECT_ID);
+			canRead = true;
+		} catch (AccessDeniedException e) {
+			canRead = false;
+		}
+		assertEquals(username + " should " + (expected ? "" : "not ") + "be able to read the project", expected,
+				canRead);
+	}
+
+	private void assertCanManage(String username, boolean expected) {
+		authenticate(username);
+		Project project = projectService.read(PROJECT_ID);
+		try {
+			projectService.update(project);
+			if (!expected) {
+				fail(username + " should not be able to manage the project");
+			}
+		} catch (AccessDeniedException e) {
+			if (expected) {
+				fail(username + " should be able to manage the project");
+			}
+		}
+	}
+
+	private void authenticate(String username) {
+		SecurityContextHolder.getContext().setAuthentication(
+				new UsernamePasswordAuthenticationToken(username, "Password1!", ImmutableList.of(Role.ROLE_USER)));
+	}
+}
@@ -0,0 +1,145 @@
+package ca.corefacility.bioinformatics.irida.service.impl.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.data.QueryCountingTestConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.sample.QCEntry;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFilePair;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.utils.QueryCountingDataSource;
+import ca.corefacility.bioinformatics.irida.utils.QueryCountingDataSource.Counted;
+
+/**
+ * Checks the number of statements it takes to list the
+ * {@link SequencingObject}s of samples. Listings should take the same number of
+ * statements however many files a sample has.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class, QueryCountingTestConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/service/impl/SequencingObjectFetchPlanIT.xml")
+@DatabaseTearDown(value = "/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml", type = DatabaseOperation.DELETE_ALL)
+public class SequencingObjectFetchPlanIT {
+
+	// the most statements a listing should take: the joins and objects, then
+	// a batch for each kind of association they have
+	private static final long MAX_STATEMENTS = 12;
+
+	@Autowired
+	private SampleService sampleService;
+
+	@Autowired
+	private SequencingObjectService objectService;
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testListSequencingObjectsForSample() {
+		Sample small = sampleService.read(1L);
+		Sample large = sampleService.read(2L);
+
+		Counted<Collection<SampleSequencingObjectJoin>> smallListing = list(
+				() -> objectService.getSequencingObjectsForSample(small));
+		Counted<Collection<SampleSequencingObjectJoin>> largeListing = list(
+				() -> objectService.getSequencingObjectsForSample(large));
+
+		assertEquals("Small sample should have 2 objects", 2, smallListing.getResult().size());
+		assertEquals("Large sample should have 6 objects", 6, largeListing.getResult().size());
+		assertStatements(smallListing, largeListing);
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testListSequencingObjectsOfTypeForSample() {
+		Sample small = sampleService.read(1L);
+		Sample large = sampleService.read(2L);
+
+		Counted<Collection<SampleSequencingObjectJoin>> smallListing = list(
+				() -> objectService.getSequencesForSampleOfType(small, SequenceFilePair.class));
+		Counted<Collection<SampleSequencingObjectJoin>> largeListing = list(
+				() -> objectService.getSequencesForSampleOfType(large, SequenceFilePair.class));
+
+		assertEquals("Small sample should have 1 pair", 1, smallListing.getResult().size());
+		assertEquals("Large sample should have 3 pairs", 3, largeListing.getResult().size());
+		assertStatements(smallListing, largeListing);
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testListSequencingObjectsOfTypeForSamples() {
+		Sample small = sampleService.read(1L);
+		Sample large = sampleService.read(2L);
+
+		Counted<Collection<SampleSequencingObjectJoin>> smallListing = list(
+				() -> objectService.getSequencesForSamplesOfType(ImmutableList.of(small), SingleEndSequenceFile.class));
+		Counted<Collection<SampleSequencingObjectJoin>> bothListing = list(() -> objectService
+				.getSequencesForSamplesOfType(ImmutableList.of(small, large), SingleEndSequenceFile.class));
+
+		assertEquals("Small sample should have 1 single end file", 1, smallListing.getResult().size());
+		assertEquals("Both samples should have 4 single end files", 4, bothListing.getResult().size());
+		assertStatements(smallListing, bothListing);
+	}
+
+	/**
+	 * List some objects and read everything from them that the listing pages
+	 * show, counting the statements it takes.
+	 */
+	private Counted<Collection<SampleSequencingObjectJoin>> list(
+			Callable<Collection<SampleSequencingObjectJoin>> listing) {
+		return QueryCountingDataSource.count(() -> {
+			Collection<SampleSequencingObjectJoin> joins = listing.call();
+			for (SampleSequencingObjectJoin join : joins) {
+				SequencingObject object = join.getObject();
+				assertNotNull("Object should have a run", object.getSequencingRun().getId());
+				for (QCEntry qcEntry : object.getQcEntries()) {
+					assertNotNull("QC entry should have a type", qcEntry.getType());
+				}
+				for (SequenceFile file : object.getFiles()) {
+					assertNotNull("File should have a label", file.getLabel());
+					file.getOptionalProperties();
+				}
+			}
+			return joins;
+		});
+	}
+
+	private void assertStatements(Counted<?> small, Counted<?> large) {
+		assertEquals("Listing more files should not take more statements", small.getStatements(),
+				large.getStatements());
+		assertTrue("Listing took " + large.getStatements() + " statements, more than " + MAX_STATEMENTS,
+				large.getStatements() <= MAX_STATEMENTS);
+	}
+}
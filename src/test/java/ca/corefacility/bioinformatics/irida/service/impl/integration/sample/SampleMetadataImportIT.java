@@ -0,0 +1,170 @@
+package ca.corefacility.bioinformatics.irida.service.impl.integration.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseOperation;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.data.QueryCountingTestConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
+import ca.corefacility.bioinformatics.irida.service.ProjectService;
+import ca.corefacility.bioinformatics.irida.service.sample.MetadataTemplateService;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.utils.QueryCountingDataSource;
+import ca.corefacility.bioinformatics.irida.utils.QueryCountingDataSource.Counted;
+
+/**
+ * Checks the number of statements it takes to import sample metadata. An
+ * import should take the same number of statements however many entries each
+ * sample has, and should audit the entries with the samples.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class, QueryCountingTestConfig.class })
+@ActiveProfiles("it")
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/service/impl/SampleServiceImplIT.xml")
+@DatabaseTearDown(value = "/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml", type = DatabaseOperation.DELETE_ALL)
+public class SampleMetadataImportIT {
+
+	// the most statements an import should take: reading and updating the
+	// samples, the revision, reading the current entries, then a batch for
+	// each kind of change and its audit rows
+	private static final long MAX_STATEMENTS = 20;
+
+	private static final int FIELDS = 30;
+
+	@Autowired
+	private SampleService sampleService;
+
+	@Autowired
+	private ProjectService projectService;
+
+	@Autowired
+	private MetadataTemplateService metadataTemplateService;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private Project project;
+	private List<MetadataTemplateField> fields;
+
+	@Before
+	public void setUp() {
+		List<String> labels = new ArrayList<>();
+		for (int i = 0; i < FIELDS; i++) {
+			labels.add("field-" + i);
+		}
+		Map<String, MetadataTemplateField> created = metadataTemplateService.getOrCreateMetadataFields(labels);
+		fields = new ArrayList<>();
+		for (String label : labels) {
+			fields.add(created.get(label));
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testImportStatements() {
+		project = projectService.read(1L);
+
+		Counted<Set<Long>> smallImport = merge(1L, 1, "first");
+		Counted<Set<Long>> largeImport = merge(2L, FIELDS, "first");
+		assertEquals("should update the sample", ImmutableSet.of(1L), smallImport.getResult());
+		assertEquals("should update the sample", ImmutableSet.of(2L), largeImport.getResult());
+		assertStatements(smallImport, largeImport);
+
+		Counted<Set<Long>> smallUpdate = merge(1L, 1, "second");
+		Counted<Set<Long>> largeUpdate = merge(2L, FIELDS, "second");
+		assertStatements(smallUpdate, largeUpdate);
+
+		Sample sample = sampleService.read(2L);
+		assertEquals("sample should have every entry", FIELDS, sample.getMetadata().size());
+		for (MetadataTemplateField field : fields) {
+			assertEquals("entry should be updated", "second-" + field.getLabel(),
+					sample.getMetadata().get(field).getValue());
+		}
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testImportIsAudited() {
+		project = projectService.read(1L);
+		merge(2L, FIELDS, "first");
+		merge(2L, FIELDS, "second");
+
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		List<Integer> revisions = jdbcTemplate.queryForList("SELECT REV FROM sample_AUD WHERE id=2 ORDER BY REV",
+				Integer.class);
+		assertEquals("each import should audit the sample", 2, revisions.size());
+
+		for (int i = 0; i < revisions.size(); i++) {
+			Integer revision = revisions.get(i);
+			String value = i == 0 ? "first-field-0" : "second-field-0";
+			assertEquals("entries should be audited with the sample", FIELDS, (int) jdbcTemplate.queryForObject(
+					"SELECT COUNT(*) FROM metadata_entry_AUD WHERE REV=?", Integer.class, revision));
+			assertEquals("audited entries should have the imported values", 1,
+					(int) jdbcTemplate.queryForObject("SELECT COUNT(*) FROM metadata_entry_AUD WHERE REV=? AND value=?",
+							Integer.class, revision, value));
+		}
+
+		assertEquals("entries should be added to the sample in the first import", FIELDS,
+				(int) jdbcTemplate.queryForObject(
+						"SELECT COUNT(*) FROM sample_metadata_entry_AUD WHERE REV=? AND sample_id=2", Integer.class,
+						revisions.get(0)));
+		assertEquals("updating entries should keep them on the sample", 0, (int) jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM sample_metadata_entry_AUD WHERE REV=?", Integer.class, revisions.get(1)));
+	}
+
+	/**
+	 * Import values for the first fields of a sample, counting the statements
+	 * it takes.
+	 */
+	private Counted<Set<Long>> merge(Long sampleId, int fieldCount, String prefix) {
+		Map<MetadataTemplateField, MetadataEntry> entries = new HashMap<>();
+		for (MetadataTemplateField field : fields.subList(0, fieldCount)) {
+			entries.put(field, new MetadataEntry(prefix + "-" + field.getLabel(), "text"));
+		}
+		return QueryCountingDataSource
+				.count(() -> sampleService.mergeSampleMetadata(project, ImmutableMap.of(sampleId, entries)));
+	}
+
+	private void assertStatements(Counted<?> small, Counted<?> large) {
+		assertEquals("Importing more entries should not take more statements", small.getStatements(),
+				large.getStatements());
+		assertTrue("Import took " + large.getStatements() + " statements, more than " + MAX_STATEMENTS,
+				large.getStatements() <= MAX_STATEMENTS);
+	}
+}
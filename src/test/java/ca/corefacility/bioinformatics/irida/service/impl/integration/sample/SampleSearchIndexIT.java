@@ -0,0 +1,171 @@
+package ca.corefacility.bioinformatics.irida.service.impl.integration.sample;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.security.test.context.support.WithSecurityContextTestExecutionListener;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestExecutionListeners;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.context.support.AnnotationConfigContextLoader;
+import org.springframework.test.context.support.DependencyInjectionTestExecutionListener;
+
+import com.github.springtestdbunit.DbUnitTestExecutionListener;
+import com.github.springtestdbunit.annotation.DatabaseSetup;
+import com.github.springtestdbunit.annotation.DatabaseTearDown;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.config.data.IridaApiJdbcDataSourceConfig;
+import ca.corefacility.bioinformatics.irida.config.services.IridaApiServicesConfig;
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndex;
+
+/**
+ * Checks that searching for samples with the {@link SearchIndex} finds the
+ * same samples as searching the database, including searches that match
+ * thousands of samples.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(loader = AnnotationConfigContextLoader.class, classes = { IridaApiServicesConfig.class,
+		IridaApiJdbcDataSourceConfig.class })
+@ActiveProfiles("it")
+// the test rebuilds the index itself, so scheduled rebuilds are kept out of
+// its way
+@TestPropertySource(properties = { "search.index.enabled=true", "search.index.rebuild-interval=3600" })
+@TestExecutionListeners({ DependencyInjectionTestExecutionListener.class, DbUnitTestExecutionListener.class,
+		WithSecurityContextTestExecutionListener.class })
+@DatabaseSetup("/ca/corefacility/bioinformatics/irida/service/impl/SampleServiceImplIT.xml")
+@DatabaseTearDown("/ca/corefacility/bioinformatics/irida/test/integration/TableReset.xml")
+public class SampleSearchIndexIT {
+	// fbristow owns projects 1 and 2, but isn't on project 3
+	private static final Set<Long> USER_PROJECTS = ImmutableSet.of(1L, 2L);
+	private static final long VISIBLE_PROJECT = 1L;
+	private static final long HIDDEN_PROJECT = 3L;
+
+	// with the 6 samples already in projects 1 and 2, searching for "sample"
+	// finds just under the most samples the index answers for
+	private static final int VISIBLE_SAMPLES = 9990;
+	private static final int HIDDEN_SAMPLES = 20;
+	private static final long FIRST_SAMPLE_ID = 100L;
+
+	private static final int PAGE_SIZE = 100;
+	private static final Sort SORT = new Sort(Direction.ASC, "sample.id");
+
+	@Autowired
+	private SampleService sampleService;
+
+	@Autowired
+	private SearchIndex searchIndex;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@Before
+	public void setUp() {
+		final Timestamp created = new Timestamp(System.currentTimeMillis());
+		final List<Object[]> samples = new ArrayList<>();
+		final List<Object[]> joins = new ArrayList<>();
+		for (int i = 0; i < VISIBLE_SAMPLES + HIDDEN_SAMPLES; i++) {
+			final long id = FIRST_SAMPLE_ID + i;
+			final boolean hidden = i >= VISIBLE_SAMPLES;
+			samples.add(new Object[] { id, created, (hidden ? "bulk-sample-hidden-" : "bulk-sample-") + i });
+			joins.add(new Object[] { id, created, hidden ? HIDDEN_PROJECT : VISIBLE_PROJECT, id });
+		}
+
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.batchUpdate("insert into sample (id, createdDate, sampleName) values (?, ?, ?)", samples);
+		jdbcTemplate.batchUpdate(
+				"insert into project_sample (id, createdDate, project_id, sample_id, owner) values (?, ?, ?, ?, true)",
+				joins);
+	}
+
+	@Test
+	@WithMockUser(username = "fbristow", roles = "MANAGER")
+	public void testSearchSamplesForUser() {
+		final Map<String, List<Object>> found = assertIndexMatchesDatabase(
+				query -> sampleService.searchSamplesForUser(query, 0, PAGE_SIZE, SORT), USER_PROJECTS, "sample",
+				"bulk-sample-hidden", "SAMPLE1", "1", "100", "sample5", "no-such-sample");
+
+		assertEquals("should find every sample in the user's projects", 6L + VISIBLE_SAMPLES,
+				found.get("sample").get(0));
+		assertEquals("should not find samples in other projects", 0L, found.get("bulk-sample-hidden").get(0));
+	}
+
+	@Test
+	@WithMockUser(username = "admin", roles = "ADMIN")
+	public void testSearchAllSamples() {
+		final Map<String, List<Object>> found = assertIndexMatchesDatabase(
+				query -> sampleService.searchAllSamples(query, 0, PAGE_SIZE, SORT), null, "bulk-sample-hidden",
+				"sample5", "5", "no-such-sample");
+
+		assertEquals("should find samples in every project", (long) HIDDEN_SAMPLES,
+				found.get("bulk-sample-hidden").get(0));
+
+		searchIndex.rebuild();
+		assertFalse("should leave searches matching too many samples to the database",
+				searchIndex.findSampleIds("sample", null).isPresent());
+	}
+
+	/**
+	 * Run each search with the index, then with the database, and check that
+	 * they find the same samples.
+	 *
+	 * @return the total and the first page of sample identifiers found for
+	 *         each query.
+	 */
+	private Map<String, List<Object>> assertIndexMatchesDatabase(final SampleSearch search,
+			final Set<Long> projectIds, final String... queries) {
+		searchIndex.rebuild();
+		final Map<String, List<Object>> indexed = new HashMap<>();
+		for (final String query : queries) {
+			assertTrue("index should answer [" + query + "]", searchIndex.findSampleIds(query, projectIds).isPresent());
+			indexed.put(query, results(search, query));
+		}
+
+		searchIndex.stop();
+		for (final String query : queries) {
+			assertFalse("database should answer [" + query + "]",
+					searchIndex.findSampleIds(query, projectIds).isPresent());
+			assertEquals("index and database should find the same samples for [" + query + "]",
+					results(search, query), indexed.get(query));
+		}
+
+		return indexed;
+	}
+
+	private List<Object> results(final SampleSearch search, final String query) {
+		final Page<ProjectSampleJoin> page = search.search(query);
+		final List<Long> sampleIds = page.getContent().stream().map(j -> j.getObject().getId())
+				.collect(Collectors.toList());
+		return Arrays.asList(page.getTotalElements(), sampleIds);
+	}
+
+	@FunctionalInterface
+	private interface SampleSearch {
+		Page<ProjectSampleJoin> search(String query);
+	}
+}
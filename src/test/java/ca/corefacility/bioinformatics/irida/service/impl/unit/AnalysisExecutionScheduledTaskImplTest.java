@@ -4,7 +4,10 @@ import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
@@ -19,6 +22,7 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import com.github.jmchilton.blend4j.galaxy.HistoriesClient;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 
 import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException;
@@ -41,6 +45,7 @@ import ca.corefacility.bioinformatics.irida.service.AnalysisExecutionScheduledTa
 import ca.corefacility.bioinformatics.irida.service.AnalysisSubmissionService;
 import ca.corefacility.bioinformatics.irida.service.CleanupAnalysisSubmissionCondition;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisExecutionService;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisProgressStore;
 import ca.corefacility.bioinformatics.irida.service.impl.AnalysisExecutionScheduledTaskImpl;
 import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.CleanupAnalysisSubmissionConditionAge;
 import ca.corefacility.bioinformatics.irida.service.impl.TestEmailController;
@@ -84,6 +89,9 @@ public class AnalysisExecutionScheduledTaskImplTest {
 	@Mock
 	private TestEmailController emailController;
 
+	@Mock
+	private AnalysisProgressStore analysisProgressStore;
+
 	private static final String ANALYSIS_ID = "1";
 	private static final Long INTERNAL_ID = 1L;
 	private AnalysisSubmission analysisSubmission;
@@ -101,7 +109,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 
 		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
 				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
-				jobErrorRepository, emailController);
+				jobErrorRepository, emailController, analysisProgressStore);
 
 		analysisSubmission = AnalysisSubmission.builder(workflowId)
 				.name("my analysis")
@@ -293,13 +301,14 @@ public class AnalysisExecutionScheduledTaskImplTest {
 
 		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
 				Arrays.asList(analysisSubmission));
-		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
-				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds));
+		GalaxyWorkflowStatus galaxyWorkflowStatus = new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, stateIds);
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(galaxyWorkflowStatus);
 
 		analysisExecutionScheduledTask.monitorRunningAnalyses();
 
 		assertEquals(AnalysisState.RUNNING, analysisSubmission.getAnalysisState());
 		verify(analysisSubmissionRepository, never()).save(analysisSubmission);
+		verify(analysisProgressStore).record(analysisSubmission, galaxyWorkflowStatus);
 	}
 
 	/**
@@ -458,6 +467,88 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		verify(analysisSubmissionRepository).save(analysisSubmission);
 	}
 
+	/**
+	 * Tests that the states of running analyses are checked together instead
+	 * of one at a time.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesInBulk() throws ExecutionManagerException {
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+		AnalysisSubmission analysisSubmission2 = AnalysisSubmission.builder(workflowId)
+				.name("my other analysis")
+				.inputFiles(sequenceFiles)
+				.referenceFile(referenceFile)
+				.emailPipelineResult(false)
+				.build();
+		analysisSubmission2.setId(INTERNAL_ID + 1);
+		analysisSubmission2.setRemoteAnalysisId(ANALYSIS_ID + 1);
+		analysisSubmission2.setAnalysisState(AnalysisState.RUNNING);
+
+		GalaxyWorkflowStatus finished = new GalaxyWorkflowStatus(GalaxyWorkflowState.OK,
+				Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.OK, Sets.newHashSet("1")));
+		GalaxyWorkflowStatus running = new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING,
+				Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING, Sets.newHashSet("2")));
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(analysisSubmission, analysisSubmission2));
+		when(analysisExecutionService.getWorkflowStatuses(Arrays.asList(analysisSubmission, analysisSubmission2)))
+				.thenReturn(ImmutableMap.of(analysisSubmission.getId(), finished, analysisSubmission2.getId(),
+						running));
+
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+
+		assertEquals(AnalysisState.FINISHED_RUNNING, analysisSubmission.getAnalysisState());
+		assertEquals(AnalysisState.RUNNING, analysisSubmission2.getAnalysisState());
+		verify(analysisExecutionService, never()).getWorkflowStatus(any(AnalysisSubmission.class));
+		verify(analysisSubmissionRepository).save(analysisSubmission);
+		verify(analysisSubmissionRepository, never()).save(analysisSubmission2);
+	}
+
+	/**
+	 * Tests that an analysis that has been running for a long time is checked
+	 * less often, and an analysis that is nearly complete is checked every
+	 * time.
+	 *
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testMonitorRunningAnalysesAdaptiveChecks() throws ExecutionManagerException {
+		MutableClock clock = new MutableClock();
+		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
+				analysisExecutionService, CleanupAnalysisSubmissionCondition.ALWAYS_CLEANUP, galaxyJobErrorsService,
+				jobErrorRepository, emailController, analysisProgressStore, clock);
+		analysisSubmission.setAnalysisState(AnalysisState.RUNNING);
+
+		Map<GalaxyWorkflowState, Set<String>> nearlyCompleteStateIds = Util.buildStateIdsWithStateFilled(
+				GalaxyWorkflowState.OK, Sets.newHashSet("1", "2", "3", "4", "5", "6", "7", "8", "9"));
+		nearlyCompleteStateIds.put(GalaxyWorkflowState.RUNNING, Sets.newHashSet("10"));
+
+		when(analysisSubmissionRepository.findByAnalysisState(AnalysisState.RUNNING)).thenReturn(
+				Arrays.asList(analysisSubmission));
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING,
+						Util.buildStateIdsWithStateFilled(GalaxyWorkflowState.RUNNING, Sets.newHashSet("1"))));
+
+		// first seen, checked right away
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		// running for 10 minutes, next check is a minute later
+		clock.advance(Duration.ofMinutes(10));
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		clock.advance(Duration.ofSeconds(30));
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		verify(analysisExecutionService, times(2)).getWorkflowStatus(analysisSubmission);
+
+		when(analysisExecutionService.getWorkflowStatus(analysisSubmission)).thenReturn(
+				new GalaxyWorkflowStatus(GalaxyWorkflowState.RUNNING, nearlyCompleteStateIds));
+		clock.advance(Duration.ofSeconds(30));
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		analysisExecutionScheduledTask.monitorRunningAnalyses();
+		verify(analysisExecutionService, times(4)).getWorkflowStatus(analysisSubmission);
+		verify(analysisSubmissionRepository, never()).save(analysisSubmission);
+	}
+
 	/**
 	 * Tests successfully transferring results for a submitted analysis.
 	 *
@@ -629,7 +720,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 	public void testCleanupAnalysisSubmissionsCompletedOverOneDaySuccess() throws ExecutionManagerException {
 		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
 				analysisExecutionService, new CleanupAnalysisSubmissionConditionAge(Duration.ofDays(1)),
-				galaxyJobErrorsService, jobErrorRepository, emailController);
+				galaxyJobErrorsService, jobErrorRepository, emailController, analysisProgressStore);
 
 		when(analysisSubmissionMock.getAnalysisState()).thenReturn(AnalysisState.COMPLETED);
 		when(analysisSubmissionMock.getAnalysisCleanedState()).thenReturn(AnalysisCleanedState.NOT_CLEANED);
@@ -656,7 +747,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 	public void testCleanupAnalysisSubmissionsCompletedCleanupZeroSuccess() throws ExecutionManagerException {
 		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
 				analysisExecutionService, new CleanupAnalysisSubmissionConditionAge(Duration.ZERO),
-				galaxyJobErrorsService, jobErrorRepository, emailController);
+				galaxyJobErrorsService, jobErrorRepository, emailController, analysisProgressStore);
 
 		when(analysisSubmissionMock.getAnalysisState()).thenReturn(AnalysisState.COMPLETED);
 		when(analysisSubmissionMock.getAnalysisCleanedState()).thenReturn(AnalysisCleanedState.NOT_CLEANED);
@@ -683,7 +774,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 	public void testCleanupAnalysisSubmissionsCompletedUnderOneDaySuccess() throws ExecutionManagerException {
 		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
 				analysisExecutionService, new CleanupAnalysisSubmissionConditionAge(Duration.ofDays(1)),
-				galaxyJobErrorsService, jobErrorRepository, emailController);
+				galaxyJobErrorsService, jobErrorRepository, emailController, analysisProgressStore);
 
 		when(analysisSubmissionMock.getAnalysisState()).thenReturn(AnalysisState.COMPLETED);
 		when(analysisSubmissionMock.getAnalysisCleanedState()).thenReturn(AnalysisCleanedState.NOT_CLEANED);
@@ -710,7 +801,7 @@ public class AnalysisExecutionScheduledTaskImplTest {
 	public void testCleanupAnalysisSubmissionsCompletedOverUnderOneDaySuccess() throws ExecutionManagerException {
 		analysisExecutionScheduledTask = new AnalysisExecutionScheduledTaskImpl(analysisSubmissionRepository,
 				analysisExecutionService, new CleanupAnalysisSubmissionConditionAge(Duration.ofDays(1)),
-				galaxyJobErrorsService, jobErrorRepository, emailController);
+				galaxyJobErrorsService, jobErrorRepository, emailController, analysisProgressStore);
 
 		when(analysisSubmissionMock.getAnalysisState()).thenReturn(AnalysisState.COMPLETED);
 		when(analysisSubmissionMock.getAnalysisCleanedState()).thenReturn(AnalysisCleanedState.NOT_CLEANED);
@@ -733,4 +824,30 @@ public class AnalysisExecutionScheduledTaskImplTest {
 		verify(analysisExecutionService).cleanupSubmission(analysisSubmissionMock);
 		verify(analysisExecutionService, never()).cleanupSubmission(analysisSubmissionMock2);
 	}
+
+	/**
+	 * A {@link Clock} that can be moved forward by tests.
+	 */
+	private static class MutableClock extends Clock {
+		private Instant instant = Instant.now();
+
+		public void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneId.systemDefault();
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
 }
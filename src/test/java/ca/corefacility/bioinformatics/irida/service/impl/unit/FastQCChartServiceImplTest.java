@@ -0,0 +1,149 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+
+import javax.imageio.ImageIO;
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ca.corefacility.bioinformatics.irida.exceptions.StorageException;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.AnalysisFastQC;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData;
+import ca.corefacility.bioinformatics.irida.model.workflow.analysis.FastQCChartData.Chart;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastQCCharts;
+import ca.corefacility.bioinformatics.irida.processing.impl.FastqcFileProcessor;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisRepository;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.FastQCChartDataRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.service.impl.FastQCChartServiceImpl;
+
+/**
+ * Unit tests for {@link FastQCChartServiceImpl}
+ */
+public class FastQCChartServiceImplTest {
+	private static final Long ANALYSIS_ID = 5L;
+	private static final Long FILE_ID = 1L;
+	private static final Date CREATED_DATE = new Date(1500000000000L);
+	private static final String LINE_GRAPH = "{\"title\":\"Quality score distribution\",\"xLabel\":\"Mean quality\","
+			+ "\"xTitles\":[\"Average quality per read\"],\"xCategories\":[\"30\",\"31\",\"32\"],"
+			+ "\"data\":[[1.0,4.0,2.0]],\"minY\":0.0,\"maxY\":4.0}";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private AnalysisRepository analysisRepository;
+	private FastQCChartDataRepository chartDataRepository;
+	private Path cacheDirectory;
+	private SingleEndSequenceFile sequencingObject;
+
+	@Before
+	public void setUp() throws IOException {
+		analysisRepository = mock(AnalysisRepository.class);
+		chartDataRepository = mock(FastQCChartDataRepository.class);
+		cacheDirectory = folder.newFolder("charts").toPath();
+
+		SequenceFile file = new SequenceFile(Paths.get("/tmp/reads.fastq"));
+		file.setId(FILE_ID);
+		sequencingObject = new SingleEndSequenceFile(file);
+
+		AnalysisFastQC analysis = mock(AnalysisFastQC.class);
+		when(analysis.getId()).thenReturn(ANALYSIS_ID);
+		when(analysis.getCreatedDate()).thenReturn(CREATED_DATE);
+		when(analysisRepository.findFastqcAnalysisForSequenceFile(any(SequenceFile.class))).thenReturn(analysis);
+		when(chartDataRepository.findOne(ANALYSIS_ID))
+				.thenReturn(new FastQCChartData(ANALYSIS_ID, null, LINE_GRAPH, null));
+	}
+
+	@Test
+	public void testChartIsDrawnOnceAndCached() throws IOException {
+		FastQCChartServiceImpl service = createService(256);
+
+		byte[] chart = service.getChart(sequencingObject, FILE_ID, Chart.PER_SEQUENCE_QUALITY);
+		assertNotNull("Chart should be drawn", chart);
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(chart));
+		assertEquals("Chart should be drawn at full width", FastQCCharts.WIDTH, image.getWidth());
+
+		byte[] cached = service.getChart(sequencingObject, FILE_ID, Chart.PER_SEQUENCE_QUALITY);
+		assertArrayEquals("Cached chart should be the drawn chart", chart, cached);
+		verify(chartDataRepository, times(1)).findOne(ANALYSIS_ID);
+		assertTrue("Chart should be written to the cache",
+				Files.exists(cacheDirectory
+						.resolve(ANALYSIS_ID + "-" + CREATED_DATE.getTime() + "-per_sequence_quality.png")));
+	}
+
+	@Test
+	public void testMissingSeriesIsNotDrawn() throws IOException {
+		FastQCChartServiceImpl service = createService(256);
+
+		assertEquals("Chart without a series should not be drawn", null,
+				service.getChart(sequencingObject, FILE_ID, Chart.PER_BASE_QUALITY));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedChartsAreRemoved() throws IOException {
+		byte[] contents = new byte[400 * 1024];
+		Path oldest = cacheDirectory.resolve("1-per_base_quality.png");
+		Path older = cacheDirectory.resolve("2-per_base_quality.png");
+		Path newest = cacheDirectory.resolve("3-per_base_quality.png");
+		Files.write(oldest, contents);
+		Files.write(older, contents);
+		Files.write(newest, contents);
+		long now = System.currentTimeMillis();
+		Files.setLastModifiedTime(oldest, FileTime.fromMillis(now - 30000));
+		Files.setLastModifiedTime(older, FileTime.fromMillis(now - 20000));
+		Files.setLastModifiedTime(newest, FileTime.fromMillis(now - 10000));
+
+		createService(1);
+
+		assertFalse("Least recently used chart should be removed", Files.exists(oldest));
+		assertTrue("Most recently used chart should be kept", Files.exists(newest));
+		long total = Files.size(older) + Files.size(newest);
+		assertTrue("Cache should be within its limit", total <= 1024 * 1024);
+	}
+
+	@Test
+	public void testCacheDirectoryBesideSequenceFiles() throws IOException {
+		Path sequenceFiles = folder.newFolder("data", "sequence").toPath();
+		new FastQCChartServiceImpl(analysisRepository, chartDataRepository, mock(SequenceFileRepository.class),
+				mock(FastqcFileProcessor.class), mock(DataSource.class), "", sequenceFiles.toString(), 256);
+
+		assertTrue("Cache should be created beside the sequence files",
+				Files.isDirectory(sequenceFiles.resolveSibling("fastqc-charts")));
+	}
+
+	@Test(expected = StorageException.class)
+	public void testNoCacheDirectory() {
+		new FastQCChartServiceImpl(analysisRepository, chartDataRepository, mock(SequenceFileRepository.class),
+				mock(FastqcFileProcessor.class), mock(DataSource.class), "", "", 256);
+	}
+
+	private FastQCChartServiceImpl createService(long maxMegabytes) {
+		return new FastQCChartServiceImpl(analysisRepository, chartDataRepository,
+				mock(SequenceFileRepository.class), mock(FastqcFileProcessor.class), mock(DataSource.class),
+				cacheDirectory.toString(), "", maxMegabytes);
+	}
+}
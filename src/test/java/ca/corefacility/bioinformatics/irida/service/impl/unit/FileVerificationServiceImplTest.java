@@ -0,0 +1,133 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.google.common.collect.Lists;
+
+import ca.corefacility.bioinformatics.irida.model.FileMetadata;
+import ca.corefacility.bioinformatics.irida.model.FileMetadata.FileStatus;
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisOutputFileRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
+import ca.corefacility.bioinformatics.irida.service.impl.FileVerificationServiceImpl;
+
+/**
+ * Unit tests for {@link FileVerificationServiceImpl}
+ */
+public class FileVerificationServiceImplTest {
+	private static final byte[] CONTENTS = "@read\nACGT\n+\nIIII\n".getBytes();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private SequenceFileRepository sequenceFileRepository;
+	private AnalysisOutputFileRepository outputFileRepository;
+	private FileVerificationServiceImpl service;
+	private Path path;
+	private Date modified;
+	private Date verified;
+
+	@Before
+	public void setUp() throws IOException {
+		sequenceFileRepository = mock(SequenceFileRepository.class);
+		outputFileRepository = mock(AnalysisOutputFileRepository.class);
+		service = new FileVerificationServiceImpl(sequenceFileRepository, outputFileRepository);
+
+		path = folder.newFile("reads.fastq").toPath();
+		Files.write(path, CONTENTS);
+		modified = new Date(System.currentTimeMillis() - 60000);
+		verified = new Date(System.currentTimeMillis() - 30000);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(modified.getTime()));
+
+		when(outputFileRepository.findLeastRecentlyVerified(any())).thenReturn(Collections.emptyList());
+		when(sequenceFileRepository.updateFileMetadata(any(), any(), any(), any(), any(), any(), any())).thenReturn(1);
+	}
+
+	@Test
+	public void testUnrecordedFileIsRecorded() {
+		SequenceFile file = sequenceFile(1L, null);
+
+		assertEquals("No files should be flagged", 0, service.verifyFiles(10));
+
+		verify(sequenceFileRepository).updateFileMetadata(eq(1L), eq((long) CONTENTS.length), any(Date.class),
+				any(Date.class), eq(FileStatus.AVAILABLE), eq(0L), (Date) isNull());
+		assertNull("File should not have been changed", file.getFileMetadata());
+	}
+
+	@Test
+	public void testUnchangedFileIsAvailable() {
+		sequenceFile(1L, new FileMetadata((long) CONTENTS.length, modified, verified, FileStatus.AVAILABLE));
+
+		assertEquals("No files should be flagged", 0, service.verifyFiles(10));
+
+		verify(sequenceFileRepository).updateFileMetadata(eq(1L), eq((long) CONTENTS.length), eq(modified),
+				any(Date.class), eq(FileStatus.AVAILABLE), eq(0L), eq(verified));
+	}
+
+	@Test
+	public void testChangedFileIsFlagged() throws IOException {
+		sequenceFile(1L, new FileMetadata((long) CONTENTS.length, modified, verified, FileStatus.AVAILABLE));
+		Files.write(path, "@read\nACGTACGT\n+\nIIIIIIII\n".getBytes());
+
+		assertEquals("Changed file should be flagged", 1, service.verifyFiles(10));
+
+		// the recorded size is kept to compare against
+		verify(sequenceFileRepository).updateFileMetadata(eq(1L), eq((long) CONTENTS.length), eq(modified),
+				any(Date.class), eq(FileStatus.CHANGED), eq(0L), eq(verified));
+	}
+
+	@Test
+	public void testMissingFileIsFlagged() throws IOException {
+		sequenceFile(1L, new FileMetadata((long) CONTENTS.length, modified, verified, FileStatus.AVAILABLE));
+		Files.delete(path);
+
+		assertEquals("Missing file should be flagged", 1, service.verifyFiles(10));
+
+		ArgumentCaptor<Date> verifiedDate = ArgumentCaptor.forClass(Date.class);
+		verify(sequenceFileRepository).updateFileMetadata(eq(1L), eq((long) CONTENTS.length), eq(modified),
+				verifiedDate.capture(), eq(FileStatus.MISSING), eq(0L), eq(verified));
+		assertNotNull("Verified date should be set", verifiedDate.getValue());
+	}
+
+	@Test
+	public void testFileRecordedWhileCheckingIsNotFlagged() throws IOException {
+		sequenceFile(1L, new FileMetadata((long) CONTENTS.length, modified, verified, FileStatus.AVAILABLE));
+		Files.delete(path);
+		// the file was rewritten or recorded again after it was read
+		when(sequenceFileRepository.updateFileMetadata(any(), any(), any(), any(), any(), any(), any())).thenReturn(0);
+
+		assertEquals("A stale check should not flag the file", 0, service.verifyFiles(10));
+
+		verify(sequenceFileRepository).updateFileMetadata(eq(1L), eq((long) CONTENTS.length), eq(modified),
+				any(Date.class), eq(FileStatus.MISSING), eq(0L), eq(verified));
+	}
+
+	private SequenceFile sequenceFile(Long id, FileMetadata fileMetadata) {
+		SequenceFile file = new SequenceFile(path);
+		file.setId(id);
+		file.setFileMetadata(fileMetadata);
+		when(sequenceFileRepository.findLeastRecentlyVerified(any())).thenReturn(Lists.newArrayList(file));
+		return file;
+	}
+}
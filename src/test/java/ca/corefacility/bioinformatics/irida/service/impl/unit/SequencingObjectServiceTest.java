@@ -11,6 +11,7 @@ import ca.corefacility.bioinformatics.irida.repositories.joins.sample.SampleSequ
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceConcatenationRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequenceFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
+import ca.corefacility.bioinformatics.irida.service.SequencingObjectProcessingService;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
 import ca.corefacility.bioinformatics.irida.service.impl.SequencingObjectServiceImpl;
 import ca.corefacility.bioinformatics.irida.web.controller.test.unit.TestDataFactory;
@@ -30,6 +31,7 @@ public class SequencingObjectServiceTest {
 	SequenceFileRepository sequenceFileRepository;
 	SampleSequencingObjectJoinRepository ssoRepository;
 	SequenceConcatenationRepository concatenationRepository;
+	SequencingObjectProcessingService processingService;
 	Validator validator;
 
 	@Before
@@ -39,9 +41,10 @@ public class SequencingObjectServiceTest {
 		ssoRepository = mock(SampleSequencingObjectJoinRepository.class);
 
 		concatenationRepository = mock(SequenceConcatenationRepository.class);
+		processingService = mock(SequencingObjectProcessingService.class);
 
 		service = new SequencingObjectServiceImpl(repository, sequenceFileRepository, ssoRepository,
-				concatenationRepository, validator);
+				concatenationRepository, processingService, validator);
 	}
 
 	@Test
@@ -55,6 +58,7 @@ public class SequencingObjectServiceTest {
 		service.createSequencingObjectInSample(sf, s);
 
 		verify(sequenceFileRepository, times(1)).save(any(SequenceFile.class));
+		verify(processingService).dispatchAfterCommit(sf.getId());
 	}
 
 	@Test(expected = IllegalArgumentException.class)
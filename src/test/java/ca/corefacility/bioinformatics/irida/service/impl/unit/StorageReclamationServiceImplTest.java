@@ -0,0 +1,182 @@
+package ca.corefacility.bioinformatics.irida.service.impl.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import ca.corefacility.bioinformatics.irida.metrics.MetricRegistry;
+import ca.corefacility.bioinformatics.irida.service.impl.StorageReclamationServiceImpl;
+
+/**
+ * Unit tests for {@link StorageReclamationServiceImpl}
+ */
+public class StorageReclamationServiceImplTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path sequenceFiles;
+	private Path referenceFiles;
+	private Path outputFiles;
+
+	private List<String> sequenceFilePaths;
+	private List<String> referenceFilePaths;
+	private List<String> outputFilePaths;
+
+	private MetricRegistry metricRegistry;
+	private StorageReclamationServiceImpl service;
+
+	@Before
+	public void setUp() throws SQLException, IOException {
+		sequenceFiles = folder.newFolder("sequence").toPath();
+		referenceFiles = folder.newFolder("reference").toPath();
+		outputFiles = folder.newFolder("output").toPath();
+
+		sequenceFilePaths = new ArrayList<>();
+		referenceFilePaths = new ArrayList<>();
+		outputFilePaths = new ArrayList<>();
+
+		DataSource dataSource = mock(DataSource.class);
+		Connection connection = mock(Connection.class);
+		Statement statement = mock(Statement.class);
+		when(dataSource.getConnection()).thenReturn(connection);
+		when(connection.createStatement()).thenReturn(statement);
+		when(statement.executeQuery(anyString())).thenAnswer(invocation -> {
+			String query = (String) invocation.getArguments()[0];
+			if (query.contains("sequence_file")) {
+				return resultSet(sequenceFilePaths);
+			} else if (query.contains("reference_file")) {
+				return resultSet(referenceFilePaths);
+			}
+			return resultSet(outputFilePaths);
+		});
+
+		metricRegistry = new MetricRegistry();
+		service = new StorageReclamationServiceImpl(dataSource, sequenceFiles, referenceFiles, outputFiles,
+				metricRegistry, 7, 2);
+	}
+
+	@Test
+	public void testQuarantinesUnreferencedRevisions() throws IOException {
+		Path current = writeFile(sequenceFiles.resolve("1/2/file.fastq"), "current", 30);
+		Path oldRevision = writeFile(sequenceFiles.resolve("1/1/file.fastq"), "old revision", 30);
+		Path deleted = writeFile(sequenceFiles.resolve("2/1/deleted.fastq"), "deleted", 30);
+		Path recent = writeFile(sequenceFiles.resolve("3/1/recent.fastq"), "not committed yet", 0);
+		Path sharded = writeFile(sequenceFiles.resolve("shards/0a/15/4/1/sharded.fastq"), "sharded", 30);
+		Path shardedDeleted = writeFile(sequenceFiles.resolve("shards/0a/15/5/1/gone.fastq"), "gone", 30);
+		Path unknown = writeFile(sequenceFiles.resolve("not-an-entity/1/file.fastq"), "unknown", 30);
+		Path reference = writeFile(referenceFiles.resolve("1/1/reference.fasta"), "reference", 30);
+		Path output = writeFile(outputFiles.resolve("7/1/output.txt"), "deleted analysis", 30);
+
+		sequenceFilePaths.add("1/2/file.fastq");
+		sequenceFilePaths.add(sequenceFiles.resolve("shards/0a/15/4/1/sharded.fastq").toString());
+		referenceFilePaths.add("1/1/reference.fasta");
+
+		assertEquals("nothing should be deleted until it has been quarantined", 0, service.reclaimStorage());
+
+		assertTrue(Files.exists(current));
+		assertTrue(Files.exists(recent));
+		assertTrue(Files.exists(sharded));
+		assertTrue(Files.exists(unknown));
+		assertTrue(Files.exists(reference));
+
+		assertQuarantined(sequenceFiles, oldRevision);
+		assertQuarantined(sequenceFiles, deleted);
+		assertQuarantined(sequenceFiles, shardedDeleted);
+		assertQuarantined(outputFiles, output);
+
+		assertFalse("empty entity directory should be removed", Files.exists(sequenceFiles.resolve("2")));
+	}
+
+	@Test
+	public void testDeletesExpiredQuarantine() throws IOException {
+		Path quarantine = sequenceFiles.resolve(StorageReclamationServiceImpl.QUARANTINE_DIRECTORY);
+		Path expired = writeFile(quarantine.resolve("1/1/file.fastq"), "0123456789", 30);
+		Path fresh = writeFile(quarantine.resolve("2/1/file.fastq"), "fresh", 0);
+		Path restored = writeFile(quarantine.resolve("3/1/file.fastq"), "restored", 30);
+
+		sequenceFilePaths.add("3/1/file.fastq");
+
+		assertEquals("only the expired directory should be deleted", 10, service.reclaimStorage());
+
+		assertFalse(Files.exists(expired.getParent()));
+		assertTrue(Files.exists(fresh));
+		assertFalse(Files.exists(restored));
+		assertTrue("referenced directory should be restored",
+				Files.exists(sequenceFiles.resolve("3/1/file.fastq")));
+
+		assertEquals(10, metricRegistry
+				.counter("irida_storage_reclaimed_bytes_total", "Bytes of disk space freed by deleting unreferenced files")
+				.getCount());
+	}
+
+	@Test
+	public void testDeletesUnlinkedBlobs() throws IOException {
+		Path blobs = sequenceFiles.resolve(".blobs");
+		Path linked = writeFile(sequenceFiles.resolve("1/1/file.fastq"), "linked", 30);
+		Path linkedBlob = blobs.resolve("aa/bb/aabb");
+		Files.createDirectories(linkedBlob.getParent());
+		Files.createLink(linkedBlob, linked);
+		Path unlinkedBlob = writeFile(blobs.resolve("cc/dd/ccdd"), "unlinked", 30);
+
+		sequenceFilePaths.add("1/1/file.fastq");
+
+		assertEquals(8, service.reclaimStorage());
+		assertTrue(Files.exists(linkedBlob));
+		assertFalse(Files.exists(unlinkedBlob));
+	}
+
+	private void assertQuarantined(Path baseDirectory, Path file) {
+		Path relative = baseDirectory.relativize(file);
+		assertFalse("[" + relative + "] should have been moved", Files.exists(file));
+		assertTrue("[" + relative + "] should be in quarantine", Files.exists(
+				baseDirectory.resolve(StorageReclamationServiceImpl.QUARANTINE_DIRECTORY).resolve(relative)));
+	}
+
+	private static Path writeFile(Path file, String contents, int ageDays) throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, contents.getBytes());
+		FileTime time = FileTime.fromMillis(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(ageDays));
+		Files.setLastModifiedTime(file, time);
+		Files.setLastModifiedTime(file.getParent(), time);
+		return file;
+	}
+
+	private static ResultSet resultSet(List<String> paths) throws SQLException {
+		Iterator<String> rows = paths.iterator();
+		String[] current = new String[1];
+		ResultSet resultSet = mock(ResultSet.class);
+		when(resultSet.next()).thenAnswer(invocation -> {
+			if (rows.hasNext()) {
+				current[0] = rows.next();
+				return true;
+			}
+			return false;
+		});
+		when(resultSet.getString(1)).thenAnswer(invocation -> current[0]);
+		return resultSet;
+	}
+}
@@ -1,9 +1,17 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit.analysis.submission;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.validation.Validator;
 
 import org.junit.Before;
@@ -16,15 +24,18 @@ import ca.corefacility.bioinformatics.irida.exceptions.ExecutionManagerException
 import ca.corefacility.bioinformatics.irida.exceptions.NoPercentageCompleteException;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisCleanedState;
 import ca.corefacility.bioinformatics.irida.model.enums.AnalysisState;
+import ca.corefacility.bioinformatics.irida.model.workflow.execution.AnalysisProgressSnapshot;
 import ca.corefacility.bioinformatics.irida.model.workflow.execution.galaxy.GalaxyWorkflowStatus;
 import ca.corefacility.bioinformatics.irida.model.workflow.submission.AnalysisSubmission;
 import ca.corefacility.bioinformatics.irida.pipeline.upload.galaxy.GalaxyHistoriesService;
+import ca.corefacility.bioinformatics.irida.repositories.analysis.AnalysisProgressSnapshotRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.AnalysisSubmissionRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.JobErrorRepository;
 import ca.corefacility.bioinformatics.irida.repositories.analysis.submission.ProjectAnalysisSubmissionJoinRepository;
 import ca.corefacility.bioinformatics.irida.repositories.referencefile.ReferenceFileRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
 import ca.corefacility.bioinformatics.irida.service.SequencingObjectService;
+import ca.corefacility.bioinformatics.irida.service.analysis.execution.AnalysisProgressStore;
 import ca.corefacility.bioinformatics.irida.service.analysis.execution.galaxy.AnalysisExecutionServiceGalaxyCleanupAsync;
 import ca.corefacility.bioinformatics.irida.service.impl.analysis.submission.AnalysisSubmissionServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.workflow.IridaWorkflowsService;
@@ -60,6 +71,11 @@ public class AnalysisSubmissionServiceImplTest {
 
 	private AnalysisSubmissionServiceImpl analysisSubmissionServiceImpl;
 
+	private AnalysisProgressStore analysisProgressStore;
+
+	@Mock
+	private AnalysisProgressSnapshotRepository snapshotRepository;
+
 	@Mock
 	private IridaWorkflowsService iridaWorkflowsService;
 
@@ -79,13 +95,25 @@ public class AnalysisSubmissionServiceImplTest {
 	public void setup() {
 		MockitoAnnotations.initMocks(this);
 
+		// keep recorded progress the way the database would
+		Map<Long, AnalysisProgressSnapshot> snapshots = new HashMap<>();
+		when(snapshotRepository.save(any(AnalysisProgressSnapshot.class))).thenAnswer(invocation -> {
+			AnalysisProgressSnapshot snapshot = invocation.getArgumentAt(0, AnalysisProgressSnapshot.class);
+			snapshots.put(snapshot.getAnalysisSubmissionId(), snapshot);
+			return snapshot;
+		});
+		when(snapshotRepository.findOne(anyLong()))
+				.thenAnswer(invocation -> snapshots.get(invocation.getArgumentAt(0, Long.class)));
+
+		analysisProgressStore = new AnalysisProgressStore(snapshotRepository, 600, Clock.systemUTC());
 		analysisSubmissionServiceImpl = new AnalysisSubmissionServiceImpl(analysisSubmissionRepository, userRepository,
 				referenceFileRepository, sequencingObjectService, galaxyHistoriesService, pasRepository,
-				jobErrorRepository, iridaWorkflowsService, validator);
+				jobErrorRepository, iridaWorkflowsService, analysisProgressStore, validator);
 		analysisSubmissionServiceImpl.setAnalysisExecutionService(analysisExecutionService);
 
 		when(analysisSubmissionRepository.findOne(ID)).thenReturn(analysisSubmission);
 		when(analysisSubmission.getRemoteAnalysisId()).thenReturn(HISTORY_ID);
+		when(analysisSubmission.getId()).thenReturn(ID);
 	}
 
 	/**
@@ -205,6 +233,51 @@ public class AnalysisSubmissionServiceImplTest {
 				analysisSubmissionServiceImpl.getPercentCompleteForAnalysisSubmission(ID), DELTA);
 	}
 
+	/**
+	 * Tests that the progress seen while monitoring a running workflow is used
+	 * instead of asking Galaxy again.
+	 * 
+	 * @throws EntityNotFoundException
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testGetPercentageCompleteStateRunningFromSnapshot() throws EntityNotFoundException,
+			ExecutionManagerException {
+		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
+		when(galaxyHistoriesService.getStatusForHistory(HISTORY_ID)).thenReturn(galaxyWorkflowStatus);
+		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(1.0f);
+
+		analysisSubmissionServiceImpl.getPercentCompleteForAnalysisSubmission(ID);
+		assertEquals("invalid percent complete", 90.0f,
+				analysisSubmissionServiceImpl.getPercentCompleteForAnalysisSubmission(ID), DELTA);
+		verify(galaxyHistoriesService, times(1)).getStatusForHistory(HISTORY_ID);
+	}
+
+	/**
+	 * Tests getting the last known percent complete for a running workflow
+	 * without contacting Galaxy.
+	 * 
+	 * @throws ExecutionManagerException
+	 */
+	@Test
+	public void testGetLastKnownPercentCompleteStateRunning() throws ExecutionManagerException {
+		when(analysisSubmission.getAnalysisState()).thenReturn(AnalysisState.RUNNING);
+		when(galaxyWorkflowStatus.getProportionComplete()).thenReturn(0.5f);
+
+		assertEquals("a running analysis without progress should be just started",
+				AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.RUNNING),
+				analysisSubmissionServiceImpl.getLastKnownPercentCompleteForAnalysisSubmission(analysisSubmission),
+				DELTA);
+
+		analysisProgressStore.record(analysisSubmission, galaxyWorkflowStatus);
+		Float runningState = AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.RUNNING);
+		Float finishedState = AnalysisSubmissionServiceImpl.STATE_PERCENTAGE.get(AnalysisState.FINISHED_RUNNING);
+		assertEquals("invalid percent complete", (runningState + finishedState) / 2,
+				analysisSubmissionServiceImpl.getLastKnownPercentCompleteForAnalysisSubmission(analysisSubmission),
+				DELTA);
+		verify(galaxyHistoriesService, never()).getStatusForHistory(HISTORY_ID);
+	}
+
 	/**
 	 * Tests getting the percent complete in the finished running state.
 	 * 
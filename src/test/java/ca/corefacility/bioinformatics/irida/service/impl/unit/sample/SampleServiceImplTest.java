@@ -1,6 +1,7 @@
 package ca.corefacility.bioinformatics.irida.service.impl.unit.sample;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -11,6 +12,8 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import javax.validation.Validation;
 import javax.validation.Validator;
@@ -19,6 +22,9 @@ import javax.validation.ValidatorFactory;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 
 import ca.corefacility.bioinformatics.irida.exceptions.AnalysisAlreadySetException;
@@ -26,8 +32,10 @@ import ca.corefacility.bioinformatics.irida.exceptions.SequenceFileAnalysisExcep
 import ca.corefacility.bioinformatics.irida.model.joins.Join;
 import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
 import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.MetadataTemplateField;
 import ca.corefacility.bioinformatics.irida.model.sample.Sample;
 import ca.corefacility.bioinformatics.irida.model.sample.SampleSequencingObjectJoin;
+import ca.corefacility.bioinformatics.irida.model.sample.metadata.MetadataEntry;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequencingObject;
 import ca.corefacility.bioinformatics.irida.model.sequenceFile.SingleEndSequenceFile;
@@ -40,8 +48,10 @@ import ca.corefacility.bioinformatics.irida.repositories.sample.QCEntryRepositor
 import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
 import ca.corefacility.bioinformatics.irida.repositories.sequencefile.SequencingObjectRepository;
 import ca.corefacility.bioinformatics.irida.repositories.user.UserRepository;
+import ca.corefacility.bioinformatics.irida.security.permissions.project.ProjectMembershipCache;
 import ca.corefacility.bioinformatics.irida.service.impl.sample.SampleServiceImpl;
 import ca.corefacility.bioinformatics.irida.service.sample.SampleService;
+import ca.corefacility.bioinformatics.irida.service.search.SearchIndex;
 
 /**
  * Unit tests for {@link SampleServiceImpl}.
@@ -78,7 +88,8 @@ public class SampleServiceImplTest {
 		ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
 		validator = factory.getValidator();
 		sampleService = new SampleServiceImpl(sampleRepository, psjRepository, analysisRepository,
-				ssoRepository, qcEntryRepository, sequencingObjectRepository, sampleGenomeAssemblyJoinRepository, userRepository, validator);
+				ssoRepository, qcEntryRepository, sequencingObjectRepository, sampleGenomeAssemblyJoinRepository, userRepository,
+				mock(SearchIndex.class), mock(ProjectMembershipCache.class), validator);
 	}
 
 	@Test
@@ -98,6 +109,26 @@ public class SampleServiceImplTest {
 		verify(psjRepository).readSampleForProject(p, s);
 	}
 
+	@Test
+	public void testMergeSampleMetadata() {
+		Project p = new Project();
+		p.setId(1111L);
+		Sample inProject = new Sample("in-project");
+		inProject.setId(1L);
+		MetadataTemplateField field = new MetadataTemplateField("serotype", "text");
+		Map<Long, Map<MetadataTemplateField, MetadataEntry>> metadata = ImmutableMap.of(1L,
+				ImmutableMap.of(field, new MetadataEntry("Enteritidis", "text")), 2L,
+				ImmutableMap.of(field, new MetadataEntry("Heidelberg", "text")));
+
+		when(sampleRepository.getSamplesWithMetadata(p, metadata.keySet())).thenReturn(ImmutableList.of(inProject));
+
+		Set<Long> updated = sampleService.mergeSampleMetadata(p, metadata);
+
+		assertEquals("should only update samples in the project", ImmutableSet.of(1L), updated);
+		verify(sampleRepository).mergeMetadataEntries(ImmutableMap.of(1L, metadata.get(1L)));
+		assertNotNull("should update the modified date", inProject.getModifiedDate());
+	}
+
 	@Test
 	public void testRemoveSequenceFileFromSample() {
 		Sample s = new Sample();
@@ -5,6 +5,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Date;
 import java.util.List;
 
 import org.junit.Before;
@@ -53,4 +54,23 @@ public class SampleRemoteServiceImplTest {
 		verify(sampleRemoteRepository).list(samplesHref, api);
 		assertEquals(samples, samplesForProject);
 	}
+
+	@Test
+	public void testGetSamplesForProjectModifiedSince() {
+		String samplesHref = "http://somewhere/projects/5/samples";
+		Project project = new Project();
+		project.add(new Link(samplesHref, SampleRemoteServiceImpl.PROJECT_SAMPLES_REL));
+		RemoteAPI api = new RemoteAPI();
+		project.setRemoteStatus(new RemoteStatus("http://nowhere", api));
+
+		List<Sample> samples = Lists.newArrayList(new Sample());
+		String changedHref = samplesHref + "?modifiedSince=1000";
+
+		when(sampleRemoteRepository.list(changedHref, api)).thenReturn(samples);
+
+		List<Sample> changedSamples = sampleRemoteService.getSamplesForProjectModifiedSince(project, new Date(1000L));
+
+		verify(sampleRemoteRepository).list(changedHref, api);
+		assertEquals(samples, changedSamples);
+	}
 }
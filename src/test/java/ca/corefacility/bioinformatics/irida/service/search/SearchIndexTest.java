@@ -0,0 +1,207 @@
+package ca.corefacility.bioinformatics.irida.service.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import ca.corefacility.bioinformatics.irida.model.joins.impl.ProjectSampleJoin;
+import ca.corefacility.bioinformatics.irida.model.project.Project;
+import ca.corefacility.bioinformatics.irida.model.sample.Sample;
+import ca.corefacility.bioinformatics.irida.repositories.ProjectRepository;
+import ca.corefacility.bioinformatics.irida.repositories.joins.project.ProjectSampleJoinRepository;
+import ca.corefacility.bioinformatics.irida.repositories.sample.SampleRepository;
+
+/**
+ * Tests for {@link SearchIndex}.
+ */
+public class SearchIndexTest {
+	private static final Duration REBUILD_INTERVAL = Duration.ofMinutes(5);
+	private SampleRepository sampleRepository;
+	private ProjectSampleJoinRepository psjRepository;
+	private ProjectRepository projectRepository;
+	private TaskScheduler scheduler;
+	private MutableClock clock;
+	private SearchIndex searchIndex;
+
+	@Before
+	public void setUp() {
+		sampleRepository = mock(SampleRepository.class);
+		psjRepository = mock(ProjectSampleJoinRepository.class);
+		projectRepository = mock(ProjectRepository.class);
+		scheduler = mock(TaskScheduler.class);
+		clock = new MutableClock();
+		searchIndex = new SearchIndex(sampleRepository, psjRepository, projectRepository, scheduler, true, 100,
+				REBUILD_INTERVAL, clock);
+
+		when(sampleRepository.findSampleNamesAfter(eq(0L), any(Pageable.class)))
+				.thenReturn(rows(new Object[] { 1L, "sample-1" }, new Object[] { 2L, "sample-2" }));
+		when(sampleRepository.findSampleNamesAfter(eq(2L), any(Pageable.class))).thenReturn(ImmutableList.of());
+		when(psjRepository.findProjectIdsForSamplesBetween(0L, 2L))
+				.thenReturn(rows(new Object[] { 1L, 10L }, new Object[] { 2L, 20L }));
+		when(projectRepository.findProjectSearchFields())
+				.thenReturn(rows(new Object[] { 10L, "Outbreak 2017", "Salmonella" },
+						new Object[] { 20L, "Surveillance", null }));
+	}
+
+	@Test
+	public void testNotReady() {
+		assertFalse("should leave searches to the database until built",
+				searchIndex.findSampleIds("sample", null).isPresent());
+	}
+
+	@Test
+	public void testRebuild() {
+		searchIndex.rebuild();
+
+		assertEquals("should find samples by name", ImmutableSet.of(1L, 2L),
+				searchIndex.findSampleIds("SAMPLE", null).get());
+		assertEquals("should only find samples in the given projects", ImmutableSet.of(1L),
+				searchIndex.findSampleIds("sample", ImmutableSet.of(10L)).get());
+		assertEquals("should find projects by organism", ImmutableSet.of(10L),
+				searchIndex.findProjectIds("salmonella", null).get());
+		assertEquals("should find projects by identifier", ImmutableSet.of(20L),
+				searchIndex.findProjectIds("20", ImmutableSet.of(20L)).get());
+		assertFalse("should leave blank searches to the database", searchIndex.findSampleIds(" ", null).isPresent());
+	}
+
+	@Test
+	public void testSampleIdentifier() {
+		searchIndex.rebuild();
+
+		assertEquals("should find samples by identifier", ImmutableSet.of(2L),
+				searchIndex.findSampleIds("2", null).get());
+		assertEquals("should only find samples by the exact identifier", ImmutableSet.of(),
+				searchIndex.findSampleIds("02", null).get());
+	}
+
+	@Test
+	public void testStop() {
+		searchIndex.rebuild();
+		searchIndex.stop();
+
+		assertFalse("should leave searches to the database once stopped",
+				searchIndex.findSampleIds("sample", null).isPresent());
+	}
+
+	@Test
+	public void testScheduledRebuild() {
+		final ScheduledFuture<?> rebuildTask = mock(ScheduledFuture.class);
+		doReturn(rebuildTask).when(scheduler).scheduleWithFixedDelay(any(Runnable.class), anyLong());
+
+		searchIndex.start();
+		verify(scheduler).scheduleWithFixedDelay(any(Runnable.class), eq(REBUILD_INTERVAL.toMillis()));
+
+		searchIndex.stop();
+		verify(rebuildTask).cancel(false);
+	}
+
+	@Test
+	public void testStaleIndex() {
+		searchIndex.rebuild();
+
+		clock.advance(REBUILD_INTERVAL.multipliedBy(2).minusSeconds(1));
+		assertTrue("should search an index rebuilt within two intervals",
+				searchIndex.findSampleIds("sample", null).isPresent());
+
+		clock.advance(Duration.ofSeconds(1));
+		assertFalse("should leave searches to the database when rebuilds have stopped",
+				searchIndex.findSampleIds("sample", null).isPresent());
+
+		searchIndex.rebuild();
+		assertTrue("should search the index again once it's rebuilt",
+				searchIndex.findSampleIds("sample", null).isPresent());
+	}
+
+	@Test
+	public void testUpdates() {
+		searchIndex.rebuild();
+
+		final Project project = new Project("Listeria");
+		project.setId(30L);
+		final Sample sample = new Sample("listeria-1");
+		sample.setId(3L);
+
+		// no transaction is active, so the changes apply right away
+		searchIndex.projectSaved(project);
+		searchIndex.sampleSaved(sample);
+		searchIndex.sampleAddedToProject(3L, 30L);
+		assertEquals("should find the new project", ImmutableSet.of(30L),
+				searchIndex.findProjectIds("listeria", null).get());
+		assertEquals("should find the new sample in its project", ImmutableSet.of(3L),
+				searchIndex.findSampleIds("listeria", ImmutableSet.of(30L)).get());
+
+		searchIndex.sampleRemovedFromProject(3L, 30L);
+		assertEquals("should not find the sample in its old project", ImmutableSet.of(),
+				searchIndex.findSampleIds("listeria", ImmutableSet.of(30L)).get());
+
+		searchIndex.sampleRemoved(1L);
+		searchIndex.projectRemoved(10L);
+		assertEquals("should not find deleted samples", ImmutableSet.of(2L),
+				searchIndex.findSampleIds("sample-", null).get());
+		assertEquals("should not find deleted projects", ImmutableSet.of(),
+				searchIndex.findProjectIds("outbreak", null).get());
+	}
+
+	@Test
+	public void testDisabled() {
+		searchIndex = new SearchIndex(sampleRepository, psjRepository, projectRepository, scheduler, false, 100,
+				REBUILD_INTERVAL, clock);
+		searchIndex.start();
+
+		assertFalse("should leave searches to the database", searchIndex.findSampleIds("sample", null).isPresent());
+		verify(scheduler, never()).scheduleWithFixedDelay(any(Runnable.class), anyLong());
+	}
+
+	private static List<Object[]> rows(final Object[]... rows) {
+		return ImmutableList.copyOf(rows);
+	}
+
+	/**
+	 * A {@link Clock} that can be moved forward by tests.
+	 */
+	private static class MutableClock extends Clock {
+		private Instant instant = Instant.now();
+
+		public void advance(Duration duration) {
+			instant = instant.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneId.systemDefault();
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return instant;
+		}
+	}
+}
@@ -0,0 +1,81 @@
+package ca.corefacility.bioinformatics.irida.service.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Tests for {@link TrigramIndex}.
+ */
+public class TrigramIndexTest {
+	private TrigramIndex index;
+
+	@Before
+	public void setUp() {
+		index = new TrigramIndex();
+		index.put(1L, "Salmonella-001\nToronto", ImmutableSet.of(10L));
+		index.put(2L, "salmonella-002\nWinnipeg", ImmutableSet.of(20L));
+		index.put(3L, "Listeria-001", ImmutableSet.of(10L, 20L));
+	}
+
+	@Test
+	public void testSearch() {
+		assertEquals("should find samples containing the term without regard to case", ImmutableSet.of(1L, 2L),
+				search("SALMONELLA", null));
+		assertEquals("should find samples by any field", ImmutableSet.of(2L), search("winni", null));
+		assertEquals("should not find samples that only have the term's trigrams", ImmutableSet.of(),
+				search("nellasal", null));
+		assertEquals("should find samples with short terms", ImmutableSet.of(1L, 3L), search("01", null));
+	}
+
+	@Test
+	public void testSearchFiltered() {
+		assertEquals("should only find samples with allowed filters", ImmutableSet.of(1L),
+				search("salmonella", ImmutableSet.of(10L)));
+		assertEquals("should find samples with any allowed filter", ImmutableSet.of(3L),
+				search("listeria", ImmutableSet.of(20L)));
+		assertEquals("should find nothing without allowed filters", ImmutableSet.of(),
+				search("listeria", ImmutableSet.of()));
+	}
+
+	@Test
+	public void testUpdates() {
+		index.putText(1L, "Campylobacter-001");
+		assertEquals("should not find old text", ImmutableSet.of(2L), search("salmonella", null));
+		assertEquals("should keep filters when text changes", ImmutableSet.of(1L),
+				search("campylobacter", ImmutableSet.of(10L)));
+
+		index.addFilter(2L, 10L);
+		index.removeFilter(3L, 10L);
+		assertEquals("should use changed filters", ImmutableSet.of(1L, 2L), search("0", ImmutableSet.of(10L)));
+
+		index.remove(2L);
+		assertEquals("should not find removed entities", ImmutableSet.of(), search("winnipeg", null));
+		assertEquals("should count entities", 2, index.size());
+	}
+
+	@Test
+	public void testManyUpdates() {
+		for (int i = 0; i < 100; i++) {
+			index.putText(1L, "Salmonella-" + i);
+		}
+		assertEquals("should find the last text after compacting", ImmutableSet.of(1L), search("salmonella-99", null));
+		assertEquals("should count entities", 3, index.size());
+	}
+
+	@Test
+	public void testSearchOverLimit() {
+		assertFalse("should not answer searches matching too many entities",
+				index.search("salmonella", null, 1).isPresent());
+	}
+
+	private Set<Long> search(final String term, final Set<Long> allowed) {
+		return index.search(term, allowed, 100).get();
+	}
+}
@@ -0,0 +1,97 @@
+package ca.corefacility.bioinformatics.irida.util.unit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.google.common.collect.ImmutableList;
+
+import ca.corefacility.bioinformatics.irida.repositories.filesystem.ShardedStorageLayout;
+import ca.corefacility.bioinformatics.irida.util.RecursiveDeleteVisitor;
+import ca.corefacility.bioinformatics.irida.util.SequenceFileShardMigration;
+
+public class SequenceFileShardMigrationTest {
+	private Path baseDirectory;
+	private JdbcTemplate template;
+	private ShardedStorageLayout layout;
+	private SequenceFileShardMigration migration;
+
+	@Before
+	public void setUp() throws IOException {
+		baseDirectory = Files.createTempDirectory(null);
+		template = mock(JdbcTemplate.class);
+		layout = new ShardedStorageLayout(2);
+		migration = new SequenceFileShardMigration(baseDirectory, layout, template);
+
+		Files.createDirectories(baseDirectory.resolve("7").resolve("2"));
+		Files.write(baseDirectory.resolve("7").resolve("2").resolve("reads.fastq"), "ACGT".getBytes());
+
+		when(template.queryForList(anyString(), eq(Long.class))).thenReturn(ImmutableList.of(7L));
+		when(template.queryForList(anyString(), eq(String.class), eq(7L))).thenReturn(ImmutableList.of("7/2/reads.fastq"));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.walkFileTree(baseDirectory, new RecursiveDeleteVisitor());
+	}
+
+	@Test
+	public void testMigrate() {
+		migration.migrate();
+
+		Path moved = layout.getEntityDirectory(baseDirectory, 7L);
+		assertFalse("old directory should be gone", Files.exists(baseDirectory.resolve("7")));
+		assertTrue("file should have been moved", Files.exists(moved.resolve("2").resolve("reads.fastq")));
+
+		String updated = baseDirectory.relativize(moved).resolve("2").resolve("reads.fastq").toString();
+		verify(template).update("update sequence_file set file_path = ? where id = ? and file_path = ?", updated, 7L,
+				"7/2/reads.fastq");
+		verify(template).update("update sequence_file_AUD set file_path = ? where id = ? and file_path = ?", updated,
+				7L, "7/2/reads.fastq");
+	}
+
+	@Test
+	public void testMigrateTwiceDoesNothing() {
+		migration.migrate();
+		assertFalse("should be nothing left to migrate", migration.migrate(7L));
+	}
+
+	@Test
+	public void testDatabaseFailureMovesFilesBack() {
+		when(template.update(anyString(), (Object[]) anyVararg()))
+				.thenThrow(new DataIntegrityViolationException("failed"));
+
+		try {
+			migration.migrate(7L);
+		} catch (DataIntegrityViolationException e) {
+			// expected
+		}
+
+		assertTrue("file should have been moved back",
+				Files.exists(baseDirectory.resolve("7").resolve("2").resolve("reads.fastq")));
+		assertFalse("file should not be in the sharded layout",
+				Files.exists(layout.getEntityDirectory(baseDirectory, 7L)));
+	}
+
+	@Test
+	public void testMissingDirectorySkipped() {
+		assertFalse("missing directory should be skipped", migration.migrate(8L));
+		verify(template, never()).update(anyString(), (Object[]) anyVararg());
+	}
+}
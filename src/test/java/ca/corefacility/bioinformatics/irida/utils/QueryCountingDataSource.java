@@ -0,0 +1,110 @@
+package ca.corefacility.bioinformatics.irida.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * A {@link DataSource} that counts the statements prepared on its connections
+ * by the current thread, for tests that check how many queries it takes to
+ * load something. Statements run by other threads (scheduled tasks, for
+ * example) aren't counted.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+	private static final ThreadLocal<long[]> statements = new ThreadLocal<>();
+
+	public QueryCountingDataSource(DataSource dataSource) {
+		super(dataSource);
+	}
+
+	/**
+	 * Count the statements run while loading something.
+	 *
+	 * @param work
+	 *            the code to count statements for
+	 * @param <T>
+	 *            the type of the result
+	 * @return the result and the number of statements run
+	 */
+	public static <T> Counted<T> count(Callable<T> work) {
+		long[] previous = statements.get();
+		long[] counter = new long[1];
+		statements.set(counter);
+		try {
+			T result = work.call();
+			return new Counted<>(result, counter[0]);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		} finally {
+			statements.set(previous);
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return counting(super.getConnection());
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return counting(super.getConnection(username, password));
+	}
+
+	private static Connection counting(Connection connection) {
+		InvocationHandler handler = (proxy, method, args) -> {
+			if (isStatement(method)) {
+				long[] counter = statements.get();
+				if (counter != null) {
+					counter[0]++;
+				}
+			}
+			try {
+				return method.invoke(connection, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		};
+		return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, handler);
+	}
+
+	private static boolean isStatement(Method method) {
+		String name = method.getName();
+		return name.equals("prepareStatement") || name.equals("prepareCall") || name.equals("createStatement");
+	}
+
+	/**
+	 * The result of some work and the number of statements it ran.
+	 *
+	 * @param <T>
+	 *            the type of the result
+	 */
+	public static class Counted<T> {
+		private final T result;
+		private final long statements;
+
+		private Counted(T result, long statements) {
+			this.result = result;
+			this.statements = statements;
+		}
+
+		public T getResult() {
+			return result;
+		}
+
+		public long getStatements() {
+			return statements;
+		}
+	}
+}
@@ -4,11 +4,13 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -168,6 +170,32 @@ public class RESTProjectSamplesControllerTest {
 		assertTrue("Rels should be empty after removing expected links", rels.isEmpty());
 	}
 
+	@Test
+	public void testGetProjectSamplesModifiedSince() {
+		Project p = TestDataFactory.constructProject();
+		Sample s = TestDataFactory.constructSample();
+		Date since = new Date(1000L);
+
+		when(sampleService.getSamplesForProjectModifiedSince(p, since)).thenReturn(Lists.newArrayList(s));
+		when(projectService.read(p.getId())).thenReturn(p);
+
+		ModelMap modelMap = controller.getProjectSamplesModifiedSince(p.getId(), since.getTime());
+
+		verify(sampleService).getSamplesForProjectModifiedSince(p, since);
+		verify(sampleService, never()).getSamplesForProjectShallow(p);
+
+		Object o = modelMap.get(RESTGenericController.RESOURCE_NAME);
+		assertTrue(o instanceof ResourceCollection);
+		@SuppressWarnings("unchecked")
+		ResourceCollection<Sample> samples = (ResourceCollection<Sample>) o;
+		assertEquals(1, samples.size());
+		Link self = samples.getLink(Link.REL_SELF);
+		assertEquals("http://localhost/api/projects/" + p.getId() + "/samples?"
+				+ RESTProjectSamplesController.MODIFIED_SINCE_PARAM + "=" + since.getTime(), self.getHref());
+		Sample resource = samples.iterator().next();
+		assertNotNull("sample should link to its metadata", resource.getLink(RESTSampleMetadataController.METADATA_REL));
+	}
+
 	@Test
 	public void testGetProjectSample() throws IOException {
 		Project p = TestDataFactory.constructProject();
@@ -0,0 +1,98 @@
+package ca.corefacility.bioinformatics.irida.web.spring.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HttpHeaders;
+
+import ca.corefacility.bioinformatics.irida.model.sequenceFile.SequenceFile;
+import ca.corefacility.bioinformatics.irida.web.controller.api.RESTGenericController;
+
+/**
+ * Tests for {@link FastqView}.
+ */
+public class FastqViewTest {
+	private static final String FILE_CONTENTS = "@read\nACGT\n+\n????\n";
+
+	private FastqView view;
+	private Path file;
+	private Map<String, Object> model;
+
+	@Before
+	public void setUp() throws IOException {
+		view = new FastqView();
+		file = Files.createTempFile(null, ".fastq");
+		Files.write(file, FILE_CONTENTS.getBytes());
+		model = ImmutableMap.of(RESTGenericController.RESOURCE_NAME, new SequenceFile(file));
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testRenderWholeFile() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+
+		view.render(model, new MockHttpServletRequest(), response);
+
+		assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(FILE_CONTENTS, response.getContentAsString());
+		assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+		assertNotNull("should send an entity tag", response.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void testRenderRange() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=6-");
+
+		view.render(model, request, response);
+
+		assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, response.getStatus());
+		assertEquals(FILE_CONTENTS.substring(6), response.getContentAsString());
+		assertEquals("bytes 6-" + (FILE_CONTENTS.length() - 1) + "/" + FILE_CONTENTS.length(),
+				response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	public void testRenderRangeForChangedFile() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=6-");
+		request.addHeader(HttpHeaders.IF_RANGE, "\"not-this-file\"");
+
+		view.render(model, request, response);
+
+		assertEquals("the whole file should be sent", HttpServletResponse.SC_OK, response.getStatus());
+		assertEquals(FILE_CONTENTS, response.getContentAsString());
+	}
+
+	@Test
+	public void testRenderUnsatisfiableRange() throws Exception {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader(HttpHeaders.RANGE, "bytes=" + FILE_CONTENTS.length() + "-");
+
+		view.render(model, request, response);
+
+		assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatus());
+		assertEquals("bytes */" + FILE_CONTENTS.length(), response.getHeader(HttpHeaders.CONTENT_RANGE));
+	}
+}